@@ -0,0 +1,69 @@
+package com.felype.todolist.benchmark;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.felype.todolist.TodoListApplication;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.repository.ReactiveItemStore;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Shared setup for the benchmarks: each trial gets its own application context
+ * over a fresh H2 in-memory database.
+ */
+@UtilityClass
+public class Benchmarks {
+
+	private static final int SEED_BATCH_SIZE = 1000;
+
+	public ConfigurableApplicationContext start(String... properties) {
+		return start(WebApplicationType.NONE, properties);
+	}
+
+	public ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+		return new SpringApplicationBuilder(TodoListApplication.class)
+				.web(webApplicationType)
+				.properties("spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+						"spring.main.banner-mode=off",
+						"logging.level.root=warn",
+						"logging.level.com.felype.todolist.benchmark=info")
+				.properties(properties)
+				.run();
+	}
+
+	/**
+	 * Stores {@code count} items and returns the highest ID assigned.
+	 */
+	public long seed(ConfigurableApplicationContext context, int count) {
+		ReactiveItemStore itemStore = context.getBean(ReactiveItemStore.class);
+		long highestId = 0;
+
+		for (int offset = 0; offset < count; offset += SEED_BATCH_SIZE) {
+			java.util.List<Item> batch = new ArrayList<>();
+
+			for (int i = offset; i < Math.min(count, offset + SEED_BATCH_SIZE); i++) {
+				batch.add(item(i));
+			}
+
+			for (Item saved : itemStore.saveAll(batch).toIterable()) {
+				highestId = Math.max(highestId, saved.getId());
+			}
+		}
+
+		return highestId;
+	}
+
+	public Item item(int index) {
+		return Item.builder()
+				.title("Item " + index)
+				.description("Description of item " + index)
+				.build();
+	}
+
+}
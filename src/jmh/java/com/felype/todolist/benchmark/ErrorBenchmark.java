@@ -0,0 +1,91 @@
+package com.felype.todolist.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.felype.todolist.resource.ResourceErrorHandler;
+import com.felype.todolist.resource.ToDoListResource;
+
+/**
+ * Requests answered with an error through {@link ToDoListResource}, logged at
+ * INFO the way the application logs them, to a file rather than the console.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ErrorBenchmark {
+
+	private static final int ITEM_COUNT = 100;
+
+	private ConfigurableApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	private long highestId;
+
+	@Setup
+	public void setup() {
+		context = Benchmarks.start("logging.level.com.felype.todolist=info",
+				"logging.pattern.console=",
+				"logging.file.name=target/error-benchmark.log");
+		highestId = Benchmarks.seed(context, ITEM_COUNT);
+
+		mockMvc = MockMvcBuilders.standaloneSetup(context.getBean(ToDoListResource.class))
+				.setControllerAdvice(context.getBean(ResourceErrorHandler.class))
+				.setMessageConverters(new MappingJackson2HttpMessageConverter(context.getBean(ObjectMapper.class)))
+				.build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * An ID never assigned, answered with 404.
+	 */
+	@Benchmark
+	public String getMissingItem() throws Exception {
+		return perform(get("/items/{itemId}", highestId + 1 + ThreadLocalRandom.current().nextInt(ITEM_COUNT)));
+	}
+
+	/**
+	 * Answered with 400 by the service.
+	 */
+	@Benchmark
+	public String getItemsInvalidLimit() throws Exception {
+		return perform(get("/items").param("limit", "0"));
+	}
+
+	private String perform(RequestBuilder request) throws Exception {
+		MvcResult started = mockMvc.perform(request).andReturn();
+
+		return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getContentAsString();
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.felype.todolist.benchmark;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.felype.todolist.model.BatchResult;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.service.ToDoListService;
+
+/**
+ * Inserts through {@link ToDoListService} with each way of assigning IDs, on
+ * the engines it works with: {@code engine} leaves them to the engine, the
+ * Hibernate sequence on jpa and the identity column on r2dbc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InsertBenchmark {
+
+	private static final int BATCH_SIZE = 100;
+
+	@Param({ "jpa:engine", "jpa:block", "jpa:snowflake", "r2dbc:engine", "r2dbc:snowflake" })
+	private String idStrategy;
+
+	private ConfigurableApplicationContext context;
+
+	private ToDoListService toDoListService;
+
+	@Setup
+	public void setup() {
+		String[] engineAndStrategy = idStrategy.split(":");
+		String strategy = "todolist.ids.strategy=" + engineAndStrategy[1];
+
+		// The r2dbc profile comes with the reactive stack, which needs a server.
+		if ("r2dbc".equals(engineAndStrategy[0])) {
+			context = Benchmarks.start(WebApplicationType.REACTIVE, "server.port=0", "spring.profiles.active=r2dbc",
+					"todolist.storage.r2dbc.url=r2dbc:h2:mem:///" + UUID.randomUUID() + "?options=DB_CLOSE_DELAY=-1",
+					strategy);
+		} else {
+			context = Benchmarks.start(strategy);
+		}
+
+		toDoListService = context.getBean(ToDoListService.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Item addItem() {
+		return toDoListService.addItem(Benchmarks.item(0)).block();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public BatchResult addItems() {
+		// Saving assigns the IDs of the items, so each call needs new ones.
+		java.util.List<Item> batch = new ArrayList<>();
+
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			batch.add(Benchmarks.item(i));
+		}
+
+		return toDoListService.addItems(batch).block();
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.felype.todolist.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import com.felype.todolist.model.Item;
+import com.felype.todolist.repository.memory.InMemoryItemStore;
+import com.felype.todolist.repository.memory.ItemJournal;
+import com.felype.todolist.service.ToDoListService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Durable storage on disk: writes through {@link ToDoListService} to the
+ * memory engine with its journal, against the jpa engine over H2 in file mode,
+ * and the time the memory engine takes to recover from a snapshot followed by
+ * log segments.
+ * <p>
+ * The journal fsyncs every group commit before a write returns, while H2 only
+ * writes its store out every so often, so the comparison flatters H2.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JournalBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Writes {
+
+		@Param({ "memory-journal", "h2-file" })
+		private String storage;
+
+		private Path directory;
+
+		private ConfigurableApplicationContext context;
+
+		private ToDoListService toDoListService;
+
+		@Setup
+		public void setup() throws IOException {
+			directory = Files.createTempDirectory("todolist-journal-benchmark");
+
+			if ("memory-journal".equals(storage)) {
+				context = Benchmarks.start("todolist.storage.engine=memory",
+						"todolist.storage.memory.data-dir=" + directory);
+			} else {
+				context = Benchmarks.start("spring.datasource.url=jdbc:h2:file:" + directory.resolve("todolist"));
+			}
+
+			toDoListService = context.getBean(ToDoListService.class);
+		}
+
+		@TearDown
+		public void tearDown() throws IOException {
+			context.close();
+			FileSystemUtils.deleteRecursively(directory);
+		}
+
+	}
+
+	/**
+	 * A journal holding {@code itemCount} items, the first half of them in a
+	 * snapshot and the second half in the log after it.
+	 */
+	@State(Scope.Benchmark)
+	public static class Journal {
+
+		@Param({ "10000", "100000" })
+		private int itemCount;
+
+		private Path directory;
+
+		@Setup
+		public void setup() throws IOException {
+			directory = Files.createTempDirectory("todolist-journal-benchmark");
+
+			try (ItemJournal journal = new ItemJournal(directory, new SimpleMeterRegistry())) {
+				InMemoryItemStore store = new InMemoryItemStore(Optional.of(journal));
+				java.util.List<Item> items = new ArrayList<>();
+
+				for (int i = 0; i < itemCount; i++) {
+					items.add(Benchmarks.item(i));
+
+					if (items.size() == 1000 || i == itemCount - 1) {
+						store.saveAll(items);
+						items.clear();
+					}
+
+					if (i == itemCount / 2) {
+						store.snapshot();
+					}
+				}
+			}
+		}
+
+		@TearDown
+		public void tearDown() throws IOException {
+			FileSystemUtils.deleteRecursively(directory);
+		}
+
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	@Threads(8)
+	public Item addItem(Writes writes) {
+		return writes.toDoListService.addItem(Benchmarks.item(0)).block();
+	}
+
+	/**
+	 * Each recovery also starts an empty segment, which the next one finds.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public InMemoryItemStore recover(Journal journal) throws IOException {
+		try (ItemJournal recovered = new ItemJournal(journal.directory, new SimpleMeterRegistry())) {
+			return new InMemoryItemStore(Optional.of(recovered));
+		}
+	}
+
+}
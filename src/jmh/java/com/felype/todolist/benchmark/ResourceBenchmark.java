@@ -0,0 +1,116 @@
+package com.felype.todolist.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.felype.todolist.resource.ResourceErrorHandler;
+import com.felype.todolist.resource.ToDoListResource;
+
+/**
+ * End-to-end calls through {@link ToDoListResource} on the Spring MVC stack
+ * the application runs on, down to H2 in-memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResourceBenchmark {
+
+	private static final int PAGE_SIZE = 100;
+
+	@Param({ "1", "100", "100000" })
+	private int itemCount;
+
+	private ConfigurableApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	private long highestId;
+
+	private byte[] newItem;
+
+	@Setup
+	public void setup() throws Exception {
+		context = Benchmarks.start();
+		highestId = Benchmarks.seed(context, itemCount);
+
+		ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+
+		mockMvc = MockMvcBuilders.standaloneSetup(context.getBean(ToDoListResource.class))
+				.setControllerAdvice(context.getBean(ResourceErrorHandler.class))
+				.setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+				.build();
+		newItem = objectMapper.writeValueAsBytes(Benchmarks.item(itemCount));
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public String getItem() throws Exception {
+		return perform(get("/items/{itemId}", randomId()));
+	}
+
+	@Benchmark
+	public String getItems() throws Exception {
+		return perform(get("/items"));
+	}
+
+	@Benchmark
+	public String getItemsPage() throws Exception {
+		return perform(get("/items")
+				.param("after", String.valueOf(randomId() - 1))
+				.param("limit", String.valueOf(PAGE_SIZE)));
+	}
+
+	@Benchmark
+	public String postItem() throws Exception {
+		return perform(post("/items")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(newItem));
+	}
+
+	/**
+	 * The endpoints return publishers, so the request is dispatched again once
+	 * the result is ready, the way the servlet container would.
+	 */
+	private String perform(RequestBuilder request) throws Exception {
+		MvcResult started = mockMvc.perform(request).andReturn();
+
+		return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getContentAsString();
+	}
+
+	private long randomId() {
+		return highestId - ThreadLocalRandom.current().nextInt(itemCount);
+	}
+
+}
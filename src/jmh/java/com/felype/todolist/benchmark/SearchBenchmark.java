@@ -0,0 +1,121 @@
+package com.felype.todolist.benchmark;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.List;
+import com.felype.todolist.repository.ReactiveItemStore;
+import com.felype.todolist.service.ToDoListService;
+import com.felype.todolist.service.search.SearchIndex;
+
+/**
+ * {@link ToDoListService#search} against H2 in-memory, through the search
+ * index and through SQL {@code LIKE}. Items are made of words drawn from a
+ * fixed vocabulary, the lower-numbered words more often, so queries hit both
+ * common and rare terms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchBenchmark {
+
+	private static final int VOCABULARY_SIZE = 5000;
+
+	private static final int SEED_BATCH_SIZE = 1000;
+
+	private static final int PAGE_SIZE = 20;
+
+	@Param({ "10000", "100000" })
+	private int itemCount;
+
+	@Param({ "true", "false" })
+	private boolean indexEnabled;
+
+	private ConfigurableApplicationContext context;
+
+	private ToDoListService toDoListService;
+
+	@Setup
+	public void setup() {
+		context = Benchmarks.start("todolist.search.index-enabled=" + indexEnabled);
+		toDoListService = context.getBean(ToDoListService.class);
+
+		ReactiveItemStore itemStore = context.getBean(ReactiveItemStore.class);
+		Random random = new Random(42);
+
+		for (int offset = 0; offset < itemCount; offset += SEED_BATCH_SIZE) {
+			java.util.List<Item> batch = new ArrayList<>();
+
+			for (int i = offset; i < Math.min(itemCount, offset + SEED_BATCH_SIZE); i++) {
+				batch.add(Item.builder().title(words(random, 3)).description(words(random, 12)).build());
+			}
+
+			itemStore.saveAll(batch).blockLast();
+		}
+
+		// Seeding bypasses the service, so the index is built from the store.
+		if (indexEnabled) {
+			context.getBean(SearchIndex.class).rebuild().block();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List searchOneTerm() {
+		return toDoListService.search(word(ThreadLocalRandom.current()), null, PAGE_SIZE).block();
+	}
+
+	@Benchmark
+	public List searchTwoTerms() {
+		return toDoListService.search(words(ThreadLocalRandom.current(), 2), null, PAGE_SIZE).block();
+	}
+
+	@Benchmark
+	public List searchPrefix() {
+		return toDoListService.search(word(ThreadLocalRandom.current()) + "*", null, PAGE_SIZE).block();
+	}
+
+	private static String words(Random random, int count) {
+		StringBuilder words = new StringBuilder(word(random));
+
+		for (int i = 1; i < count; i++) {
+			words.append(' ').append(word(random));
+		}
+
+		return words.toString();
+	}
+
+	/**
+	 * Squaring a uniform draw skews it towards the start of the vocabulary.
+	 */
+	private static String word(Random random) {
+		double draw = random.nextDouble();
+
+		return "w" + (int) (draw * draw * VOCABULARY_SIZE);
+	}
+
+}
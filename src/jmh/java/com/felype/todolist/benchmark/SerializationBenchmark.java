@@ -0,0 +1,119 @@
+package com.felype.todolist.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.List;
+import com.felype.todolist.resource.protobuf.ItemProtobuf;
+import com.google.protobuf.CodedInputStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serialization of {@link Item} and of the {@link List} envelope in each body
+ * format the resource offers: JSON, the default, and the binary Smile, CBOR and
+ * protobuf. The Jackson formats use the snake case naming the models declare.
+ * The body sizes are logged on setup.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializationBenchmark {
+
+	@Param({ "1", "100", "100000" })
+	private int itemCount;
+
+	@Param({ "json", "smile", "cbor", "protobuf" })
+	private String format;
+
+	private ObjectMapper objectMapper;
+
+	private Item item;
+
+	private byte[] itemBody;
+
+	private List list;
+
+	private byte[] listBody;
+
+	@Setup
+	public void setup() throws IOException {
+		// Same defaults Spring applies to the mappers behind the HTTP endpoints.
+		switch (format) {
+			case "json":
+				objectMapper = Jackson2ObjectMapperBuilder.json().build();
+				break;
+			case "smile":
+				objectMapper = Jackson2ObjectMapperBuilder.smile().build();
+				break;
+			case "cbor":
+				objectMapper = Jackson2ObjectMapperBuilder.cbor().build();
+				break;
+			default:
+				objectMapper = null;
+		}
+
+		java.util.List<Item> items = new ArrayList<>(itemCount);
+
+		for (int i = 0; i < itemCount; i++) {
+			items.add(Benchmarks.item(i).setId(i + 1L));
+		}
+
+		item = items.get(0);
+		itemBody = write(item);
+		list = List.builder().items(items).build();
+		listBody = write(list);
+
+		log.info("{}: item {} bytes, list {} bytes", format, itemBody.length, listBody.length);
+	}
+
+	@Benchmark
+	public byte[] writeItem() throws IOException {
+		return write(item);
+	}
+
+	@Benchmark
+	public Item readItem() throws IOException {
+		return read(Item.class, itemBody);
+	}
+
+	@Benchmark
+	public byte[] writeList() throws IOException {
+		return write(list);
+	}
+
+	@Benchmark
+	public List readList() throws IOException {
+		return read(List.class, listBody);
+	}
+
+	private byte[] write(Object value) throws IOException {
+		return objectMapper == null ? ItemProtobuf.write(value) : objectMapper.writeValueAsBytes(value);
+	}
+
+	private <T> T read(Class<T> type, byte[] body) throws IOException {
+		return objectMapper == null ? type.cast(ItemProtobuf.read(type, CodedInputStream.newInstance(body)))
+				: objectMapper.readValue(body, type);
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.felype.todolist.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.List;
+import com.felype.todolist.service.ToDoListService;
+
+/**
+ * {@link ToDoListService} against H2 in-memory, with and without the item
+ * cache in front of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ServiceBenchmark {
+
+	private static final int PAGE_SIZE = 100;
+
+	@Param({ "1", "100", "100000" })
+	private int itemCount;
+
+	@Param({ "true", "false" })
+	private boolean cacheEnabled;
+
+	private ConfigurableApplicationContext context;
+
+	private ToDoListService toDoListService;
+
+	private long highestId;
+
+	@Setup
+	public void setup() {
+		context = Benchmarks.start("todolist.cache.enabled=" + cacheEnabled);
+		toDoListService = context.getBean(ToDoListService.class);
+		highestId = Benchmarks.seed(context, itemCount);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Item getItem() {
+		return toDoListService.getItem(randomId()).block();
+	}
+
+	@Benchmark
+	public List getItems() {
+		return toDoListService.getItems().block();
+	}
+
+	@Benchmark
+	public List getItemsPage() {
+		return toDoListService.getItems(randomId() - 1, PAGE_SIZE).block();
+	}
+
+	@Benchmark
+	public Item addItem() {
+		return toDoListService.addItem(Benchmarks.item(itemCount)).block();
+	}
+
+	@Benchmark
+	public Item updateItem() {
+		long id = randomId();
+
+		return toDoListService.updateItem(Benchmarks.item((int) id).setId(id)).block();
+	}
+
+	private long randomId() {
+		return highestId - ThreadLocalRandom.current().nextInt(itemCount);
+	}
+
+}
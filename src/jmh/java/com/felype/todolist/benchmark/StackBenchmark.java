@@ -0,0 +1,155 @@
+package com.felype.todolist.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Load on a real server, comparing the servlet stack over JPA with the
+ * reactive one over R2DBC. Many client threads keep requests in flight, and
+ * the threads the server needed for it are logged at the end of the trial,
+ * grouped by pool; the client side is the same on both stacks, one JMH thread
+ * per connection.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(64)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class StackBenchmark {
+
+	private static final int ITEM_COUNT = 10000;
+
+	private static final int PAGE_SIZE = 100;
+
+	@Param({ "servlet", "reactive" })
+	private String stack;
+
+	private ConfigurableApplicationContext context;
+
+	private String baseUrl;
+
+	private long highestId;
+
+	private byte[] newItem;
+
+	@Setup
+	public void setup() throws Exception {
+		// The load comes from one client, and is meant to reach the service.
+		if ("reactive".equals(stack)) {
+			context = Benchmarks.start(WebApplicationType.REACTIVE, "server.port=0",
+					"spring.profiles.active=r2dbc",
+					"todolist.storage.r2dbc.url=r2dbc:h2:mem:///" + UUID.randomUUID() + "?options=DB_CLOSE_DELAY=-1",
+					"todolist.limits.rate.enabled=false", "todolist.limits.concurrency.enabled=false");
+		} else {
+			context = Benchmarks.start(WebApplicationType.SERVLET, "server.port=0",
+					"todolist.limits.rate.enabled=false", "todolist.limits.concurrency.enabled=false");
+		}
+
+		highestId = Benchmarks.seed(context, ITEM_COUNT);
+		baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+		newItem = "{\"title\":\"New item\"}".getBytes(StandardCharsets.UTF_8);
+
+		ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Map<String, Integer> pools = new TreeMap<>();
+
+		Thread.getAllStackTraces().keySet().forEach(thread ->
+				pools.merge(thread.getName().replaceAll("[-#]?\\d+$", ""), 1, Integer::sum));
+
+		log.info("{}: {} live threads, {} at peak, by pool: {}", stack, threads.getThreadCount(),
+				threads.getPeakThreadCount(), pools);
+
+		context.close();
+	}
+
+	@Benchmark
+	public byte[] getItem() throws IOException {
+		return request("GET", "/items/" + (highestId - ThreadLocalRandom.current().nextInt(ITEM_COUNT)), null);
+	}
+
+	@Benchmark
+	public byte[] getItemsPage() throws IOException {
+		long after = highestId - ThreadLocalRandom.current().nextInt(ITEM_COUNT) - 1;
+
+		return request("GET", "/items?after=" + after + "&limit=" + PAGE_SIZE, null);
+	}
+
+	@Benchmark
+	public byte[] postItem() throws IOException {
+		return request("POST", "/items", newItem);
+	}
+
+	/**
+	 * Plain blocking client, so no client pools show up among the threads.
+	 * Connections are kept alive between calls of the same thread.
+	 */
+	private byte[] request(String method, String path, byte[] body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+
+		connection.setRequestMethod(method);
+		connection.setRequestProperty("Accept", "application/json");
+
+		if (body != null) {
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Content-Type", "application/json");
+
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body);
+			}
+		}
+
+		if (connection.getResponseCode() >= 400) {
+			throw new IllegalStateException(method + " " + path + " returned " + connection.getResponseCode());
+		}
+
+		try (InputStream in = connection.getInputStream()) {
+			ByteArrayOutputStream response = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+
+			for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+				response.write(buffer, 0, read);
+			}
+
+			return response.toByteArray();
+		}
+	}
+
+}
@@ -1,10 +1,450 @@
 package com.felype.todolist.config;
 
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.connectionfactory.R2dbcTransactionManager;
+import org.springframework.data.r2dbc.connectionfactory.init.ConnectionFactoryInitializer;
+import org.springframework.data.r2dbc.connectionfactory.init.ResourceDatabasePopulator;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.CodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.repository.BlockingItemStoreAdapter;
+import com.felype.todolist.repository.ItemShards;
+import com.felype.todolist.repository.ItemStore;
+import com.felype.todolist.repository.ReactiveItemStore;
+import com.felype.todolist.repository.WriteBehindItemStore;
+import com.felype.todolist.repository.ids.BlockIdGenerator;
+import com.felype.todolist.repository.ids.SnowflakeIdGenerator;
+import com.felype.todolist.repository.memory.ItemJournal;
+import com.felype.todolist.repository.r2dbc.R2dbcItemStore;
+import com.felype.todolist.repository.routing.ReplicaRoutingDataSource;
+import com.felype.todolist.repository.routing.TableCopyReplication;
+import com.felype.todolist.resource.Jackson2CborValueEncoder;
+import com.felype.todolist.resource.LinesHttpMessageConverter;
+import com.felype.todolist.resource.ToDoListResource;
+import com.felype.todolist.resource.protobuf.ItemProtobufDecoder;
+import com.felype.todolist.resource.protobuf.ItemProtobufEncoder;
+import com.felype.todolist.resource.protobuf.ItemProtobufHttpMessageConverter;
+import com.felype.todolist.service.HashShardRouter;
+import com.felype.todolist.service.ShardRouter;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 @Configuration
+@EnableScheduling
 @ComponentScan("com.felype.todolist")
+@EnableConfigurationProperties(ToDoListProperties.class)
 public class AppConfig {
 
+	private static final int DEFAULT_THREAD_CAP = 10;
+
+	private static final ResourceDatabasePopulator SCHEMA = new ResourceDatabasePopulator(
+			new ClassPathResource("schema-r2dbc.sql"));
+
+	/**
+	 * Scheduler for the blocking repository calls, so they never run on the
+	 * request or event-loop thread that subscribes to the service.
+	 */
+	@Bean(destroyMethod = "dispose")
+	public Scheduler jdbcScheduler(ToDoListProperties properties, ObjectProvider<DataSource> dataSource) {
+		ToDoListProperties.Scheduler scheduler = properties.getScheduler();
+		int threadCap = scheduler.getThreadCap() != null ? scheduler.getThreadCap() : poolSize(dataSource);
+
+		Schedulers.enableMetrics();
+
+		return Schedulers.newBoundedElastic(threadCap, scheduler.getQueuedTaskCap(), "jdbc",
+				scheduler.getTtlSeconds());
+	}
+
+	/**
+	 * Each shard is a database of its own, with its own connection pool, set up
+	 * with the schema of the r2dbc engine whatever engine holds the other items.
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "todolist.sharding.enabled", havingValue = "true")
+	public ItemShards itemShards(ToDoListProperties properties) {
+		ToDoListProperties.Sharding sharding = properties.getSharding();
+		List<ConnectionPool> pools = new ArrayList<>();
+		List<ReactiveItemStore> stores = new ArrayList<>();
+
+		for (String url : sharding.getUrls()) {
+			ConnectionPool pool = connectionPool(url, sharding.getMaxPoolSize());
+
+			pools.add(pool);
+			SCHEMA.execute(pool).block();
+			stores.add(new R2dbcItemStore(DatabaseClient.create(pool), new R2dbcTransactionManager(pool)));
+		}
+
+		return new ItemShards(stores, pools);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean(ShardRouter.class)
+	public ShardRouter shardRouter() {
+		return new HashShardRouter();
+	}
+
+	/**
+	 * Blocking engines run on the jdbc scheduler, a reactive engine is used as it
+	 * is.
+	 */
+	@Bean
+	@ConditionalOnMissingBean(value = ReactiveItemStore.class, ignored = WriteBehindItemStore.class)
+	public ReactiveItemStore reactiveItemStore(ItemStore itemStore, Scheduler jdbcScheduler,
+			TransactionOperations transactionOperations) {
+		return new BlockingItemStoreAdapter(itemStore, jdbcScheduler, transactionOperations);
+	}
+
+	/**
+	 * Put in front of whichever engine is configured, which is what it is given.
+	 */
+	@Bean(destroyMethod = "close")
+	@Primary
+	@ConditionalOnProperty(name = "todolist.write-behind.enabled", havingValue = "true")
+	public WriteBehindItemStore writeBehindItemStore(ReactiveItemStore reactiveItemStore,
+			ToDoListProperties properties, MeterRegistry meterRegistry) {
+		ToDoListProperties.WriteBehind writeBehind = properties.getWriteBehind();
+
+		return new WriteBehindItemStore(reactiveItemStore, writeBehind.getCapacity(), writeBehind.getBatchSize(),
+				writeBehind.getFlushInterval(), meterRegistry);
+	}
+
+	/**
+	 * H2 runs each query on the thread that subscribes to it. Handing released
+	 * connections to the waiting requests inline, on the releasing thread,
+	 * starved some of them under load, so they are handed over on the parallel
+	 * scheduler instead.
+	 */
+	private static ConnectionPool connectionPool(String url, int maxPoolSize) {
+		return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(url))
+				.maxSize(maxPoolSize)
+				.customizer(pool -> pool.acquisitionScheduler(Schedulers.parallel()))
+				.build());
+	}
+
+	private int poolSize(ObjectProvider<DataSource> dataSource) {
+		DataSource available = dataSource.getIfAvailable();
+
+		return available == null ? DEFAULT_THREAD_CAP : poolSize(available);
+	}
+
+	/**
+	 * With replicas, as many threads as there are connections to the primary and
+	 * the replicas put together.
+	 */
+	private static int poolSize(DataSource dataSource) {
+		if (dataSource instanceof HikariDataSource) {
+			return ((HikariDataSource) dataSource).getMaximumPoolSize();
+		}
+
+		if (dataSource instanceof ReplicaRoutingDataSource) {
+			return ((ReplicaRoutingDataSource) dataSource).getDataSources().stream().mapToInt(AppConfig::poolSize)
+					.sum();
+		}
+
+		return DEFAULT_THREAD_CAP;
+	}
+
+	@Configuration
+	@ConditionalOnProperty(name = "todolist.storage.engine", havingValue = "memory")
+	static class MemoryStorageConfig {
+
+		/**
+		 * The in-memory engine has no transaction manager, batches are applied as
+		 * they come.
+		 */
+		@Bean
+		public TransactionOperations transactionOperations() {
+			return TransactionOperations.withoutTransaction();
+		}
+
+		@Bean(destroyMethod = "close")
+		@ConditionalOnProperty(name = "todolist.storage.memory.data-dir")
+		public ItemJournal itemJournal(ToDoListProperties properties, MeterRegistry meterRegistry)
+				throws IOException {
+			return new ItemJournal(properties.getStorage().getMemory().getDataDir(), meterRegistry);
+		}
+
+	}
+
+	/**
+	 * The primary is the data source Spring Boot would have configured, and is
+	 * still the one the schema is created on. The replicas share its driver and
+	 * credentials.
+	 */
+	@Configuration
+	@ConditionalOnProperty(name = "todolist.replicas.enabled", havingValue = "true")
+	static class ReplicaConfig {
+
+		@Bean(destroyMethod = "")
+		@ConfigurationProperties(prefix = "spring.datasource.hikari")
+		public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+			HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class)
+					.build();
+
+			primary.setPoolName("primary");
+
+			return primary;
+		}
+
+		/**
+		 * Closes the primary and the replicas along with itself.
+		 */
+		@Bean(destroyMethod = "close")
+		@Primary
+		public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource,
+				DataSourceProperties dataSourceProperties, ToDoListProperties properties,
+				MeterRegistry meterRegistry) {
+			ToDoListProperties.Replicas replicas = properties.getReplicas();
+			List<HikariDataSource> pools = new ArrayList<>();
+
+			for (String url : replicas.getUrls()) {
+				HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class)
+						.url(url).build();
+
+				pool.setPoolName("replica-" + pools.size());
+				pool.setMaximumPoolSize(replicas.getMaxPoolSize());
+				pool.setConnectionTimeout(replicas.getConnectionTimeout().toMillis());
+				// An unreachable replica is ejected rather than failing the startup.
+				pool.setInitializationFailTimeout(-1);
+				pool.setMetricRegistry(meterRegistry);
+				pools.add(pool);
+			}
+
+			return new ReplicaRoutingDataSource(primaryDataSource, pools, replicas.getHealthCheckInterval(),
+					meterRegistry);
+		}
+
+		/**
+		 * Waits for the schema to be created on the primary, which it copies.
+		 */
+		@Bean(destroyMethod = "close")
+		@DependsOn("entityManagerFactory")
+		@ConditionalOnProperty(name = "todolist.replicas.copy-interval")
+		public TableCopyReplication tableCopyReplication(ReplicaRoutingDataSource dataSource,
+				ToDoListProperties properties) throws SQLException {
+			List<DataSource> dataSources = dataSource.getDataSources();
+
+			return new TableCopyReplication(dataSources.get(0), dataSources.subList(1, dataSources.size()),
+					properties.getReplicas().getCopyInterval());
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnProperty(name = "todolist.storage.engine", havingValue = "r2dbc")
+	static class R2dbcStorageConfig {
+
+		@Bean(destroyMethod = "dispose")
+		public ConnectionPool connectionFactory(ToDoListProperties properties) {
+			ToDoListProperties.Storage.R2dbc r2dbc = properties.getStorage().getR2dbc();
+
+			return connectionPool(r2dbc.getUrl(), r2dbc.getMaxPoolSize());
+		}
+
+		@Bean
+		public ConnectionFactoryInitializer schemaInitializer(ConnectionFactory connectionFactory) {
+			ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+
+			initializer.setConnectionFactory(connectionFactory);
+			initializer.setDatabasePopulator(SCHEMA);
+
+			return initializer;
+		}
+
+		/**
+		 * The change sequence reads the store on startup, so the schema has to be
+		 * there before anything can use the client.
+		 */
+		@Bean
+		@DependsOn("schemaInitializer")
+		public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+			return DatabaseClient.create(connectionFactory);
+		}
+
+		@Bean
+		public ReactiveTransactionManager transactionManager(ConnectionFactory connectionFactory) {
+			return new R2dbcTransactionManager(connectionFactory);
+		}
+
+		/**
+		 * Tomcat is on the classpath as well, and would otherwise be picked to serve
+		 * the reactive application.
+		 */
+		@Bean
+		@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+		public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+			return new NettyReactiveWebServerFactory();
+		}
+
+	}
+
+	/**
+	 * Generators assigning the IDs of new items in place of the engine. The memory
+	 * engine keeps its own counter, which it pages by.
+	 */
+	@Configuration
+	static class IdConfig {
+
+		/**
+		 * Reserves from the sequence Hibernate assigns IDs from otherwise.
+		 */
+		@Bean
+		@ConditionalOnProperty(name = "todolist.ids.strategy", havingValue = "block")
+		public BlockIdGenerator blockIdGenerator(ToDoListProperties properties,
+				ObjectProvider<EntityManager> entityManagerProvider, MeterRegistry meterRegistry) {
+			requireEngine(properties, ToDoListProperties.Storage.Engine.JPA);
+
+			return BlockIdGenerator.forSequence(entityManagerProvider.getObject(), "item_seq", Item.ID_BLOCK_SIZE,
+					meterRegistry);
+		}
+
+		@Bean
+		@ConditionalOnProperty(name = "todolist.ids.strategy", havingValue = "snowflake")
+		public SnowflakeIdGenerator snowflakeIdGenerator(ToDoListProperties properties) {
+			requireEngine(properties, ToDoListProperties.Storage.Engine.JPA,
+					ToDoListProperties.Storage.Engine.R2DBC);
+
+			return new SnowflakeIdGenerator(properties.getIds().getNodeId());
+		}
+
+		private static void requireEngine(ToDoListProperties properties, ToDoListProperties.Storage.Engine... engines) {
+			ToDoListProperties.Storage.Engine engine = properties.getStorage().getEngine();
+
+			if (!Arrays.asList(engines).contains(engine)) {
+				throw new IllegalStateException(String.format("ID strategy %s does not work with the %s engine.",
+						properties.getIds().getStrategy(), engine));
+			}
+		}
+
+	}
+
+	/**
+	 * Smile, CBOR and protobuf next to JSON, which stays the default. The Jackson
+	 * formats get the mapper settings JSON gets.
+	 */
+	@Configuration
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	static class ServletCodecConfig {
+
+		@Bean
+		public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+				Jackson2ObjectMapperBuilder objectMapperBuilder) {
+			return new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.factory(new SmileFactory()).build());
+		}
+
+		@Bean
+		public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+				Jackson2ObjectMapperBuilder objectMapperBuilder) {
+			return new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.factory(new CBORFactory()).build());
+		}
+
+		/**
+		 * Appended to the converters rather than declared as a bean, which would put
+		 * it in front of JSON: errors are negotiated without the mapping's types to
+		 * go by, and a client accepting anything would get protobuf.
+		 */
+		@Bean
+		public WebMvcConfigurer protobufMessageConverterConfigurer() {
+			return new WebMvcConfigurer() {
+
+				@Override
+				public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+					converters.add(new ItemProtobufHttpMessageConverter());
+				}
+
+			};
+		}
+
+		/**
+		 * Streams the import bodies in, which the reactive stack does by itself.
+		 */
+		@Bean
+		public LinesHttpMessageConverter linesHttpMessageConverter() {
+			return new LinesHttpMessageConverter(MediaType.valueOf(ToDoListResource.APPLICATION_NDJSON_VALUE),
+					MediaType.valueOf(ToDoListResource.TEXT_CSV_VALUE));
+		}
+
+	}
+
+	/**
+	 * Same as {@link ServletCodecConfig}, on the reactive stack.
+	 */
+	@Configuration
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+	static class ReactiveCodecConfig {
+
+		@Bean
+		public CodecCustomizer binaryCodecCustomizer(ObjectMapper objectMapper,
+				Jackson2ObjectMapperBuilder objectMapperBuilder) {
+			ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+			ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+			// Given a mapper, the Jackson codecs take any media type unless told which.
+			MediaType smile = MediaType.valueOf(ToDoListResource.APPLICATION_SMILE_VALUE);
+
+			return configurer -> {
+				CodecConfigurer.CustomCodecs codecs = configurer.customCodecs();
+
+				// Custom codecs go ahead of the default ones, JSON included. Registered
+				// again in front of them, JSON stays the default where no mapping decides,
+				// as when an error is written for a client accepting anything.
+				codecs.registerWithDefaultConfig(new Jackson2JsonEncoder(objectMapper, MediaType.APPLICATION_JSON,
+						new MediaType("application", "*+json")));
+				codecs.registerWithDefaultConfig(new Jackson2SmileEncoder(smileMapper, smile));
+				codecs.registerWithDefaultConfig(new Jackson2SmileDecoder(smileMapper, smile));
+				codecs.registerWithDefaultConfig(new Jackson2CborValueEncoder(cborMapper));
+				codecs.registerWithDefaultConfig(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+				codecs.registerWithDefaultConfig(new ItemProtobufEncoder());
+				codecs.registerWithDefaultConfig(new ItemProtobufDecoder());
+			};
+		}
+
+	}
+
 }
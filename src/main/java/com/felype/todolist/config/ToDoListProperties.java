@@ -0,0 +1,478 @@
+package com.felype.todolist.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "todolist")
+public class ToDoListProperties {
+
+	private final Storage storage = new Storage();
+
+	private final Pagination pagination = new Pagination();
+
+	private final Scheduler scheduler = new Scheduler();
+
+	private final Batch batch = new Batch();
+
+	private final Cache cache = new Cache();
+
+	private final Coalescing coalescing = new Coalescing();
+
+	private final Changes changes = new Changes();
+
+	private final Events events = new Events();
+
+	private final Search search = new Search();
+
+	private final Sharding sharding = new Sharding();
+
+	private final Limits limits = new Limits();
+
+	private final Idempotency idempotency = new Idempotency();
+
+	private final WriteBehind writeBehind = new WriteBehind();
+
+	private final Transfer transfer = new Transfer();
+
+	private final Replicas replicas = new Replicas();
+
+	private final Ids ids = new Ids();
+
+	@Data
+	public static class Storage {
+
+		/**
+		 * Engine holding the items: jpa for the relational database, r2dbc for the
+		 * same database without blocking, memory for a heap-only store.
+		 */
+		private Engine engine = Engine.JPA;
+
+		private final Memory memory = new Memory();
+
+		private final R2dbc r2dbc = new R2dbc();
+
+		public enum Engine {
+			JPA, R2DBC, MEMORY
+		}
+
+		@Data
+		public static class Memory {
+
+			/**
+			 * Directory for the write-ahead log and snapshots of the memory engine.
+			 * Without it items only live as long as the process.
+			 */
+			private Path dataDir;
+
+			/**
+			 * Time between snapshots, in ISO-8601 form since it also drives the
+			 * snapshot schedule.
+			 */
+			private Duration snapshotInterval = Duration.ofMinutes(5);
+
+		}
+
+		@Data
+		public static class R2dbc {
+
+			/**
+			 * R2DBC URL of the database used by the r2dbc engine.
+			 */
+			private String url = "r2dbc:h2:mem:///todolist?options=DB_CLOSE_DELAY=-1";
+
+			/**
+			 * Largest number of pooled connections.
+			 */
+			private int maxPoolSize = 10;
+
+		}
+
+	}
+
+	@Data
+	public static class Pagination {
+
+		/**
+		 * Page size used when the client sends a cursor without a limit.
+		 */
+		private int defaultLimit = 100;
+
+		/**
+		 * Largest page a client may request.
+		 */
+		private int maxLimit = 1000;
+
+		/**
+		 * Rows fetched per repository round trip when streaming the item list.
+		 */
+		private int streamBatchSize = 500;
+
+	}
+
+	@Data
+	public static class Scheduler {
+
+		/**
+		 * Threads running blocking repository calls. Defaults to the Hikari maximum
+		 * pool size, of the primary and the replicas together when there are any,
+		 * since more threads than connections would only wait on the pool.
+		 */
+		private Integer threadCap;
+
+		/**
+		 * Repository calls allowed to wait for a thread. Calls beyond this are
+		 * rejected and answered with 503.
+		 */
+		private int queuedTaskCap = 1000;
+
+		/**
+		 * Seconds an idle thread is kept before being released.
+		 */
+		private int ttlSeconds = 60;
+
+	}
+
+	@Data
+	public static class Batch {
+
+		/**
+		 * Largest number of elements accepted by a single batch request.
+		 */
+		private int maxSize = 1000;
+
+	}
+
+	@Data
+	public static class Cache {
+
+		/**
+		 * Whether item reads go through the in-process cache.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Largest number of items kept in the cache.
+		 */
+		private long maximumSize = 10000;
+
+		/**
+		 * How long an item stays cached after being loaded or written.
+		 */
+		private Duration ttl = Duration.ofMinutes(5);
+
+		/**
+		 * Whether the item list and the items are also kept encoded as JSON, and
+		 * written out as they are. Costs a copy of every item in memory.
+		 */
+		private boolean encodedResponses = false;
+
+	}
+
+	@Data
+	public static class Coalescing {
+
+		/**
+		 * Whether concurrent reads of the same item, or of the same item list page,
+		 * share one store call.
+		 */
+		private boolean enabled = true;
+
+	}
+
+	@Data
+	public static class Changes {
+
+		/**
+		 * How long tombstones of deleted items are kept. Clients that last synced
+		 * before that have to start over from the beginning.
+		 */
+		private Duration tombstoneRetention = Duration.ofDays(7);
+
+		/**
+		 * Time between tombstone compactions, in ISO-8601 form since it also drives
+		 * the compaction schedule.
+		 */
+		private Duration compactionInterval = Duration.ofHours(1);
+
+	}
+
+	@Data
+	public static class Events {
+
+		/**
+		 * Events buffered for each stream subscriber that is not keeping up.
+		 */
+		private int bufferSize = 256;
+
+		/**
+		 * What happens to a subscriber whose buffer is full: drop-oldest keeps the
+		 * latest events, drop-latest keeps the earliest ones, and disconnect ends the
+		 * stream so the client reconnects and resumes from its last event ID.
+		 */
+		private Overflow overflow = Overflow.DROP_OLDEST;
+
+		/**
+		 * Time between heartbeat frames, which keep idle connections from being
+		 * closed by proxies.
+		 */
+		private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+		public enum Overflow {
+			DROP_OLDEST, DROP_LATEST, DISCONNECT
+		}
+
+	}
+
+	@Data
+	public static class Search {
+
+		/**
+		 * Whether searches run on the in-process index. Without it, and until the
+		 * index is built on startup, they scan the store instead.
+		 */
+		private boolean indexEnabled = true;
+
+		/**
+		 * Most terms a prefix is expanded to.
+		 */
+		private int maxPrefixExpansions = 64;
+
+		/**
+		 * Items read per store round trip while building the index.
+		 */
+		private int rebuildBatchSize = 1000;
+
+	}
+
+	@Data
+	public static class Sharding {
+
+		/**
+		 * Whether items can be kept in lists, spread across the shards. Without it
+		 * no shard is connected to and the list endpoints answer 404.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * R2DBC URLs of the databases the lists are spread across. Lists are routed
+		 * by their ID and the number of shards, so shards can only be added or
+		 * removed once the lists are moved accordingly.
+		 */
+		private List<String> urls = new ArrayList<>(Arrays.asList(
+				"r2dbc:h2:mem:///lists-0?options=DB_CLOSE_DELAY=-1",
+				"r2dbc:h2:mem:///lists-1?options=DB_CLOSE_DELAY=-1"));
+
+		/**
+		 * Largest number of pooled connections to each shard.
+		 */
+		private int maxPoolSize = 10;
+
+	}
+
+	@Data
+	public static class Limits {
+
+		private final Rate rate = new Rate();
+
+		private final Concurrency concurrency = new Concurrency();
+
+		@Data
+		public static class Rate {
+
+			/**
+			 * Whether each client is held to a request rate, and answered with 429
+			 * beyond it.
+			 */
+			private boolean enabled = true;
+
+			/**
+			 * Requests per second a client may keep sending.
+			 */
+			private double requestsPerSecond = 50;
+
+			/**
+			 * Requests a client may send at once after being idle for a while.
+			 */
+			private int burst = 100;
+
+			/**
+			 * Header carrying the API key clients are told apart by. Clients that do
+			 * not send it are told apart by address.
+			 */
+			private String apiKeyHeader = "X-API-Key";
+
+			/**
+			 * Most clients tracked at once. Beyond that the least recent ones are
+			 * forgotten, and start over with a full burst.
+			 */
+			private long maxClients = 100000;
+
+		}
+
+		@Data
+		public static class Concurrency {
+
+			/**
+			 * Whether requests beyond an adaptive limit on the requests in progress
+			 * are answered with 503.
+			 */
+			private boolean enabled = true;
+
+			/**
+			 * Limit to start from, before any request was observed.
+			 */
+			private int initialLimit = 100;
+
+			private int minLimit = 10;
+
+			private int maxLimit = 1000;
+
+			/**
+			 * Requests taking longer than this, or answered with 503, are taken as a
+			 * sign of overload and shrink the limit.
+			 */
+			private Duration latencyThreshold = Duration.ofMillis(500);
+
+			/**
+			 * What the limit is multiplied by when shrunk. Otherwise it grows by one
+			 * for each request completed in time while at least half of it was in use.
+			 */
+			private double backoffRatio = 0.9;
+
+		}
+
+	}
+
+	@Data
+	public static class Idempotency {
+
+		/**
+		 * How long the response to a request sent with an idempotency key is kept,
+		 * and answers the retries of that request.
+		 */
+		private Duration ttl = Duration.ofHours(1);
+
+		/**
+		 * Most responses kept at once. Beyond that the oldest are dropped, and a
+		 * retry of their request is carried out again.
+		 */
+		private long maximumSize = 50000;
+
+	}
+
+	@Data
+	public static class WriteBehind {
+
+		/**
+		 * Whether updates and deletes of single items are acknowledged once queued,
+		 * and written to the store in batches by a background flusher. Queued writes
+		 * are lost if the process dies before they are flushed.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Most writes queued at once. Beyond that writes are answered with 503.
+		 */
+		private int capacity = 10000;
+
+		/**
+		 * Most writes flushed in one transaction. A queue this deep is flushed
+		 * without waiting for the interval.
+		 */
+		private int batchSize = 500;
+
+		private Duration flushInterval = Duration.ofMillis(10);
+
+	}
+
+	@Data
+	public static class Transfer {
+
+		/**
+		 * Records an import creates per transaction. A failed import resumes after
+		 * the last batch committed.
+		 */
+		private int importBatchSize = 500;
+
+	}
+
+	@Data
+	public static class Replicas {
+
+		/**
+		 * Whether reads may go to read replicas of the database of the jpa engine.
+		 * The primary is the database configured with spring.datasource, whose
+		 * credentials the replicas share.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * JDBC URLs of the replicas.
+		 */
+		private List<String> urls = new ArrayList<>();
+
+		/**
+		 * Largest number of pooled connections to each replica.
+		 */
+		private int maxPoolSize = 10;
+
+		/**
+		 * How long a read waits for a connection to a replica. Past that the replica
+		 * is ejected, and the read goes to the primary.
+		 */
+		private Duration connectionTimeout = Duration.ofSeconds(1);
+
+		/**
+		 * How long the reads of a client stay on the primary after it writes, so it
+		 * reads its own writes. Reads whose result is shared between clients stay
+		 * there as long after any write. Should be longer than the replicas lag
+		 * behind.
+		 */
+		private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+		/**
+		 * Time between health checks. A replica failing one is ejected until it
+		 * passes one again.
+		 */
+		private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+		/**
+		 * For H2 replicas in development, which nothing replicates to: the tables of
+		 * the primary are copied to them at this interval. Off unless set.
+		 */
+		private Duration copyInterval;
+
+	}
+
+	@Data
+	public static class Ids {
+
+		/**
+		 * What assigns the IDs of new items: engine leaves them to the storage
+		 * engine, block hands them out from blocks reserved in the item sequence of
+		 * the jpa engine, snowflake makes up time-ordered IDs on each node, with the
+		 * jpa and r2dbc engines. The memory engine only takes engine.
+		 */
+		private Strategy strategy = Strategy.ENGINE;
+
+		/**
+		 * ID of this node for snowflake IDs, from 0 to 1023, unique among the nodes
+		 * sharing the database.
+		 */
+		private int nodeId = 0;
+
+		public enum Strategy {
+			ENGINE, BLOCK, SNOWFLAKE
+		}
+
+	}
+
+}
@@ -0,0 +1,9 @@
+package com.felype.todolist.exception;
+
+public class ChangesExpiredException extends RuntimeException {
+
+	public ChangesExpiredException(String message) {
+		super(message);
+	}
+
+}
@@ -1,9 +1,13 @@
 package com.felype.todolist.exception;
 
+/**
+ * Thrown without a stack trace: it always means the request was wrong, never
+ * where the code went wrong.
+ */
 public class InvalidRequestException extends RuntimeException {
 
 	public InvalidRequestException(String message) {
-		super(message);
+		super(message, null, true, false);
 	}
 
 }
@@ -1,9 +1,40 @@
 package com.felype.todolist.exception;
 
+/**
+ * Clients probe for missing items all the time, so this is thrown without a
+ * stack trace, and the message is only put together when read.
+ */
 public class ItemNotFoundException extends RuntimeException {
 
-	public ItemNotFoundException(String message) {
-		super(message);
+	private final Long listId;
+
+	private final Long itemId;
+
+	public ItemNotFoundException(Long itemId) {
+		this(null, itemId);
+	}
+
+	public ItemNotFoundException(Long listId, Long itemId) {
+		super(null, null, true, false);
+		this.listId = listId;
+		this.itemId = itemId;
+	}
+
+	/**
+	 * Null for items of no list.
+	 */
+	public Long getListId() {
+		return listId;
+	}
+
+	public Long getItemId() {
+		return itemId;
+	}
+
+	@Override
+	public String getMessage() {
+		return listId == null ? String.format("Item not found. ID: %d", itemId)
+				: String.format("Item not found. List: %d, ID: %d", listId, itemId);
 	}
 
 }
@@ -0,0 +1,13 @@
+package com.felype.todolist.exception;
+
+/**
+ * Thrown for what does not exist in this deployment at all, such as endpoints
+ * of a feature that is not enabled.
+ */
+public class NotFoundException extends RuntimeException {
+
+	public NotFoundException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,9 @@
+package com.felype.todolist.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+	public ServiceUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
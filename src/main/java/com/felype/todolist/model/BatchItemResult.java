@@ -0,0 +1,37 @@
+package com.felype.todolist.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one element of a batch request, in the same position as the
+ * element it refers to.
+ */
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+
+	private int index;
+
+	/**
+	 * HTTP status the element would have had as a single request.
+	 */
+	private int status;
+
+	private Long id;
+
+	private Item item;
+
+	private String error;
+
+}
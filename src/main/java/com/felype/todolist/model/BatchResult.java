@@ -0,0 +1,35 @@
+package com.felype.todolist.model;
+
+import java.util.ArrayList;
+
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+
+	@NotNull
+	private java.util.List<BatchItemResult> results;
+
+	public synchronized java.util.List<BatchItemResult> getResults() {
+		if (results == null) {
+			results = new ArrayList<>();
+		}
+
+		return results;
+	}
+
+}
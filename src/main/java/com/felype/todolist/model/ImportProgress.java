@@ -0,0 +1,55 @@
+package com.felype.todolist.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of an import, reported once per committed batch and once more when
+ * the import ends. On failure the last one carries the error, and the import
+ * is resumed by sending the same file again with {@code skip} set to its
+ * {@code committed} count.
+ */
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgress {
+
+	/**
+	 * Records of the file dealt with so far, from the first one on, skipped ones
+	 * included.
+	 */
+	private long committed;
+
+	/**
+	 * Items created by this import.
+	 */
+	private long imported;
+
+	/**
+	 * Records of this import that could not be read or were invalid.
+	 */
+	private long rejected;
+
+	/**
+	 * The records rejected in this batch, indexed by their position in the file.
+	 * Absent when there were none.
+	 */
+	private java.util.List<BatchItemResult> errors;
+
+	private boolean done;
+
+	/**
+	 * Why the import stopped short, on the last progress of a failed import.
+	 */
+	private String error;
+
+}
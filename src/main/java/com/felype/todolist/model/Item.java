@@ -2,11 +2,18 @@ package com.felype.todolist.model;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.NotEmpty;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 
@@ -19,20 +26,53 @@ import lombok.experimental.Accessors;
 @JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
 @JsonInclude(JsonInclude.Include.NON_ABSENT)
 @Data
-@Builder
+@Builder(toBuilder = true)
 @Accessors(chain = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+// The title index serves the title prefix filter and the title order, the list
+// index the pages of a list.
+@Table(indexes = { @Index(name = "item_change_seq_idx", columnList = "changeSeq"),
+		@Index(name = "item_title_idx", columnList = "title"),
+		@Index(name = "item_list_idx", columnList = "listId, id") })
 public class Item {
 
+	/**
+	 * IDs reserved at a time from {@code item_seq}, which steps by as much.
+	 */
+	public static final int ID_BLOCK_SIZE = 50;
+
+	// Pooled sequence so Hibernate can assign IDs without a round trip per insert
+	// and batch inserts, which IDENTITY columns would prevent. Read as pooled-lo,
+	// as the BlockIdGenerator reads it, and IDs assigned by one are kept.
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(generator = "item_seq")
+	@GenericGenerator(name = "item_seq", strategy = "com.felype.todolist.repository.ids.AssignedOrSequenceGenerator",
+			parameters = { @Parameter(name = "sequence_name", value = "item_seq"),
+					@Parameter(name = "increment_size", value = "" + ID_BLOCK_SIZE),
+					@Parameter(name = "optimizer", value = "pooled-lo") })
 	private Long id;
 
+	// List the item belongs to, taken from the path it was created under. Items
+	// created through /items belong to none.
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Long listId;
+
 	@NotEmpty
 	private String title;
 
 	private String description;
 
+	// Bumped on every update. Backs the ETags, and is only ever set by the
+	// server, clients send it back through If-Match.
+	@Version
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Long version;
+
+	// Position of the last change to this item in the change sequence, used to
+	// find what changed since a client last synced.
+	@JsonIgnore
+	private Long changeSeq;
+
 }
@@ -0,0 +1,62 @@
+package com.felype.todolist.model;
+
+import java.util.ArrayList;
+
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemChanges {
+
+	/**
+	 * Current state of the items created or updated since the requested point.
+	 */
+	@NotNull
+	private java.util.List<Item> items;
+
+	/**
+	 * IDs of the items deleted since the requested point.
+	 */
+	@NotNull
+	private java.util.List<Long> deletedIds;
+
+	/**
+	 * Point covered by this response, to be sent back as {@code since}.
+	 */
+	private Long highWaterMark;
+
+	/**
+	 * Whether more changes are waiting past the high-water mark.
+	 */
+	private boolean hasMore;
+
+	public synchronized java.util.List<Item> getItems() {
+		if (items == null) {
+			items = new ArrayList<>();
+		}
+
+		return items;
+	}
+
+	public synchronized java.util.List<Long> getDeletedIds() {
+		if (deletedIds == null) {
+			deletedIds = new ArrayList<>();
+		}
+
+		return deletedIds;
+	}
+
+}
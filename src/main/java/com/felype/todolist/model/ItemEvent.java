@@ -0,0 +1,71 @@
+package com.felype.todolist.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change pushed to the clients following the item stream.
+ */
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemEvent {
+
+	public enum Type {
+
+		CREATED, UPDATED, DELETED,
+
+		/**
+		 * The changes the client asked to resume from were compacted. Everything it
+		 * holds should be dropped, since the events that follow replay every item.
+		 */
+		RESET
+
+	}
+
+	private Type type;
+
+	/**
+	 * ID of the item the event is about.
+	 */
+	private Long id;
+
+	/**
+	 * Current state of the item, absent for deletions.
+	 */
+	private Item item;
+
+	/**
+	 * Point to resume from with {@code Last-Event-ID}: every change up to it was
+	 * delivered before this event. Null when the event does not move that point.
+	 */
+	@JsonIgnore
+	private Long eventId;
+
+	public static ItemEvent created(Item item) {
+		return ItemEvent.builder().type(Type.CREATED).id(item.getId()).item(item).build();
+	}
+
+	public static ItemEvent updated(Item item) {
+		return ItemEvent.builder().type(Type.UPDATED).id(item.getId()).item(item).build();
+	}
+
+	public static ItemEvent deleted(Long itemId) {
+		return ItemEvent.builder().type(Type.DELETED).id(itemId).build();
+	}
+
+	public static ItemEvent reset() {
+		return ItemEvent.builder().type(Type.RESET).build();
+	}
+
+}
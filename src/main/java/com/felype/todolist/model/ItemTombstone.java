@@ -0,0 +1,40 @@
+package com.felype.todolist.model;
+
+import java.time.Instant;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Trace left by a deleted item, so clients syncing changes learn about the
+ * deletion. Tombstones are dropped after a retention period.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "item_tombstone_change_seq_idx", columnList = "changeSeq"))
+public class ItemTombstone {
+
+	/**
+	 * Item ID of the marker row whose change sequence is the compaction floor:
+	 * deletions up to it may have been dropped. Item IDs start at 1.
+	 */
+	public static final long COMPACTED = 0L;
+
+	@Id
+	private Long itemId;
+
+	private Long changeSeq;
+
+	private Instant deletedAt;
+
+}
@@ -24,6 +24,13 @@ public class List {
 	@NotNull
 	private java.util.List<Item> items;
 
+	/**
+	 * To be sent back as {@code after} to fetch the next page: the ID of the last
+	 * item in this page, or for search results and items sorted by title the
+	 * position of the next one. Absent on the last page.
+	 */
+	private Long nextCursor;
+
 	public synchronized java.util.List<Item> getItems() {
 		if (items == null) {
 			items = new ArrayList<>();
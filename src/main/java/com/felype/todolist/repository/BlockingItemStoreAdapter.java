@@ -0,0 +1,150 @@
+package com.felype.todolist.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemTombstone;
+import com.felype.todolist.repository.routing.ReplicaRoute;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs a blocking {@link ItemStore} engine behind {@link ReactiveItemStore}.
+ * Every call goes to the given scheduler, so it never blocks the request or
+ * event-loop thread that subscribes to it. Reads are routed as their subscriber
+ * context tells, see {@link ReplicaRoute}.
+ */
+@RequiredArgsConstructor
+public class BlockingItemStoreAdapter implements ReactiveItemStore {
+
+	private final ItemStore itemStore;
+
+	private final Scheduler scheduler;
+
+	private final TransactionOperations transactionOperations;
+
+	@Override
+	public Mono<Item> save(Item item) {
+		return call(() -> itemStore.save(item));
+	}
+
+	@Override
+	public Flux<Item> saveAll(Iterable<Item> items) {
+		return stream(() -> itemStore.saveAll(items));
+	}
+
+	@Override
+	public Mono<Item> findById(long id) {
+		return read(() -> itemStore.findById(id).orElse(null));
+	}
+
+	@Override
+	public Flux<Item> findAll() {
+		return readStream(itemStore::findAll);
+	}
+
+	@Override
+	public Flux<Item> findAllById(Iterable<Long> ids) {
+		return readStream(() -> itemStore.findAllById(ids));
+	}
+
+	@Override
+	public Flux<Item> findPage(long after, int limit) {
+		return readStream(() -> itemStore.findPage(after, limit));
+	}
+
+	@Override
+	public Flux<Item> findItems(ItemQuery query) {
+		return readStream(() -> itemStore.findItems(query));
+	}
+
+	@Override
+	public Flux<Item> search(List<String> terms, long offset, int limit) {
+		return readStream(() -> itemStore.search(terms, offset, limit));
+	}
+
+	@Override
+	public Mono<Void> deleteById(long id, long changeSeq) {
+		return call(() -> {
+			itemStore.deleteById(id, changeSeq);
+
+			return null;
+		});
+	}
+
+	@Override
+	public Mono<Void> deleteAll(Iterable<Item> items) {
+		return call(() -> {
+			itemStore.deleteAll(items);
+
+			return null;
+		});
+	}
+
+	@Override
+	public Flux<Item> findChanged(long since, long upTo, int limit) {
+		return readStream(() -> itemStore.findChanged(since, upTo, limit));
+	}
+
+	@Override
+	public Flux<ItemTombstone> findTombstones(long since, long upTo, int limit) {
+		return readStream(() -> itemStore.findTombstones(since, upTo, limit));
+	}
+
+	@Override
+	public Mono<Long> getHighestChangeSeq() {
+		return read(itemStore::getHighestChangeSeq);
+	}
+
+	@Override
+	public Mono<Long> getCompactedChangeSeq() {
+		return read(itemStore::getCompactedChangeSeq);
+	}
+
+	@Override
+	public Mono<Long> compactTombstones(Instant deletedBefore) {
+		return call(() -> itemStore.compactTombstones(deletedBefore));
+	}
+
+	/**
+	 * The whole unit of work runs on one scheduler thread, which is what the
+	 * transaction is bound to: the store handed to it calls the engine right
+	 * away, so blocking on the result never waits for another thread.
+	 */
+	@Override
+	public <T> Mono<T> inTransaction(Function<ReactiveItemStore, Mono<T>> work) {
+		ReactiveItemStore bound = new BlockingItemStoreAdapter(itemStore, Schedulers.immediate(), transactionOperations);
+
+		return call(() -> transactionOperations.execute(status -> work.apply(bound).block()));
+	}
+
+	private <T> Mono<T> call(Callable<T> callable) {
+		return Mono.fromCallable(callable).subscribeOn(scheduler);
+	}
+
+	private <T> Flux<T> stream(Callable<? extends Iterable<T>> callable) {
+		return call(callable).flatMapIterable(Function.identity());
+	}
+
+	/**
+	 * Taken to a replica when the subscriber context allows it.
+	 */
+	private <T> Mono<T> read(Callable<T> callable) {
+		return Mono.deferWithContext(context -> Mono.fromCallable(() -> ReplicaRoute.call(context, callable)))
+				.subscribeOn(scheduler);
+	}
+
+	private <T> Flux<T> readStream(Callable<? extends Iterable<T>> callable) {
+		return read(callable).flatMapIterable(Function.identity());
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.felype.todolist.repository;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.felype.todolist.model.Item;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * Filter, order and projection of {@link ItemStore#findItems(ItemQuery)}, for
+ * the engine to apply where the items are stored rather than after loading all
+ * of them.
+ */
+@Value
+@Builder
+public class ItemQuery {
+
+	public static final char LIKE_ESCAPE = '\\';
+
+	@Getter
+	@RequiredArgsConstructor
+	public enum Order {
+
+		ID("id", false),
+
+		ID_DESC("id", true),
+
+		TITLE("title", false),
+
+		TITLE_DESC("title", true);
+
+		/**
+		 * Property sorted by, which is also the column name. Ties are broken by ID,
+		 * in the same direction.
+		 */
+		private final String property;
+
+		private final boolean descending;
+
+		/**
+		 * Whether the order is the ID order, which pages by keyset.
+		 */
+		public boolean isById() {
+			return "id".equals(property);
+		}
+
+	}
+
+	/**
+	 * Fields that can be left out of the results. The ID is always loaded.
+	 */
+	@RequiredArgsConstructor
+	public enum Field {
+
+		TITLE(String.class, Item::getTitle, (item, value) -> item.setTitle((String) value)),
+
+		DESCRIPTION(String.class, Item::getDescription, (item, value) -> item.setDescription((String) value)),
+
+		VERSION(Long.class, Item::getVersion, (item, value) -> item.setVersion((Long) value));
+
+		@Getter
+		private final Class<?> type;
+
+		private final Function<Item, Object> getter;
+
+		private final BiConsumer<Item, Object> setter;
+
+		/**
+		 * Name of the property, which is also the column name.
+		 */
+		public String getName() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+
+		public Object get(Item item) {
+			return getter.apply(item);
+		}
+
+		public void set(Item item, Object value) {
+			setter.accept(item, value);
+		}
+
+	}
+
+	/**
+	 * Only items of this list. Null matches the items of every list, and those
+	 * of none.
+	 */
+	Long listId;
+
+	/**
+	 * Only items whose title starts with it, matching case. Null matches every
+	 * item.
+	 */
+	String titlePrefix;
+
+	@Builder.Default
+	Order order = Order.ID;
+
+	@Builder.Default
+	Set<Field> fields = Collections.unmodifiableSet(EnumSet.allOf(Field.class));
+
+	/**
+	 * Keyset cursor of the ID orders: only items past this ID in that order. Null
+	 * starts from the first item.
+	 */
+	Long after;
+
+	/**
+	 * Matching items skipped before the first one returned.
+	 */
+	long offset;
+
+	int limit;
+
+	/**
+	 * {@link #getTitlePrefix()} as a {@code LIKE} pattern, with the wildcards it
+	 * contains escaped by {@link #LIKE_ESCAPE}.
+	 */
+	public String getTitlePattern() {
+		StringBuilder pattern = new StringBuilder();
+
+		for (char c : titlePrefix.toCharArray()) {
+			if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+				pattern.append(LIKE_ESCAPE);
+			}
+
+			pattern.append(c);
+		}
+
+		return pattern.append('%').toString();
+	}
+
+	/**
+	 * Copy of the item with only the fields of the query set.
+	 */
+	public Item project(Item item) {
+		Item projected = Item.builder().id(item.getId()).build();
+
+		fields.forEach(field -> field.set(projected, field.get(item)));
+
+		return projected;
+	}
+
+}
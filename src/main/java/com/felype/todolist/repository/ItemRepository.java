@@ -1,11 +1,27 @@
 package com.felype.todolist.repository;
 
-import org.springframework.data.repository.CrudRepository;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 import com.felype.todolist.model.Item;
 
 @Repository
-public interface ItemRepository extends CrudRepository<Item, Long> {
+public interface ItemRepository extends PagingAndSortingRepository<Item, Long> {
+
+	/**
+	 * Keyset page: items with an ID greater than {@code id}, in ID order. Only the
+	 * page size of {@code pageable} is expected to be used, the offset stays at 0.
+	 */
+	List<Item> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+	List<Item> findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(Long since, Long upTo,
+			Pageable pageable);
+
+	@Query("select max(i.changeSeq) from Item i")
+	Long findMaxChangeSeq();
 
 }
@@ -0,0 +1,44 @@
+package com.felype.todolist.repository;
+
+import java.util.List;
+
+import reactor.core.Disposable;
+
+/**
+ * Stores the item lists are spread across, each one a separate database. Which
+ * list lives where is up to {@link com.felype.todolist.service.ShardRouter};
+ * within a shard the items of a list are told apart by {@link
+ * com.felype.todolist.model.Item#getListId()}.
+ */
+public class ItemShards implements AutoCloseable {
+
+	private final List<ReactiveItemStore> stores;
+
+	private final List<? extends Disposable> resources;
+
+	/**
+	 * The resources, connection pools and the like, are disposed of on close.
+	 */
+	public ItemShards(List<ReactiveItemStore> stores, List<? extends Disposable> resources) {
+		if (stores.isEmpty()) {
+			throw new IllegalArgumentException("At least one shard is required.");
+		}
+
+		this.stores = stores;
+		this.resources = resources;
+	}
+
+	public ReactiveItemStore get(int shard) {
+		return stores.get(shard);
+	}
+
+	public int size() {
+		return stores.size();
+	}
+
+	@Override
+	public void close() {
+		resources.forEach(Disposable::dispose);
+	}
+
+}
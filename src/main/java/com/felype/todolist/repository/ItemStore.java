@@ -0,0 +1,107 @@
+package com.felype.todolist.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemTombstone;
+
+/**
+ * Storage engine behind {@link com.felype.todolist.service.ToDoListService}.
+ * Implementations follow the {@code CrudRepository} semantics the service was
+ * written against: saving an item whose ID is unknown stores it under a newly
+ * generated ID, and deleting a missing ID throws
+ * {@link org.springframework.dao.EmptyResultDataAccessException}.
+ * <p>
+ * Every save bumps the item version. Saving an item that carries a version only
+ * succeeds if it is the stored one, otherwise
+ * {@link org.springframework.dao.OptimisticLockingFailureException} is thrown;
+ * saving an item without a version overwrites whatever is stored.
+ * <p>
+ * The change sequence is assigned by the caller: saved items carry it in
+ * {@link Item#getChangeSeq()}, and deletions leave an {@link ItemTombstone} at
+ * the given position. Items and tombstones without one are not tracked.
+ */
+public interface ItemStore {
+
+	Item save(Item item);
+
+	/**
+	 * Saves all items, returning the stored items in the same order.
+	 */
+	List<Item> saveAll(Iterable<Item> items);
+
+	Optional<Item> findById(long id);
+
+	/**
+	 * All items, in ID order.
+	 */
+	List<Item> findAll();
+
+	/**
+	 * Items found for the given IDs, in no particular order. Missing IDs are
+	 * skipped.
+	 */
+	List<Item> findAllById(Iterable<Long> ids);
+
+	/**
+	 * Keyset page: at most {@code limit} items with an ID greater than
+	 * {@code after}, in ID order.
+	 */
+	List<Item> findPage(long after, int limit);
+
+	/**
+	 * At most {@code limit} items matching the query, in its order, with only the
+	 * fields it asks for set besides the ID.
+	 */
+	List<Item> findItems(ItemQuery query);
+
+	/**
+	 * Items whose title or description contains every one of the terms, ignoring
+	 * case, in ID order: at most {@code limit} of them, after skipping the first
+	 * {@code offset}. This is the scan searches fall back to without the search
+	 * index; the terms are lowercase letters and digits.
+	 */
+	List<Item> search(List<String> terms, long offset, int limit);
+
+	/**
+	 * Deletes the item, leaving a tombstone at {@code changeSeq}.
+	 */
+	void deleteById(long id, long changeSeq);
+
+	/**
+	 * Deletes the items, leaving a tombstone for each one that carries a change
+	 * sequence.
+	 */
+	void deleteAll(Iterable<Item> items);
+
+	/**
+	 * At most {@code limit} items last changed after {@code since} and up to
+	 * {@code upTo}, in change sequence order.
+	 */
+	List<Item> findChanged(long since, long upTo, int limit);
+
+	/**
+	 * At most {@code limit} tombstones left after {@code since} and up to
+	 * {@code upTo}, in change sequence order.
+	 */
+	List<ItemTombstone> findTombstones(long since, long upTo, int limit);
+
+	/**
+	 * Highest change sequence stored, to resume the sequence from on startup.
+	 */
+	long getHighestChangeSeq();
+
+	/**
+	 * Change sequence up to which tombstones may have been dropped.
+	 */
+	long getCompactedChangeSeq();
+
+	/**
+	 * Drops the tombstones of items deleted before the given instant, returning
+	 * the new compaction floor.
+	 */
+	long compactTombstones(Instant deletedBefore);
+
+}
@@ -0,0 +1,32 @@
+package com.felype.todolist.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import com.felype.todolist.model.ItemTombstone;
+
+@Repository
+public interface ItemTombstoneRepository extends CrudRepository<ItemTombstone, Long> {
+
+	@Query("select t from ItemTombstone t where t.changeSeq > :since and t.changeSeq <= :upTo and t.itemId <> "
+			+ ItemTombstone.COMPACTED + " order by t.changeSeq")
+	List<ItemTombstone> findChanges(Long since, Long upTo, Pageable pageable);
+
+	@Query("select max(t.changeSeq) from ItemTombstone t")
+	Long findMaxChangeSeq();
+
+	@Query("select max(t.changeSeq) from ItemTombstone t where t.deletedAt < :before and t.itemId <> "
+			+ ItemTombstone.COMPACTED)
+	Long findMaxChangeSeqDeletedBefore(Instant before);
+
+	@Modifying
+	@Query("delete from ItemTombstone t where t.changeSeq <= :changeSeq and t.itemId <> " + ItemTombstone.COMPACTED)
+	int deleteUpTo(Long changeSeq);
+
+}
@@ -0,0 +1,285 @@
+package com.felype.todolist.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemTombstone;
+import com.felype.todolist.repository.ids.ItemIdGenerator;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Default engine, storing items in the relational database through
+ * {@link ItemRepository}. New items get their IDs from the
+ * {@link ItemIdGenerator} if there is one, from the item sequence otherwise.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "todolist.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaItemStore implements ItemStore {
+
+	private final ItemRepository itemRepository;
+
+	private final ItemTombstoneRepository tombstoneRepository;
+
+	private final EntityManager entityManager;
+
+	private final Optional<ItemIdGenerator> idGenerator;
+
+	@Override
+	@Transactional
+	public Item save(Item item) {
+		return itemRepository.save(versioned(item));
+	}
+
+	@Override
+	@Transactional
+	public List<Item> saveAll(Iterable<Item> items) {
+		List<Item> versioned = new ArrayList<>();
+
+		items.forEach(item -> versioned.add(versioned(item)));
+
+		return toList(itemRepository.saveAll(versioned));
+	}
+
+	@Override
+	public Optional<Item> findById(long id) {
+		return itemRepository.findById(id);
+	}
+
+	@Override
+	public List<Item> findAll() {
+		return toList(itemRepository.findAll(Sort.by("id")));
+	}
+
+	@Override
+	public List<Item> findAllById(Iterable<Long> ids) {
+		return toList(itemRepository.findAllById(ids));
+	}
+
+	@Override
+	public List<Item> findPage(long after, int limit) {
+		return itemRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limit));
+	}
+
+	/**
+	 * Only the requested columns are selected, into tuples rather than entities,
+	 * so the persistence context is not involved either.
+	 */
+	@Override
+	public List<Item> findItems(ItemQuery query) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> criteria = builder.createTupleQuery();
+		Root<Item> item = criteria.from(Item.class);
+		List<Selection<?>> columns = new ArrayList<>();
+
+		columns.add(item.get("id").alias("id"));
+		query.getFields().forEach(field -> columns.add(item.get(field.getName()).alias(field.getName())));
+
+		Path<?> sorted = item.get(query.getOrder().getProperty());
+		Predicate matches = matching(query).toPredicate(item, criteria, builder);
+
+		criteria.multiselect(columns).where(matches == null ? builder.conjunction() : matches);
+
+		if (query.getOrder().isDescending()) {
+			criteria.orderBy(builder.desc(sorted), builder.desc(item.get("id")));
+		} else {
+			criteria.orderBy(builder.asc(sorted), builder.asc(item.get("id")));
+		}
+
+		List<Item> result = new ArrayList<>();
+
+		for (Tuple tuple : entityManager.createQuery(criteria)
+				.setFirstResult((int) Math.min(query.getOffset(), Integer.MAX_VALUE))
+				.setMaxResults(query.getLimit())
+				.getResultList()) {
+			Item found = Item.builder().id(tuple.get("id", Long.class)).build();
+
+			query.getFields().forEach(field -> field.set(found, tuple.get(field.getName(), field.getType())));
+			result.add(found);
+		}
+
+		return result;
+	}
+
+	@Override
+	public List<Item> search(List<String> terms, long offset, int limit) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Item> query = builder.createQuery(Item.class);
+		Root<Item> item = query.from(Item.class);
+		List<Predicate> matches = new ArrayList<>();
+
+		for (String term : terms) {
+			String pattern = "%" + term + "%";
+
+			matches.add(builder.or(builder.like(builder.lower(item.get("title")), pattern),
+					builder.like(builder.lower(item.get("description")), pattern)));
+		}
+
+		query.where(matches.toArray(new Predicate[0])).orderBy(builder.asc(item.get("id")));
+
+		return entityManager.createQuery(query)
+				.setFirstResult((int) Math.min(offset, Integer.MAX_VALUE))
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	@Override
+	@Transactional
+	public void deleteById(long id, long changeSeq) {
+		itemRepository.deleteById(id);
+		tombstoneRepository.save(tombstone(id, changeSeq));
+	}
+
+	@Override
+	@Transactional
+	public void deleteAll(Iterable<Item> items) {
+		List<ItemTombstone> tombstones = new ArrayList<>();
+
+		for (Item item : items) {
+			if (item.getChangeSeq() != null) {
+				tombstones.add(tombstone(item.getId(), item.getChangeSeq()));
+			}
+		}
+
+		itemRepository.deleteAll(items);
+		tombstoneRepository.saveAll(tombstones);
+	}
+
+	@Override
+	public List<Item> findChanged(long since, long upTo, int limit) {
+		return itemRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(since, upTo,
+				PageRequest.of(0, limit));
+	}
+
+	@Override
+	public List<ItemTombstone> findTombstones(long since, long upTo, int limit) {
+		return tombstoneRepository.findChanges(since, upTo, PageRequest.of(0, limit));
+	}
+
+	@Override
+	public long getHighestChangeSeq() {
+		return Math.max(orZero(itemRepository.findMaxChangeSeq()), orZero(tombstoneRepository.findMaxChangeSeq()));
+	}
+
+	@Override
+	public long getCompactedChangeSeq() {
+		return tombstoneRepository.findById(ItemTombstone.COMPACTED).map(ItemTombstone::getChangeSeq).orElse(0L);
+	}
+
+	/**
+	 * The floor is kept as a marker row, so it survives the tombstones it stands
+	 * for.
+	 */
+	@Override
+	@Transactional
+	public long compactTombstones(Instant deletedBefore) {
+		long floor = getCompactedChangeSeq();
+		Long expired = tombstoneRepository.findMaxChangeSeqDeletedBefore(deletedBefore);
+
+		if (expired == null || expired <= floor) {
+			return floor;
+		}
+
+		tombstoneRepository.deleteUpTo(expired);
+		tombstoneRepository.save(ItemTombstone.builder().itemId(ItemTombstone.COMPACTED).changeSeq(expired).build());
+
+		return expired;
+	}
+
+	/**
+	 * Resolves the version to save with, and the ID of new items. The stored item
+	 * is loaded into the persistence context here, so the merge that follows does
+	 * not select it again. Without a version to check, the row is locked until
+	 * the transaction ends, so the version taken from it is still current when
+	 * the update is written.
+	 */
+	private Item versioned(Item item) {
+		if (item.getId() == null) {
+			return identified(item);
+		}
+
+		Optional<Item> stored = item.getVersion() == null
+				? Optional.ofNullable(entityManager.find(Item.class, item.getId(), LockModeType.PESSIMISTIC_WRITE))
+				: itemRepository.findById(item.getId());
+
+		if (!stored.isPresent()) {
+			if (item.getVersion() != null) {
+				throw new OptimisticLockingFailureException(
+						String.format("Item %d no longer exists.", item.getId()));
+			}
+
+			// Unknown IDs are stored as new items.
+			return identified(item.toBuilder().id(null).build());
+		}
+
+		if (item.getVersion() == null) {
+			return item.toBuilder().version(stored.get().getVersion()).build();
+		}
+
+		return item;
+	}
+
+	private Item identified(Item item) {
+		return idGenerator.map(generator -> item.toBuilder().id(generator.nextId()).build()).orElse(item);
+	}
+
+	private static Specification<Item> matching(ItemQuery query) {
+		Specification<Item> matching = Specification.where(null);
+
+		if (query.getListId() != null) {
+			matching = matching.and((item, criteria, builder) -> builder.equal(item.get("listId"), query.getListId()));
+		}
+
+		if (query.getTitlePrefix() != null) {
+			matching = matching.and((item, criteria, builder) -> builder.like(item.get("title"),
+					query.getTitlePattern(), ItemQuery.LIKE_ESCAPE));
+		}
+
+		if (query.getAfter() != null && query.getOrder().isById()) {
+			matching = matching.and((item, criteria, builder) -> query.getOrder().isDescending()
+					? builder.lessThan(item.get("id"), query.getAfter())
+					: builder.greaterThan(item.get("id"), query.getAfter()));
+		}
+
+		return matching;
+	}
+
+	private static ItemTombstone tombstone(long itemId, long changeSeq) {
+		return ItemTombstone.builder().itemId(itemId).changeSeq(changeSeq).deletedAt(Instant.now()).build();
+	}
+
+	private static long orZero(Long value) {
+		return value == null ? 0L : value;
+	}
+
+	private List<Item> toList(Iterable<Item> items) {
+		List<Item> result = new ArrayList<>();
+
+		items.forEach(result::add);
+
+		return result;
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.felype.todolist.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemTombstone;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking view of the storage engine, which is what
+ * {@link com.felype.todolist.service.ToDoListService} runs on. Same semantics
+ * as {@link ItemStore}, with errors signalled instead of thrown and missing
+ * items completing empty. Blocking engines are run through
+ * {@link BlockingItemStoreAdapter}.
+ */
+public interface ReactiveItemStore {
+
+	Mono<Item> save(Item item);
+
+	/**
+	 * Saves all items, emitting the stored items in the same order.
+	 */
+	Flux<Item> saveAll(Iterable<Item> items);
+
+	Mono<Item> findById(long id);
+
+	/**
+	 * All items, in ID order.
+	 */
+	Flux<Item> findAll();
+
+	/**
+	 * Items found for the given IDs, in no particular order. Missing IDs are
+	 * skipped.
+	 */
+	Flux<Item> findAllById(Iterable<Long> ids);
+
+	/**
+	 * Keyset page: at most {@code limit} items with an ID greater than
+	 * {@code after}, in ID order.
+	 */
+	Flux<Item> findPage(long after, int limit);
+
+	/**
+	 * At most {@code limit} items matching the query, in its order, with only the
+	 * fields it asks for set besides the ID.
+	 */
+	Flux<Item> findItems(ItemQuery query);
+
+	/**
+	 * Items whose title or description contains every one of the terms, ignoring
+	 * case, in ID order: at most {@code limit} of them, after skipping the first
+	 * {@code offset}.
+	 */
+	Flux<Item> search(List<String> terms, long offset, int limit);
+
+	/**
+	 * Deletes the item, leaving a tombstone at {@code changeSeq}.
+	 */
+	Mono<Void> deleteById(long id, long changeSeq);
+
+	/**
+	 * Deletes the items, leaving a tombstone for each one that carries a change
+	 * sequence.
+	 */
+	Mono<Void> deleteAll(Iterable<Item> items);
+
+	/**
+	 * At most {@code limit} items last changed after {@code since} and up to
+	 * {@code upTo}, in change sequence order.
+	 */
+	Flux<Item> findChanged(long since, long upTo, int limit);
+
+	/**
+	 * At most {@code limit} tombstones left after {@code since} and up to
+	 * {@code upTo}, in change sequence order.
+	 */
+	Flux<ItemTombstone> findTombstones(long since, long upTo, int limit);
+
+	/**
+	 * Highest change sequence stored, to resume the sequence from on startup.
+	 */
+	Mono<Long> getHighestChangeSeq();
+
+	/**
+	 * Change sequence up to which tombstones may have been dropped.
+	 */
+	Mono<Long> getCompactedChangeSeq();
+
+	/**
+	 * Drops the tombstones of items deleted before the given instant, emitting
+	 * the new compaction floor.
+	 */
+	Mono<Long> compactTombstones(Instant deletedBefore);
+
+	/**
+	 * Runs {@code work} in a single transaction, against the store it is given.
+	 */
+	<T> Mono<T> inTransaction(Function<ReactiveItemStore, Mono<T>> work);
+
+}
@@ -0,0 +1,646 @@
+package com.felype.todolist.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemTombstone;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Write-behind in front of another store: updates and deletes of single items
+ * are acknowledged once queued, and a background flusher writes what is queued
+ * in batches, one transaction each.
+ * <p>
+ * Each queued write is stored as it was acknowledged. A batch holds at most one
+ * write per item, so consecutive updates of an item reach the store one by one
+ * and keep the versions they were acknowledged with; what a delete supersedes
+ * is dropped before it is written. Creates need the ID the store assigns, so
+ * they are queued with the rest but only acknowledged once their batch is
+ * committed, sharing its transaction. Saves and deletes of several items, and
+ * work run in a transaction, go straight to the store once the queue was
+ * flushed.
+ * <p>
+ * Reads see every write acknowledged before them: an item with queued writes is
+ * read from what they left, and any other read waits for the writes queued
+ * before it to be flushed. A full queue rejects further writes with
+ * {@link RejectedExecutionException}.
+ * <p>
+ * Acknowledged writes are not durable until flushed: they are lost if the
+ * process dies first, or if the store refuses them, which is logged and
+ * counted.
+ */
+@Slf4j
+public class WriteBehindItemStore implements ReactiveItemStore, AutoCloseable {
+
+	static final String METRIC_PREFIX = "todolist.write_behind";
+
+	private final ReactiveItemStore itemStore;
+
+	private final int capacity;
+
+	private final int batchSize;
+
+	private final Queue<Mutation> queue = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Writes queued and not yet flushed or dropped.
+	 */
+	private final AtomicInteger depth = new AtomicInteger();
+
+	private final Map<Long, Projection> projections = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	private final ScheduledExecutorService flusher;
+
+	/**
+	 * Everything taken off the queue and not yet flushed, in queue order. Only
+	 * touched by the flusher thread.
+	 */
+	private final ArrayDeque<Mutation> backlog = new ArrayDeque<>();
+
+	private final Timer flushTimer;
+
+	private final Timer lagTimer;
+
+	private final Counter rejected;
+
+	private final Counter failed;
+
+	public WriteBehindItemStore(ReactiveItemStore itemStore, int capacity, int batchSize, Duration flushInterval,
+			MeterRegistry meterRegistry) {
+		this.itemStore = itemStore;
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "write-behind");
+
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		Gauge.builder(METRIC_PREFIX + ".depth", depth, AtomicInteger::get)
+				.description("Writes acknowledged and not yet flushed")
+				.register(meterRegistry);
+		flushTimer = Timer.builder(METRIC_PREFIX + ".flush")
+				.description("Transactions flushing a batch of queued writes")
+				.register(meterRegistry);
+		lagTimer = Timer.builder(METRIC_PREFIX + ".lag")
+				.description("Time from queueing a write to committing it")
+				.register(meterRegistry);
+		rejected = Counter.builder(METRIC_PREFIX + ".rejected")
+				.description("Writes rejected because the queue was full")
+				.register(meterRegistry);
+		failed = Counter.builder(METRIC_PREFIX + ".failed")
+				.description("Acknowledged writes the store refused, and that were dropped")
+				.register(meterRegistry);
+
+		long interval = flushInterval.toNanos();
+
+		flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public Mono<Item> save(Item item) {
+		if (item.getId() == null) {
+			return Mono.defer(() -> {
+				Mutation create = new Mutation(Kind.CREATE, null, item.toBuilder().build(), null);
+
+				create.created = MonoProcessor.create();
+				enqueue(create);
+
+				return create.created;
+			});
+		}
+
+		return projected(item.getId(), projection -> {
+			synchronized (projection) {
+				if (projection.item == null) {
+					return null;
+				}
+
+				Long current = projection.item.getVersion();
+
+				if (item.getVersion() != null && !item.getVersion().equals(current)) {
+					throw new OptimisticLockingFailureException(
+							String.format("Item was changed since it was read. ID: %d", item.getId()));
+				}
+
+				Mutation update = new Mutation(Kind.UPDATE, projection, item.toBuilder().version(current).build(), null);
+				enqueue(update);
+				projection.item = item.toBuilder().version(current + 1).build();
+				projection.pending++;
+				projection.updates.add(update);
+
+				return projection.item.toBuilder().build();
+			}
+		}).switchIfEmpty(Mono.defer(() -> flushed().then(itemStore.save(item))));
+	}
+
+	@Override
+	public Flux<Item> saveAll(Iterable<Item> items) {
+		return flushed().thenMany(Flux.defer(() -> itemStore.saveAll(items)));
+	}
+
+	@Override
+	public Mono<Item> findById(long id) {
+		return Mono.defer(() -> {
+			Projection projection = projections.get(id);
+
+			if (projection != null) {
+				synchronized (projection) {
+					if (projection.loaded && !projection.retired) {
+						return Mono.justOrEmpty(projection.item).map(item -> item.toBuilder().build());
+					}
+				}
+			}
+
+			return flushed().then(itemStore.findById(id));
+		});
+	}
+
+	@Override
+	public Flux<Item> findAll() {
+		return flushed().thenMany(Flux.defer(itemStore::findAll));
+	}
+
+	@Override
+	public Flux<Item> findAllById(Iterable<Long> ids) {
+		return flushed().thenMany(Flux.defer(() -> itemStore.findAllById(ids)));
+	}
+
+	@Override
+	public Flux<Item> findPage(long after, int limit) {
+		return flushed().thenMany(Flux.defer(() -> itemStore.findPage(after, limit)));
+	}
+
+	@Override
+	public Flux<Item> findItems(ItemQuery query) {
+		return flushed().thenMany(Flux.defer(() -> itemStore.findItems(query)));
+	}
+
+	@Override
+	public Flux<Item> search(List<String> terms, long offset, int limit) {
+		return flushed().thenMany(Flux.defer(() -> itemStore.search(terms, offset, limit)));
+	}
+
+	@Override
+	public Mono<Void> deleteById(long id, long changeSeq) {
+		return projected(id, projection -> {
+			synchronized (projection) {
+				if (projection.item == null) {
+					throw new EmptyResultDataAccessException(
+							String.format("No item with ID %d exists.", id), 1);
+				}
+
+				enqueue(new Mutation(Kind.DELETE, projection, null, changeSeq));
+				projection.item = null;
+				projection.pending++;
+
+				// Nothing is left of what the delete supersedes.
+				for (Mutation update : projection.updates) {
+					update.cancelled = true;
+					projection.pending--;
+					depth.decrementAndGet();
+				}
+
+				projection.updates.clear();
+
+				return Boolean.TRUE;
+			}
+		}).then();
+	}
+
+	@Override
+	public Mono<Void> deleteAll(Iterable<Item> items) {
+		return flushed().then(Mono.defer(() -> itemStore.deleteAll(items)));
+	}
+
+	@Override
+	public Flux<Item> findChanged(long since, long upTo, int limit) {
+		return flushed().thenMany(Flux.defer(() -> itemStore.findChanged(since, upTo, limit)));
+	}
+
+	@Override
+	public Flux<ItemTombstone> findTombstones(long since, long upTo, int limit) {
+		return flushed().thenMany(Flux.defer(() -> itemStore.findTombstones(since, upTo, limit)));
+	}
+
+	@Override
+	public Mono<Long> getHighestChangeSeq() {
+		return flushed().then(Mono.defer(itemStore::getHighestChangeSeq));
+	}
+
+	@Override
+	public Mono<Long> getCompactedChangeSeq() {
+		return itemStore.getCompactedChangeSeq();
+	}
+
+	@Override
+	public Mono<Long> compactTombstones(Instant deletedBefore) {
+		return flushed().then(Mono.defer(() -> itemStore.compactTombstones(deletedBefore)));
+	}
+
+	/**
+	 * The work runs against the store itself, once the queue was flushed.
+	 */
+	@Override
+	public <T> Mono<T> inTransaction(Function<ReactiveItemStore, Mono<T>> work) {
+		return flushed().then(Mono.defer(() -> itemStore.inTransaction(work)));
+	}
+
+	/**
+	 * Flushes what is left in the queue, and stops the flusher.
+	 */
+	@Override
+	public void close() throws InterruptedException {
+		flusher.execute(this::flush);
+		flusher.shutdown();
+
+		if (!flusher.awaitTermination(1, TimeUnit.MINUTES)) {
+			log.warn("Write-behind queue not flushed on close. Pending: {}", depth.get());
+		}
+	}
+
+	/**
+	 * Applies {@code change} to the projection of the item once it is loaded,
+	 * completing empty if it returns null.
+	 */
+	private <T> Mono<T> projected(long id, Function<Projection, T> change) {
+		return Mono.defer(() -> {
+			Projection projection = projections.computeIfAbsent(id, key -> new Projection(key, itemStore.findById(key)));
+
+			return projection.stored.flatMap(stored -> {
+				synchronized (projection) {
+					if (projection.retired) {
+						return projected(id, change);
+					}
+
+					if (!projection.loaded) {
+						projection.item = stored.orElse(null);
+						projection.loaded = true;
+					}
+
+					try {
+						return Mono.justOrEmpty(change.apply(projection));
+					} finally {
+						retireIfDone(projection, id);
+					}
+				}
+			});
+		});
+	}
+
+	/**
+	 * Completes once every write queued before it was flushed or dropped.
+	 */
+	private Mono<Void> flushed() {
+		return Mono.defer(() -> {
+			if (depth.get() == 0) {
+				return Mono.empty();
+			}
+
+			Mutation fence = new Mutation(Kind.FENCE, null, null, null);
+
+			fence.flushed = MonoProcessor.create();
+			queue.offer(fence);
+			wake();
+
+			// Not on the flusher thread, which must not run the read.
+			return fence.flushed.publishOn(Schedulers.parallel());
+		});
+	}
+
+	private void enqueue(Mutation mutation) {
+		int current;
+
+		do {
+			current = depth.get();
+
+			if (current >= capacity) {
+				rejected.increment();
+
+				throw new RejectedExecutionException(
+						String.format("Write-behind queue is full. Capacity: %d", capacity));
+			}
+		} while (!depth.compareAndSet(current, current + 1));
+
+		queue.offer(mutation);
+
+		// Creates are waited on, everything else waits for a full batch or the
+		// next flush.
+		if (mutation.kind == Kind.CREATE || current + 1 >= batchSize) {
+			wake();
+		}
+	}
+
+	private void wake() {
+		if (flushScheduled.compareAndSet(false, true)) {
+			try {
+				flusher.execute(this::flush);
+			} catch (RejectedExecutionException e) {
+				flushScheduled.set(false);
+
+				throw e;
+			}
+		}
+	}
+
+	private void flush() {
+		flushScheduled.set(false);
+
+		try {
+			while (true) {
+				for (Mutation mutation = queue.poll(); mutation != null; mutation = queue.poll()) {
+					backlog.add(mutation);
+				}
+
+				releaseFences();
+
+				List<Mutation> batch = nextBatch();
+
+				if (batch.isEmpty()) {
+					// Only fences left, behind writes a delete cancelled.
+					releaseFences();
+
+					if (queue.isEmpty()) {
+						return;
+					}
+				} else if (!write(batch)) {
+					return;
+				}
+			}
+		} catch (RuntimeException e) {
+			log.error("Write-behind flush failed.", e);
+		}
+	}
+
+	private void releaseFences() {
+		while (!backlog.isEmpty() && backlog.peekFirst().kind == Kind.FENCE) {
+			backlog.pollFirst().flushed.onComplete();
+		}
+	}
+
+	/**
+	 * Takes the oldest writes off the backlog, at most one per item. Later writes
+	 * of the same item stay for the next batch.
+	 */
+	private List<Mutation> nextBatch() {
+		List<Mutation> batch = new ArrayList<>();
+		Set<Long> itemIds = new HashSet<>();
+
+		for (Iterator<Mutation> iterator = backlog.iterator(); iterator.hasNext() && batch.size() < batchSize;) {
+			Mutation mutation = iterator.next();
+
+			if (mutation.kind == Kind.FENCE) {
+				continue;
+			}
+
+			if (mutation.kind == Kind.CREATE) {
+				batch.add(mutation);
+				iterator.remove();
+
+				continue;
+			}
+
+			Projection projection = mutation.projection;
+
+			synchronized (projection) {
+				if (mutation.cancelled) {
+					iterator.remove();
+				} else if (itemIds.add(projection.id)) {
+					// Being written, a delete can no longer cancel it.
+					projection.updates.remove(mutation);
+					batch.add(mutation);
+					iterator.remove();
+				}
+			}
+		}
+
+		return batch;
+	}
+
+	/**
+	 * Writes the batch in one transaction, or each write alone if that fails.
+	 * Returns false if the store is failing: what is left of the batch is then put
+	 * back, to be retried on the next flush.
+	 */
+	private boolean write(List<Mutation> batch) {
+		try {
+			commit(batch);
+		} catch (RuntimeException e) {
+			log.warn("Write-behind batch failed, writing it item by item. Size: {}", batch.size(), e);
+
+			for (int index = 0; index < batch.size(); index++) {
+				Mutation mutation = batch.get(index);
+
+				try {
+					commit(Collections.singletonList(mutation));
+				} catch (RuntimeException refused) {
+					if (!refused(mutation, refused)) {
+						for (int left = batch.size() - 1; left >= index; left--) {
+							backlog.addFirst(batch.get(left));
+						}
+
+						return false;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private void commit(List<Mutation> batch) {
+		Timer.Sample sample = Timer.start();
+		Map<Mutation, Item> created = new HashMap<>();
+
+		itemStore.inTransaction(store -> Flux.fromIterable(batch)
+				.concatMap(mutation -> apply(store, mutation, created))
+				.then())
+				.block();
+		sample.stop(flushTimer);
+		batch.forEach(mutation -> done(mutation, created.get(mutation)));
+	}
+
+	/**
+	 * Creates save a copy of the queued item, as saving may assign its ID and
+	 * version, which a rolled back attempt must not leave on the one retried.
+	 */
+	private Mono<?> apply(ReactiveItemStore store, Mutation mutation, Map<Mutation, Item> created) {
+		switch (mutation.kind) {
+			case CREATE:
+				return store.save(mutation.item.toBuilder().id(null).version(null).build())
+						.doOnNext(saved -> created.put(mutation, saved));
+			case UPDATE:
+				return store.save(mutation.item);
+			default:
+				return store.deleteById(mutation.projection.id, mutation.changeSeq);
+		}
+	}
+
+	/**
+	 * A write the store refused on its own. Creates get the error, as they were
+	 * not acknowledged yet. Other writes are dropped if the store will never take
+	 * them. Returns false if they should be retried.
+	 */
+	private boolean refused(Mutation mutation, RuntimeException e) {
+		Throwable cause = Exceptions.unwrap(e);
+
+		if (mutation.kind == Kind.CREATE) {
+			depth.decrementAndGet();
+			mutation.created.onError(cause);
+
+			return true;
+		}
+
+		if (cause instanceof NonTransientDataAccessException || cause instanceof OptimisticLockingFailureException) {
+			log.error("Write-behind write dropped. Kind: {}, ID: {}", mutation.kind, mutation.projection.id, cause);
+			failed.increment();
+			done(mutation, null);
+
+			return true;
+		}
+
+		log.warn("Write-behind store unavailable, retrying on the next flush.", cause);
+
+		return false;
+	}
+
+	/**
+	 * Called once the write committed, with the stored item for a create.
+	 */
+	private void done(Mutation mutation, Item created) {
+		lagTimer.record(System.nanoTime() - mutation.queuedAt, TimeUnit.NANOSECONDS);
+
+		if (mutation.kind == Kind.CREATE) {
+			depth.decrementAndGet();
+			mutation.created.onNext(created);
+
+			return;
+		}
+
+		Projection projection = mutation.projection;
+
+		synchronized (projection) {
+			projection.pending--;
+			depth.decrementAndGet();
+			retireIfDone(projection, projection.id);
+		}
+	}
+
+	/**
+	 * Once nothing is queued for it, the item is read from the store again. Called
+	 * holding the projection.
+	 */
+	private void retireIfDone(Projection projection, long id) {
+		if (projection.loaded && projection.pending == 0 && !projection.retired) {
+			projection.retired = true;
+			projections.remove(id, projection);
+		}
+	}
+
+	private enum Kind {
+		CREATE, UPDATE, DELETE, FENCE
+	}
+
+	private static final class Mutation {
+
+		private final Kind kind;
+
+		private final Projection projection;
+
+		private final Long changeSeq;
+
+		private final long queuedAt = System.nanoTime();
+
+		/**
+		 * What is written, as it was queued.
+		 */
+		private final Item item;
+
+		/**
+		 * Set by a later delete of the same item, guarded by the projection.
+		 */
+		private boolean cancelled;
+
+		private MonoProcessor<Item> created;
+
+		private MonoProcessor<Void> flushed;
+
+		private Mutation(Kind kind, Projection projection, Item item, Long changeSeq) {
+			this.kind = kind;
+			this.projection = projection;
+			this.item = item;
+			this.changeSeq = changeSeq;
+		}
+
+	}
+
+	/**
+	 * The item as its queued writes left it. Fields other than the load are
+	 * guarded by the projection itself.
+	 */
+	private static final class Projection {
+
+		private final Mono<Optional<Item>> stored;
+
+		private final long id;
+
+		private boolean loaded;
+
+		private boolean retired;
+
+		/**
+		 * Null once deleted, or if the item does not exist.
+		 */
+		private Item item;
+
+		private int pending;
+
+		private final List<Mutation> updates = new ArrayList<>();
+
+		private Projection(long id, Mono<Item> stored) {
+			this.id = id;
+			this.stored = stored.map(Optional::of).defaultIfEmpty(Optional.empty()).cache();
+		}
+
+	}
+
+}
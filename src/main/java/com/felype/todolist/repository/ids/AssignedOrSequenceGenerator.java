@@ -0,0 +1,21 @@
+package com.felype.todolist.repository.ids;
+
+import java.io.Serializable;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+/**
+ * Hibernate's sequence generator, except that entities persisted with an ID,
+ * which an {@link ItemIdGenerator} assigned, keep it.
+ */
+public class AssignedOrSequenceGenerator extends SequenceStyleGenerator {
+
+	@Override
+	public Serializable generate(SharedSessionContractImplementor session, Object object) {
+		Serializable assigned = session.getEntityPersister(null, object).getIdentifier(object, session);
+
+		return assigned != null ? assigned : super.generate(session, object);
+	}
+
+}
@@ -0,0 +1,11 @@
+package com.felype.todolist.repository.ids;
+
+/**
+ * Assigns the IDs of new items in place of the engine, which stores them as
+ * given. Called for every item created, from any thread.
+ */
+public interface ItemIdGenerator {
+
+	long nextId();
+
+}
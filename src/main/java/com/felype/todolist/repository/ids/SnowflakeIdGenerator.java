@@ -0,0 +1,73 @@
+package com.felype.todolist.repository.ids;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered IDs made up on the spot, with no coordination between nodes:
+ * the milliseconds since {@link #EPOCH} in the high 41 bits, then the 10-bit
+ * ID of the node, then a 12-bit count of the IDs made within the millisecond.
+ * Nodes sharing a database must each have their own node ID.
+ * <p>
+ * A millisecond out of IDs borrows the next one, as does a clock set back, so
+ * the IDs of a node keep growing without ever waiting for the clock. They are
+ * past the 2^53 JavaScript numbers hold exactly, which clients there have to
+ * bear in mind.
+ */
+public class SnowflakeIdGenerator implements ItemIdGenerator {
+
+	public static final Instant EPOCH = Instant.parse("2020-01-01T00:00:00Z");
+
+	public static final int MAX_NODE_ID = 1023;
+
+	private static final int NODE_BITS = 10;
+
+	private static final int COUNT_BITS = 12;
+
+	private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+	private final long node;
+
+	private final LongSupplier clock;
+
+	/**
+	 * The milliseconds and count of the last ID made, without the node.
+	 */
+	private final AtomicLong last = new AtomicLong();
+
+	public SnowflakeIdGenerator(int nodeId) {
+		this(nodeId, System::currentTimeMillis);
+	}
+
+	SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+		if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ".");
+		}
+
+		this.node = (long) nodeId << COUNT_BITS;
+		this.clock = clock;
+	}
+
+	@Override
+	public long nextId() {
+		long now = (clock.getAsLong() - EPOCH.toEpochMilli()) << COUNT_BITS;
+
+		while (true) {
+			long previous = last.get();
+			long next = Math.max(now, previous + 1);
+
+			if (last.compareAndSet(previous, next)) {
+				return (next >>> COUNT_BITS) << (NODE_BITS + COUNT_BITS) | node | next & COUNT_MASK;
+			}
+		}
+	}
+
+	/**
+	 * When the ID was made, to the millisecond.
+	 */
+	public static Instant timestamp(long id) {
+		return EPOCH.plusMillis(id >>> (NODE_BITS + COUNT_BITS));
+	}
+
+}
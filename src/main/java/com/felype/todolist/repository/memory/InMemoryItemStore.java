@@ -0,0 +1,494 @@
+package com.felype.todolist.repository.memory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemTombstone;
+import com.felype.todolist.repository.ItemQuery;
+import com.felype.todolist.repository.ItemStore;
+
+/**
+ * Engine keeping every item on the heap, for deployments that do not need the
+ * relational database. Items are copied when stored, and the stored copies are
+ * never modified afterwards, so they can be handed out to readers as they are.
+ * <p>
+ * With an {@link ItemJournal} every mutation is also logged, and returns once
+ * it is durable. Mutations of the same ID are applied and logged under a common
+ * lock, so the log replays them in the order readers saw them. Readers may see
+ * a mutation while it is being logged; one the journal fails to log is taken
+ * back before the error reaches the writer, so it is not seen after a restart
+ * either.
+ * <p>
+ * Items and tombstones are also indexed by change sequence, so finding what
+ * changed since a point costs what changed rather than a scan of every item.
+ * Items are kept in ID order besides, so a page costs its size however many
+ * IDs before it were deleted.
+ */
+@Component
+@ConditionalOnProperty(name = "todolist.storage.engine", havingValue = "memory")
+public class InMemoryItemStore implements ItemStore {
+
+	private static final int LOCK_STRIPES = 64;
+
+	private static final CompletableFuture<Void> DURABLE = CompletableFuture.completedFuture(null);
+
+	private final StripedLongObjectMap<Item> items = new StripedLongObjectMap<>(
+			Runtime.getRuntime().availableProcessors() * 4);
+
+	private final ConcurrentSkipListMap<Long, Item> byId = new ConcurrentSkipListMap<>();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final ConcurrentSkipListMap<Long, Item> changed = new ConcurrentSkipListMap<>();
+
+	private final ConcurrentSkipListMap<Long, ItemTombstone> tombstones = new ConcurrentSkipListMap<>();
+
+	private final AtomicLong compactedChangeSeq = new AtomicLong();
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	private final ItemJournal journal;
+
+	public InMemoryItemStore() {
+		this(Optional.empty());
+	}
+
+	@Autowired
+	public InMemoryItemStore(Optional<ItemJournal> journal) {
+		this.journal = journal.orElse(null);
+
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+
+		if (this.journal != null) {
+			recover();
+		}
+	}
+
+	@Override
+	public Item save(Item item) {
+		Item stored = copy(item);
+
+		store(stored).join();
+
+		return stored;
+	}
+
+	@Override
+	public List<Item> saveAll(Iterable<Item> items) {
+		List<Item> result = new ArrayList<>();
+		List<CompletableFuture<Void>> written = new ArrayList<>();
+
+		// Queued together, so the whole batch shares group commits.
+		for (Item item : items) {
+			Item stored = copy(item);
+
+			written.add(store(stored));
+			result.add(stored);
+		}
+
+		written.forEach(CompletableFuture::join);
+
+		return result;
+	}
+
+	@Override
+	public Optional<Item> findById(long id) {
+		return Optional.ofNullable(items.get(id));
+	}
+
+	@Override
+	public List<Item> findAll() {
+		return new ArrayList<>(byId.values());
+	}
+
+	@Override
+	public List<Item> findAllById(Iterable<Long> ids) {
+		List<Item> result = new ArrayList<>();
+
+		for (Long id : ids) {
+			Item item = items.get(id);
+
+			if (item != null) {
+				result.add(item);
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public List<Item> findPage(long after, int limit) {
+		return first(byId.tailMap(after, false).values(), limit);
+	}
+
+	/**
+	 * Scans every item, only the ID orders without a title filter are served
+	 * from the ID order.
+	 */
+	@Override
+	public List<Item> findItems(ItemQuery query) {
+		ItemQuery.Order order = query.getOrder();
+
+		if (order == ItemQuery.Order.ID && query.getListId() == null && query.getTitlePrefix() == null
+				&& query.getOffset() == 0) {
+			long after = query.getAfter() == null ? 0L : query.getAfter();
+
+			return findPage(after, query.getLimit()).stream().map(query::project).collect(Collectors.toList());
+		}
+
+		Comparator<Item> comparator = order.isById() ? Comparator.comparing(Item::getId)
+				: Comparator.comparing(Item::getTitle, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+						.thenComparing(Item::getId);
+		List<Item> matches = new ArrayList<>();
+
+		items.forEach(item -> {
+			if (matches(query, item)) {
+				matches.add(item);
+			}
+		});
+
+		return matches.stream()
+				.sorted(order.isDescending() ? comparator.reversed() : comparator)
+				.skip(query.getOffset())
+				.limit(query.getLimit())
+				.map(query::project)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Scans every item, there is no index on the text.
+	 */
+	@Override
+	public List<Item> search(List<String> terms, long offset, int limit) {
+		List<Item> matches = new ArrayList<>();
+
+		items.forEach(item -> {
+			if (terms.stream().allMatch(term -> contains(item.getTitle(), term)
+					|| contains(item.getDescription(), term))) {
+				matches.add(item);
+			}
+		});
+
+		return matches.stream()
+				.sorted(Comparator.comparing(Item::getId))
+				.skip(offset)
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public void deleteById(long id, long changeSeq) {
+		CompletableFuture<Void> written = remove(id, changeSeq);
+
+		if (written == null) {
+			throw new EmptyResultDataAccessException(String.format("No item with id %d exists!", id), 1);
+		}
+
+		written.join();
+	}
+
+	@Override
+	public void deleteAll(Iterable<Item> items) {
+		List<CompletableFuture<Void>> written = new ArrayList<>();
+
+		for (Item item : items) {
+			if (item.getId() != null) {
+				CompletableFuture<Void> removed = remove(item.getId(), item.getChangeSeq());
+
+				if (removed != null) {
+					written.add(removed);
+				}
+			}
+		}
+
+		written.forEach(CompletableFuture::join);
+	}
+
+	@Override
+	public List<Item> findChanged(long since, long upTo, int limit) {
+		return first(changed.subMap(since, false, upTo, true).values(), limit);
+	}
+
+	@Override
+	public List<ItemTombstone> findTombstones(long since, long upTo, int limit) {
+		return first(tombstones.subMap(since, false, upTo, true).values(), limit);
+	}
+
+	@Override
+	public long getHighestChangeSeq() {
+		long highest = compactedChangeSeq.get();
+
+		if (!changed.isEmpty()) {
+			highest = Math.max(highest, changed.lastKey());
+		}
+
+		if (!tombstones.isEmpty()) {
+			highest = Math.max(highest, tombstones.lastKey());
+		}
+
+		return highest;
+	}
+
+	@Override
+	public long getCompactedChangeSeq() {
+		return compactedChangeSeq.get();
+	}
+
+	/**
+	 * Compaction is not journaled: until the next snapshot, a restart brings the
+	 * dropped tombstones back, which only costs clients a few redundant deletes.
+	 */
+	@Override
+	public long compactTombstones(Instant deletedBefore) {
+		long expired = 0L;
+
+		for (ItemTombstone tombstone : tombstones.values()) {
+			if (tombstone.getDeletedAt().isBefore(deletedBefore)) {
+				expired = tombstone.getChangeSeq();
+			}
+		}
+
+		long floor = compactedChangeSeq.accumulateAndGet(expired, Math::max);
+
+		tombstones.headMap(floor, true).clear();
+
+		return floor;
+	}
+
+	/**
+	 * Writes a snapshot of every item, so the journal can drop the log before it.
+	 */
+	@Scheduled(initialDelayString = "${todolist.storage.memory.snapshot-interval:PT5M}",
+			fixedDelayString = "${todolist.storage.memory.snapshot-interval:PT5M}")
+	public void snapshot() throws IOException {
+		if (journal != null) {
+			journal.snapshot(items::forEach, tombstones.values()::forEach, sequence.get(),
+					compactedChangeSeq.get());
+		}
+	}
+
+	private CompletableFuture<Void> store(Item stored) {
+		if (stored.getId() != null) {
+			synchronized (lock(stored.getId())) {
+				Item current = items.get(stored.getId());
+
+				if (stored.getVersion() != null
+						&& (current == null || !stored.getVersion().equals(current.getVersion()))) {
+					throw new OptimisticLockingFailureException(
+							String.format("Item %d was changed or deleted.", stored.getId()));
+				}
+
+				if (current != null) {
+					stored.setVersion(current.getVersion() + 1);
+					items.put(stored.getId(), stored);
+					index(current, stored);
+
+					return log(current, stored);
+				}
+			}
+		}
+
+		long id = sequence.incrementAndGet();
+		stored.setId(id).setVersion(0L);
+
+		synchronized (lock(id)) {
+			items.put(id, stored);
+			index(null, stored);
+
+			return log(null, stored);
+		}
+	}
+
+	/**
+	 * Returns null when there was nothing to remove.
+	 */
+	private CompletableFuture<Void> remove(long id, Long changeSeq) {
+		synchronized (lock(id)) {
+			Item removed = items.remove(id);
+
+			if (removed == null) {
+				return null;
+			}
+
+			ItemTombstone tombstone = ItemTombstone.builder().itemId(id).changeSeq(changeSeq)
+					.deletedAt(Instant.now()).build();
+
+			index(removed, null);
+			bury(tombstone);
+
+			if (journal == null) {
+				return DURABLE;
+			}
+
+			return journal.delete(tombstone).whenComplete((durable, e) -> {
+				if (e != null) {
+					restore(removed, tombstone);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Moves an item to its new change sequence, and to its new state in the ID
+	 * order. Called under the item lock.
+	 */
+	private void index(Item previous, Item current) {
+		if (previous != null && previous.getChangeSeq() != null) {
+			changed.remove(previous.getChangeSeq(), previous);
+		}
+
+		if (current != null && current.getChangeSeq() != null) {
+			changed.put(current.getChangeSeq(), current);
+		}
+
+		if (current != null) {
+			byId.put(current.getId(), current);
+		} else if (previous != null) {
+			byId.remove(previous.getId(), previous);
+		}
+	}
+
+	private void bury(ItemTombstone tombstone) {
+		if (tombstone.getChangeSeq() != null && tombstone.getChangeSeq() > compactedChangeSeq.get()) {
+			tombstones.put(tombstone.getChangeSeq(), tombstone);
+		}
+	}
+
+	private CompletableFuture<Void> log(Item previous, Item stored) {
+		if (journal == null) {
+			return DURABLE;
+		}
+
+		return journal.put(stored).whenComplete((durable, e) -> {
+			if (e != null) {
+				revert(previous, stored);
+			}
+		});
+	}
+
+	/**
+	 * Takes back a change the journal failed to log, unless a later one has
+	 * replaced it. The journal fails a group commit newest first, so changes to
+	 * the same item are taken back one after the other.
+	 */
+	private void revert(Item previous, Item failed) {
+		synchronized (lock(failed.getId())) {
+			if (items.get(failed.getId()) != failed) {
+				return;
+			}
+
+			if (previous == null) {
+				items.remove(failed.getId());
+			} else {
+				items.put(failed.getId(), previous);
+			}
+
+			index(failed, previous);
+		}
+	}
+
+	/**
+	 * Takes back a removal the journal failed to log.
+	 */
+	private void restore(Item removed, ItemTombstone tombstone) {
+		synchronized (lock(removed.getId())) {
+			if (tombstone.getChangeSeq() != null) {
+				tombstones.remove(tombstone.getChangeSeq(), tombstone);
+			}
+
+			if (items.get(removed.getId()) == null) {
+				items.put(removed.getId(), removed);
+				index(null, removed);
+			}
+		}
+	}
+
+	private Object lock(long id) {
+		return locks[(int) (id & (LOCK_STRIPES - 1))];
+	}
+
+	private void recover() {
+		try {
+			sequence.set(journal.recover(new ItemJournal.Sink() {
+
+				@Override
+				public void put(Item item) {
+					index(items.put(item.getId(), item), item);
+				}
+
+				@Override
+				public void delete(ItemTombstone tombstone) {
+					index(items.remove(tombstone.getItemId()), null);
+					bury(tombstone);
+				}
+
+				@Override
+				public void compacted(long changeSeq) {
+					compactedChangeSeq.accumulateAndGet(changeSeq, Math::max);
+				}
+
+			}));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not recover items from the journal", e);
+		}
+	}
+
+	private static <T> List<T> first(Iterable<T> values, int limit) {
+		List<T> result = new ArrayList<>();
+
+		for (T value : values) {
+			if (result.size() == limit) {
+				break;
+			}
+
+			result.add(value);
+		}
+
+		return result;
+	}
+
+	private static boolean matches(ItemQuery query, Item item) {
+		if (query.getListId() != null && !query.getListId().equals(item.getListId())) {
+			return false;
+		}
+
+		if (query.getTitlePrefix() != null
+				&& (item.getTitle() == null || !item.getTitle().startsWith(query.getTitlePrefix()))) {
+			return false;
+		}
+
+		if (query.getAfter() == null || !query.getOrder().isById()) {
+			return true;
+		}
+
+		return query.getOrder().isDescending() ? item.getId() < query.getAfter() : item.getId() > query.getAfter();
+	}
+
+	private static boolean contains(String text, String term) {
+		return text != null && text.toLowerCase().contains(term);
+	}
+
+	private static Item copy(Item item) {
+		return item.toBuilder().build();
+	}
+
+}
@@ -0,0 +1,733 @@
+package com.felype.todolist.repository.memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemTombstone;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durability for {@link InMemoryItemStore}. Every mutation is appended to a
+ * write-ahead log segment, and concurrent appends are group committed: a single
+ * writer thread drains whatever is queued and covers it with one write and one
+ * fsync. A snapshot of all items, written through memory-mapped windows, starts
+ * a new segment and lets the older ones be deleted. Recovery loads the latest
+ * snapshot and replays the segments written after it.
+ * <p>
+ * Records are {@code [int length][int crc32][body]}, so a write torn by a crash
+ * is detected and cut off during recovery.
+ */
+@Slf4j
+public class ItemJournal implements Closeable {
+
+	/**
+	 * Receives the recovered state.
+	 */
+	public interface Sink {
+
+		void put(Item item);
+
+		/**
+		 * The tombstone carries no change sequence when the deletion was not
+		 * tracked.
+		 */
+		void delete(ItemTombstone tombstone);
+
+		/**
+		 * Tombstones up to the change sequence were dropped before the snapshot.
+		 */
+		void compacted(long changeSeq);
+
+	}
+
+	private static final byte PUT = 1;
+
+	private static final byte DELETE = 2;
+
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	private static final int SNAPSHOT_HEADER_SIZE = 20;
+
+	private static final int SNAPSHOT_MAGIC = 0x7D01157A;
+
+	private static final int MAX_BATCH = 4096;
+
+	private static final int MAP_WINDOW = 64 * 1024 * 1024;
+
+	private static final String LOG_SUFFIX = ".log";
+
+	private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+	private final Path directory;
+
+	private final BlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+
+	private final Thread writer = new Thread(this::writeLoop, "item-journal");
+
+	// Guarded by the queue, so no append is queued once closing has begun.
+	private volatile boolean running = true;
+
+	// Owned by the writer thread once recovery is done.
+	private FileChannel current;
+
+	private long segment;
+
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+
+	private final Timer syncTimer;
+
+	private final DistributionSummary batchSize;
+
+	private final Timer snapshotTimer;
+
+	private final Timer recoveryTimer;
+
+	public ItemJournal(Path directory, MeterRegistry meterRegistry) throws IOException {
+		this.directory = Files.createDirectories(directory);
+
+		syncTimer = Timer.builder("todolist.journal.sync")
+				.description("Time to write and fsync one group commit")
+				.register(meterRegistry);
+		batchSize = DistributionSummary.builder("todolist.journal.batch.size")
+				.description("Records covered by one group commit")
+				.register(meterRegistry);
+		snapshotTimer = Timer.builder("todolist.journal.snapshot").register(meterRegistry);
+		recoveryTimer = Timer.builder("todolist.journal.recovery").register(meterRegistry);
+
+		writer.setDaemon(true);
+	}
+
+	/**
+	 * Replays the latest snapshot and the log written after it into the sink, then
+	 * opens a new segment for appends. Returns the highest ID ever handed out.
+	 */
+	public long recover(Sink sink) throws IOException {
+		long start = System.nanoTime();
+		long[] highestId = new long[1];
+		long[] records = new long[1];
+
+		Sink tracking = new Sink() {
+
+			@Override
+			public void put(Item item) {
+				highestId[0] = Math.max(highestId[0], item.getId());
+				records[0]++;
+				sink.put(item);
+			}
+
+			@Override
+			public void delete(ItemTombstone tombstone) {
+				highestId[0] = Math.max(highestId[0], tombstone.getItemId());
+				records[0]++;
+				sink.delete(tombstone);
+			}
+
+			@Override
+			public void compacted(long changeSeq) {
+				sink.compacted(changeSeq);
+			}
+
+		};
+
+		List<Long> snapshots = numbered(SNAPSHOT_SUFFIX);
+		long firstSegment = 0;
+
+		if (!snapshots.isEmpty()) {
+			firstSegment = snapshots.get(snapshots.size() - 1);
+			long snapshotHighestId = loadSnapshot(path(firstSegment, SNAPSHOT_SUFFIX), tracking);
+			highestId[0] = Math.max(highestId[0], snapshotHighestId);
+		}
+
+		long items = records[0];
+		segment = firstSegment;
+
+		for (long number : numbered(LOG_SUFFIX)) {
+			if (number >= firstSegment) {
+				replay(path(number, LOG_SUFFIX), tracking);
+				segment = Math.max(segment, number);
+			}
+		}
+
+		// Appends never go after a recovered tail, a fresh segment is started instead.
+		segment++;
+		current = open(segment);
+		writer.start();
+
+		long elapsed = System.nanoTime() - start;
+		recoveryTimer.record(elapsed, TimeUnit.NANOSECONDS);
+		log.info("Recovered {} snapshot items and {} log records in {} ms", items, records[0] - items,
+				TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+		return highestId[0];
+	}
+
+	/**
+	 * Appends the new state of an item, completing once it is durable.
+	 */
+	public CompletableFuture<Void> put(Item item) {
+		return enqueue(new Append(PUT, item, null));
+	}
+
+	/**
+	 * Appends the deletion of an item, completing once it is durable.
+	 */
+	public CompletableFuture<Void> delete(ItemTombstone tombstone) {
+		return enqueue(new Append(DELETE, null, tombstone));
+	}
+
+	/**
+	 * Writes every item to a new snapshot and deletes the log it supersedes.
+	 * Mutations keep flowing while the snapshot is taken: they go to the segment
+	 * started here, which is replayed over the snapshot on recovery.
+	 *
+	 * @param items              visits every current item
+	 * @param tombstones         visits every tracked tombstone
+	 * @param highestId          highest ID handed out before the items are
+	 *                           visited
+	 * @param compactedChangeSeq change sequence up to which tombstones were
+	 *                           dropped
+	 */
+	public void snapshot(Consumer<Consumer<Item>> items, Consumer<Consumer<ItemTombstone>> tombstones,
+			long highestId, long compactedChangeSeq) throws IOException {
+		long start = System.nanoTime();
+		long number = rotate();
+		Path temporary = directory.resolve(path(number, SNAPSHOT_SUFFIX).getFileName() + ".tmp");
+
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedWriter output = new MappedWriter(channel);
+			ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE);
+
+			header.putInt(SNAPSHOT_MAGIC).putLong(highestId).putLong(compactedChangeSeq).flip();
+			output.write(header);
+
+			ByteBuffer[] record = { ByteBuffer.allocate(256) };
+
+			items.accept(item -> {
+				record[0].clear();
+				record[0] = encode(record[0], PUT, item, null);
+				record[0].flip();
+				output.write(record[0]);
+			});
+			tombstones.accept(tombstone -> {
+				record[0].clear();
+				record[0] = encode(record[0], DELETE, null, tombstone);
+				record[0].flip();
+				output.write(record[0]);
+			});
+
+			output.finish();
+		}
+
+		Files.move(temporary, path(number, SNAPSHOT_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+
+		for (long older : numbered(LOG_SUFFIX)) {
+			if (older < number) {
+				Files.deleteIfExists(path(older, LOG_SUFFIX));
+			}
+		}
+
+		for (long older : numbered(SNAPSHOT_SUFFIX)) {
+			if (older < number) {
+				Files.deleteIfExists(path(older, SNAPSHOT_SUFFIX));
+			}
+		}
+
+		snapshotTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Waits for the queued appends to be written. Any the writer left behind are
+	 * failed rather than left waiting.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (queue) {
+			running = false;
+		}
+
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		List<Append> left = new ArrayList<>();
+
+		queue.drainTo(left);
+		left.forEach(append -> append.done.completeExceptionally(closed()));
+
+		if (current != null) {
+			current.close();
+		}
+	}
+
+	private CompletableFuture<Void> enqueue(Append append) {
+		synchronized (queue) {
+			if (!running) {
+				append.done.completeExceptionally(closed());
+			} else {
+				queue.add(append);
+			}
+		}
+
+		return append.done;
+	}
+
+	private static IllegalStateException closed() {
+		return new IllegalStateException("Item journal is closed.");
+	}
+
+	private long rotate() throws IOException {
+		Rotation rotation = new Rotation();
+
+		enqueue(rotation).join();
+
+		return rotation.segment;
+	}
+
+	private void writeLoop() {
+		List<Append> batch = new ArrayList<>();
+
+		while (running || !queue.isEmpty()) {
+			Append first;
+
+			try {
+				first = queue.poll(100, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			if (first == null) {
+				continue;
+			}
+
+			batch.add(first);
+			queue.drainTo(batch, MAX_BATCH - 1);
+
+			int from = 0;
+
+			for (int index = 0; index < batch.size(); index++) {
+				if (batch.get(index) instanceof Rotation) {
+					commit(batch.subList(from, index));
+					startSegment((Rotation) batch.get(index));
+					from = index + 1;
+				}
+			}
+
+			commit(batch.subList(from, batch.size()));
+			batch.clear();
+		}
+	}
+
+	private void commit(List<Append> appends) {
+		if (appends.isEmpty()) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		long position = -1;
+
+		try {
+			position = current.size();
+			buffer.clear();
+
+			for (Append append : appends) {
+				buffer = encode(buffer, append.op, append.item, append.tombstone);
+			}
+
+			buffer.flip();
+
+			while (buffer.hasRemaining()) {
+				current.write(buffer);
+			}
+
+			current.force(false);
+
+			appends.forEach(append -> append.done.complete(null));
+		} catch (IOException | RuntimeException e) {
+			log.error("Failed to append to the item journal", e);
+
+			discard(position);
+
+			// Newest first, so the store takes back its changes in reverse order.
+			for (int index = appends.size() - 1; index >= 0; index--) {
+				appends.get(index).done.completeExceptionally(e);
+			}
+		}
+
+		syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		batchSize.record(appends.size());
+	}
+
+	/**
+	 * Cuts the bytes of a failed group commit off the segment. Recovery stops at
+	 * the first torn record, so appends written after them would be lost. When
+	 * they cannot be cut off, the segment is left behind and appends go to a new
+	 * one, recovery cutting off the torn tail of the old one.
+	 */
+	private void discard(long position) {
+		if (position >= 0) {
+			try {
+				current.truncate(position);
+				current.force(false);
+
+				return;
+			} catch (IOException | RuntimeException e) {
+				log.error("Failed to cut a failed commit off the item journal", e);
+			}
+		}
+
+		try {
+			current.close();
+		} catch (IOException e) {
+			log.warn("Failed to close item journal segment {}", segment, e);
+		}
+
+		try {
+			segment++;
+			current = open(segment);
+		} catch (IOException e) {
+			// Appends keep failing on the closed segment, each trying to start a new one.
+			log.error("Failed to start item journal segment {}", segment, e);
+		}
+	}
+
+	private void startSegment(Rotation rotation) {
+		try {
+			current.close();
+			segment++;
+			current = open(segment);
+			rotation.segment = segment;
+			rotation.done.complete(null);
+		} catch (IOException e) {
+			rotation.done.completeExceptionally(e);
+		}
+	}
+
+	private FileChannel open(long number) throws IOException {
+		return FileChannel.open(path(number, LOG_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+	}
+
+	private long loadSnapshot(Path snapshot, Sink sink) throws IOException {
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE);
+
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// Fill the header.
+			}
+
+			header.flip();
+
+			if (header.remaining() < SNAPSHOT_HEADER_SIZE || header.getInt() != SNAPSHOT_MAGIC) {
+				throw new IOException("Not an item snapshot: " + snapshot);
+			}
+
+			long highestId = header.getLong();
+
+			sink.compacted(header.getLong());
+
+			if (read(channel, SNAPSHOT_HEADER_SIZE, sink) < channel.size()) {
+				throw new IOException("Corrupted item snapshot: " + snapshot);
+			}
+
+			return highestId;
+		}
+	}
+
+	/**
+	 * Applies a log segment, cutting off the torn tail a crash may have left.
+	 */
+	private void replay(Path segment, Sink sink) throws IOException {
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long end = read(channel, 0, sink);
+
+			if (end < channel.size()) {
+				log.warn("Truncating {} bytes of torn records at the end of {}", channel.size() - end, segment);
+
+				channel.truncate(end);
+				channel.force(true);
+			}
+		}
+	}
+
+	/**
+	 * Reads records through memory-mapped windows, applying them to the sink.
+	 * Returns the position after the last intact record.
+	 */
+	private long read(FileChannel channel, long position, Sink sink) throws IOException {
+		long size = channel.size();
+		long windowStart = 0;
+		long windowEnd = 0;
+		MappedByteBuffer window = null;
+		CRC32 crc = new CRC32();
+
+		while (position + RECORD_HEADER_SIZE <= size) {
+			if (window == null || position + RECORD_HEADER_SIZE > windowEnd) {
+				windowStart = position;
+				windowEnd = Math.min(size, position + MAP_WINDOW);
+				window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+			}
+
+			window.position((int) (position - windowStart));
+
+			int length = window.getInt();
+			int checksum = window.getInt();
+			long next = position + RECORD_HEADER_SIZE + length;
+
+			if (length <= 0 || next > size) {
+				break;
+			}
+
+			if (next > windowEnd) {
+				windowStart = position;
+				windowEnd = Math.min(size, position + Math.max(MAP_WINDOW, RECORD_HEADER_SIZE + length));
+				window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+				window.position(RECORD_HEADER_SIZE);
+			}
+
+			ByteBuffer body = window.slice();
+			body.limit(length);
+
+			crc.reset();
+			crc.update(body.duplicate());
+
+			if ((int) crc.getValue() != checksum) {
+				break;
+			}
+
+			apply(body, sink);
+
+			position = next;
+		}
+
+		return position;
+	}
+
+	private static void apply(ByteBuffer body, Sink sink) {
+		byte op = body.get();
+		long id = body.getLong();
+
+		if (op == PUT) {
+			long version = body.getLong();
+			Long changeSeq = tracked(body.getLong());
+
+			sink.put(Item.builder().id(id).version(version).changeSeq(changeSeq).title(readString(body))
+					.description(readString(body)).build());
+		} else if (op == DELETE) {
+			Long changeSeq = tracked(body.getLong());
+			Instant deletedAt = Instant.ofEpochMilli(body.getLong());
+
+			sink.delete(ItemTombstone.builder().itemId(id).changeSeq(changeSeq).deletedAt(deletedAt).build());
+		}
+	}
+
+	/**
+	 * Appends one record to the buffer, growing it when needed. Returns the buffer
+	 * that now holds the record.
+	 */
+	private static ByteBuffer encode(ByteBuffer buffer, byte op, Item item, ItemTombstone tombstone) {
+		byte[] title = item == null ? null : bytes(item.getTitle());
+		byte[] description = item == null ? null : bytes(item.getDescription());
+		int length = 1 + 3 * Long.BYTES + (item == null ? 0 : stringSize(title) + stringSize(description));
+
+		ByteBuffer target = ensureCapacity(buffer, RECORD_HEADER_SIZE + length);
+		int start = target.position();
+
+		target.putInt(length).putInt(0).put(op);
+
+		if (item != null) {
+			target.putLong(item.getId()).putLong(item.getVersion()).putLong(untracked(item.getChangeSeq()));
+			putString(target, title);
+			putString(target, description);
+		} else {
+			target.putLong(tombstone.getItemId()).putLong(untracked(tombstone.getChangeSeq()))
+					.putLong(tombstone.getDeletedAt().toEpochMilli());
+		}
+
+		ByteBuffer body = target.duplicate();
+		body.position(start + RECORD_HEADER_SIZE).limit(target.position());
+
+		CRC32 crc = new CRC32();
+		crc.update(body);
+		target.putInt(start + Integer.BYTES, (int) crc.getValue());
+
+		return target;
+	}
+
+	/**
+	 * Change sequences start at 1, so 0 stands for none.
+	 */
+	private static long untracked(Long changeSeq) {
+		return changeSeq == null ? 0L : changeSeq;
+	}
+
+	private static Long tracked(long changeSeq) {
+		return changeSeq == 0L ? null : changeSeq;
+	}
+
+	private static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+		if (buffer.remaining() >= needed) {
+			return buffer;
+		}
+
+		int capacity = Math.max(buffer.capacity() * 2, buffer.position() + needed);
+		ByteBuffer grown = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+
+		buffer.flip();
+		grown.put(buffer);
+
+		return grown;
+	}
+
+	private static byte[] bytes(String value) {
+		return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static int stringSize(byte[] value) {
+		return Integer.BYTES + (value == null ? 0 : value.length);
+	}
+
+	private static void putString(ByteBuffer buffer, byte[] value) {
+		if (value == null) {
+			buffer.putInt(-1);
+		} else {
+			buffer.putInt(value.length).put(value);
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+
+		if (length < 0) {
+			return null;
+		}
+
+		byte[] value = new byte[length];
+		buffer.get(value);
+
+		return new String(value, StandardCharsets.UTF_8);
+	}
+
+	private Path path(long number, String suffix) {
+		return directory.resolve(String.format("items-%019d%s", number, suffix));
+	}
+
+	private List<Long> numbered(String suffix) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(file -> file.getFileName().toString())
+					.filter(name -> name.startsWith("items-") && name.endsWith(suffix))
+					.map(name -> Long.parseLong(name.substring("items-".length(), name.length() - suffix.length())))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static class Append {
+
+		final byte op;
+
+		final Item item;
+
+		final ItemTombstone tombstone;
+
+		final CompletableFuture<Void> done = new CompletableFuture<>();
+
+		Append(byte op, Item item, ItemTombstone tombstone) {
+			this.op = op;
+			this.item = item;
+			this.tombstone = tombstone;
+		}
+
+	}
+
+	/**
+	 * Queued like an append, so everything enqueued before it lands in the old
+	 * segment and everything after it in the new one.
+	 */
+	private static class Rotation extends Append {
+
+		volatile long segment;
+
+		Rotation() {
+			super((byte) 0, null, null);
+		}
+
+	}
+
+	/**
+	 * Sequential writer over memory-mapped windows of a file.
+	 */
+	private static class MappedWriter {
+
+		private final FileChannel channel;
+
+		private MappedByteBuffer window;
+
+		private long windowStart;
+
+		private long position;
+
+		MappedWriter(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		void write(ByteBuffer data) {
+			try {
+				if (window == null || window.remaining() < data.remaining()) {
+					if (window != null) {
+						window.force();
+					}
+
+					windowStart = position;
+					window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart,
+							Math.max(MAP_WINDOW, data.remaining()));
+				}
+
+				position += data.remaining();
+				window.put(data);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		void finish() throws IOException {
+			if (window != null) {
+				window.force();
+			}
+
+			// Mapping grows the file to whole windows, drop what was not written.
+			channel.truncate(position);
+			channel.force(true);
+		}
+
+	}
+
+}
@@ -0,0 +1,309 @@
+package com.felype.todolist.repository.memory;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent map from primitive {@code long} keys to values, split into
+ * independently locked stripes. Each stripe is an open-addressing table with
+ * linear probing, so keys are never boxed, and lookups are optimistic reads
+ * that only fall back to the read lock when they race with a write.
+ */
+final class StripedLongObjectMap<V> {
+
+	private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+	private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+	private final Stripe<V>[] stripes;
+
+	private final int stripeShift;
+
+	@SuppressWarnings("unchecked")
+	StripedLongObjectMap(int concurrency) {
+		int stripeCount = Integer.highestOneBit(Math.max(1, concurrency - 1) << 1);
+
+		stripes = new Stripe[stripeCount];
+		stripeShift = Long.SIZE - Integer.numberOfTrailingZeros(stripeCount);
+
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe<>();
+		}
+	}
+
+	V get(long key) {
+		long hash = key * GOLDEN_RATIO;
+
+		return stripe(hash).get(key, slot(hash));
+	}
+
+	/**
+	 * Maps the key to the value, returning the previous value or null.
+	 */
+	V put(long key, V value) {
+		long hash = key * GOLDEN_RATIO;
+
+		return stripe(hash).put(key, slot(hash), value, false);
+	}
+
+	/**
+	 * Maps the key to the value only if it is already mapped, returning the
+	 * previous value or null when nothing was replaced.
+	 */
+	V replace(long key, V value) {
+		long hash = key * GOLDEN_RATIO;
+
+		return stripe(hash).put(key, slot(hash), value, true);
+	}
+
+	/**
+	 * Removes the mapping, returning the removed value or null.
+	 */
+	V remove(long key) {
+		long hash = key * GOLDEN_RATIO;
+
+		return stripe(hash).remove(key, slot(hash));
+	}
+
+	int size() {
+		int size = 0;
+
+		for (Stripe<V> stripe : stripes) {
+			size += stripe.size();
+		}
+
+		return size;
+	}
+
+	/**
+	 * Visits every value, one stripe at a time. Writes to the stripe being visited
+	 * wait until it is done; other stripes stay writable.
+	 */
+	void forEach(Consumer<? super V> action) {
+		for (Stripe<V> stripe : stripes) {
+			stripe.forEach(action);
+		}
+	}
+
+	private Stripe<V> stripe(long hash) {
+		return stripes.length == 1 ? stripes[0] : stripes[(int) (hash >>> stripeShift)];
+	}
+
+	private static int slot(long hash) {
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	private static final class Table {
+
+		final long[] keys;
+
+		/**
+		 * Null marks an empty slot.
+		 */
+		final Object[] values;
+
+		Table(int capacity) {
+			keys = new long[capacity];
+			values = new Object[capacity];
+		}
+
+	}
+
+	private static final class Stripe<V> {
+
+		private final StampedLock lock = new StampedLock();
+
+		private Table table = new Table(INITIAL_STRIPE_CAPACITY);
+
+		private int size;
+
+		V get(long key, int slot) {
+			long stamp = lock.tryOptimisticRead();
+			V value = find(table, key, slot);
+
+			if (!lock.validate(stamp)) {
+				stamp = lock.readLock();
+
+				try {
+					value = find(table, key, slot);
+				} finally {
+					lock.unlockRead(stamp);
+				}
+			}
+
+			return value;
+		}
+
+		V put(long key, int slot, V value, boolean onlyIfPresent) {
+			long stamp = lock.writeLock();
+
+			try {
+				int index = indexOf(table, key, slot);
+
+				if (index >= 0) {
+					@SuppressWarnings("unchecked")
+					V previous = (V) table.values[index];
+					table.values[index] = value;
+
+					return previous;
+				}
+
+				if (onlyIfPresent) {
+					return null;
+				}
+
+				if ((size + 1) * 2 > table.keys.length) {
+					table = resize(table);
+				}
+
+				insert(table, key, slot, value);
+				size++;
+
+				return null;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		V remove(long key, int slot) {
+			long stamp = lock.writeLock();
+
+			try {
+				Table current = table;
+				int index = indexOf(current, key, slot);
+
+				if (index < 0) {
+					return null;
+				}
+
+				@SuppressWarnings("unchecked")
+				V previous = (V) current.values[index];
+
+				shiftBack(current, index);
+				size--;
+
+				return previous;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		int size() {
+			long stamp = lock.readLock();
+
+			try {
+				return size;
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		void forEach(Consumer<? super V> action) {
+			long stamp = lock.readLock();
+
+			try {
+				for (Object value : table.values) {
+					if (value != null) {
+						action.accept((V) value);
+					}
+				}
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <V> V find(Table table, long key, int slot) {
+			int mask = table.keys.length - 1;
+			int index = slot & mask;
+
+			// Bounded so an optimistic read over a table being written cannot spin.
+			for (int probes = 0; probes <= mask; probes++) {
+				Object value = table.values[index];
+
+				if (value == null) {
+					return null;
+				} else if (table.keys[index] == key) {
+					return (V) value;
+				}
+
+				index = (index + 1) & mask;
+			}
+
+			return null;
+		}
+
+		private static int indexOf(Table table, long key, int slot) {
+			int mask = table.keys.length - 1;
+			int index = slot & mask;
+
+			while (table.values[index] != null) {
+				if (table.keys[index] == key) {
+					return index;
+				}
+
+				index = (index + 1) & mask;
+			}
+
+			return -1;
+		}
+
+		private static void insert(Table table, long key, int slot, Object value) {
+			int mask = table.keys.length - 1;
+			int index = slot & mask;
+
+			while (table.values[index] != null) {
+				index = (index + 1) & mask;
+			}
+
+			table.keys[index] = key;
+			table.values[index] = value;
+		}
+
+		private static Table resize(Table table) {
+			Table resized = new Table(table.keys.length * 2);
+
+			for (int i = 0; i < table.keys.length; i++) {
+				if (table.values[i] != null) {
+					long hash = table.keys[i] * GOLDEN_RATIO;
+					insert(resized, table.keys[i], slot(hash), table.values[i]);
+				}
+			}
+
+			return resized;
+		}
+
+		/**
+		 * Backward-shift deletion: moves later entries of the probe chain into the
+		 * freed slot, so lookups never need tombstones.
+		 */
+		private static void shiftBack(Table table, int freed) {
+			int mask = table.keys.length - 1;
+			int index = freed;
+
+			table.values[freed] = null;
+
+			while (true) {
+				index = (index + 1) & mask;
+
+				if (table.values[index] == null) {
+					return;
+				}
+
+				int home = slot(table.keys[index] * GOLDEN_RATIO) & mask;
+				boolean reachable = freed <= index ? (home > freed && home <= index)
+						: (home > freed || home <= index);
+
+				if (!reachable) {
+					table.keys[freed] = table.keys[index];
+					table.values[freed] = table.values[index];
+					table.values[index] = null;
+					freed = index;
+				}
+			}
+		}
+
+	}
+
+}
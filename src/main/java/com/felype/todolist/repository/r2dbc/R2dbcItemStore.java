@@ -0,0 +1,395 @@
+package com.felype.todolist.repository.r2dbc;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemTombstone;
+import com.felype.todolist.repository.ItemQuery;
+import com.felype.todolist.repository.ReactiveItemStore;
+import com.felype.todolist.repository.ids.ItemIdGenerator;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Fully non-blocking engine, storing items in the relational database through
+ * R2DBC. Nothing here holds a thread while the database works, so the service
+ * runs on it without the scheduler the blocking engines need. The schema is
+ * the one the JPA engine generates, see {@code schema-r2dbc.sql}. New items
+ * get their IDs from the {@link ItemIdGenerator} if there is one, which must
+ * not block, from the identity column otherwise.
+ */
+@Component
+@ConditionalOnProperty(name = "todolist.storage.engine", havingValue = "r2dbc")
+public class R2dbcItemStore implements ReactiveItemStore {
+
+	private static final String COLUMNS = "id, list_id, title, description, version, change_seq";
+
+	private final DatabaseClient databaseClient;
+
+	private final TransactionalOperator transactionalOperator;
+
+	private final ItemIdGenerator idGenerator;
+
+	public R2dbcItemStore(DatabaseClient databaseClient, ReactiveTransactionManager transactionManager) {
+		this(databaseClient, transactionManager, Optional.empty());
+	}
+
+	@Autowired
+	public R2dbcItemStore(DatabaseClient databaseClient, ReactiveTransactionManager transactionManager,
+			Optional<ItemIdGenerator> idGenerator) {
+		this.databaseClient = databaseClient;
+		this.transactionalOperator = TransactionalOperator.create(transactionManager);
+		this.idGenerator = idGenerator.orElse(null);
+	}
+
+	@Override
+	public Mono<Item> save(Item item) {
+		return versioned(item).flatMap(this::write).as(transactionalOperator::transactional);
+	}
+
+	@Override
+	public Flux<Item> saveAll(Iterable<Item> items) {
+		return Flux.fromIterable(items).concatMap(this::save).as(transactionalOperator::transactional);
+	}
+
+	@Override
+	public Mono<Item> findById(long id) {
+		return databaseClient.execute("SELECT " + COLUMNS + " FROM item WHERE id = :id")
+				.bind("id", id)
+				.map(R2dbcItemStore::item)
+				.one();
+	}
+
+	@Override
+	public Flux<Item> findAll() {
+		return databaseClient.execute("SELECT " + COLUMNS + " FROM item ORDER BY id")
+				.map(R2dbcItemStore::item)
+				.all();
+	}
+
+	@Override
+	public Flux<Item> findAllById(Iterable<Long> ids) {
+		List<Long> idList = new ArrayList<>();
+
+		ids.forEach(idList::add);
+
+		if (idList.isEmpty()) {
+			return Flux.empty();
+		}
+
+		return databaseClient.execute("SELECT " + COLUMNS + " FROM item WHERE id IN (:ids)")
+				.bind("ids", idList)
+				.map(R2dbcItemStore::item)
+				.all();
+	}
+
+	@Override
+	public Flux<Item> findPage(long after, int limit) {
+		return databaseClient.execute("SELECT " + COLUMNS + " FROM item WHERE id > :after ORDER BY id LIMIT :limit")
+				.bind("after", after)
+				.bind("limit", limit)
+				.map(R2dbcItemStore::item)
+				.all();
+	}
+
+	@Override
+	public Flux<Item> findItems(ItemQuery query) {
+		ItemQuery.Order order = query.getOrder();
+		String direction = order.isDescending() ? " DESC" : "";
+		StringBuilder sql = new StringBuilder("SELECT id");
+
+		query.getFields().forEach(field -> sql.append(", ").append(field.getName()));
+		sql.append(" FROM item WHERE TRUE");
+
+		if (query.getListId() != null) {
+			sql.append(" AND list_id = :listId");
+		}
+
+		if (query.getTitlePrefix() != null) {
+			sql.append(" AND title LIKE :title ESCAPE '").append(ItemQuery.LIKE_ESCAPE).append("'");
+		}
+
+		boolean keyset = query.getAfter() != null && order.isById();
+
+		if (keyset) {
+			sql.append(order.isDescending() ? " AND id < :after" : " AND id > :after");
+		}
+
+		sql.append(" ORDER BY ").append(order.getProperty()).append(direction);
+
+		if (!order.isById()) {
+			sql.append(", id").append(direction);
+		}
+
+		DatabaseClient.GenericExecuteSpec find = databaseClient.execute(
+				sql.append(" LIMIT :limit OFFSET :offset").toString())
+				.bind("limit", query.getLimit())
+				.bind("offset", query.getOffset());
+
+		if (query.getListId() != null) {
+			find = find.bind("listId", query.getListId());
+		}
+
+		if (query.getTitlePrefix() != null) {
+			find = find.bind("title", query.getTitlePattern());
+		}
+
+		if (keyset) {
+			find = find.bind("after", query.getAfter());
+		}
+
+		return find.map((row, metadata) -> {
+			Item item = Item.builder().id(row.get("id", Long.class)).build();
+
+			query.getFields().forEach(field -> field.set(item, row.get(field.getName(), field.getType())));
+
+			return item;
+		}).all();
+	}
+
+	@Override
+	public Flux<Item> search(List<String> terms, long offset, int limit) {
+		StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM item WHERE TRUE");
+
+		for (int i = 0; i < terms.size(); i++) {
+			sql.append(String.format(" AND (LOWER(title) LIKE :title%1$d OR LOWER(description) LIKE :description%1$d)", i));
+		}
+
+		DatabaseClient.GenericExecuteSpec search = databaseClient.execute(
+				sql.append(" ORDER BY id LIMIT :limit OFFSET :offset").toString())
+				.bind("limit", limit)
+				.bind("offset", offset);
+
+		for (int i = 0; i < terms.size(); i++) {
+			String pattern = "%" + terms.get(i) + "%";
+
+			search = search.bind("title" + i, pattern).bind("description" + i, pattern);
+		}
+
+		return search.map(R2dbcItemStore::item).all();
+	}
+
+	@Override
+	public Mono<Void> deleteById(long id, long changeSeq) {
+		return delete(id)
+				.flatMap(deleted -> deleted ? bury(id, changeSeq)
+						: Mono.error(new EmptyResultDataAccessException(
+								String.format("No item with id %d exists!", id), 1)))
+				.as(transactionalOperator::transactional);
+	}
+
+	@Override
+	public Mono<Void> deleteAll(Iterable<Item> items) {
+		return Flux.fromIterable(items)
+				.filter(item -> item.getId() != null)
+				.concatMap(item -> delete(item.getId())
+						.flatMap(deleted -> deleted && item.getChangeSeq() != null
+								? bury(item.getId(), item.getChangeSeq())
+								: Mono.empty()))
+				.then()
+				.as(transactionalOperator::transactional);
+	}
+
+	@Override
+	public Flux<Item> findChanged(long since, long upTo, int limit) {
+		return databaseClient.execute("SELECT " + COLUMNS + " FROM item"
+				+ " WHERE change_seq > :since AND change_seq <= :upTo ORDER BY change_seq LIMIT :limit")
+				.bind("since", since)
+				.bind("upTo", upTo)
+				.bind("limit", limit)
+				.map(R2dbcItemStore::item)
+				.all();
+	}
+
+	@Override
+	public Flux<ItemTombstone> findTombstones(long since, long upTo, int limit) {
+		return databaseClient.execute("SELECT item_id, change_seq, deleted_at FROM item_tombstone"
+				+ " WHERE item_id <> :compacted AND change_seq > :since AND change_seq <= :upTo"
+				+ " ORDER BY change_seq LIMIT :limit")
+				.bind("compacted", ItemTombstone.COMPACTED)
+				.bind("since", since)
+				.bind("upTo", upTo)
+				.bind("limit", limit)
+				.map((row, metadata) -> ItemTombstone.builder()
+						.itemId(row.get("item_id", Long.class))
+						.changeSeq(row.get("change_seq", Long.class))
+						.deletedAt(row.get("deleted_at", LocalDateTime.class).toInstant(ZoneOffset.UTC))
+						.build())
+				.all();
+	}
+
+	@Override
+	public Mono<Long> getHighestChangeSeq() {
+		return databaseClient.execute("SELECT GREATEST("
+				+ "(SELECT COALESCE(MAX(change_seq), 0) FROM item), "
+				+ "(SELECT COALESCE(MAX(change_seq), 0) FROM item_tombstone)) AS highest")
+				.map((row, metadata) -> row.get("highest", Long.class))
+				.one();
+	}
+
+	@Override
+	public Mono<Long> getCompactedChangeSeq() {
+		return databaseClient.execute("SELECT change_seq FROM item_tombstone WHERE item_id = :compacted")
+				.bind("compacted", ItemTombstone.COMPACTED)
+				.map((row, metadata) -> row.get("change_seq", Long.class))
+				.one()
+				.defaultIfEmpty(0L);
+	}
+
+	/**
+	 * The floor is kept as a marker row, as the JPA engine does.
+	 */
+	@Override
+	public Mono<Long> compactTombstones(Instant deletedBefore) {
+		Mono<Long> expired = databaseClient.execute("SELECT COALESCE(MAX(change_seq), 0) AS expired"
+				+ " FROM item_tombstone WHERE item_id <> :compacted AND deleted_at < :before")
+				.bind("compacted", ItemTombstone.COMPACTED)
+				.bind("before", utc(deletedBefore))
+				.map((row, metadata) -> row.get("expired", Long.class))
+				.one();
+
+		return Mono.zip(getCompactedChangeSeq(), expired)
+				.flatMap(floors -> floors.getT2() <= floors.getT1() ? Mono.just(floors.getT1())
+						: databaseClient.execute("DELETE FROM item_tombstone"
+								+ " WHERE item_id <> :compacted AND change_seq <= :expired")
+								.bind("compacted", ItemTombstone.COMPACTED)
+								.bind("expired", floors.getT2())
+								.then()
+								.then(merge(ItemTombstone.COMPACTED, floors.getT2(), null))
+								.thenReturn(floors.getT2()))
+				.as(transactionalOperator::transactional);
+	}
+
+	@Override
+	public <T> Mono<T> inTransaction(Function<ReactiveItemStore, Mono<T>> work) {
+		return Mono.defer(() -> work.apply(this)).as(transactionalOperator::transactional);
+	}
+
+	/**
+	 * Resolves the version to save with, the way the JPA engine does: unknown IDs
+	 * without a version are stored as new items, and a missing version is taken
+	 * from the stored item, whose row stays locked until the transaction ends.
+	 */
+	private Mono<Item> versioned(Item item) {
+		if (item.getId() == null) {
+			return Mono.just(item);
+		}
+
+		Mono<Item> unknown = Mono.defer(() -> item.getVersion() != null
+				? Mono.error(new OptimisticLockingFailureException(
+						String.format("Item %d no longer exists.", item.getId())))
+				: Mono.just(item.toBuilder().id(null).build()));
+
+		return databaseClient.execute("SELECT version FROM item WHERE id = :id"
+				+ (item.getVersion() == null ? " FOR UPDATE" : ""))
+				.bind("id", item.getId())
+				.map((row, metadata) -> row.get("version", Long.class))
+				.one()
+				.map(stored -> item.getVersion() == null ? item.toBuilder().version(stored).build() : item)
+				.switchIfEmpty(unknown);
+	}
+
+	private Mono<Item> write(Item item) {
+		if (item.getId() == null) {
+			Item stored = item.toBuilder().version(0L).build();
+			DatabaseClient.GenericInsertSpec<java.util.Map<String, Object>> insert = databaseClient.insert().into("item")
+					.value("title", stored.getTitle())
+					.value("version", stored.getVersion());
+
+			insert = stored.getListId() == null ? insert.nullValue("list_id", Long.class)
+					: insert.value("list_id", stored.getListId());
+			insert = stored.getDescription() == null ? insert.nullValue("description", String.class)
+					: insert.value("description", stored.getDescription());
+			insert = stored.getChangeSeq() == null ? insert.nullValue("change_seq", Long.class)
+					: insert.value("change_seq", stored.getChangeSeq());
+
+			if (idGenerator != null) {
+				stored.setId(idGenerator.nextId());
+
+				return insert.value("id", stored.getId()).fetch().rowsUpdated().thenReturn(stored);
+			}
+
+			return insert.map((row, metadata) -> stored.setId(row.get("id", Long.class))).one();
+		}
+
+		DatabaseClient.GenericExecuteSpec update = databaseClient.execute("UPDATE item"
+				+ " SET list_id = :listId, title = :title, description = :description, change_seq = :changeSeq,"
+				+ " version = version + 1"
+				+ " WHERE id = :id AND version = :version")
+				.bind("id", item.getId())
+				.bind("title", item.getTitle())
+				.bind("version", item.getVersion());
+
+		update = item.getListId() == null ? update.bindNull("listId", Long.class)
+				: update.bind("listId", item.getListId());
+		update = item.getDescription() == null ? update.bindNull("description", String.class)
+				: update.bind("description", item.getDescription());
+		update = item.getChangeSeq() == null ? update.bindNull("changeSeq", Long.class)
+				: update.bind("changeSeq", item.getChangeSeq());
+
+		return update.fetch().rowsUpdated()
+				.flatMap(updated -> updated == 0
+						? Mono.error(new OptimisticLockingFailureException(
+								String.format("Item %d was changed or deleted.", item.getId())))
+						: Mono.just(item.toBuilder().version(item.getVersion() + 1).build()));
+	}
+
+	private Mono<Boolean> delete(long id) {
+		return databaseClient.execute("DELETE FROM item WHERE id = :id")
+				.bind("id", id)
+				.fetch()
+				.rowsUpdated()
+				.map(deleted -> deleted > 0);
+	}
+
+	private Mono<Void> bury(long itemId, long changeSeq) {
+		return merge(itemId, changeSeq, Instant.now());
+	}
+
+	private Mono<Void> merge(long itemId, long changeSeq, Instant deletedAt) {
+		DatabaseClient.GenericExecuteSpec merge = databaseClient.execute("MERGE INTO item_tombstone"
+				+ " (item_id, change_seq, deleted_at) KEY (item_id) VALUES (:itemId, :changeSeq, :deletedAt)")
+				.bind("itemId", itemId)
+				.bind("changeSeq", changeSeq);
+
+		return (deletedAt == null ? merge.bindNull("deletedAt", LocalDateTime.class)
+				: merge.bind("deletedAt", utc(deletedAt))).then();
+	}
+
+	/**
+	 * Timestamps are stored without a zone, in UTC.
+	 */
+	private static LocalDateTime utc(Instant instant) {
+		return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+	}
+
+	private static Item item(Row row, RowMetadata metadata) {
+		return Item.builder()
+				.id(row.get("id", Long.class))
+				.listId(row.get("list_id", Long.class))
+				.title(row.get("title", String.class))
+				.description(row.get("description", String.class))
+				.version(row.get("version", Long.class))
+				.changeSeq(row.get("change_seq", Long.class))
+				.build();
+	}
+
+}
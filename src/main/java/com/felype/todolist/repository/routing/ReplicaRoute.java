@@ -0,0 +1,51 @@
+package com.felype.todolist.repository.routing;
+
+import java.util.concurrent.Callable;
+
+import reactor.util.context.Context;
+
+/**
+ * Whether a read may go to a replica. Marked in the subscriber context of the
+ * read by whoever knows how stale it may be, and carried over to the thread
+ * running the read for {@link ReplicaRoutingDataSource} to find. Reads are not
+ * marked by default, and go to the primary.
+ */
+public final class ReplicaRoute {
+
+	private static final String CONTEXT_KEY = ReplicaRoute.class.getName();
+
+	private static final ThreadLocal<Boolean> ALLOWED = new ThreadLocal<>();
+
+	private ReplicaRoute() {
+	}
+
+	public static Context with(Context context, boolean replicaAllowed) {
+		return context.put(CONTEXT_KEY, replicaAllowed);
+	}
+
+	public static boolean isAllowed(Context context) {
+		return context.getOrDefault(CONTEXT_KEY, Boolean.FALSE);
+	}
+
+	/**
+	 * Runs the read, on the calling thread, routed as {@code context} tells.
+	 */
+	public static <T> T call(Context context, Callable<T> read) throws Exception {
+		if (!isAllowed(context)) {
+			return read.call();
+		}
+
+		ALLOWED.set(Boolean.TRUE);
+
+		try {
+			return read.call();
+		} finally {
+			ALLOWED.remove();
+		}
+	}
+
+	static boolean isAllowed() {
+		return ALLOWED.get() != null;
+	}
+
+}
@@ -0,0 +1,235 @@
+package com.felype.todolist.repository.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The primary database and its read replicas behind one data source.
+ * Connections come from the primary, unless taken for a read routed to a
+ * replica by {@link ReplicaRoute}, which gets one from the healthy replicas in
+ * turn.
+ * <p>
+ * A replica is ejected when it fails a health check, or when a connection
+ * cannot be had from it; its reads go to the primary then. It is taken back
+ * once it passes a health check. The connections handed out by each data
+ * source are counted under {@value #METRIC_PREFIX}, tagged with its name, as
+ * are the health and ejections of each replica.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+	static final String METRIC_PREFIX = "todolist.datasource";
+
+	static final String PRIMARY = "primary";
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+	private final Target primary;
+
+	private final List<Target> replicas = new ArrayList<>();
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private final ScheduledExecutorService healthChecker;
+
+	/**
+	 * Replicas are named {@code replica-0}, {@code replica-1} and so on, in the
+	 * order given. The data sources that are {@link AutoCloseable} are closed
+	 * along with this one.
+	 */
+	public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+			Duration healthCheckInterval, MeterRegistry meterRegistry) {
+		this.primary = new Target(PRIMARY, primary, meterRegistry);
+
+		for (int i = 0; i < replicas.size(); i++) {
+			this.replicas.add(new Target("replica-" + i, replicas.get(i), meterRegistry));
+		}
+
+		this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replica-health");
+
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		checkHealth();
+
+		long interval = healthCheckInterval.toNanos();
+
+		healthChecker.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return route(DataSource::getConnection);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return route(dataSource -> dataSource.getConnection(username, password));
+	}
+
+	/**
+	 * The primary first, then the replicas.
+	 */
+	public List<DataSource> getDataSources() {
+		List<DataSource> dataSources = new ArrayList<>();
+
+		dataSources.add(primary.dataSource);
+		replicas.forEach(replica -> dataSources.add(replica.dataSource));
+
+		return dataSources;
+	}
+
+	/**
+	 * Names of the replicas currently taking reads.
+	 */
+	public List<String> getHealthyReplicas() {
+		return replicas.stream().filter(replica -> replica.healthy).map(replica -> replica.name)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Checks every replica, ejecting the ones that fail and taking back the ones
+	 * that pass.
+	 */
+	public void checkHealth() {
+		for (Target replica : replicas) {
+			boolean healthy;
+
+			try (Connection connection = replica.dataSource.getConnection()) {
+				healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+			} catch (SQLException | RuntimeException e) {
+				healthy = false;
+			}
+
+			if (healthy && !replica.healthy) {
+				replica.healthy = true;
+				log.info("Replica taken back. Name: {}", replica.name);
+			} else if (!healthy) {
+				eject(replica, null);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws Exception {
+		healthChecker.shutdownNow();
+
+		for (DataSource dataSource : getDataSources()) {
+			if (dataSource instanceof AutoCloseable) {
+				((AutoCloseable) dataSource).close();
+			}
+		}
+	}
+
+	private Connection route(ConnectionSource source) throws SQLException {
+		Target replica = ReplicaRoute.isAllowed() ? nextHealthy() : null;
+
+		if (replica != null) {
+			try {
+				Connection connection = source.get(replica.dataSource);
+
+				replica.connections.increment();
+
+				return connection;
+			} catch (SQLException e) {
+				eject(replica, e);
+			}
+		}
+
+		Connection connection = source.get(primary.dataSource);
+
+		primary.connections.increment();
+
+		return connection;
+	}
+
+	private Target nextHealthy() {
+		int size = replicas.size();
+
+		for (int i = 0; i < size; i++) {
+			Target replica = replicas.get(Math.floorMod(next.getAndIncrement(), size));
+
+			if (replica.healthy) {
+				return replica;
+			}
+		}
+
+		return null;
+	}
+
+	private void eject(Target replica, SQLException cause) {
+		if (replica.healthy) {
+			replica.healthy = false;
+			replica.ejections.increment();
+			log.warn("Replica ejected. Name: {}, cause: {}", replica.name,
+					cause == null ? "health check failed" : cause.getMessage());
+		}
+	}
+
+	@FunctionalInterface
+	private interface ConnectionSource {
+
+		Connection get(DataSource dataSource) throws SQLException;
+
+	}
+
+	private static final class Target {
+
+		private final String name;
+
+		private final DataSource dataSource;
+
+		private final Counter connections;
+
+		private final Counter ejections;
+
+		private volatile boolean healthy = true;
+
+		Target(String name, DataSource dataSource, MeterRegistry meterRegistry) {
+			this.name = name;
+			this.dataSource = dataSource;
+			this.connections = Counter.builder(METRIC_PREFIX + ".connections")
+					.description("Connections handed out, by data source")
+					.tag("datasource", name)
+					.register(meterRegistry);
+
+			if (PRIMARY.equals(name)) {
+				this.ejections = null;
+
+				return;
+			}
+
+			this.ejections = Counter.builder(METRIC_PREFIX + ".ejections")
+					.description("Times a replica was taken out of the rotation")
+					.tag("datasource", name)
+					.register(meterRegistry);
+
+			Gauge.builder(METRIC_PREFIX + ".healthy", this, target -> target.healthy ? 1 : 0)
+					.description("Whether the replica takes reads")
+					.tag("datasource", name)
+					.register(meterRegistry);
+		}
+
+	}
+
+}
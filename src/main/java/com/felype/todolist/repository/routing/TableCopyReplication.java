@@ -0,0 +1,155 @@
+package com.felype.todolist.repository.routing;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stands in for replication between H2 databases, which H2 does not do: the
+ * schema of the primary is copied to every replica once, then every table is
+ * copied over at an interval, each replica in one transaction. The replicas lag
+ * behind by up to the interval, as real ones would by their replication lag.
+ * <p>
+ * Everything is copied every time, so this is only meant for the small
+ * databases of development and tests.
+ */
+@Slf4j
+public class TableCopyReplication implements AutoCloseable {
+
+	private final DataSource primary;
+
+	private final List<? extends DataSource> replicas;
+
+	private final ScheduledExecutorService copier;
+
+	/**
+	 * Copies the schema and the tables before returning, so the replicas can be
+	 * read right away.
+	 */
+	public TableCopyReplication(DataSource primary, List<? extends DataSource> replicas, Duration interval)
+			throws SQLException {
+		this.primary = primary;
+		this.replicas = replicas;
+
+		List<String> schema = query("SCRIPT NODATA DROP");
+
+		for (DataSource replica : replicas) {
+			try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+				for (String sql : schema) {
+					statement.execute(sql);
+				}
+			}
+		}
+
+		copy();
+
+		this.copier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "table-copy-replication");
+
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		long period = interval.toNanos();
+
+		copier.scheduleWithFixedDelay(this::copyLogged, period, period, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Copies every table of the primary to every replica.
+	 */
+	public void copy() throws SQLException {
+		List<String> tables = query(
+				"SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'TABLE'");
+
+		try (Connection source = primary.getConnection()) {
+			for (DataSource replica : replicas) {
+				try (Connection target = replica.getConnection()) {
+					copy(tables, source, target);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		copier.shutdownNow();
+	}
+
+	private void copyLogged() {
+		try {
+			copy();
+		} catch (SQLException | RuntimeException e) {
+			log.warn("Tables not copied to the replicas.", e);
+		}
+	}
+
+	private static void copy(List<String> tables, Connection source, Connection target) throws SQLException {
+		target.setAutoCommit(false);
+
+		try {
+			for (String table : tables) {
+				String quoted = "\"" + table + "\"";
+
+				try (Statement delete = target.createStatement()) {
+					delete.executeUpdate("DELETE FROM " + quoted);
+				}
+
+				try (Statement select = source.createStatement(); ResultSet rows = select.executeQuery(
+						"SELECT * FROM " + quoted)) {
+					int columns = rows.getMetaData().getColumnCount();
+					String values = String.join(", ", Collections.nCopies(columns, "?"));
+
+					try (PreparedStatement insert = target.prepareStatement(
+							"INSERT INTO " + quoted + " VALUES (" + values + ")")) {
+						while (rows.next()) {
+							for (int i = 1; i <= columns; i++) {
+								insert.setObject(i, rows.getObject(i));
+							}
+
+							insert.addBatch();
+						}
+
+						insert.executeBatch();
+					}
+				}
+			}
+
+			target.commit();
+		} catch (SQLException | RuntimeException e) {
+			target.rollback();
+
+			throw e;
+		} finally {
+			target.setAutoCommit(true);
+		}
+	}
+
+	private List<String> query(String sql) throws SQLException {
+		List<String> results = new ArrayList<>();
+
+		try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement();
+				ResultSet rows = statement.executeQuery(sql)) {
+			while (rows.next()) {
+				results.add(rows.getString(1));
+			}
+		}
+
+		return results;
+	}
+
+}
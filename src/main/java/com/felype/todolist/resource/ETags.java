@@ -0,0 +1,114 @@
+package com.felype.todolist.resource;
+
+import com.felype.todolist.model.Item;
+
+/**
+ * Strong entity tags for the item resources: the version for a single item,
+ * and the change tag of the service for the collection. Representations other
+ * than plain JSON carry a {@code +} suffix naming their format or content
+ * coding, so no two with different bytes share a tag.
+ */
+final class ETags {
+
+	private static final String ANY = "*";
+
+	private static final String WEAK_PREFIX = "W/";
+
+	private static final char VARIANT_SEPARATOR = '+';
+
+	private ETags() {
+	}
+
+	/**
+	 * Null when the item carries no version.
+	 */
+	static String of(Item item) {
+		return of(item.getVersion());
+	}
+
+	/**
+	 * Null without a version.
+	 */
+	static String of(Long version) {
+		return version == null ? null : quote(version.toString());
+	}
+
+	static String of(String tag) {
+		return quote(tag);
+	}
+
+	/**
+	 * The tag of the variant of a representation, or the tag itself without a
+	 * variant. Null without a tag.
+	 */
+	static String variant(String etag, String variant) {
+		if (etag == null || variant == null) {
+			return etag;
+		}
+
+		return etag.substring(0, etag.length() - 1) + VARIANT_SEPARATOR + variant + "\"";
+	}
+
+	/**
+	 * Whether an {@code If-None-Match} header matches the current tag.
+	 */
+	static boolean matches(String ifNoneMatch, String etag) {
+		return matching(ifNoneMatch, etag) != null;
+	}
+
+	/**
+	 * The first of the current tags an {@code If-None-Match} header matches, or
+	 * null. The weak comparison applies here, so {@code W/} prefixes are ignored.
+	 */
+	static String matching(String ifNoneMatch, String... etags) {
+		if (ifNoneMatch == null) {
+			return null;
+		}
+
+		for (String candidate : ifNoneMatch.split(",")) {
+			String trimmed = candidate.trim();
+
+			if (trimmed.startsWith(WEAK_PREFIX)) {
+				trimmed = trimmed.substring(WEAK_PREFIX.length());
+			}
+
+			for (String etag : etags) {
+				if (etag != null && (ANY.equals(trimmed) || etag.equals(trimmed))) {
+					return etag;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * The item version an {@code If-Match} header asks for, or null when any
+	 * version will do, whichever representation the tag came from. A tag that is
+	 * not one of ours can never match, and is answered with -1.
+	 */
+	static Long version(String ifMatch) {
+		if (ifMatch == null || ANY.equals(ifMatch.trim())) {
+			return null;
+		}
+
+		String tag = ifMatch.trim();
+
+		if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+			return -1L;
+		}
+
+		int end = tag.indexOf(VARIANT_SEPARATOR);
+
+		try {
+			return Long.valueOf(tag.substring(1, end < 0 ? tag.length() - 1 : end));
+		} catch (NumberFormatException e) {
+			return -1L;
+		}
+	}
+
+	private static String quote(String tag) {
+		return "\"" + tag + "\"";
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.felype.todolist.resource;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.exception.InvalidRequestException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * Responses to the writes sent with an {@code Idempotency-Key}, so a client
+ * retrying one gets the original response back instead of having it carried
+ * out again. A retry arriving while the original request is still in progress
+ * waits for its response. Only successful responses are kept: once a request
+ * failed, its retry is carried out again.
+ * <p>
+ * Keys are scoped to the method and path, and a key sent again with another
+ * body is rejected. Responses are kept in this process only, so retries have
+ * to reach the same instance.
+ */
+@Component
+public class IdempotentRequests {
+
+	public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+	public static final String REPLAYED = "Idempotent-Replayed";
+
+	static final String COUNTER_NAME = "todolist.idempotency.requests";
+
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private final ConcurrentMap<Object, Response> responses;
+
+	private final Counter executed;
+
+	private final Counter replayed;
+
+	private final Counter mismatched;
+
+	public IdempotentRequests(ToDoListProperties properties, MeterRegistry meterRegistry) {
+		ToDoListProperties.Idempotency idempotency = properties.getIdempotency();
+		Cache<Object, Response> cache = Caffeine.newBuilder()
+				.maximumSize(idempotency.getMaximumSize())
+				.expireAfterWrite(idempotency.getTtl())
+				.recordStats()
+				.build();
+
+		responses = cache.asMap();
+		executed = counter("executed", meterRegistry);
+		replayed = counter("replayed", meterRegistry);
+		mismatched = counter("mismatched", meterRegistry);
+
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+	}
+
+	/**
+	 * Answers the request with {@code handler}, unless the key was already sent
+	 * with it. Without a key the request is simply handled.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Mono<ResponseEntity<T>> execute(String idempotencyKey, String method, String path, Object body,
+			Supplier<Mono<ResponseEntity<T>>> handler) {
+		if (idempotencyKey == null) {
+			return Mono.defer(handler);
+		}
+
+		return Mono.defer(() -> {
+			if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+				throw new InvalidRequestException(
+						String.format("Idempotency key must have 1 to %d characters.", MAX_KEY_LENGTH));
+			}
+
+			Object key = Arrays.asList(method, path, idempotencyKey);
+			Response started = new Response(body);
+
+			started.result = Mono.defer(handler)
+					.doOnError(e -> responses.remove(key, started))
+					.cache();
+
+			Response response = responses.putIfAbsent(key, started);
+
+			if (response == null) {
+				executed.increment();
+
+				return (Mono<ResponseEntity<T>>) (Mono<?>) started.result;
+			}
+
+			if (!Objects.equals(response.body, body)) {
+				mismatched.increment();
+
+				throw new InvalidRequestException("Idempotency key was already used with another request.");
+			}
+
+			replayed.increment();
+
+			return response.result.map(original -> (ResponseEntity<T>) replay(original));
+		});
+	}
+
+	private static ResponseEntity<?> replay(ResponseEntity<?> original) {
+		HttpHeaders headers = new HttpHeaders();
+
+		headers.putAll(original.getHeaders());
+		headers.set(REPLAYED, Boolean.TRUE.toString());
+
+		return new ResponseEntity<>(original.getBody(), headers, original.getStatusCode());
+	}
+
+	private static Counter counter(String outcome, MeterRegistry meterRegistry) {
+		return Counter.builder(COUNTER_NAME)
+				.description("Writes sent with an idempotency key, by whether they were carried out")
+				.tag("outcome", outcome)
+				.register(meterRegistry);
+	}
+
+	private static final class Response {
+
+		/**
+		 * What the request was sent with, for the retries to match.
+		 */
+		private final Object body;
+
+		private Mono<? extends ResponseEntity<?>> result;
+
+		private Response(Object body) {
+			this.body = body;
+		}
+
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.felype.todolist.resource;
+
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link Jackson2CborEncoder} that can be handed a publisher. Spring 5.2 only
+ * encodes CBOR one value at a time, while its message writer always hands the
+ * encoder the whole publisher, so every body written as CBOR failed. The
+ * resource only writes single values; each one is encoded whole.
+ */
+public class Jackson2CborValueEncoder extends Jackson2CborEncoder {
+
+	public Jackson2CborValueEncoder(ObjectMapper mapper) {
+		super(mapper, MediaType.APPLICATION_CBOR);
+	}
+
+	@Override
+	public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+			ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+		return Flux.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.felype.todolist.resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reads a request body as the {@code Flux<String>} of its lines on the servlet
+ * stack, which does not decode request bodies into reactive types by itself.
+ * Lines are read as they are requested, blocking on the request stream on the
+ * bounded elastic scheduler, so the body is never held whole. The reactive
+ * stack decodes such bodies line by line already.
+ * <p>
+ * Only reads: it never claims a type to write, so Spring never asks it to.
+ */
+public class LinesHttpMessageConverter implements GenericHttpMessageConverter<Flux<String>> {
+
+	private static final ResolvableType LINES = ResolvableType.forClassWithGenerics(Flux.class, String.class);
+
+	private final List<MediaType> supportedMediaTypes;
+
+	public LinesHttpMessageConverter(MediaType... supportedMediaTypes) {
+		this.supportedMediaTypes = Collections.unmodifiableList(Arrays.asList(supportedMediaTypes));
+	}
+
+	@Override
+	public List<MediaType> getSupportedMediaTypes() {
+		return supportedMediaTypes;
+	}
+
+	/**
+	 * The element type is needed to tell the lines apart from other fluxes.
+	 */
+	@Override
+	public boolean canRead(Class<?> clazz, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return LINES.isAssignableFrom(ResolvableType.forType(type)) && supports(mediaType);
+	}
+
+	@Override
+	public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public Flux<String> read(Class<? extends Flux<String>> clazz, HttpInputMessage inputMessage) throws IOException {
+		return read(inputMessage);
+	}
+
+	@Override
+	public Flux<String> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+		return read(inputMessage);
+	}
+
+	@Override
+	public void write(Flux<String> lines, MediaType contentType, HttpOutputMessage outputMessage) {
+		throw new HttpMessageNotWritableException("Lines are only read.");
+	}
+
+	@Override
+	public void write(Flux<String> lines, Type type, MediaType contentType, HttpOutputMessage outputMessage) {
+		throw new HttpMessageNotWritableException("Lines are only read.");
+	}
+
+	private boolean supports(MediaType mediaType) {
+		return mediaType == null || supportedMediaTypes.stream().anyMatch(supported -> supported.includes(mediaType));
+	}
+
+	private static Flux<String> read(HttpInputMessage inputMessage) throws IOException {
+		MediaType contentType = inputMessage.getHeaders().getContentType();
+		Charset charset = contentType == null || contentType.getCharset() == null ? StandardCharsets.UTF_8
+				: contentType.getCharset();
+		InputStream body = inputMessage.getBody();
+
+		return Flux.using(() -> new BufferedReader(new InputStreamReader(body, charset)),
+				reader -> Flux.fromStream(reader.lines()),
+				reader -> {
+					try {
+						reader.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				})
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.felype.todolist.resource;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.resource.limit.RequestLimiter;
+import com.felype.todolist.service.ReplicaReads;
+
+/**
+ * Tells {@link ReplicaReads} who the client of each request is, and which
+ * requests write. The service is called on the request thread, which is where
+ * the client is named. Writes are reported when they start and once the
+ * response is complete, asynchronously for most of them.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReplicaReadsFilter extends OncePerRequestFilter {
+
+	private final ReplicaReads replicaReads;
+
+	private final String apiKeyHeader;
+
+	public ReplicaReadsFilter(ReplicaReads replicaReads, ToDoListProperties properties) {
+		this.replicaReads = replicaReads;
+		this.apiKeyHeader = properties.getLimits().getRate().getApiKeyHeader();
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !replicaReads.isEnabled();
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String client = RequestLimiter.client(request.getHeader(apiKeyHeader), request.getRemoteAddr());
+		boolean write = isWrite(request.getMethod());
+
+		if (write) {
+			replicaReads.written(client);
+		}
+
+		ReplicaReads.setClient(client);
+
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			ReplicaReads.setClient(null);
+
+			if (write && request.isAsyncStarted()) {
+				request.getAsyncContext().addListener(new AsyncListener() {
+
+					@Override
+					public void onComplete(AsyncEvent event) {
+						replicaReads.written(client);
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event) {
+					}
+
+					@Override
+					public void onError(AsyncEvent event) {
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event) {
+					}
+
+				});
+			} else if (write) {
+				replicaReads.written(client);
+			}
+		}
+	}
+
+	static boolean isWrite(String method) {
+		HttpMethod resolved = HttpMethod.resolve(method);
+
+		return resolved != HttpMethod.GET && resolved != HttpMethod.HEAD && resolved != HttpMethod.OPTIONS
+				&& resolved != HttpMethod.TRACE;
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.felype.todolist.resource;
+
+import java.net.InetSocketAddress;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.resource.limit.RequestLimiter;
+import com.felype.todolist.service.ReplicaReads;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Same as {@link ReplicaReadsFilter}, on the reactive stack, naming the client
+ * in the subscriber context.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReplicaReadsWebFilter implements WebFilter {
+
+	private final ReplicaReads replicaReads;
+
+	private final String apiKeyHeader;
+
+	public ReplicaReadsWebFilter(ReplicaReads replicaReads, ToDoListProperties properties) {
+		this.replicaReads = replicaReads;
+		this.apiKeyHeader = properties.getLimits().getRate().getApiKeyHeader();
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		if (!replicaReads.isEnabled()) {
+			return chain.filter(exchange);
+		}
+
+		ServerHttpRequest request = exchange.getRequest();
+		InetSocketAddress address = request.getRemoteAddress();
+		String client = RequestLimiter.client(request.getHeaders().getFirst(apiKeyHeader),
+				address == null ? null : address.getHostString());
+		Mono<Void> filtered = chain.filter(exchange)
+				.subscriberContext(context -> ReplicaReads.withClient(context, client));
+
+		if (!ReplicaReadsFilter.isWrite(request.getMethodValue())) {
+			return filtered;
+		}
+
+		return Mono.defer(() -> {
+			replicaReads.written(client);
+
+			return filtered;
+		}).doFinally(signal -> replicaReads.written(client));
+	}
+
+}
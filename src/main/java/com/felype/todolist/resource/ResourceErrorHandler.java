@@ -1,5 +1,10 @@
 package com.felype.todolist.resource;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -8,38 +13,143 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import com.felype.todolist.exception.BackendServiceException;
+import com.felype.todolist.exception.ChangesExpiredException;
 import com.felype.todolist.exception.InvalidRequestException;
 import com.felype.todolist.exception.ItemNotFoundException;
+import com.felype.todolist.exception.NotFoundException;
+import com.felype.todolist.exception.PreconditionFailedException;
+import com.felype.todolist.exception.ServiceUnavailableException;
+import com.felype.todolist.model.ErrorResponse;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Errors are answered with an {@link ErrorResponse}. Those caused by the
+ * request rather than by the service are expected, at times by the thousand,
+ * so only one of each status is logged per second, with how many were left
+ * out since. The {@code todolist.errors} counters still see every one.
+ */
 @Slf4j
 @ControllerAdvice
 @RequiredArgsConstructor
 public class ResourceErrorHandler {
 
+	private static final String RETRY_AFTER_SECONDS = "1";
+
+	private static final long LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final MeterRegistry meterRegistry;
+
+	private final Map<HttpStatus, SampledLog> logs = new ConcurrentHashMap<>();
+
 	@ExceptionHandler({ ItemNotFoundException.class, EmptyResultDataAccessException.class })
-	public ResponseEntity<Object> handleItemNotFoundException(ItemNotFoundException e) {
-		log.info(e.getMessage(), e);
+	public ResponseEntity<ErrorResponse> handleItemNotFoundException(ItemNotFoundException e) {
+		return expected(e, HttpStatus.NOT_FOUND, new HttpHeaders());
+	}
 
-		return new ResponseEntity<Object>(new HttpHeaders(), HttpStatus.NOT_FOUND);
+	@ExceptionHandler(NotFoundException.class)
+	public ResponseEntity<ErrorResponse> handleNotFoundException(NotFoundException notFoundException) {
+		return expected(notFoundException, HttpStatus.NOT_FOUND, new HttpHeaders());
 	}
 
 	@ExceptionHandler(BackendServiceException.class)
-	public ResponseEntity<Object> handleBackendServiceException(BackendServiceException backendServiceException) {
+	public ResponseEntity<ErrorResponse> handleBackendServiceException(
+			BackendServiceException backendServiceException) {
 		// Don't expose implementation details when failing.
 		log.error("Unexpected Error", backendServiceException.getCause());
+		count(backendServiceException, HttpStatus.INTERNAL_SERVER_ERROR);
+
+		return response(HttpStatus.INTERNAL_SERVER_ERROR, new HttpHeaders(), null);
+	}
 
-		return new ResponseEntity<Object>(new HttpHeaders(), HttpStatus.INTERNAL_SERVER_ERROR);
+	@ExceptionHandler(ServiceUnavailableException.class)
+	public ResponseEntity<ErrorResponse> handleServiceUnavailableException(
+			ServiceUnavailableException serviceUnavailableException) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+
+		return expected(serviceUnavailableException, HttpStatus.SERVICE_UNAVAILABLE, headers);
+	}
+
+	@ExceptionHandler(PreconditionFailedException.class)
+	public ResponseEntity<ErrorResponse> handlePreconditionFailedException(
+			PreconditionFailedException preconditionFailedException) {
+		return expected(preconditionFailedException, HttpStatus.PRECONDITION_FAILED, new HttpHeaders());
+	}
+
+	@ExceptionHandler(ChangesExpiredException.class)
+	public ResponseEntity<ErrorResponse> handleChangesExpiredException(
+			ChangesExpiredException changesExpiredException) {
+		return expected(changesExpiredException, HttpStatus.GONE, new HttpHeaders());
 	}
-	
+
 	@ExceptionHandler(InvalidRequestException.class)
-	public ResponseEntity<Object> handleInvalidRequestException(InvalidRequestException invalidRequestException) {
-		// Don't expose implementation details when failing.
-		log.info(invalidRequestException.getMessage());
+	public ResponseEntity<ErrorResponse> handleInvalidRequestException(
+			InvalidRequestException invalidRequestException) {
+		return expected(invalidRequestException, HttpStatus.BAD_REQUEST, new HttpHeaders());
+	}
+
+	/**
+	 * Answers an error caused by the request or by load, logging its message but
+	 * never its stack trace.
+	 */
+	private ResponseEntity<ErrorResponse> expected(RuntimeException exception, HttpStatus status,
+			HttpHeaders headers) {
+		String message = exception.getMessage();
+		long skipped = logs.computeIfAbsent(status, key -> new SampledLog()).skippedSinceLast();
+
+		if (skipped == 0) {
+			log.info(message);
+		} else if (skipped > 0) {
+			log.info("{} ({} more with status {} not logged)", message, skipped, status.value());
+		}
+
+		count(exception, status);
+
+		return response(status, headers, message);
+	}
+
+	private static ResponseEntity<ErrorResponse> response(HttpStatus status, HttpHeaders headers, String message) {
+		return new ResponseEntity<>(ErrorResponse.builder()
+				.status(status.value())
+				.error(status.getReasonPhrase())
+				.message(message)
+				.build(), headers, status);
+	}
+
+	private void count(Exception exception, HttpStatus status) {
+		meterRegistry.counter("todolist.errors", "exception", exception.getClass().getSimpleName(), "status",
+				String.valueOf(status.value())).increment();
+	}
+
+	/**
+	 * Lets one error through per interval.
+	 */
+	private static final class SampledLog {
+
+		private final AtomicLong nextAt = new AtomicLong(System.nanoTime());
+
+		private final AtomicLong skipped = new AtomicLong();
+
+		/**
+		 * How many were left out since the last one logged, or -1 if this one is to
+		 * be left out as well.
+		 */
+		private long skippedSinceLast() {
+			long now = System.nanoTime();
+			long next = nextAt.get();
+
+			if (now - next >= 0 && nextAt.compareAndSet(next, now + LOG_INTERVAL_NANOS)) {
+				return skipped.getAndSet(0);
+			}
+
+			skipped.incrementAndGet();
+
+			return -1;
+		}
 
-		return new ResponseEntity<Object>(new HttpHeaders(), HttpStatus.BAD_REQUEST);
 	}
 
 }
@@ -1,11 +1,15 @@
 package com.felype.todolist.resource;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 import javax.validation.Valid;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,57 +17,454 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.felype.todolist.config.ToDoListProperties;
 import com.felype.todolist.exception.InvalidRequestException;
+import com.felype.todolist.model.BatchResult;
+import com.felype.todolist.model.ImportProgress;
 import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemChanges;
+import com.felype.todolist.model.ItemEvent;
 import com.felype.todolist.model.List;
+import com.felype.todolist.resource.protobuf.ItemProtobuf;
+import com.felype.todolist.service.EncodedItems;
+import com.felype.todolist.service.ItemFormat;
+import com.felype.todolist.service.ItemTransfer;
+import com.felype.todolist.service.ListService;
 import com.felype.todolist.service.ToDoListService;
 
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
 @RequiredArgsConstructor
-@RequestMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"})
+@RequestMapping(produces = { MediaType.APPLICATION_JSON_VALUE, ToDoListResource.APPLICATION_SMILE_VALUE,
+		MediaType.APPLICATION_CBOR_VALUE, ItemProtobuf.MEDIA_TYPE_VALUE })
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"},
+		exposedHeaders = { HttpHeaders.ETAG, IdempotentRequests.REPLAYED })
 public class ToDoListResource {
 
+	public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+	public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+	public static final String TEXT_CSV_VALUE = "text/csv";
+
+	/**
+	 * In the order of the class mapping, JSON first: the one picked when the
+	 * client accepts several equally. The endpoints whose bodies have no protobuf
+	 * schema narrow these down to the Jackson formats.
+	 */
+	private static final java.util.List<MediaType> PRODUCED = Arrays.asList(MediaType.APPLICATION_JSON,
+			MediaType.valueOf(APPLICATION_SMILE_VALUE), MediaType.APPLICATION_CBOR, ItemProtobuf.MEDIA_TYPE);
+
+	/**
+	 * The entity tag variant of each produced type, see {@link ETags}.
+	 */
+	private static final java.util.List<String> TAG_VARIANTS = Arrays.asList(null, "smile", "cbor", "protobuf");
+
+	/**
+	 * Formats of the export, in the order of its mapping.
+	 */
+	private static final java.util.List<MediaType> EXPORTED = Arrays.asList(MediaType.valueOf(APPLICATION_NDJSON_VALUE),
+			MediaType.valueOf(TEXT_CSV_VALUE));
+
+	private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+	private static final String GZIP = "gzip";
+
 	private final ToDoListService toDoListService;
 
-	
+	private final ToDoListProperties properties;
+
+	private final ListService listService;
+
+	private final IdempotentRequests idempotentRequests;
+
+	private final ItemTransfer itemTransfer;
+
+	/**
+	 * Tagged with the change tag of the whole collection, read before the items
+	 * are loaded, so a matching {@code If-None-Match} is answered without
+	 * touching them.
+	 * <p>
+	 * {@code title_prefix} filters on the start of the title, matching case,
+	 * {@code sort} is one of {@code id}, {@code -id}, {@code title} and
+	 * {@code -title}, and {@code fields} lists the fields to return, the ID
+	 * always being one of them.
+	 * <p>
+	 * With encoded responses enabled, the whole list is written out from the
+	 * JSON bytes the service keeps, gzipped when the client accepts it, unless
+	 * another format is negotiated.
+	 */
 	@GetMapping(value = "/items")
-	public Mono<List> getItems() {
-		return toDoListService.getItems();
+	public Mono<ResponseEntity<?>> getItems(@RequestParam(value = "after", required = false) Long after,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "title_prefix", required = false) String titlePrefix,
+			@RequestParam(value = "sort", required = false) String sort,
+			@RequestParam(value = "fields", required = false) String fields,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		return toDoListService.getChangeTag().flatMap(tag -> {
+			String etag = tagged(ETags.of(tag), accept);
+			String matched = ETags.matching(ifNoneMatch, etag, gzipped(etag, acceptEncoding));
+
+			if (matched != null) {
+				return Mono.just(notModified(matched));
+			}
+
+			Mono<List> items;
+
+			if (titlePrefix != null || sort != null || fields != null) {
+				items = toDoListService.findItems(titlePrefix, sort, fields, after, limit);
+			} else if (after == null && limit == null) {
+				if (properties.getCache().isEncodedResponses() && negotiatesJson(accept)) {
+					return toDoListService.getEncodedItems()
+							.map(body -> encoded(etag, body, acceptEncoding));
+				}
+
+				items = toDoListService.getItems();
+			} else {
+				items = toDoListService.getItems(after, limit);
+			}
+
+			return items.map(list -> ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(etag).body(list));
+		});
+	}
+
+	@GetMapping(value = "/items", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+	public Flux<Item> streamItems() {
+		return toDoListService.streamItems();
+	}
+
+	/**
+	 * Delta sync: send back the {@code high_water_mark} of the previous response
+	 * as {@code since}. Answered with 410 when the changes since then were
+	 * compacted, and the client has to sync again from 0.
+	 */
+	@GetMapping(value = "/items/changes", produces = { MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE })
+	public Mono<ItemChanges> getChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+			@RequestParam(value = "limit", required = false) Integer limit) {
+		return toDoListService.getChanges(since, limit);
+	}
+
+	/**
+	 * Every item, as NDJSON or CSV, streamed as the client reads it, in a form
+	 * the import takes back.
+	 */
+	@GetMapping(value = "/items/export", produces = { APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE })
+	public ResponseEntity<Flux<String>> exportItems(
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		MediaType type = negotiate(accept, EXPORTED);
+
+		return ResponseEntity.ok().contentType(type).body(itemTransfer.exportItems(format(type)));
+	}
+
+	/**
+	 * Creates an item for each record of an NDJSON or CSV body, read as it
+	 * arrives, reporting progress after each batch commits. An empty body imports
+	 * nothing. A failed import is
+	 * resumed by sending the file again with {@code skip} set to the last
+	 * {@code committed} count, see {@link ItemTransfer}.
+	 */
+	@PostMapping(value = "/items/import", consumes = { APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE },
+			produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+	public Flux<ImportProgress> importItems(@RequestBody(required = false) Flux<String> lines,
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+			@RequestParam(value = "skip", defaultValue = "0") long skip) {
+		return itemTransfer.importItems(lines == null ? Flux.empty() : lines,
+				format(MediaType.parseMediaType(contentType)), skip);
+	}
+
+	/**
+	 * Full-text search over the item titles and descriptions. Every word has to
+	 * match, and a word ending with {@code *} matches as a prefix. Pages go by
+	 * position: send back {@code next_cursor} as {@code after}.
+	 */
+	@GetMapping(value = "/items/search")
+	public Mono<List> search(@RequestParam(value = "q") String query,
+			@RequestParam(value = "after", required = false) Long after,
+			@RequestParam(value = "limit", required = false) Integer limit) {
+		return toDoListService.search(query, after, limit);
+	}
+
+	/**
+	 * Server-sent events for every item created, updated or deleted, with
+	 * heartbeat comments in between. Clients reconnecting with
+	 * {@code Last-Event-ID} get the changes they missed first.
+	 */
+	@GetMapping(value = "/items/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<ItemEvent>> streamEvents(
+			@RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId) {
+		Flux<ServerSentEvent<ItemEvent>> heartbeats = Flux.interval(properties.getEvents().getHeartbeatInterval())
+				.onBackpressureDrop()
+				.map(tick -> ServerSentEvent.<ItemEvent>builder().comment("heartbeat").build());
+
+		return toDoListService.streamEvents(lastEventId).map(ToDoListResource::toServerSentEvent)
+				.publish(events -> events.mergeWith(heartbeats.takeUntilOther(events.ignoreElements())));
 	}
 
 	@GetMapping(value = "/items/{itemId}")
-	public Mono<Item> getItem(@PathVariable("itemId") Long itemId) {
-		return toDoListService.getItem(itemId);
+	public Mono<ResponseEntity<?>> getItem(@PathVariable("itemId") Long itemId,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		if (properties.getCache().isEncodedResponses() && negotiatesJson(accept)) {
+			return toDoListService.getEncodedItem(itemId).map(body -> {
+				String etag = ETags.of(body.getVersion());
+				String matched = ETags.matching(ifNoneMatch, etag, gzipped(etag, acceptEncoding));
+
+				return matched != null ? notModified(matched) : encoded(etag, body, acceptEncoding);
+			});
+		}
+
+		return toDoListService.getItem(itemId).map(item -> {
+			String etag = tagged(ETags.of(item), accept);
+			ResponseEntity.BodyBuilder ok = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+
+			return ETags.matches(ifNoneMatch, etag) ? notModified(etag)
+					: (etag == null ? ok : ok.eTag(etag)).body(item);
+		});
 	}
 
+	/**
+	 * The writes taking an {@code Idempotency-Key} answer a retry sent with the
+	 * same key with the original response, see {@link IdempotentRequests}.
+	 */
 	@DeleteMapping(value = "/items/{itemId}")
-	@ResponseStatus(HttpStatus.NO_CONTENT)
-	public Mono<Void> deleteItem(@PathVariable("itemId") Long itemId) {
-		return toDoListService.deleteItem(itemId);
+	public Mono<ResponseEntity<Void>> deleteItem(@PathVariable("itemId") Long itemId,
+			@RequestHeader(value = IdempotentRequests.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+		return idempotentRequests.execute(idempotencyKey, "DELETE", "/items/" + itemId, null,
+				() -> toDoListService.deleteItem(itemId).then(Mono.just(ResponseEntity.noContent().build())));
 	}
 
 	@PostMapping(value = "/items")
-	@ResponseStatus(HttpStatus.CREATED)
-	public Mono<Item> postItem(@RequestBody @Valid Item item) {
-		return toDoListService.addItem(item);
+	public Mono<ResponseEntity<Item>> postItem(@RequestBody @Valid Item item,
+			@RequestHeader(value = IdempotentRequests.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+		return idempotentRequests.execute(idempotencyKey, "POST", "/items", copy(item),
+				() -> toDoListService.addItem(item)
+						.map(addedItem -> withETag(ResponseEntity.status(HttpStatus.CREATED), addedItem)));
 	}
 	
+	@PostMapping(value = "/items:batch", produces = { MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE })
+	public Mono<BatchResult> postItems(@RequestBody java.util.List<Item> items) {
+		return toDoListService.addItems(items);
+	}
+
+	@PutMapping(value = "/items:batch", produces = { MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE })
+	public Mono<BatchResult> putItems(@RequestBody java.util.List<Item> items) {
+		return toDoListService.updateItems(items);
+	}
+
+	@DeleteMapping(value = "/items:batch", produces = { MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE })
+	public Mono<BatchResult> deleteItems(@RequestBody java.util.List<Long> itemIds) {
+		return toDoListService.deleteItems(itemIds);
+	}
+
+	/**
+	 * With {@code If-Match}, the update only goes through if the item is still at
+	 * the version the tag names, otherwise it is answered with 412.
+	 */
 	@PutMapping(value = "/items/{itemId}")
-	@ResponseStatus(HttpStatus.ACCEPTED)
-	public Mono<Item> putItem(@RequestBody @Valid Item item, @PathVariable("itemId") Long itemId) {
+	public Mono<ResponseEntity<Item>> putItem(@RequestBody @Valid Item item, @PathVariable("itemId") Long itemId,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(value = IdempotentRequests.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
 		if(!Objects.equals(item.getId(), itemId)) {
 			throw new InvalidRequestException("Item ID is invalid. Call post to create new item.");
 		}
-		
-		return toDoListService.updateItem(item);
+
+		item.setVersion(ETags.version(ifMatch));
+
+		return idempotentRequests.execute(idempotencyKey, "PUT", "/items/" + itemId, copy(item),
+				() -> toDoListService.updateItem(item)
+						.map(savedItem -> withETag(ResponseEntity.status(HttpStatus.ACCEPTED), savedItem)));
+	}
+
+	/**
+	 * Items of the list, a page at a time: send back {@code next_cursor} as
+	 * {@code after}.
+	 */
+	@GetMapping(value = "/lists/{listId}/items")
+	public Mono<List> getListItems(@PathVariable("listId") long listId,
+			@RequestParam(value = "after", required = false) Long after,
+			@RequestParam(value = "limit", required = false) Integer limit) {
+		return listService.getItems(listId, after, limit);
+	}
+
+	@GetMapping(value = "/lists/{listId}/items/{itemId}")
+	public Mono<ResponseEntity<Item>> getListItem(@PathVariable("listId") long listId,
+			@PathVariable("itemId") long itemId,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return listService.getItem(listId, itemId).map(item -> {
+			String etag = tagged(ETags.of(item), accept);
+			ResponseEntity.BodyBuilder ok = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+
+			return ETags.matches(ifNoneMatch, etag) ? notModified(etag)
+					: (etag == null ? ok : ok.eTag(etag)).body(item);
+		});
+	}
+
+	@PostMapping(value = "/lists/{listId}/items")
+	public Mono<ResponseEntity<Item>> postListItem(@PathVariable("listId") long listId,
+			@RequestBody @Valid Item item,
+			@RequestHeader(value = IdempotentRequests.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+		return idempotentRequests.execute(idempotencyKey, "POST", "/lists/" + listId + "/items", copy(item),
+				() -> listService.addItem(listId, item)
+						.map(addedItem -> withETag(ResponseEntity.status(HttpStatus.CREATED), addedItem)));
+	}
+
+	/**
+	 * Conditional on {@code If-Match} as {@link #putItem} is.
+	 */
+	@PutMapping(value = "/lists/{listId}/items/{itemId}")
+	public Mono<ResponseEntity<Item>> putListItem(@RequestBody @Valid Item item, @PathVariable("listId") long listId,
+			@PathVariable("itemId") Long itemId,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(value = IdempotentRequests.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+		if (!Objects.equals(item.getId(), itemId)) {
+			throw new InvalidRequestException("Item ID is invalid. Call post to create new item.");
+		}
+
+		item.setVersion(ETags.version(ifMatch));
+
+		return idempotentRequests.execute(idempotencyKey, "PUT", "/lists/" + listId + "/items/" + itemId, copy(item),
+				() -> listService.updateItem(listId, item)
+						.map(savedItem -> withETag(ResponseEntity.status(HttpStatus.ACCEPTED), savedItem)));
+	}
+
+	@DeleteMapping(value = "/lists/{listId}/items/{itemId}")
+	public Mono<ResponseEntity<Void>> deleteListItem(@PathVariable("listId") long listId,
+			@PathVariable("itemId") long itemId,
+			@RequestHeader(value = IdempotentRequests.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+		return idempotentRequests.execute(idempotencyKey, "DELETE", "/lists/" + listId + "/items/" + itemId, null,
+				() -> listService.deleteItem(listId, itemId).then(Mono.just(ResponseEntity.noContent().build())));
+	}
+
+	private static ServerSentEvent<ItemEvent> toServerSentEvent(ItemEvent event) {
+		return ServerSentEvent.builder(event)
+				.id(event.getEventId() == null ? null : event.getEventId().toString())
+				.event(event.getType().name().toLowerCase())
+				.build();
+	}
+
+	/**
+	 * The bytes go out as they are: wrapped, not copied, into the response
+	 * buffer on the reactive stack, written to the response stream on the
+	 * servlet one. Gzip bytes get a tag of their own.
+	 */
+	private static ResponseEntity<byte[]> encoded(String etag, EncodedItems.Body body, String acceptEncoding) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+				.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+		boolean gzip = body.isCompressible() && acceptsGzip(acceptEncoding);
+		String tag = gzip ? ETags.variant(etag, GZIP) : etag;
+
+		if (tag != null) {
+			builder.eTag(tag);
+		}
+
+		return gzip ? builder.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(body.getGzip())
+				: builder.body(body.getJson());
+	}
+
+	/**
+	 * The tag the gzip coding of a representation gets, which validates the
+	 * client's copy as well as the identity tag does: both name the same
+	 * version. Null when the client takes no gzip.
+	 */
+	private static String gzipped(String etag, String acceptEncoding) {
+		return acceptsGzip(acceptEncoding) ? ETags.variant(etag, GZIP) : null;
+	}
+
+	/**
+	 * Whether the response is negotiated to JSON, as the framework would pick it
+	 * from the class mapping.
+	 */
+	private static boolean negotiatesJson(String accept) {
+		return accept == null || accept.equals(MediaType.APPLICATION_JSON_VALUE)
+				|| negotiate(accept, PRODUCED).equals(MediaType.APPLICATION_JSON);
+	}
+
+	/**
+	 * The first of the produced types the client accepts, favouring what it
+	 * prefers, or the first one when it accepts none of them.
+	 */
+	private static MediaType negotiate(String accept, java.util.List<MediaType> produced) {
+		if (accept != null) {
+			java.util.List<MediaType> acceptable = MediaType.parseMediaTypes(accept);
+
+			MediaType.sortBySpecificityAndQuality(acceptable);
+
+			for (MediaType type : acceptable) {
+				for (MediaType candidate : produced) {
+					if (type.isCompatibleWith(candidate)) {
+						return candidate;
+					}
+				}
+			}
+		}
+
+		return produced.get(0);
+	}
+
+	private static ItemFormat format(MediaType type) {
+		return type.isCompatibleWith(EXPORTED.get(1)) ? ItemFormat.CSV : ItemFormat.NDJSON;
+	}
+
+	private static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.split(";");
+
+			if (GZIP.equalsIgnoreCase(parameters[0].trim())) {
+				return parameters.length == 1 || !parameters[1].trim().matches("q=0(\\.0*)?");
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * The services set fields on the items they are given, so the body retries
+	 * are matched against is a copy.
+	 */
+	private static Item copy(Item item) {
+		return item.toBuilder().build();
+	}
+
+	/**
+	 * The tag of the representation negotiated for the client, as the same URL
+	 * answers in several formats.
+	 */
+	private static String tagged(String etag, String accept) {
+		return ETags.variant(etag, TAG_VARIANTS.get(PRODUCED.indexOf(negotiate(accept, PRODUCED))));
+	}
+
+	/**
+	 * The reads answered with 304 all negotiate their format, so it varies as
+	 * they do.
+	 */
+	private static <T> ResponseEntity<T> notModified(String etag) {
+		return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.ACCEPT).eTag(etag).build();
+	}
+
+	private static ResponseEntity<Item> withETag(ResponseEntity.BodyBuilder builder, Item item) {
+		String etag = ETags.of(item);
+
+		return (etag == null ? builder : builder.eTag(etag)).body(item);
 	}
 
 }
@@ -0,0 +1,84 @@
+package com.felype.todolist.resource.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limit on the requests in progress, adjusted as they complete: additive
+ * increase while requests complete in time, multiplicative decrease as soon as
+ * they do not. The limit settles around the concurrency the backend sustains
+ * without latency building up, and what is beyond it is turned away before it
+ * reaches the database.
+ */
+public class ConcurrencyLimiter {
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final long latencyThreshold;
+
+	private final double backoffRatio;
+
+	private final AtomicInteger limit;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	/**
+	 * The threshold is in nanoseconds.
+	 */
+	public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThreshold,
+			double backoffRatio) {
+		if (minLimit < 1 || minLimit > maxLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+			throw new IllegalArgumentException("Limits must be positive and the backoff ratio between 0 and 1.");
+		}
+
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.latencyThreshold = latencyThreshold;
+		this.backoffRatio = backoffRatio;
+		this.limit = new AtomicInteger(Math.min(maxLimit, Math.max(minLimit, initialLimit)));
+	}
+
+	/**
+	 * Whether the request may go on, in which case {@link #release} has to be
+	 * called once it completes.
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int current = inFlight.get();
+
+			if (current >= limit.get()) {
+				return false;
+			}
+
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Ends a request let through, which took {@code latency} nanoseconds or was
+	 * {@code dropped} for lack of capacity further in.
+	 */
+	public void release(long latency, boolean dropped) {
+		int used = inFlight.getAndDecrement();
+
+		if (dropped || latency > latencyThreshold) {
+			limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+		} else {
+			// Only grows while it is actually in use, so a quiet spell does not leave
+			// it far above what was ever tried.
+			limit.updateAndGet(current -> used * 2 >= current ? Math.min(maxLimit, current + 1) : current);
+		}
+	}
+
+	public int getLimit() {
+		return limit.get();
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+}
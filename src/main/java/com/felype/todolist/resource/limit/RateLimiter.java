@@ -0,0 +1,74 @@
+package com.felype.todolist.resource.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Token bucket per client. A bucket is kept as the time at which it would be
+ * full again, as the generic cell rate algorithm does, so taking a token is a
+ * single compare-and-set and clients never wait on a lock.
+ * <p>
+ * A bucket left alone long enough to fill up is no different from a new one,
+ * so it is dropped by then.
+ */
+public class RateLimiter {
+
+	/**
+	 * Nanoseconds a token takes to come back.
+	 */
+	private final long interval;
+
+	/**
+	 * How far ahead of the clock a bucket may run: all of the burst but the
+	 * request being admitted.
+	 */
+	private final long tolerance;
+
+	private final LongSupplier nanoClock;
+
+	private final Cache<String, AtomicLong> buckets;
+
+	public RateLimiter(double requestsPerSecond, int burst, long maxClients, LongSupplier nanoClock) {
+		if (requestsPerSecond <= 0 || burst < 1) {
+			throw new IllegalArgumentException("Rate and burst must be positive.");
+		}
+
+		this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond));
+		this.tolerance = interval * (burst - 1);
+		this.nanoClock = nanoClock;
+		this.buckets = Caffeine.newBuilder()
+				.maximumSize(maxClients)
+				.expireAfterAccess(interval * burst, TimeUnit.NANOSECONDS)
+				.ticker(nanoClock::getAsLong)
+				.build();
+	}
+
+	/**
+	 * Takes a token from the client's bucket. Returns 0 when there was one, or
+	 * else the nanoseconds until there will be.
+	 */
+	public long acquire(String client) {
+		long now = nanoClock.getAsLong();
+		AtomicLong bucket = buckets.get(client, key -> new AtomicLong(now));
+
+		while (true) {
+			long full = bucket.get();
+			// Compared by difference, nanoTime may be negative.
+			long start = full - now < 0 ? now : full;
+			long wait = start - now - tolerance;
+
+			if (wait > 0) {
+				return wait;
+			}
+
+			if (bucket.compareAndSet(full, start + interval)) {
+				return 0L;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.felype.todolist.resource.limit;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link RequestLimiter} in front of the servlet stack. The controllers return
+ * publishers, so most requests complete asynchronously, after the filter chain
+ * has returned: their permit is released once the async request completes.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RequestLimitFilter extends OncePerRequestFilter {
+
+	private final RequestLimiter requestLimiter;
+
+	/**
+	 * Health checks and metrics are answered however loaded the service is.
+	 */
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		RequestLimiter.Permit permit = requestLimiter.acquire(request.getHeader(requestLimiter.getApiKeyHeader()),
+				request.getRemoteAddr(), request.getHeader(HttpHeaders.ACCEPT));
+
+		if (!permit.isGranted()) {
+			response.setStatus(permit.getRejection().value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(permit.getRetryAfterSeconds()));
+
+			return;
+		}
+
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			if (request.isAsyncStarted()) {
+				request.getAsyncContext().addListener(new AsyncListener() {
+
+					@Override
+					public void onComplete(AsyncEvent event) {
+						permit.release(response.getStatus());
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event) {
+					}
+
+					@Override
+					public void onError(AsyncEvent event) {
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event) {
+					}
+
+				});
+			} else {
+				permit.release(response.getStatus());
+			}
+		}
+	}
+
+}
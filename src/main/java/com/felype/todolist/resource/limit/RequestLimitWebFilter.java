@@ -0,0 +1,56 @@
+package com.felype.todolist.resource.limit;
+
+import java.net.InetSocketAddress;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link RequestLimiter} in front of the reactive stack. The permit is released
+ * when the exchange ends, however it ends.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class RequestLimitWebFilter implements WebFilter {
+
+	private final RequestLimiter requestLimiter;
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		ServerHttpRequest request = exchange.getRequest();
+
+		// Health checks and metrics are answered however loaded the service is.
+		if (request.getPath().pathWithinApplication().value().startsWith("/actuator")) {
+			return chain.filter(exchange);
+		}
+
+		InetSocketAddress address = request.getRemoteAddress();
+		RequestLimiter.Permit permit = requestLimiter.acquire(
+				request.getHeaders().getFirst(requestLimiter.getApiKeyHeader()),
+				address == null ? null : address.getHostString(),
+				request.getHeaders().getFirst(HttpHeaders.ACCEPT));
+		ServerHttpResponse response = exchange.getResponse();
+
+		if (!permit.isGranted()) {
+			response.setStatusCode(permit.getRejection());
+			response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(permit.getRetryAfterSeconds()));
+
+			return response.setComplete();
+		}
+
+		return chain.filter(exchange).doFinally(signal -> permit.release(
+				(response.getStatusCode() == null ? HttpStatus.OK : response.getStatusCode()).value()));
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.felype.todolist.resource.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.felype.todolist.config.ToDoListProperties;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Admission of requests, shared by the servlet and the reactive filter: first
+ * the client's rate limit, then the concurrency limit. Rejections are counted
+ * by reason in {@value #COUNTER_NAME}.
+ * <p>
+ * Streams stay open for as long as the client listens, so they are held to the
+ * rate limit only: counted in, they would take up the concurrency limit and
+ * their length would read as latency.
+ */
+@Component
+public class RequestLimiter {
+
+	static final String COUNTER_NAME = "todolist.requests.rejected";
+
+	private static final long RETRY_AFTER_OVERLOADED = 1L;
+
+	private final String apiKeyHeader;
+
+	private final RateLimiter rateLimiter;
+
+	private final ConcurrencyLimiter concurrencyLimiter;
+
+	private final Clock clock;
+
+	private final Counter rateLimited;
+
+	private final Counter overloaded;
+
+	public RequestLimiter(ToDoListProperties properties, MeterRegistry meterRegistry) {
+		ToDoListProperties.Limits.Rate rate = properties.getLimits().getRate();
+		ToDoListProperties.Limits.Concurrency concurrency = properties.getLimits().getConcurrency();
+
+		this.clock = meterRegistry.config().clock();
+		this.apiKeyHeader = rate.getApiKeyHeader();
+		this.rateLimiter = !rate.isEnabled() ? null
+				: new RateLimiter(rate.getRequestsPerSecond(), rate.getBurst(), rate.getMaxClients(),
+						clock::monotonicTime);
+		this.concurrencyLimiter = !concurrency.isEnabled() ? null
+				: new ConcurrencyLimiter(concurrency.getInitialLimit(), concurrency.getMinLimit(),
+						concurrency.getMaxLimit(), concurrency.getLatencyThreshold().toNanos(),
+						concurrency.getBackoffRatio());
+		this.rateLimited = counter("rate_limited", meterRegistry);
+		this.overloaded = counter("overloaded", meterRegistry);
+
+		if (concurrencyLimiter != null) {
+			Gauge.builder("todolist.requests.concurrency.limit", concurrencyLimiter, ConcurrencyLimiter::getLimit)
+					.description("Requests let in at once")
+					.register(meterRegistry);
+			Gauge.builder("todolist.requests.concurrency.in_flight", concurrencyLimiter,
+					ConcurrencyLimiter::getInFlight)
+					.description("Requests in progress")
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * Header the API key is read from.
+	 */
+	public String getApiKeyHeader() {
+		return apiKeyHeader;
+	}
+
+	/**
+	 * Who sent a request: its API key when it sends one, its address otherwise.
+	 */
+	public static String client(String apiKey, String address) {
+		return apiKey != null && !apiKey.isEmpty() ? "key:" + apiKey : "address:" + address;
+	}
+
+	/**
+	 * Admits the request or not. The client is its API key when it sends one,
+	 * its address otherwise. API keys are not checked here, so a client sending
+	 * a fresh key every time dodges its rate limit, though not the concurrency
+	 * limit.
+	 */
+	public Permit acquire(String apiKey, String address, String accept) {
+		if (rateLimiter != null) {
+			long wait = rateLimiter.acquire(client(apiKey, address));
+
+			if (wait > 0) {
+				rateLimited.increment();
+
+				return new Permit(HttpStatus.TOO_MANY_REQUESTS, seconds(wait));
+			}
+		}
+
+		if (concurrencyLimiter == null || isStream(accept)) {
+			return Permit.UNLIMITED;
+		}
+
+		if (!concurrencyLimiter.tryAcquire()) {
+			overloaded.increment();
+
+			return new Permit(HttpStatus.SERVICE_UNAVAILABLE, RETRY_AFTER_OVERLOADED);
+		}
+
+		return new Permit(concurrencyLimiter, clock);
+	}
+
+	private static boolean isStream(String accept) {
+		return accept != null && (accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE)
+				|| accept.contains(MediaType.APPLICATION_STREAM_JSON_VALUE));
+	}
+
+	/**
+	 * Rounded up, so a client retrying right then is let in.
+	 */
+	private static long seconds(long nanos) {
+		return Math.max(1L, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+	}
+
+	private static Counter counter(String reason, MeterRegistry meterRegistry) {
+		return Counter.builder(COUNTER_NAME)
+				.description("Requests turned away before reaching the service")
+				.tag("reason", reason)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Outcome of {@link RequestLimiter#acquire}. A granted permit has to be
+	 * released once the response status is known; releasing it again does
+	 * nothing.
+	 */
+	public static final class Permit {
+
+		private static final Permit UNLIMITED = new Permit(null, 0L);
+
+		private final HttpStatus rejection;
+
+		private final long retryAfterSeconds;
+
+		private final ConcurrencyLimiter concurrencyLimiter;
+
+		private final Clock clock;
+
+		private final long start;
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Permit(HttpStatus rejection, long retryAfterSeconds) {
+			this.rejection = rejection;
+			this.retryAfterSeconds = retryAfterSeconds;
+			this.concurrencyLimiter = null;
+			this.clock = null;
+			this.start = 0L;
+		}
+
+		private Permit(ConcurrencyLimiter concurrencyLimiter, Clock clock) {
+			this.rejection = null;
+			this.retryAfterSeconds = 0L;
+			this.concurrencyLimiter = concurrencyLimiter;
+			this.clock = clock;
+			this.start = clock.monotonicTime();
+		}
+
+		public boolean isGranted() {
+			return rejection == null;
+		}
+
+		/**
+		 * Status to answer a rejected request with: 429 over the rate limit, 503
+		 * over the concurrency limit.
+		 */
+		public HttpStatus getRejection() {
+			return rejection;
+		}
+
+		public long getRetryAfterSeconds() {
+			return retryAfterSeconds;
+		}
+
+		public void release(int status) {
+			if (concurrencyLimiter != null && released.compareAndSet(false, true)) {
+				concurrencyLimiter.release(clock.monotonicTime() - start,
+						status == HttpStatus.SERVICE_UNAVAILABLE.value());
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,266 @@
+package com.felype.todolist.resource.protobuf;
+
+import java.io.IOException;
+
+import org.springframework.http.MediaType;
+
+import com.felype.todolist.model.ErrorResponse;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.List;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Protobuf encoding of the item payloads, as laid out in
+ * {@code proto/todolist.proto}. Written by hand against the wire format, so the
+ * models are encoded as they are, without generated message classes to copy
+ * them into.
+ * <p>
+ * As with JSON, the version and list ID are not read from request bodies, and
+ * absent fields are left null.
+ */
+public final class ItemProtobuf {
+
+	public static final String MEDIA_TYPE_VALUE = "application/x-protobuf";
+
+	public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+	private static final int ITEM_ID = 1;
+
+	private static final int ITEM_LIST_ID = 2;
+
+	private static final int ITEM_TITLE = 3;
+
+	private static final int ITEM_DESCRIPTION = 4;
+
+	private static final int ITEM_VERSION = 5;
+
+	private static final int LIST_ITEMS = 1;
+
+	private static final int LIST_NEXT_CURSOR = 2;
+
+	private static final int ERROR_STATUS = 1;
+
+	private static final int ERROR_ERROR = 2;
+
+	private static final int ERROR_MESSAGE = 3;
+
+	private ItemProtobuf() {
+	}
+
+	public static boolean supports(Class<?> type) {
+		return type == Item.class || type == List.class || type == ErrorResponse.class;
+	}
+
+	public static byte[] write(Object value) throws IOException {
+		if (value instanceof Item) {
+			return write((Item) value);
+		} else if (value instanceof List) {
+			return write((List) value);
+		} else if (value instanceof ErrorResponse) {
+			return write((ErrorResponse) value);
+		}
+
+		throw new IllegalArgumentException("Not encoded as protobuf: " + value.getClass().getName());
+	}
+
+	public static Object read(Class<?> type, CodedInputStream in) throws IOException {
+		if (type == Item.class) {
+			return readItem(in);
+		} else if (type == List.class) {
+			return readList(in);
+		} else if (type == ErrorResponse.class) {
+			return readError(in);
+		}
+
+		throw new IllegalArgumentException("Not decoded from protobuf: " + type.getName());
+	}
+
+	private static byte[] write(Item item) throws IOException {
+		byte[] bytes = new byte[size(item)];
+		CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+
+		write(out, item);
+		out.checkNoSpaceLeft();
+
+		return bytes;
+	}
+
+	private static byte[] write(List list) throws IOException {
+		java.util.List<Item> items = list.getItems();
+		int[] sizes = new int[items.size()];
+		int size = 0;
+
+		for (int index = 0; index < sizes.length; index++) {
+			sizes[index] = size(items.get(index));
+			size += CodedOutputStream.computeTagSize(LIST_ITEMS) + CodedOutputStream.computeUInt32SizeNoTag(sizes[index])
+					+ sizes[index];
+		}
+
+		if (list.getNextCursor() != null) {
+			size += CodedOutputStream.computeInt64Size(LIST_NEXT_CURSOR, list.getNextCursor());
+		}
+
+		byte[] bytes = new byte[size];
+		CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+
+		for (int index = 0; index < sizes.length; index++) {
+			out.writeTag(LIST_ITEMS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+			out.writeUInt32NoTag(sizes[index]);
+			write(out, items.get(index));
+		}
+
+		if (list.getNextCursor() != null) {
+			out.writeInt64(LIST_NEXT_CURSOR, list.getNextCursor());
+		}
+
+		out.checkNoSpaceLeft();
+
+		return bytes;
+	}
+
+	private static byte[] write(ErrorResponse error) throws IOException {
+		int size = CodedOutputStream.computeInt32Size(ERROR_STATUS, error.getStatus());
+
+		if (error.getError() != null) {
+			size += CodedOutputStream.computeStringSize(ERROR_ERROR, error.getError());
+		}
+
+		if (error.getMessage() != null) {
+			size += CodedOutputStream.computeStringSize(ERROR_MESSAGE, error.getMessage());
+		}
+
+		byte[] bytes = new byte[size];
+		CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+
+		out.writeInt32(ERROR_STATUS, error.getStatus());
+
+		if (error.getError() != null) {
+			out.writeString(ERROR_ERROR, error.getError());
+		}
+
+		if (error.getMessage() != null) {
+			out.writeString(ERROR_MESSAGE, error.getMessage());
+		}
+
+		out.checkNoSpaceLeft();
+
+		return bytes;
+	}
+
+	private static int size(Item item) {
+		int size = 0;
+
+		if (item.getId() != null) {
+			size += CodedOutputStream.computeInt64Size(ITEM_ID, item.getId());
+		}
+
+		if (item.getListId() != null) {
+			size += CodedOutputStream.computeInt64Size(ITEM_LIST_ID, item.getListId());
+		}
+
+		if (item.getTitle() != null) {
+			size += CodedOutputStream.computeStringSize(ITEM_TITLE, item.getTitle());
+		}
+
+		if (item.getDescription() != null) {
+			size += CodedOutputStream.computeStringSize(ITEM_DESCRIPTION, item.getDescription());
+		}
+
+		if (item.getVersion() != null) {
+			size += CodedOutputStream.computeInt64Size(ITEM_VERSION, item.getVersion());
+		}
+
+		return size;
+	}
+
+	private static void write(CodedOutputStream out, Item item) throws IOException {
+		if (item.getId() != null) {
+			out.writeInt64(ITEM_ID, item.getId());
+		}
+
+		if (item.getListId() != null) {
+			out.writeInt64(ITEM_LIST_ID, item.getListId());
+		}
+
+		if (item.getTitle() != null) {
+			out.writeString(ITEM_TITLE, item.getTitle());
+		}
+
+		if (item.getDescription() != null) {
+			out.writeString(ITEM_DESCRIPTION, item.getDescription());
+		}
+
+		if (item.getVersion() != null) {
+			out.writeInt64(ITEM_VERSION, item.getVersion());
+		}
+	}
+
+	private static Item readItem(CodedInputStream in) throws IOException {
+		Item item = new Item();
+
+		for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+			switch (WireFormat.getTagFieldNumber(tag)) {
+				case ITEM_ID:
+					item.setId(in.readInt64());
+					break;
+				case ITEM_TITLE:
+					item.setTitle(in.readString());
+					break;
+				case ITEM_DESCRIPTION:
+					item.setDescription(in.readString());
+					break;
+				default:
+					in.skipField(tag);
+			}
+		}
+
+		return item;
+	}
+
+	private static List readList(CodedInputStream in) throws IOException {
+		List list = new List();
+
+		for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+			switch (WireFormat.getTagFieldNumber(tag)) {
+				case LIST_ITEMS:
+					int limit = in.pushLimit(in.readRawVarint32());
+
+					list.getItems().add(readItem(in));
+					in.popLimit(limit);
+					break;
+				case LIST_NEXT_CURSOR:
+					list.setNextCursor(in.readInt64());
+					break;
+				default:
+					in.skipField(tag);
+			}
+		}
+
+		return list;
+	}
+
+	private static ErrorResponse readError(CodedInputStream in) throws IOException {
+		ErrorResponse error = new ErrorResponse();
+
+		for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+			switch (WireFormat.getTagFieldNumber(tag)) {
+				case ERROR_STATUS:
+					error.setStatus(in.readInt32());
+					break;
+				case ERROR_ERROR:
+					error.setError(in.readString());
+					break;
+				case ERROR_MESSAGE:
+					error.setMessage(in.readString());
+					break;
+				default:
+					in.skipField(tag);
+			}
+		}
+
+		return error;
+	}
+
+}
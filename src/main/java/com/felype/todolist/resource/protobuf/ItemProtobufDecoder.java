@@ -0,0 +1,41 @@
+package com.felype.todolist.resource.protobuf;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDataBufferDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+
+import com.google.protobuf.CodedInputStream;
+
+/**
+ * {@link ItemProtobuf} on the reactive stack. The body is joined into one
+ * buffer, up to the configured in-memory limit, and decoded as one message.
+ */
+public class ItemProtobufDecoder extends AbstractDataBufferDecoder<Object> {
+
+	public ItemProtobufDecoder() {
+		super(ItemProtobuf.MEDIA_TYPE);
+	}
+
+	@Override
+	public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+		return ItemProtobuf.supports(elementType.toClass()) && super.canDecode(elementType, mimeType);
+	}
+
+	@Override
+	public Object decode(DataBuffer buffer, ResolvableType targetType, MimeType mimeType, Map<String, Object> hints) {
+		try {
+			return ItemProtobuf.read(targetType.toClass(), CodedInputStream.newInstance(buffer.asByteBuffer()));
+		} catch (IOException e) {
+			throw new DecodingException("Invalid protobuf body: " + e.getMessage(), e);
+		} finally {
+			DataBufferUtils.release(buffer);
+		}
+	}
+
+}
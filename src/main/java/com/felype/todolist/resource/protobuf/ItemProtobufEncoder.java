@@ -0,0 +1,56 @@
+package com.felype.todolist.resource.protobuf;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.util.MimeType;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link ItemProtobuf} on the reactive stack. Each value is written out whole,
+ * as a single message.
+ */
+public class ItemProtobufEncoder extends AbstractEncoder<Object> {
+
+	public ItemProtobufEncoder() {
+		super(ItemProtobuf.MEDIA_TYPE);
+	}
+
+	/**
+	 * Also claims {@code Object} when no mime type is given, which is how custom
+	 * codecs are sorted: the codec then goes with the object codecs, behind JSON,
+	 * instead of in front of them all. Writing an {@code Object} is never
+	 * accepted.
+	 */
+	@Override
+	public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+		Class<?> type = elementType.toClass();
+
+		return (ItemProtobuf.supports(type) || (type == Object.class && mimeType == null))
+				&& super.canEncode(elementType, mimeType);
+	}
+
+	@Override
+	public Flux<DataBuffer> encode(Publisher<? extends Object> inputStream, DataBufferFactory bufferFactory,
+			ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+		return Flux.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+	}
+
+	@Override
+	public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+			MimeType mimeType, Map<String, Object> hints) {
+		try {
+			return bufferFactory.wrap(ItemProtobuf.write(value));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
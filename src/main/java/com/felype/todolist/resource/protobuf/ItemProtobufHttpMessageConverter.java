@@ -0,0 +1,45 @@
+package com.felype.todolist.resource.protobuf;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+/**
+ * {@link ItemProtobuf} on the servlet stack.
+ */
+public class ItemProtobufHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+	public ItemProtobufHttpMessageConverter() {
+		super(ItemProtobuf.MEDIA_TYPE);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return ItemProtobuf.supports(clazz);
+	}
+
+	@Override
+	protected Object readInternal(Class<? extends Object> clazz, HttpInputMessage inputMessage)
+			throws IOException {
+		try {
+			return ItemProtobuf.read(clazz, CodedInputStream.newInstance(inputMessage.getBody()));
+		} catch (InvalidProtocolBufferException e) {
+			throw new HttpMessageNotReadableException("Invalid protobuf body: " + e.getMessage(), e, inputMessage);
+		}
+	}
+
+	@Override
+	protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+		byte[] bytes = ItemProtobuf.write(value);
+
+		outputMessage.getHeaders().setContentLength(bytes.length);
+		outputMessage.getBody().write(bytes);
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.felype.todolist.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the mutations of any item, bumped once a mutation is applied. Paired
+ * with an epoch picked at startup, so the same count after a restart (or on
+ * another instance) does not look like the same state.
+ */
+@Component
+public class ChangeCounter {
+
+	private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+	private final AtomicLong count = new AtomicLong();
+
+	public long get() {
+		return count.get();
+	}
+
+	public void increment() {
+		count.incrementAndGet();
+	}
+
+	/**
+	 * Identifies the state of the whole item collection as far as this instance
+	 * knows. Read it before loading what it should describe, so it is never newer
+	 * than the data. Writes made by other instances only move it once they are
+	 * seen in the store, see {@link ToDoListService#getChangeTag()}.
+	 */
+	public String getTag() {
+		return epoch + "-" + count.get();
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.felype.todolist.service;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongConsumer;
+
+import org.springframework.stereotype.Component;
+
+import com.felype.todolist.repository.ReactiveItemStore;
+
+/**
+ * Hands out change sequence numbers to writes, resuming after the highest one
+ * stored. Writes commit in any order, so readers only see changes up to the
+ * {@link #getHighWaterMark() high-water mark}: the point below which no write
+ * is still in flight. Otherwise a client could sync past a change that had not
+ * committed yet and never see it.
+ */
+@Component
+public class ChangeSequence {
+
+	private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+	private long next;
+
+	public ChangeSequence(ReactiveItemStore itemStore) {
+		next = itemStore.getHighestChangeSeq().block() + 1;
+	}
+
+	/**
+	 * Reserves {@code count} consecutive numbers, returning the first. The write
+	 * must call {@link #end(long)} or {@link #end(long, LongConsumer)} with it
+	 * once it is committed or failed.
+	 */
+	public synchronized long begin(int count) {
+		long first = next;
+
+		next += Math.max(count, 1);
+		inFlight.add(first);
+
+		return first;
+	}
+
+	public void end(long first) {
+		inFlight.remove(first);
+	}
+
+	/**
+	 * Ends a committed write and passes the new high-water mark to
+	 * {@code committed} before any other write can end, so whatever it publishes
+	 * is ordered the way the high-water mark advances.
+	 */
+	public synchronized void end(long first, LongConsumer committed) {
+		inFlight.remove(first);
+		committed.accept(getHighWaterMark());
+	}
+
+	/**
+	 * Moves past {@code stored}, the highest number found in the store, when it
+	 * was handed out by another instance writing to the same store, so it is not
+	 * handed out again. Returns whether it was.
+	 */
+	public synchronized boolean advance(long stored) {
+		if (stored < next) {
+			return false;
+		}
+
+		next = stored + 1;
+
+		return true;
+	}
+
+	/**
+	 * Highest number handed out so far, committed or not.
+	 */
+	public synchronized long getLastBegun() {
+		return next - 1;
+	}
+
+	public synchronized long getHighWaterMark() {
+		return inFlight.isEmpty() ? next - 1 : inFlight.first() - 1;
+	}
+
+}
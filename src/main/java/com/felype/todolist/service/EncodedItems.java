@@ -0,0 +1,282 @@
+package com.felype.todolist.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.repository.ReactiveItemStore;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * The item list and the items kept encoded as JSON, for the resource to write
+ * out as they are instead of mapping them on every read. Each item is encoded
+ * when loaded and again when it changes. The list is the items put together,
+ * redone on the first read after a change, without encoding anything again.
+ * <p>
+ * Every item is loaded on startup. The load is only kept if no write was
+ * applied meanwhile, since it may hold what such a write replaced; until one is
+ * kept, reads of the list load it again. Writes are applied as they happen,
+ * newest version wins, so writes to the same item applied out of order do not
+ * bring back an older state.
+ */
+@Slf4j
+@Component
+public class EncodedItems {
+
+	/**
+	 * Smaller bodies are sent as they are, gzip barely shrinks them.
+	 */
+	static final int MIN_GZIP_SIZE = 2048;
+
+	private static final byte[] LIST_START = "{\"items\":[".getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[] LIST_END = "]}".getBytes(StandardCharsets.UTF_8);
+
+	private final boolean enabled;
+
+	private final ReactiveItemStore itemStore;
+
+	private final ChangeCounter generation;
+
+	private final ObjectWriter writer;
+
+	/**
+	 * Null until a load is kept. Guarded by this, as is the list.
+	 */
+	private NavigableMap<Long, Body> items;
+
+	private Body list;
+
+	public EncodedItems(ToDoListProperties properties, ReactiveItemStore itemStore, ChangeCounter changeCounter,
+			ObjectMapper objectMapper) {
+		this.enabled = properties.getCache().isEncodedResponses();
+		this.itemStore = itemStore;
+		this.generation = changeCounter;
+		this.writer = objectMapper.writerFor(Item.class);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		if (enabled) {
+			getItems().subscribe(loaded -> log.info("Encoded item list loaded. Bytes: {}", loaded.getJson().length),
+					e -> log.error("Encoded item list could not be loaded.", e));
+		}
+	}
+
+	/**
+	 * The whole item list, in ID order, encoded as a
+	 * {@link com.felype.todolist.model.List}.
+	 */
+	public Mono<Body> getItems() {
+		return Mono.defer(() -> {
+			Body current = currentList();
+
+			if (current != null) {
+				return Mono.just(current);
+			}
+
+			long loadedAt = generation.get();
+
+			return itemStore.findAll()
+					.collect(TreeMap<Long, Body>::new, (loaded, item) -> loaded.put(item.getId(), encode(item)))
+					.map(loaded -> keep(loaded, loadedAt));
+		});
+	}
+
+	/**
+	 * The item, encoded. Until the items are loaded it comes from the loader,
+	 * which completes empty when the item does not exist, and is encoded for
+	 * this read alone.
+	 */
+	public Mono<Body> getItem(Long itemId, Supplier<Mono<Item>> loader) {
+		return Mono.defer(() -> {
+			synchronized (this) {
+				if (items != null) {
+					return Mono.justOrEmpty(items.get(itemId));
+				}
+			}
+
+			return loader.get().map(this::encode);
+		});
+	}
+
+	/**
+	 * To be called once an item is created or updated, after the change counter
+	 * was bumped.
+	 */
+	public void saved(Item item) {
+		if (!enabled) {
+			return;
+		}
+
+		Body encoded = encode(item);
+
+		synchronized (this) {
+			if (items == null) {
+				return;
+			}
+
+			Body current = items.get(item.getId());
+
+			if (current == null || version(current) < version(encoded)) {
+				items.put(item.getId(), encoded);
+				list = null;
+			}
+		}
+	}
+
+	/**
+	 * To be called once an item is deleted, after the change counter was bumped.
+	 */
+	public synchronized void deleted(Long itemId) {
+		if (items != null && items.remove(itemId) != null) {
+			list = null;
+		}
+	}
+
+	/**
+	 * To be called once items were changed by someone else, after the change
+	 * counter was bumped. Everything is loaded again on the next read of the
+	 * list.
+	 */
+	public synchronized void reset() {
+		items = null;
+		list = null;
+	}
+
+	private synchronized Body currentList() {
+		if (items != null && list == null) {
+			list = join(items.values());
+		}
+
+		return list;
+	}
+
+	private synchronized Body keep(NavigableMap<Long, Body> loaded, long loadedAt) {
+		if (items != null) {
+			return currentList();
+		}
+
+		Body joined = join(loaded.values());
+
+		if (generation.get() == loadedAt) {
+			items = loaded;
+			list = joined;
+		}
+
+		return joined;
+	}
+
+	private Body encode(Item item) {
+		try {
+			return new Body(writer.writeValueAsBytes(item), item.getVersion());
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static Body join(Collection<Body> items) {
+		int length = LIST_START.length + LIST_END.length + Math.max(0, items.size() - 1);
+
+		for (Body item : items) {
+			length += item.json.length;
+		}
+
+		byte[] json = new byte[length];
+		int position = LIST_START.length;
+
+		System.arraycopy(LIST_START, 0, json, 0, position);
+
+		for (Body item : items) {
+			if (position > LIST_START.length) {
+				json[position++] = ',';
+			}
+
+			System.arraycopy(item.json, 0, json, position, item.json.length);
+			position += item.json.length;
+		}
+
+		System.arraycopy(LIST_END, 0, json, position, LIST_END.length);
+
+		return new Body(json, null);
+	}
+
+	private static long version(Body body) {
+		return body.version == null ? -1L : body.version;
+	}
+
+	/**
+	 * Encoded JSON body. The arrays are shared by every read, and must not be
+	 * modified.
+	 */
+	public static final class Body {
+
+		private final byte[] json;
+
+		private final Long version;
+
+		private volatile byte[] gzip;
+
+		public Body(byte[] json, Long version) {
+			this.json = json;
+			this.version = version;
+		}
+
+		public byte[] getJson() {
+			return json;
+		}
+
+		/**
+		 * Version of the item, null for the list.
+		 */
+		public Long getVersion() {
+			return version;
+		}
+
+		public boolean isCompressible() {
+			return json.length >= MIN_GZIP_SIZE;
+		}
+
+		/**
+		 * The JSON gzipped, compressed on the first call. Concurrent first calls may
+		 * both compress it, to the same result.
+		 */
+		public byte[] getGzip() {
+			byte[] compressed = gzip;
+
+			if (compressed == null) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 32);
+
+				try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+					zip.write(json);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+
+				compressed = out.toByteArray();
+				gzip = compressed;
+			}
+
+			return compressed;
+		}
+
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.felype.todolist.service;
+
+/**
+ * Spreads lists evenly over the shards by a hash of their ID. The ID is mixed
+ * first, so lists created in a pattern, every other one by some client for
+ * instance, do not end up on the same shard.
+ */
+public class HashShardRouter implements ShardRouter {
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	@Override
+	public int route(long listId, int shardCount) {
+		return Math.floorMod(mix(listId), shardCount);
+	}
+
+	/**
+	 * Final step of SplitMix64.
+	 */
+	private static int mix(long value) {
+		long z = value * GOLDEN_GAMMA;
+
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+		return (int) (z ^ (z >>> 31));
+	}
+
+}
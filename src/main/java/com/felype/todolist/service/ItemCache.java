@@ -0,0 +1,137 @@
+package com.felype.todolist.service;
+
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.List;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-through cache in front of the repository for single items and for the
+ * full item list. Created items are written through, updated and deleted ones
+ * are invalidated, and any mutation drops the list snapshot.
+ */
+@Component
+public class ItemCache {
+
+	private static final String ALL_ITEMS = "all";
+
+	private final boolean enabled;
+
+	private final Cache<Long, Item> items;
+
+	private final Cache<String, List> lists;
+
+	/**
+	 * Bumped on every mutation, so a load that raced with a write is not kept.
+	 */
+	private final ChangeCounter generation;
+
+	public ItemCache(ToDoListProperties properties, ChangeCounter changeCounter, MeterRegistry meterRegistry) {
+		ToDoListProperties.Cache cache = properties.getCache();
+
+		enabled = cache.isEnabled();
+		generation = changeCounter;
+		items = Caffeine.newBuilder()
+				.maximumSize(cache.getMaximumSize())
+				.expireAfterWrite(cache.getTtl())
+				.recordStats()
+				.build();
+		lists = Caffeine.newBuilder()
+				.maximumSize(1)
+				.expireAfterWrite(cache.getTtl())
+				.recordStats()
+				.build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, items, "items");
+		CaffeineCacheMetrics.monitor(meterRegistry, lists, "item_list");
+	}
+
+	/**
+	 * The loader completes empty when the item does not exist.
+	 */
+	public Mono<Item> getItem(Long itemId, Supplier<Mono<Item>> loader) {
+		if (!enabled) {
+			return Mono.defer(loader);
+		}
+
+		return Mono.defer(() -> {
+			Item cached = items.getIfPresent(itemId);
+
+			if (cached != null) {
+				return Mono.just(cached);
+			}
+
+			long loadedAt = generation.get();
+
+			return loader.get().doOnNext(item -> store(items, itemId, item, loadedAt));
+		});
+	}
+
+	public Mono<List> getItems(Supplier<Mono<List>> loader) {
+		if (!enabled) {
+			return Mono.defer(loader);
+		}
+
+		return Mono.defer(() -> {
+			List cached = lists.getIfPresent(ALL_ITEMS);
+
+			if (cached != null) {
+				return Mono.just(cached);
+			}
+
+			long loadedAt = generation.get();
+
+			return loader.get().doOnNext(loaded -> store(lists, ALL_ITEMS, loaded, loadedAt));
+		});
+	}
+
+	/**
+	 * To be called once a new item is stored.
+	 */
+	public void created(Item item) {
+		generation.increment();
+		lists.invalidateAll();
+
+		if (enabled) {
+			items.put(item.getId(), item);
+		}
+	}
+
+	/**
+	 * To be called once an item is updated or deleted.
+	 */
+	public void evict(Long itemId) {
+		generation.increment();
+		lists.invalidateAll();
+		items.invalidate(itemId);
+	}
+
+	/**
+	 * To be called once items were changed by someone else, with no telling
+	 * which.
+	 */
+	public void evictAll() {
+		generation.increment();
+		lists.invalidateAll();
+		items.invalidateAll();
+	}
+
+	private <K, V> void store(Cache<K, V> cache, K key, V value, long loadedAt) {
+		cache.put(key, value);
+
+		// A write landed while loading, what was just loaded may already be stale.
+		if (generation.get() != loadedAt) {
+			cache.invalidate(key);
+		}
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.felype.todolist.service;
+
+import java.util.ArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.felype.todolist.exception.InvalidRequestException;
+import com.felype.todolist.model.Item;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Items as CSV, laid out as RFC 4180 does: a header naming the columns, then
+ * one record per item. Fields holding a comma, a quote or a line break are
+ * quoted, with their quotes doubled, so a record may run over several lines.
+ * <p>
+ * Records are read by the header, in any column order. As with JSON only the
+ * title and description are read; the other columns are written for the
+ * record, and skipped on the way back.
+ */
+final class ItemCsv {
+
+	static final String HEADER = "id,list_id,title,description,version\r\n";
+
+	private static final String TITLE = "title";
+
+	private static final String DESCRIPTION = "description";
+
+	private ItemCsv() {
+	}
+
+	static void write(StringBuilder out, Item item) {
+		field(out, item.getId()).append(',');
+		field(out, item.getListId()).append(',');
+		field(out, item.getTitle()).append(',');
+		field(out, item.getDescription()).append(',');
+		field(out, item.getVersion()).append("\r\n");
+	}
+
+	/**
+	 * Puts back together the records that ran over several lines, and drops
+	 * blank lines between records. Line breaks inside fields come back as
+	 * {@code \n}.
+	 */
+	static Flux<String> records(Flux<String> lines) {
+		return Flux.defer(() -> lines.bufferUntil(new RecordEnd()))
+				.map(recordLines -> String.join("\n", recordLines))
+				.filter(record -> !record.isEmpty());
+	}
+
+	/**
+	 * Reader of the records under the given header.
+	 *
+	 * @throws InvalidRequestException when the header has no title column
+	 */
+	static Function<String, Item> reader(String header) {
+		java.util.List<String> columns = split(header);
+		int title = columns.indexOf(TITLE);
+		int description = columns.indexOf(DESCRIPTION);
+
+		if (title < 0) {
+			throw new InvalidRequestException("CSV header must name a title column.");
+		}
+
+		return record -> {
+			java.util.List<String> fields = split(record);
+
+			if (fields.size() != columns.size()) {
+				throw new IllegalArgumentException(
+						String.format("Record has %d fields, the header %d.", fields.size(), columns.size()));
+			}
+
+			return Item.builder().title(fields.get(title)).description(description < 0 ? null
+					: emptyToNull(fields.get(description))).build();
+		};
+	}
+
+	static java.util.List<String> split(String record) {
+		java.util.List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+
+		for (int i = 0; i < record.length(); i++) {
+			char c = record.charAt(i);
+
+			if (quoted) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c != '\r') {
+				field.append(c);
+			}
+		}
+
+		if (quoted) {
+			throw new IllegalArgumentException("Record ends inside a quoted field.");
+		}
+
+		fields.add(field.toString());
+
+		return fields;
+	}
+
+	private static StringBuilder field(StringBuilder out, Object value) {
+		if (value == null) {
+			return out;
+		}
+
+		String text = value.toString();
+
+		if (text.chars().noneMatch(c -> c == ',' || c == '"' || c == '\r' || c == '\n')) {
+			return out.append(text);
+		}
+
+		return out.append('"').append(text.replace("\"", "\"\"")).append('"');
+	}
+
+	private static String emptyToNull(String field) {
+		return field.isEmpty() ? null : field;
+	}
+
+	/**
+	 * Whether a line ends the record it belongs to: it does unless a quote is
+	 * left open, counting from the record's first line.
+	 */
+	private static final class RecordEnd implements Predicate<String> {
+
+		private boolean quoted;
+
+		@Override
+		public boolean test(String line) {
+			for (int i = 0; i < line.length(); i++) {
+				if (line.charAt(i) == '"') {
+					quoted = !quoted;
+				}
+			}
+
+			return !quoted;
+		}
+
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.felype.todolist.service;
+
+import org.springframework.stereotype.Component;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.model.ItemEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Fans item changes out to the stream subscribers. Publishing only offers the
+ * event to the bounded buffer of each subscriber; the buffers drain on the
+ * parallel scheduler as fast as each connection takes them, so a slow client
+ * only loses its own events and no thread is tied to a connection.
+ */
+@Component
+public class ItemEvents {
+
+	private final DirectProcessor<ItemEvent> processor = DirectProcessor.create();
+
+	private final FluxSink<ItemEvent> sink = processor.sink();
+
+	private final ToDoListProperties.Events properties;
+
+	private final Counter dropped;
+
+	public ItemEvents(ToDoListProperties properties, MeterRegistry meterRegistry) {
+		this.properties = properties.getEvents();
+		this.dropped = Counter.builder("todolist.events.dropped")
+				.description("Events dropped because a stream subscriber was not keeping up")
+				.register(meterRegistry);
+
+		Gauge.builder("todolist.events.subscribers", processor, DirectProcessor::downstreamCount)
+				.description("Clients following the item stream")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Events published from the time of subscription on.
+	 */
+	public Flux<ItemEvent> subscribe() {
+		int bufferSize = properties.getBufferSize();
+		Flux<ItemEvent> buffered;
+
+		switch (properties.getOverflow()) {
+		case DISCONNECT:
+			// Completes rather than fails: the client reconnects and resumes.
+			buffered = processor.onBackpressureBuffer(bufferSize, event -> dropped.increment())
+					.onErrorResume(Exceptions::isOverflow, e -> Flux.empty());
+			break;
+		case DROP_LATEST:
+			buffered = processor.onBackpressureBuffer(bufferSize, event -> dropped.increment(),
+					BufferOverflowStrategy.DROP_LATEST);
+			break;
+		default:
+			buffered = processor.onBackpressureBuffer(bufferSize, event -> dropped.increment(),
+					BufferOverflowStrategy.DROP_OLDEST);
+		}
+
+		return buffered.publishOn(Schedulers.parallel(), Queues.XS_BUFFER_SIZE);
+	}
+
+	/**
+	 * Called by one write at a time, in the order the high-water mark advances.
+	 * Only the last event of a write carries the new resume point, since the
+	 * point covers the whole write.
+	 */
+	void publish(java.util.List<ItemEvent> events, long eventId) {
+		if (events.isEmpty()) {
+			return;
+		}
+
+		events.get(events.size() - 1).setEventId(eventId);
+		events.forEach(sink::next);
+	}
+
+}
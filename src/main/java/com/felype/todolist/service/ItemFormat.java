@@ -0,0 +1,19 @@
+package com.felype.todolist.service;
+
+/**
+ * Formats items are exported and imported in, one record per item.
+ */
+public enum ItemFormat {
+
+	/**
+	 * One item per line, as JSON written the way the item endpoints write it.
+	 */
+	NDJSON,
+
+	/**
+	 * Comma separated values under a header naming the columns, see
+	 * {@link ItemCsv}.
+	 */
+	CSV
+
+}
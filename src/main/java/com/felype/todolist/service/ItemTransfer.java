@@ -0,0 +1,238 @@
+package com.felype.todolist.service;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.function.Function;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.exception.BackendServiceException;
+import com.felype.todolist.exception.InvalidRequestException;
+import com.felype.todolist.model.BatchItemResult;
+import com.felype.todolist.model.ImportProgress;
+import com.felype.todolist.model.Item;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Bulk export and import of the items, streamed both ways so neither holds
+ * more than a few batches in memory, whatever the size of the file.
+ */
+@Slf4j
+@Service
+public class ItemTransfer {
+
+	private final ToDoListService toDoListService;
+
+	private final ServiceMetrics serviceMetrics;
+
+	private final int exportBatchSize;
+
+	private final int importBatchSize;
+
+	private final ObjectWriter writer;
+
+	private final ObjectReader reader;
+
+	public ItemTransfer(ToDoListService toDoListService, ToDoListProperties properties, ServiceMetrics serviceMetrics,
+			ObjectMapper objectMapper) {
+		this.toDoListService = toDoListService;
+		this.serviceMetrics = serviceMetrics;
+		this.exportBatchSize = properties.getPagination().getStreamBatchSize();
+		this.importBatchSize = properties.getTransfer().getImportBatchSize();
+		this.writer = objectMapper.writerFor(Item.class);
+		this.reader = objectMapper.readerFor(Item.class);
+	}
+
+	/**
+	 * Every item in ID order, read from the store a batch at a time as the
+	 * client takes them. Each chunk holds the records of a batch, whole lines
+	 * only, the CSV header coming first.
+	 */
+	public Flux<String> exportItems(ItemFormat format) {
+		Flux<String> chunks = toDoListService.streamItems()
+				.buffer(exportBatchSize)
+				.map(batch -> write(format, batch));
+
+		return (format == ItemFormat.CSV ? chunks.startWith(ItemCsv.HEADER) : chunks)
+				.transform(serviceMetrics.timedStream("exportItems"));
+	}
+
+	/**
+	 * Creates an item for each record of the file, as creating them one by one
+	 * would, skipping the first {@code skip} records. Records are read as they
+	 * arrive, a batch at a time: batches are read and validated in parallel on
+	 * the parallel scheduler, and written in order, each in its own transaction.
+	 * Invalid records are reported and leave the others be.
+	 * <p>
+	 * Progress is emitted after each batch commits. The import ends with a last
+	 * progress marked done, or carrying the error that stopped it; the batches
+	 * committed until then stay, and are skipped on the way back.
+	 */
+	public Flux<ImportProgress> importItems(Flux<String> lines, ItemFormat format, long skip) {
+		return Flux.defer(() -> {
+			if (skip < 0) {
+				throw new InvalidRequestException("Skip must not be negative.");
+			}
+
+			Progress progress = new Progress(skip);
+
+			return batches(lines, format, skip)
+					.flatMapSequential(batch -> Mono.fromCallable(() -> read(batch)).subscribeOn(Schedulers.parallel()),
+							Schedulers.DEFAULT_POOL_SIZE, 1)
+					.concatMap(batch -> toDoListService.createItems(batch.accepted).map(saved -> progress.add(batch)), 1)
+					.onErrorMap(ToDoListService.handleErrors())
+					.concatWith(Mono.fromCallable(() -> {
+						log.info("Items imported. Count: {}, rejected: {}", progress.imported, progress.rejected);
+
+						return progress.done();
+					}))
+					.onErrorResume(e -> {
+						log.warn("Import stopped. Committed: {}", progress.committed, e);
+
+						return Mono.just(progress.failed(e));
+					});
+		}).onErrorMap(ToDoListService.handleErrors())
+				.transform(serviceMetrics.timedStream("importItems"));
+	}
+
+	private Flux<Batch> batches(Flux<String> lines, ItemFormat format, long skip) {
+		if (format == ItemFormat.NDJSON) {
+			return batches(lines.filter(line -> !line.trim().isEmpty()), this::readJson, skip);
+		}
+
+		return ItemCsv.records(lines).switchOnFirst((header, records) -> header.hasValue()
+				? batches(records.skip(1), ItemCsv.reader(header.get()), skip)
+				: records.thenMany(Flux.empty()));
+	}
+
+	private Flux<Batch> batches(Flux<String> records, Function<String, Item> reader, long skip) {
+		return records.skip(skip)
+				.buffer(importBatchSize)
+				.index((index, batch) -> new Batch(skip + index * importBatchSize, batch, reader));
+	}
+
+	private Batch read(Batch batch) {
+		for (int i = 0; i < batch.records.size(); i++) {
+			long index = batch.first + i;
+			String error;
+
+			try {
+				Item item = batch.reader.apply(batch.records.get(i)).setId(null);
+
+				error = toDoListService.validate(item);
+
+				if (error == null) {
+					batch.accepted.add(item);
+				}
+			} catch (RuntimeException e) {
+				error = "Record could not be read: " + e.getMessage();
+			}
+
+			if (error != null) {
+				batch.rejected.add(BatchItemResult.builder().index((int) index)
+						.status(HttpStatus.BAD_REQUEST.value()).error(error).build());
+			}
+		}
+
+		return batch;
+	}
+
+	private Item readJson(String line) {
+		try {
+			return reader.readValue(line);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException(e.getOriginalMessage(), e);
+		}
+	}
+
+	private String write(ItemFormat format, java.util.List<Item> items) {
+		StringBuilder out = new StringBuilder(items.size() * 128);
+
+		for (Item item : items) {
+			if (format == ItemFormat.CSV) {
+				ItemCsv.write(out, item);
+			} else {
+				try {
+					out.append(writer.writeValueAsString(item)).append('\n');
+				} catch (JsonProcessingException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+
+		return out.toString();
+	}
+
+	/**
+	 * Records of the file from position {@code first} on, read into the items to
+	 * create and the records rejected.
+	 */
+	private static final class Batch {
+
+		private final long first;
+
+		private final java.util.List<String> records;
+
+		private final Function<String, Item> reader;
+
+		private final java.util.List<Item> accepted = new ArrayList<>();
+
+		private final java.util.List<BatchItemResult> rejected = new ArrayList<>();
+
+		private Batch(long first, java.util.List<String> records, Function<String, Item> reader) {
+			this.first = first;
+			this.records = records;
+			this.reader = reader;
+		}
+
+	}
+
+	/**
+	 * Counts of an import, only updated as batches commit, one after the other.
+	 */
+	private static final class Progress {
+
+		private long committed;
+
+		private long imported;
+
+		private long rejected;
+
+		private Progress(long skip) {
+			this.committed = skip;
+		}
+
+		private ImportProgress add(Batch batch) {
+			committed += batch.records.size();
+			imported += batch.accepted.size();
+			rejected += batch.rejected.size();
+
+			return snapshot().errors(batch.rejected.isEmpty() ? null : batch.rejected).build();
+		}
+
+		private ImportProgress done() {
+			return snapshot().done(true).build();
+		}
+
+		private ImportProgress failed(Throwable e) {
+			// Don't expose implementation details, as for any other failed request.
+			return snapshot().error(e instanceof BackendServiceException ? "Import failed." : e.getMessage()).build();
+		}
+
+		private ImportProgress.ImportProgressBuilder snapshot() {
+			return ImportProgress.builder().committed(committed).imported(imported).rejected(rejected);
+		}
+
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.felype.todolist.service;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.exception.InvalidRequestException;
+import com.felype.todolist.exception.ItemNotFoundException;
+import com.felype.todolist.exception.NotFoundException;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.List;
+import com.felype.todolist.repository.ItemQuery;
+import com.felype.todolist.repository.ItemShards;
+import com.felype.todolist.repository.ReactiveItemStore;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Items of separate lists, each list kept whole on the shard the router puts it
+ * on, so lists on different shards never contend for the same database. Item
+ * IDs are only unique within a shard, an item is always addressed through its
+ * list.
+ * <p>
+ * Lists need no creating: a list is there as soon as an item is added to it.
+ * The items of a list stay out of the change feed, the search index and the
+ * caches of {@link ToDoListService}, which cover the items of no list. Lists
+ * are only there with sharding enabled.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ListService {
+
+	private final Optional<ItemShards> itemShards;
+
+	private final ShardRouter shardRouter;
+
+	private final ToDoListProperties properties;
+
+	private final ServiceMetrics serviceMetrics;
+
+	/**
+	 * Keyset pagination over the IDs of the items of the list, as
+	 * {@link ToDoListService#getItems(Long, Integer)} does.
+	 */
+	public Mono<List> getItems(long listId, Long after, Integer limit) {
+		ToDoListProperties.Pagination pagination = properties.getPagination();
+		int pageSize = limit == null ? pagination.getDefaultLimit() : limit;
+
+		return Mono.defer(() -> {
+			if (pageSize < 1 || pageSize > pagination.getMaxLimit()) {
+				throw new InvalidRequestException(
+						String.format("Limit must be between 1 and %d.", pagination.getMaxLimit()));
+			}
+
+			ItemQuery query = ItemQuery.builder().listId(listId).after(after).limit(pageSize + 1).build();
+
+			// The store only loads the ID besides the fields of the query.
+			return shard(listId).findItems(query).map(item -> item.setListId(listId)).collectList()
+					.map(items -> ToDoListService.keysetPage(items, pageSize));
+		}).onErrorMap(ToDoListService.handleErrors())
+				.transform(serviceMetrics.timed("getListItems"));
+	}
+
+	public Mono<Item> getItem(long listId, long itemId) {
+		return Mono.defer(() -> owned(shard(listId), listId, itemId))
+				.onErrorMap(ToDoListService.handleErrors())
+				.transform(serviceMetrics.timed("getListItem"));
+	}
+
+	/**
+	 * The item is always created under a new ID: the one it was sent with could
+	 * be that of an item of another list on the same shard.
+	 */
+	public Mono<Item> addItem(long listId, Item item) {
+		return Mono.defer(() -> shard(listId).save(item.setId(null).setListId(listId)))
+				.doOnNext(savedItem -> log.info("List item added. List: {}, ID: {}", listId, savedItem.getId()))
+				.onErrorMap(ToDoListService.handleErrors())
+				.transform(serviceMetrics.timed("addListItem"));
+	}
+
+	/**
+	 * Only updates an item of the list. As with {@link ToDoListService}, an item
+	 * carrying a version is only saved if it is still at that version.
+	 */
+	public Mono<Item> updateItem(long listId, Item item) {
+		return Mono.defer(() -> shard(listId).inTransaction(store -> owned(store, listId, item.getId())
+				.then(store.save(item.setListId(listId)))))
+				.doOnNext(savedItem -> log.info("List item saved. List: {}, ID: {}", listId, savedItem.getId()))
+				.onErrorMap(ToDoListService.handleErrors())
+				.transform(serviceMetrics.timed("updateListItem"));
+	}
+
+	/**
+	 * Deletes an item of the list. Items of lists carry no change sequence, so
+	 * no tombstone is left.
+	 */
+	public Mono<Void> deleteItem(long listId, long itemId) {
+		return Mono.defer(() -> shard(listId).inTransaction(store -> owned(store, listId, itemId)
+				.flatMap(item -> store.deleteAll(Collections.singletonList(item)))))
+				.doOnSuccess(deleted -> log.info("List item deleted. List: {}, ID: {}", listId, itemId))
+				.onErrorMap(ToDoListService.handleErrors())
+				.transform(serviceMetrics.timed("deleteListItem"));
+	}
+
+	private ReactiveItemStore shard(long listId) {
+		ItemShards shards = itemShards
+				.orElseThrow(() -> new NotFoundException("Lists are not enabled."));
+
+		return shards.get(shardRouter.route(listId, shards.size()));
+	}
+
+	private static Mono<Item> owned(ReactiveItemStore store, long listId, Long itemId) {
+		Mono<Item> notFound = Mono.defer(() -> Mono.error(new ItemNotFoundException(listId, itemId)));
+
+		if (itemId == null) {
+			return notFound;
+		}
+
+		return store.findById(itemId)
+				.filter(item -> Long.valueOf(listId).equals(item.getListId()))
+				.switchIfEmpty(notFound);
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.felype.todolist.service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.felype.todolist.config.ToDoListProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Single-flight reads: concurrent reads of the same key share one store call,
+ * and its result or error goes to every one of them. A flight ends as soon as
+ * the call does, nothing is kept beyond it.
+ * <p>
+ * A read only joins a flight started since the last mutation. A flight started
+ * before a write was applied may have read what the write replaced, and a read
+ * issued after the write must not see that.
+ * <p>
+ * The coalescing ratio is the {@code joined} count of
+ * {@value #COUNTER_NAME} over the total of both roles.
+ */
+@Component
+public class ReadCoalescer {
+
+	static final String COUNTER_NAME = "todolist.reads.coalescing";
+
+	private final boolean enabled;
+
+	private final ChangeCounter generation;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Map<Object, Flight<?>> flights = new ConcurrentHashMap<>();
+
+	private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+	public ReadCoalescer(ToDoListProperties properties, ChangeCounter changeCounter, MeterRegistry meterRegistry) {
+		this.enabled = properties.getCoalescing().isEnabled();
+		this.generation = changeCounter;
+		this.meterRegistry = meterRegistry;
+
+		Gauge.builder(COUNTER_NAME + ".in_flight", flights, Map::size)
+				.description("Store calls currently shared by coalesced reads")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Loads {@code key} for {@code read}, or joins the load of it already in
+	 * flight. Loads of the same read and key must return the same type.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Mono<T> coalesce(String read, Object key, Supplier<Mono<T>> loader) {
+		if (!enabled) {
+			return Mono.defer(loader);
+		}
+
+		Counter[] roles = counters(read);
+		Object flightKey = Arrays.asList(read, key);
+
+		return Mono.defer(() -> {
+			long current = generation.get();
+			Flight<T> started = new Flight<>(current);
+
+			// Removed before its subscribers get the result, so no read can join a
+			// flight that is over.
+			started.result = Mono.defer(loader).doOnTerminate(() -> flights.remove(flightKey, started)).cache();
+
+			Flight<T> flight = (Flight<T>) flights.compute(flightKey,
+					(k, existing) -> existing != null && existing.generation == current ? existing : started);
+
+			roles[flight == started ? 0 : 1].increment();
+
+			return flight.result;
+		});
+	}
+
+	private Counter[] counters(String read) {
+		return counters.computeIfAbsent(read, key -> new Counter[] {
+				counter(read, "leader"),
+				counter(read, "joined") });
+	}
+
+	private Counter counter(String read, String role) {
+		return Counter.builder(COUNTER_NAME)
+				.description("Reads that started a store call, or joined one in flight")
+				.tag("read", read)
+				.tag("role", role)
+				.register(meterRegistry);
+	}
+
+	private static final class Flight<T> {
+
+		private final long generation;
+
+		private Mono<T> result;
+
+		private Flight(long generation) {
+			this.generation = generation;
+		}
+
+	}
+
+}
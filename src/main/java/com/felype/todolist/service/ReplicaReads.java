@@ -0,0 +1,136 @@
+package com.felype.todolist.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.repository.routing.ReplicaRoute;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Decides which reads may go to a replica, which lags behind the primary. The
+ * reads of a client stay on the primary for a window after it writes, so it
+ * reads its own writes. Reads whose result is shared between clients, kept in
+ * a cache or handed to concurrent reads, stay there for the window after any
+ * write, so nothing older than the primary is shared. Past the window the
+ * replicas are taken to have caught up.
+ * <p>
+ * The resource filters report the writes of each client, and tell who the
+ * client of a read is: in the subscriber context on the reactive stack, on the
+ * request thread on the servlet stack, where the service is called from it.
+ * Reads with no client stay on the primary. Writes are only known to this
+ * instance.
+ */
+@Component
+public class ReplicaReads {
+
+	private static final String CLIENT_KEY = ReplicaReads.class.getName() + ".client";
+
+	private static final ThreadLocal<String> CLIENT = new ThreadLocal<>();
+
+	private final boolean enabled;
+
+	private final long window;
+
+	/**
+	 * Clients that wrote within the window. Only they are kept, so no bound is
+	 * needed beyond the window.
+	 */
+	private final Cache<String, Boolean> writers;
+
+	private final AtomicLong lastWrite;
+
+	public ReplicaReads(ToDoListProperties properties) {
+		ToDoListProperties.Replicas replicas = properties.getReplicas();
+
+		enabled = replicas.isEnabled();
+		window = replicas.getReadYourWritesWindow().toNanos();
+		writers = Caffeine.newBuilder().expireAfterWrite(replicas.getReadYourWritesWindow()).build();
+		lastWrite = new AtomicLong(System.nanoTime() - window);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * To be called when a client starts a write, and again once it is over, as
+	 * the write may only commit at the end.
+	 */
+	public void written(String client) {
+		writers.put(client, Boolean.TRUE);
+		lastWrite.set(System.nanoTime());
+	}
+
+	/**
+	 * Names the client of what the service is called for on this thread, until
+	 * cleared with null.
+	 */
+	public static void setClient(String client) {
+		if (client == null) {
+			CLIENT.remove();
+		} else {
+			CLIENT.set(client);
+		}
+	}
+
+	public static Context withClient(Context context, String client) {
+		return context.put(CLIENT_KEY, client);
+	}
+
+	/**
+	 * For reads whose result only goes to their client. To be applied with
+	 * {@link Mono#transform} where the service is called.
+	 */
+	public <T> Function<Mono<T>, Mono<T>> forClient() {
+		if (!enabled) {
+			return Function.identity();
+		}
+
+		String called = CLIENT.get();
+
+		return mono -> mono.subscriberContext(context -> route(context, called));
+	}
+
+	/**
+	 * Same as {@link #forClient()}, for a stream.
+	 */
+	public <T> Function<Flux<T>, Flux<T>> streamForClient() {
+		if (!enabled) {
+			return Function.identity();
+		}
+
+		String called = CLIENT.get();
+
+		return flux -> flux.subscriberContext(context -> route(context, called));
+	}
+
+	/**
+	 * For reads whose result may go to other clients as well.
+	 */
+	public <T> Function<Mono<T>, Mono<T>> shared() {
+		if (!enabled) {
+			return Function.identity();
+		}
+
+		return mono -> mono.subscriberContext(context -> ReplicaRoute.with(context, isSettled()));
+	}
+
+	private Context route(Context context, String called) {
+		String client = context.getOrDefault(CLIENT_KEY, called);
+
+		return ReplicaRoute.with(context, client != null && writers.getIfPresent(client) == null);
+	}
+
+	private boolean isSettled() {
+		return System.nanoTime() - lastWrite.get() > window;
+	}
+
+}
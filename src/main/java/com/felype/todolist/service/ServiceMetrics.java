@@ -0,0 +1,120 @@
+package com.felype.todolist.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.felype.todolist.exception.ChangesExpiredException;
+import com.felype.todolist.exception.InvalidRequestException;
+import com.felype.todolist.exception.ItemNotFoundException;
+import com.felype.todolist.exception.NotFoundException;
+import com.felype.todolist.exception.PreconditionFailedException;
+import com.felype.todolist.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times the service operations from subscription to completion, tagged by
+ * operation and outcome. The timers of an operation are resolved once, so
+ * recording a call is a clock read and a histogram update.
+ */
+@Component
+public class ServiceMetrics {
+
+	static final String TIMER_NAME = "todolist.service";
+
+	enum Outcome {
+
+		SUCCESS, NOT_FOUND, INVALID_REQUEST, PRECONDITION_FAILED, EXPIRED, UNAVAILABLE, BACKEND_ERROR;
+
+		static Outcome of(Throwable throwable) {
+			if (throwable instanceof ItemNotFoundException || throwable instanceof NotFoundException) {
+				return NOT_FOUND;
+			} else if (throwable instanceof InvalidRequestException) {
+				return INVALID_REQUEST;
+			} else if (throwable instanceof PreconditionFailedException) {
+				return PRECONDITION_FAILED;
+			} else if (throwable instanceof ChangesExpiredException) {
+				return EXPIRED;
+			} else if (throwable instanceof ServiceUnavailableException) {
+				return UNAVAILABLE;
+			} else {
+				return BACKEND_ERROR;
+			}
+		}
+
+		String tag() {
+			return name().toLowerCase();
+		}
+
+	}
+
+	private final MeterRegistry meterRegistry;
+
+	private final Clock clock;
+
+	private final Map<String, Map<Outcome, Timer>> timers = new ConcurrentHashMap<>();
+
+	public ServiceMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		this.clock = meterRegistry.config().clock();
+	}
+
+	/**
+	 * To be applied with {@link Mono#transform}, after the errors are mapped.
+	 */
+	public <T> Function<Mono<T>, Mono<T>> timed(String operation) {
+		Map<Outcome, Timer> outcomes = timers(operation);
+
+		return mono -> Mono.defer(() -> {
+			long start = clock.monotonicTime();
+
+			return mono.doOnSuccess(value -> record(outcomes, Outcome.SUCCESS, start))
+					.doOnError(throwable -> record(outcomes, Outcome.of(throwable), start));
+		});
+	}
+
+	/**
+	 * To be applied with {@link Flux#transform}, after the errors are mapped.
+	 */
+	public <T> Function<Flux<T>, Flux<T>> timedStream(String operation) {
+		Map<Outcome, Timer> outcomes = timers(operation);
+
+		return flux -> Flux.defer(() -> {
+			long start = clock.monotonicTime();
+
+			return flux.doOnComplete(() -> record(outcomes, Outcome.SUCCESS, start))
+					.doOnError(throwable -> record(outcomes, Outcome.of(throwable), start));
+		});
+	}
+
+	private void record(Map<Outcome, Timer> outcomes, Outcome outcome, long start) {
+		outcomes.get(outcome).record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	private Map<Outcome, Timer> timers(String operation) {
+		return timers.computeIfAbsent(operation, key -> {
+			Map<Outcome, Timer> outcomes = new EnumMap<>(Outcome.class);
+
+			for (Outcome outcome : Outcome.values()) {
+				outcomes.put(outcome, Timer.builder(TIMER_NAME)
+						.description("Service operations, from subscription to completion")
+						.tag("operation", operation)
+						.tag("outcome", outcome.tag())
+						.publishPercentileHistogram()
+						.register(meterRegistry));
+			}
+
+			return outcomes;
+		});
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.felype.todolist.service;
+
+/**
+ * Decides which shard holds a list. All the items of a list are on the shard
+ * it is routed to, so the route of a list must never change while the shards
+ * stay the same. The default spreads lists by hash, see
+ * {@link HashShardRouter}; declaring another bean replaces it.
+ */
+public interface ShardRouter {
+
+	/**
+	 * Index of the shard holding the list, from 0 to {@code shardCount - 1}.
+	 */
+	int route(long listId, int shardCount);
+
+}
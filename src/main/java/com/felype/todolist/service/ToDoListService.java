@@ -1,19 +1,52 @@
 package com.felype.todolist.service;
 
 import java.util.ArrayList;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.felype.todolist.config.ToDoListProperties;
 import com.felype.todolist.exception.BackendServiceException;
+import com.felype.todolist.exception.ChangesExpiredException;
+import com.felype.todolist.exception.InvalidRequestException;
 import com.felype.todolist.exception.ItemNotFoundException;
+import com.felype.todolist.exception.NotFoundException;
+import com.felype.todolist.exception.PreconditionFailedException;
+import com.felype.todolist.exception.ServiceUnavailableException;
+import com.felype.todolist.model.BatchItemResult;
+import com.felype.todolist.model.BatchResult;
 import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemChanges;
+import com.felype.todolist.model.ItemEvent;
+import com.felype.todolist.model.ItemTombstone;
 import com.felype.todolist.model.List;
-import com.felype.todolist.repository.ItemRepository;
+import com.felype.todolist.repository.ItemQuery;
+import com.felype.todolist.repository.ReactiveItemStore;
+import com.felype.todolist.service.search.SearchIndex;
+import com.felype.todolist.service.search.SearchQuery;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Slf4j
@@ -21,61 +54,705 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 public class ToDoListService {
 
-	private final ItemRepository itemRepository;
+	private static final long FIRST_CURSOR = 0L;
 
-	public Mono<Item> addItem(Item item) {
-		return Mono.fromCallable(() -> {
-			Item savedItem = itemRepository.save(item);
+	private static final String ALL_ITEMS = "all";
 
-			log.info("Item added. ID: {}", savedItem.getId());
+	private final ReactiveItemStore itemStore;
 
-			return savedItem;
-		}).onErrorMap(handleErrors());
+	private final ToDoListProperties properties;
+
+	private final Validator validator;
+
+	private final ItemCache itemCache;
+
+	private final ServiceMetrics serviceMetrics;
+
+	private final ChangeCounter changeCounter;
+
+	private final ChangeSequence changeSequence;
+
+	private final ItemEvents itemEvents;
+
+	private final SearchIndex searchIndex;
+
+	private final ReadCoalescer readCoalescer;
+
+	private final EncodedItems encodedItems;
+
+	private final ReplicaReads replicaReads;
+
+	/**
+	 * Changes whenever any item is created, updated or deleted, here or by
+	 * another instance writing to the same store. Read before the items it should
+	 * describe are loaded, from where they are loaded. Made of the highest change
+	 * sequence number stored, which moves with every write committed by anyone,
+	 * and the local change counter, which also moves when a write here commits
+	 * after a higher numbered one.
+	 */
+	public Mono<String> getChangeTag() {
+		return itemStore.getHighestChangeSeq().map(highest -> {
+			if (changeSequence.advance(highest)) {
+				// Written by another instance: nothing kept here can be trusted anymore.
+				itemCache.evictAll();
+				encodedItems.reset();
+			}
+
+			return highest + "-" + changeCounter.getTag();
+		}).onErrorMap(handleErrors())
+				.transform(replicaReads.shared())
+				.transform(serviceMetrics.timed("getChangeTag"));
 	}
-	
-	public Mono<Item> updateItem(Item item) {
-		return Mono.fromCallable(() -> {
-			Item savedItem = itemRepository.save(item);
 
-			log.info("Item saved. ID: {}", savedItem.getId());
+	public Mono<Item> addItem(Item item) {
+		return tracked(1, changeSeq -> itemStore.save(item.setChangeSeq(changeSeq)).doOnNext(itemCache::created)
+				.doOnNext(encodedItems::saved),
+				saved -> Collections.singletonList(ItemEvent.created(saved)))
+				.doOnNext(savedItem -> log.info("Item added. ID: {}", savedItem.getId()))
+				.onErrorMap(handleErrors())
+				.transform(serviceMetrics.timed("addItem"));
+	}
 
-			return savedItem;
-		}).onErrorMap(handleErrors());
+	public Mono<Item> updateItem(Item item) {
+		return tracked(1, changeSeq -> itemStore.save(item.setChangeSeq(changeSeq))
+				.doOnNext(savedItem -> {
+					itemCache.evict(savedItem.getId());
+					encodedItems.saved(savedItem);
+				}),
+				saved -> Collections.singletonList(ItemEvent.updated(saved)))
+				.doOnNext(savedItem -> log.info("Item saved. ID: {}", savedItem.getId()))
+				.onErrorMap(handleErrors())
+				.transform(serviceMetrics.timed("updateItem"));
 	}
 
 	public Mono<List> getItems() {
-		return Mono.fromCallable(() -> {
-			java.util.List<Item> result = new ArrayList<>();
+		return itemCache.getItems(() -> readCoalescer.coalesce("getItems", ALL_ITEMS,
+				() -> itemStore.findAll().collectList().map(items -> List.builder().items(items).build())))
+				.onErrorMap(handleErrors())
+				.transform(replicaReads.shared())
+				.transform(serviceMetrics.timed("getItems"));
+	}
+
+	/**
+	 * The whole item list already encoded as JSON, for when encoded responses are
+	 * enabled.
+	 */
+	public Mono<EncodedItems.Body> getEncodedItems() {
+		return readCoalescer.coalesce("getEncodedItems", ALL_ITEMS, encodedItems::getItems)
+				.onErrorMap(handleErrors())
+				.transform(replicaReads.shared())
+				.transform(serviceMetrics.timed("getItems"));
+	}
+
+	/**
+	 * Keyset pagination over the item IDs. {@code after} is the cursor returned by
+	 * the previous page (or null for the first one) and {@code limit} defaults to
+	 * the configured page size.
+	 */
+	public Mono<List> getItems(Long after, Integer limit) {
+		ToDoListProperties.Pagination pagination = properties.getPagination();
+		int pageSize = limit == null ? pagination.getDefaultLimit() : limit;
+
+		return Mono.defer(() -> {
+			if (pageSize < 1 || pageSize > pagination.getMaxLimit()) {
+				throw new InvalidRequestException(
+						String.format("Limit must be between 1 and %d.", pagination.getMaxLimit()));
+			}
+
+			// One extra row tells whether there is a next page without a count query.
+			return readCoalescer.coalesce("getItemsPage", Arrays.asList(after, pageSize),
+					() -> findPage(after, pageSize + 1).collectList())
+					.map(result -> keysetPage(result, pageSize));
+		}).onErrorMap(handleErrors())
+				.transform(replicaReads.shared())
+				.transform(serviceMetrics.timed("getItemsPage"));
+	}
+
+	/**
+	 * Items whose title starts with {@code titlePrefix}, sorted by {@code sort}
+	 * ({@code id} or {@code title}, prefixed with {@code -} for descending order)
+	 * with only the comma-separated {@code fields} set. The store filters, sorts
+	 * and selects the columns. Sorted by ID, pages go by keyset as
+	 * {@link #getItems(Long, Integer)} do; sorted by title, {@code after} is the
+	 * position of the next item.
+	 */
+	public Mono<List> findItems(String titlePrefix, String sort, String fields, Long after, Integer limit) {
+		ToDoListProperties.Pagination pagination = properties.getPagination();
+		int pageSize = limit == null ? pagination.getDefaultLimit() : limit;
+
+		return Mono.defer(() -> {
+			if (pageSize < 1 || pageSize > pagination.getMaxLimit()) {
+				throw new InvalidRequestException(
+						String.format("Limit must be between 1 and %d.", pagination.getMaxLimit()));
+			}
+
+			ItemQuery.Order order = order(sort);
+			long offset = order.isById() || after == null ? 0L : after;
+
+			if (offset < 0) {
+				throw new InvalidRequestException("After must not be negative.");
+			}
+
+			ItemQuery query = ItemQuery.builder()
+					.titlePrefix(titlePrefix == null || titlePrefix.isEmpty() ? null : titlePrefix)
+					.order(order)
+					.fields(fields(fields))
+					.after(order.isById() ? after : null)
+					.offset(offset)
+					.limit(pageSize + 1)
+					.build();
+
+			return itemStore.findItems(query).collectList()
+					.map(items -> order.isById() ? keysetPage(items, pageSize)
+							: page(items, items.size() > pageSize, offset, pageSize));
+		}).onErrorMap(handleErrors())
+				.transform(replicaReads.forClient())
+				.transform(serviceMetrics.timed("findItems"));
+	}
+
+	/**
+	 * Streams every item in ID order, reading the store in bounded batches as the
+	 * subscriber requests more, so the whole table is never held in memory.
+	 */
+	public Flux<Item> streamItems() {
+		int batchSize = properties.getPagination().getStreamBatchSize();
+
+		return fetchBatch(null, batchSize)
+				.expand(batch -> batch.size() < batchSize ? Mono.empty()
+						: fetchBatch(batch.get(batch.size() - 1).getId(), batchSize))
+				.flatMapIterable(Function.identity())
+				.onErrorMap(handleErrors())
+				.transform(replicaReads.streamForClient())
+				.transform(serviceMetrics.timedStream("streamItems"));
+	}
 
-			itemRepository.findAll().forEach(result::add);
+	/**
+	 * Items matching every term of the query, best matches first, paginated by
+	 * position: {@code after} is the cursor returned by the previous page. Until
+	 * the search index is built, or when it is disabled, the store is scanned
+	 * instead and the matches come in ID order.
+	 */
+	public Mono<List> search(String query, Long after, Integer limit) {
+		ToDoListProperties.Pagination pagination = properties.getPagination();
+		int pageSize = limit == null ? pagination.getDefaultLimit() : limit;
+		long offset = after == null ? 0L : after;
 
-			return List.builder().items(result).build();
+		return Mono.defer(() -> {
+			SearchQuery parsed = SearchQuery.parse(query);
+
+			if (parsed.isEmpty()) {
+				throw new InvalidRequestException("Query must contain at least one word.");
+			}
+
+			if (offset < 0 || pageSize < 1 || pageSize > pagination.getMaxLimit()) {
+				throw new InvalidRequestException(String.format(
+						"After must not be negative and limit must be between 1 and %d.", pagination.getMaxLimit()));
+			}
+
+			if (!searchIndex.isReady()) {
+				return itemStore.search(parsed.getTerms(), offset, pageSize + 1).collectList()
+						.map(items -> page(items, items.size() > pageSize, offset, pageSize));
+			}
+
+			java.util.List<Long> itemIds = searchIndex.search(parsed, offset, pageSize + 1);
+			java.util.List<Long> pageIds = itemIds.subList(0, Math.min(pageSize, itemIds.size()));
+
+			// Items deleted since they were indexed are missing from the store and
+			// left out.
+			return itemStore.findAllById(pageIds).collectMap(Item::getId)
+					.map(found -> page(pageIds.stream().map(found::get).filter(Objects::nonNull)
+							.collect(Collectors.toList()), itemIds.size() > pageSize, offset, pageSize));
+		}).onErrorMap(handleErrors())
+				.transform(replicaReads.forClient())
+				.transform(serviceMetrics.timed("search"));
+	}
+
+	/**
+	 * Items changed and deleted after {@code since}, in change sequence order, up
+	 * to the high-water mark of writes that are no longer in flight. Since 0
+	 * returns every item. Deletions older than the tombstone retention are
+	 * forgotten, so syncing from before them fails and the client has to start
+	 * over. Read from the primary only: a replica behind the high-water mark would
+	 * have the client skip what it misses.
+	 */
+	public Mono<ItemChanges> getChanges(long since, Integer limit) {
+		ToDoListProperties.Pagination pagination = properties.getPagination();
+		int pageSize = limit == null ? pagination.getDefaultLimit() : limit;
+
+		return Mono.defer(() -> {
+			if (since < 0 || pageSize < 1 || pageSize > pagination.getMaxLimit()) {
+				throw new InvalidRequestException(String.format(
+						"Since must not be negative and limit must be between 1 and %d.", pagination.getMaxLimit()));
+			}
+
+			long upTo = changeSequence.getHighWaterMark();
+
+			return itemStore.getCompactedChangeSeq().flatMap(compacted -> {
+				if (since > 0 && since < compacted) {
+					return Mono.error(new ChangesExpiredException(
+							String.format("Changes since %d were compacted. Sync again from 0.", since)));
+				}
+
+				return findChanges(since, upTo, pageSize);
+			});
+		}).onErrorMap(handleErrors())
+				.transform(serviceMetrics.timed("getChanges"));
+	}
+
+	/**
+	 * Live item events. With {@code lastEventId}, the changes the client missed
+	 * since then are replayed from the store first; when they were compacted, a
+	 * reset event is sent and every item is replayed instead.
+	 */
+	public Flux<ItemEvent> streamEvents(Long lastEventId) {
+		if (lastEventId == null) {
+			return itemEvents.subscribe();
+		}
+
+		return Flux.defer(() -> {
+			Disposable.Swap connection = Disposables.swap();
+
+			// Connected before the replay is bounded, so every write ending after this
+			// point is caught live and every write ending before it is in the store.
+			Flux<ItemEvent> live = itemEvents.subscribe().publish().autoConnect(0, connection::update);
+			long settled = changeSequence.getHighWaterMark();
+			long upTo = changeSequence.getLastBegun();
+
+			return Flux.concat(replay(Math.max(lastEventId, 0L), settled, upTo), live)
+					.doFinally(signal -> connection.dispose());
 		}).onErrorMap(handleErrors());
 	}
 
+	@Scheduled(initialDelayString = "${todolist.changes.compaction-interval:PT1H}",
+			fixedDelayString = "${todolist.changes.compaction-interval:PT1H}")
+	public void compactChanges() {
+		Long floor = itemStore
+				.compactTombstones(Instant.now().minus(properties.getChanges().getTombstoneRetention()))
+				.block();
+
+		log.info("Tombstones compacted. Floor: {}", floor);
+	}
+
 	public Mono<Item> getItem(Long itemId) {
-		return Mono
-				.fromCallable(() -> itemRepository.findById(itemId)
-						.orElseThrow(() -> new ItemNotFoundException(String.format("Item not found. ID: %d", itemId))))
-				.onErrorMap(handleErrors());
+		return itemCache.getItem(itemId,
+				() -> readCoalescer.coalesce("getItem", itemId, () -> itemStore.findById(itemId)))
+				.switchIfEmpty(Mono.defer(() -> Mono.error(new ItemNotFoundException(itemId))))
+				.onErrorMap(handleErrors())
+				.transform(replicaReads.shared())
+				.transform(serviceMetrics.timed("getItem"));
+	}
+
+	/**
+	 * The item already encoded as JSON, for when encoded responses are enabled.
+	 */
+	public Mono<EncodedItems.Body> getEncodedItem(Long itemId) {
+		return encodedItems.getItem(itemId,
+				() -> readCoalescer.coalesce("getItem", itemId, () -> itemStore.findById(itemId)))
+				.switchIfEmpty(Mono.defer(() -> Mono.error(new ItemNotFoundException(itemId))))
+				.onErrorMap(handleErrors())
+				.transform(replicaReads.shared())
+				.transform(serviceMetrics.timed("getItem"));
 	}
 
 	public Mono<Void> deleteItem(Long itemId) {
-		return Mono.<Void>fromCallable(() -> {
-			itemRepository.deleteById(itemId);
+		return tracked(1, changeSeq -> itemStore.deleteById(itemId, changeSeq)
+				.doOnSuccess(deleted -> {
+					itemCache.evict(itemId);
+					encodedItems.deleted(itemId);
+				}),
+				deleted -> Collections.singletonList(ItemEvent.deleted(itemId)))
+				.doOnSuccess(deleted -> log.info("Item deleted. ID: {}", itemId))
+				.onErrorMap(handleErrors(itemId))
+				.transform(serviceMetrics.timed("deleteItem"));
+	}
+
+	/**
+	 * Creates all valid items in a single transaction. Invalid elements are
+	 * reported individually and do not prevent the others from being created.
+	 */
+	public Mono<BatchResult> addItems(java.util.List<Item> items) {
+		return Mono.defer(() -> {
+			checkBatchSize(items.size());
+
+			BatchItemResult[] results = new BatchItemResult[items.size()];
+			java.util.List<Integer> accepted = new ArrayList<>();
+
+			for (int index = 0; index < items.size(); index++) {
+				Item item = items.get(index);
+				Long itemId = item == null ? null : item.getId();
+				String error = itemId != null ? "Item ID must be empty. Call put to update an existing item."
+						: validate(item);
+
+				if (error != null) {
+					results[index] = rejected(index, itemId, HttpStatus.BAD_REQUEST, error);
+				} else {
+					accepted.add(index);
+				}
+			}
+
+			return createItems(accepted.stream().map(items::get).collect(Collectors.toList())).map(savedItems -> {
+				fill(results, accepted, savedItems, HttpStatus.CREATED);
+
+				log.info("Items added. Count: {}", accepted.size());
+
+				return BatchResult.builder().results(Arrays.asList(results)).build();
+			});
+		}).onErrorMap(handleErrors())
+				.transform(serviceMetrics.timed("addItems"));
+	}
+
+	/**
+	 * Updates all valid, existing items in a single transaction. Invalid or
+	 * missing elements are reported individually.
+	 */
+	public Mono<BatchResult> updateItems(java.util.List<Item> items) {
+		return Mono.defer(() -> {
+			checkBatchSize(items.size());
+
+			BatchItemResult[] results = new BatchItemResult[items.size()];
+			java.util.List<Integer> accepted = new ArrayList<>();
+
+			return tracked(items.size(), firstSeq -> itemStore.inTransaction(store -> findExistingIds(store,
+					items.stream().map(item -> item == null ? null : item.getId()).collect(Collectors.toList()))
+					.flatMap(existingIds -> {
+						for (int index = 0; index < items.size(); index++) {
+							Item item = items.get(index);
+							String error = item != null && item.getId() == null
+									? "Item ID is invalid. Call post to create new item."
+									: validate(item);
+
+							if (error != null) {
+								results[index] = rejected(index, item == null ? null : item.getId(),
+										HttpStatus.BAD_REQUEST, error);
+							} else if (!existingIds.contains(item.getId())) {
+								results[index] = rejected(index, item.getId(), HttpStatus.NOT_FOUND, "Item not found.");
+							} else {
+								accepted.add(index);
+							}
+						}
+
+						java.util.List<Item> toSave = accepted.stream()
+								.map(index -> items.get(index).setChangeSeq(firstSeq + index))
+								.collect(Collectors.toList());
 
-			log.info("Item deleted. ID: {}", itemId);
+						return store.saveAll(toSave).collectList();
+					})).doOnNext(savedItems -> savedItems.forEach(savedItem -> {
+						itemCache.evict(savedItem.getId());
+						encodedItems.saved(savedItem);
+					})),
+					saved -> saved.stream().map(ItemEvent::updated).collect(Collectors.toList())).map(savedItems -> {
+						fill(results, accepted, savedItems, HttpStatus.ACCEPTED);
 
+						log.info("Items saved. Count: {}", accepted.size());
+
+						return BatchResult.builder().results(Arrays.asList(results)).build();
+					});
+		}).onErrorMap(handleErrors())
+				.transform(serviceMetrics.timed("updateItems"));
+	}
+
+	/**
+	 * Deletes all existing items in a single transaction. Missing IDs are reported
+	 * individually.
+	 */
+	public Mono<BatchResult> deleteItems(java.util.List<Long> itemIds) {
+		return Mono.defer(() -> {
+			checkBatchSize(itemIds.size());
+
+			BatchItemResult[] results = new BatchItemResult[itemIds.size()];
+
+			return tracked(itemIds.size(), firstSeq -> itemStore.inTransaction(store -> store
+					.findAllById(itemIds.stream().filter(Objects::nonNull).collect(Collectors.toList()))
+					.collectList().flatMap(toDelete -> {
+						Set<Long> existingIds = toDelete.stream().map(Item::getId).collect(Collectors.toSet());
+
+						for (int index = 0; index < itemIds.size(); index++) {
+							Long itemId = itemIds.get(index);
+
+							if (itemId == null) {
+								results[index] = rejected(index, null, HttpStatus.BAD_REQUEST, "Item ID is invalid.");
+							} else {
+								results[index] = existingIds.contains(itemId)
+										? BatchItemResult.builder().index(index).id(itemId).status(HttpStatus.NO_CONTENT.value()).build()
+										: rejected(index, itemId, HttpStatus.NOT_FOUND, "Item not found.");
+							}
+						}
+
+						java.util.List<Item> numbered = new ArrayList<>();
+
+						for (Item item : toDelete) {
+							numbered.add(item.toBuilder().changeSeq(firstSeq + numbered.size()).build());
+						}
+
+						return store.deleteAll(numbered).thenReturn(numbered);
+					})).doOnNext(deleted -> deleted.forEach(item -> {
+						itemCache.evict(item.getId());
+						encodedItems.deleted(item.getId());
+					})),
+					deleted -> deleted.stream().map(item -> ItemEvent.deleted(item.getId())).collect(Collectors.toList()))
+					.map(deleted -> {
+						log.info("Items deleted. Count: {}", deleted.size());
+
+						return BatchResult.builder().results(Arrays.asList(results)).build();
+					});
+		}).onErrorMap(handleErrors())
+				.transform(serviceMetrics.timed("deleteItems"));
+	}
+
+	/**
+	 * Creates the items, already validated, in a single transaction, emitting the
+	 * stored items in the same order.
+	 */
+	Mono<java.util.List<Item>> createItems(java.util.List<Item> items) {
+		return tracked(items.size(), firstSeq -> {
+			for (int index = 0; index < items.size(); index++) {
+				items.get(index).setChangeSeq(firstSeq + index);
+			}
+
+			return itemStore.inTransaction(store -> store.saveAll(items).collectList())
+					.doOnNext(savedItems -> savedItems.forEach(savedItem -> {
+						itemCache.created(savedItem);
+						encodedItems.saved(savedItem);
+					}));
+		}, saved -> saved.stream().map(ItemEvent::created).collect(Collectors.toList()));
+	}
+
+	private void checkBatchSize(int size) {
+		int maxSize = properties.getBatch().getMaxSize();
+
+		if (size > maxSize) {
+			throw new InvalidRequestException(String.format("Batch must have at most %d elements.", maxSize));
+		}
+	}
+
+	/**
+	 * Violations of the item's constraints, or null when it is valid. A missing
+	 * item is never valid.
+	 */
+	String validate(Item item) {
+		if (item == null) {
+			return "Item must not be null.";
+		}
+
+		Set<ConstraintViolation<Item>> violations = validator.validate(item);
+
+		if (violations.isEmpty()) {
 			return null;
-		}).onErrorMap(handleErrors(itemId));
+		}
+
+		return violations.stream().map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+				.sorted().collect(Collectors.joining(", "));
+	}
+
+	private Mono<Set<Long>> findExistingIds(ReactiveItemStore store, java.util.List<Long> itemIds) {
+		return store.findAllById(itemIds.stream().filter(id -> id != null).collect(Collectors.toList()))
+				.map(Item::getId).collect(Collectors.toSet());
+	}
+
+	private void fill(BatchItemResult[] results, java.util.List<Integer> accepted, java.util.List<Item> savedItems,
+			HttpStatus status) {
+		Iterator<Item> saved = savedItems.iterator();
+
+		for (Integer index : accepted) {
+			Item savedItem = saved.next();
+
+			results[index] = BatchItemResult.builder().index(index).id(savedItem.getId()).status(status.value())
+					.item(savedItem).build();
+		}
+	}
+
+	private BatchItemResult rejected(int index, Long itemId, HttpStatus status, String error) {
+		return BatchItemResult.builder().index(index).id(itemId).status(status.value()).error(error).build();
+	}
+
+	/**
+	 * Page of a keyset query that fetched one item more than the page size.
+	 */
+	static List keysetPage(java.util.List<Item> items, int pageSize) {
+		if (items.size() <= pageSize) {
+			return List.builder().items(items).build();
+		}
+
+		java.util.List<Item> page = items.subList(0, pageSize);
+
+		return List.builder().items(page).nextCursor(page.get(pageSize - 1).getId()).build();
+	}
+
+	private static ItemQuery.Order order(String sort) {
+		if (sort == null || sort.isEmpty()) {
+			return ItemQuery.Order.ID;
+		}
+
+		boolean descending = sort.startsWith("-");
+		String property = descending ? sort.substring(1) : sort;
+
+		return Arrays.stream(ItemQuery.Order.values())
+				.filter(order -> order.getProperty().equals(property) && order.isDescending() == descending)
+				.findFirst()
+				.orElseThrow(() -> new InvalidRequestException("Sort must be one of id, -id, title or -title."));
+	}
+
+	private static Set<ItemQuery.Field> fields(String fields) {
+		if (fields == null || fields.isEmpty()) {
+			return EnumSet.allOf(ItemQuery.Field.class);
+		}
+
+		Set<ItemQuery.Field> selected = EnumSet.noneOf(ItemQuery.Field.class);
+
+		for (String name : fields.split(",")) {
+			String trimmed = name.trim();
+
+			// The ID is always there.
+			if (!"id".equals(trimmed)) {
+				selected.add(Arrays.stream(ItemQuery.Field.values())
+						.filter(field -> field.getName().equals(trimmed))
+						.findFirst()
+						.orElseThrow(() -> new InvalidRequestException(
+								"Fields must be among id, title, description and version.")));
+			}
+		}
+
+		return selected;
+	}
+
+	private List page(java.util.List<Item> items, boolean hasMore, long offset, int pageSize) {
+		return List.builder().items(items.subList(0, Math.min(pageSize, items.size())))
+				.nextCursor(hasMore ? offset + pageSize : null).build();
+	}
+
+	private Mono<java.util.List<Item>> fetchBatch(Long after, int batchSize) {
+		return findPage(after, batchSize).collectList();
+	}
+
+	private Flux<Item> findPage(Long after, int size) {
+		return itemStore.findPage(after == null ? FIRST_CURSOR : after, size);
+	}
+
+	/**
+	 * Runs a write under {@code count} reserved change sequence numbers, passing
+	 * the first one. Once it has committed, the events describing its result are
+	 * applied to the search index and published.
+	 * <p>
+	 * A caller going away does not stop a write that may still commit, so the
+	 * write is detached from its caller, and its numbers are only ended once it
+	 * has committed or failed.
+	 */
+	private <T> Mono<T> tracked(int count, LongFunction<Mono<T>> write, Function<T, java.util.List<ItemEvent>> events) {
+		return Mono.defer(() -> {
+			long firstSeq = changeSequence.begin(count);
+
+			return Mono.defer(() -> write.apply(firstSeq))
+					.doOnSuccess(result -> changeSequence.end(firstSeq, eventId -> {
+						java.util.List<ItemEvent> committed = events.apply(result);
+
+						searchIndex.apply(committed);
+						itemEvents.publish(committed, eventId);
+					}))
+					.doOnError(e -> changeSequence.end(firstSeq))
+					.toProcessor();
+		});
+	}
+
+	private Mono<ItemChanges> findChanges(long since, long upTo, int pageSize) {
+		Mono<java.util.List<ItemTombstone>> tombstones = since == 0 ? Mono.just(Collections.emptyList())
+				: itemStore.findTombstones(since, upTo, pageSize + 1).collectList();
+
+		return itemStore.findChanged(since, upTo, pageSize + 1).collectList()
+				.flatMap(items -> tombstones.map(buried -> merge(items, buried, pageSize, upTo)));
+	}
+
+	/**
+	 * Changes after {@code since} up to {@code upTo}, as events, page by page.
+	 * The last event of each page carries the page's high-water mark as resume
+	 * point, held back to {@code settled} since writes below {@code upTo} may
+	 * still be on their way through the live events.
+	 */
+	private Flux<ItemEvent> replay(long since, long settled, long upTo) {
+		int pageSize = properties.getPagination().getMaxLimit();
+
+		return itemStore.getCompactedChangeSeq()
+				.map(compacted -> since > 0 && since < compacted)
+				.flatMapMany(expired -> {
+					Flux<ItemEvent> events = findChanges(expired ? 0L : since, upTo, pageSize)
+							.expand(changes -> changes.isHasMore()
+									? findChanges(changes.getHighWaterMark(), upTo, pageSize)
+									: Mono.empty())
+							.concatMapIterable(changes -> events(changes, settled));
+
+					return expired ? events.startWith(ItemEvent.reset()) : events;
+				});
+	}
+
+	/**
+	 * Replayed items still at their first version are reported as created.
+	 */
+	private java.util.List<ItemEvent> events(ItemChanges changes, long settled) {
+		java.util.List<ItemEvent> events = new ArrayList<>();
+
+		for (Item item : changes.getItems()) {
+			events.add(Long.valueOf(0L).equals(item.getVersion()) ? ItemEvent.created(item) : ItemEvent.updated(item));
+		}
+
+		for (Long itemId : changes.getDeletedIds()) {
+			events.add(ItemEvent.deleted(itemId));
+		}
+
+		if (!events.isEmpty()) {
+			events.get(events.size() - 1).setEventId(Math.min(changes.getHighWaterMark(), settled));
+		}
+
+		return events;
+	}
+
+	/**
+	 * Interleaves changed items and tombstones by change sequence, stopping after
+	 * {@code limit} changes.
+	 */
+	private ItemChanges merge(java.util.List<Item> items, java.util.List<ItemTombstone> tombstones, int limit,
+			long upTo) {
+		ItemChanges changes = ItemChanges.builder().build();
+		int itemIndex = 0;
+		int tombstoneIndex = 0;
+		long highWaterMark = upTo;
+
+		while (itemIndex < items.size() || tombstoneIndex < tombstones.size()) {
+			if (itemIndex + tombstoneIndex == limit) {
+				changes.setHasMore(true);
+				break;
+			}
+
+			if (tombstoneIndex == tombstones.size() || (itemIndex < items.size()
+					&& items.get(itemIndex).getChangeSeq() < tombstones.get(tombstoneIndex).getChangeSeq())) {
+				Item item = items.get(itemIndex++);
+
+				changes.getItems().add(item);
+				highWaterMark = item.getChangeSeq();
+			} else {
+				ItemTombstone tombstone = tombstones.get(tombstoneIndex++);
+
+				changes.getDeletedIds().add(tombstone.getItemId());
+				highWaterMark = tombstone.getChangeSeq();
+			}
+		}
+
+		changes.setHighWaterMark(changes.isHasMore() ? highWaterMark : upTo);
+
+		return changes;
 	}
 
-	private Function<Throwable, Throwable> handleErrors(Object... args) {
+	static Function<Throwable, Throwable> handleErrors(Object... args) {
 		return throwable -> {
-			if (ItemNotFoundException.class.isInstance(throwable)) {
+			if (ItemNotFoundException.class.isInstance(throwable)
+					|| NotFoundException.class.isInstance(throwable)
+					|| InvalidRequestException.class.isInstance(throwable)
+					|| ChangesExpiredException.class.isInstance(throwable)) {
 				return throwable;
 			} else if (EmptyResultDataAccessException.class.isInstance(throwable)) {
-				return new ItemNotFoundException(String.format("Item not found. ID: %d", args[0]));
+				return new ItemNotFoundException((Long) args[0]);
+			} else if (OptimisticLockingFailureException.class.isInstance(throwable)) {
+				return new PreconditionFailedException("Item was changed since it was read.");
+			} else if (RejectedExecutionException.class.isInstance(throwable)) {
+				return new ServiceUnavailableException("Too many pending repository calls.", throwable);
 			} else {
 				return new BackendServiceException(throwable);
 			}
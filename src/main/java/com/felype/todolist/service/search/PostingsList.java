@@ -0,0 +1,117 @@
+package com.felype.todolist.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Documents a term occurs in, with the weight it has in each. Documents are
+ * only ever appended in increasing order, so each entry is stored as the gap
+ * from the previous document followed by the weight, both as variable-length
+ * integers: most entries take two or three bytes.
+ * <p>
+ * Entries of deleted documents stay until the index is compacted, only the
+ * {@link #getLive() live} count drops.
+ */
+final class PostingsList {
+
+	interface Visitor {
+
+		void visit(int doc, int weight);
+
+	}
+
+	private static final byte[] EMPTY = new byte[0];
+
+	private byte[] data = EMPTY;
+
+	private int length;
+
+	private int lastDoc = -1;
+
+	private int live;
+
+	void add(int doc, int weight) {
+		if (doc <= lastDoc) {
+			throw new IllegalArgumentException(
+					String.format("Document %d added after document %d.", doc, lastDoc));
+		}
+
+		if (length + 10 > data.length) {
+			data = Arrays.copyOf(data, Math.max(16, data.length * 2));
+		}
+
+		writeVarInt(doc - lastDoc);
+		writeVarInt(weight);
+		lastDoc = doc;
+		live++;
+	}
+
+	void kill() {
+		live--;
+	}
+
+	/**
+	 * Documents still holding the term, for the inverse document frequency.
+	 */
+	int getLive() {
+		return live;
+	}
+
+	void forEach(Visitor visitor) {
+		int position = 0;
+		int doc = -1;
+
+		while (position < length) {
+			int gap = 0;
+			int shift = 0;
+			byte b;
+
+			do {
+				b = data[position++];
+				gap |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+
+			int weight = 0;
+
+			shift = 0;
+
+			do {
+				b = data[position++];
+				weight |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+
+			doc += gap;
+			visitor.visit(doc, weight);
+		}
+	}
+
+	/**
+	 * Rewrites the list with the new document numbers, dropping the documents
+	 * mapped to a negative number. The mapping has to keep the order.
+	 */
+	void renumber(int[] docs) {
+		PostingsList renumbered = new PostingsList();
+
+		forEach((doc, weight) -> {
+			if (docs[doc] >= 0) {
+				renumbered.add(docs[doc], weight);
+			}
+		});
+
+		data = renumbered.length == 0 ? EMPTY : Arrays.copyOf(renumbered.data, renumbered.length);
+		length = renumbered.length;
+		lastDoc = renumbered.lastDoc;
+		live = renumbered.live;
+	}
+
+	private void writeVarInt(int value) {
+		while ((value & ~0x7F) != 0) {
+			data[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		data[length++] = (byte) value;
+	}
+
+}
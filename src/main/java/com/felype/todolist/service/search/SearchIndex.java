@@ -0,0 +1,570 @@
+package com.felype.todolist.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemEvent;
+import com.felype.todolist.repository.ReactiveItemStore;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * In-process inverted index over the item titles and descriptions, ranked with
+ * BM25. Title terms weigh {@link #TITLE_WEIGHT} times as much as description
+ * terms.
+ * <p>
+ * Every indexed version of an item is a document with its own number, handed
+ * out in increasing order, so the postings lists only ever grow at their end
+ * and stay delta-encoded. Updating an item deletes its document and adds a new
+ * one; deleted documents are skipped by searches until enough of them pile up
+ * for the index to be compacted.
+ * <p>
+ * The index is built from the store once the application is ready, and kept up
+ * to date from the committed writes in the meantime.
+ */
+@Slf4j
+@Component
+public class SearchIndex {
+
+	static final int TITLE_WEIGHT = 2;
+
+	private static final float K1 = 1.2f;
+
+	private static final float B = 0.75f;
+
+	private static final int COMPACTION_THRESHOLD = 1024;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final ToDoListProperties.Search properties;
+
+	private final ReactiveItemStore itemStore;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final TreeMap<String, PostingsList> postings = new TreeMap<>();
+
+	private final Map<Long, Integer> docs = new HashMap<>();
+
+	private final BitSet deleted = new BitSet();
+
+	private long[] itemIds = new long[INITIAL_CAPACITY];
+
+	private long[] changeSeqs = new long[INITIAL_CAPACITY];
+
+	private int[] lengths = new int[INITIAL_CAPACITY];
+
+	private PostingsList[][] terms = new PostingsList[INITIAL_CAPACITY][];
+
+	private int docCount;
+
+	private int deletedCount;
+
+	private long liveLength;
+
+	/**
+	 * Items deleted while the index is being built, which the pages read before
+	 * the deletion must not bring back.
+	 */
+	private final Set<Long> deletedWhileBuilding = new HashSet<>();
+
+	private boolean building;
+
+	private volatile boolean ready;
+
+	public SearchIndex(ToDoListProperties properties, ReactiveItemStore itemStore, MeterRegistry meterRegistry) {
+		this.properties = properties.getSearch();
+		this.itemStore = itemStore;
+
+		Gauge.builder("todolist.search.documents", this, SearchIndex::size)
+				.description("Items in the search index")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Whether the index holds every item. Until then searches have to go to the
+	 * store.
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void build() {
+		if (properties.isIndexEnabled()) {
+			rebuild().subscribe(null, e -> log.error("Search index could not be built.", e));
+		}
+	}
+
+	/**
+	 * Indexes every item in the store. Pages are read one after the other, and
+	 * tokenized in parallel on the parallel scheduler while the next ones load.
+	 */
+	public Mono<Void> rebuild() {
+		int batchSize = properties.getRebuildBatchSize();
+
+		return Mono.defer(() -> {
+			setBuilding(true);
+
+			return itemStore.findPage(0L, batchSize).collectList()
+					.expand(batch -> batch.size() < batchSize ? Mono.empty()
+							: itemStore.findPage(batch.get(batch.size() - 1).getId(), batchSize).collectList())
+					.flatMapSequential(batch -> Mono.fromCallable(() -> analyze(batch)).subscribeOn(Schedulers.parallel()),
+							Schedulers.DEFAULT_POOL_SIZE)
+					.doOnNext(this::addAll)
+					.then(Mono.<Void>fromRunnable(() -> {
+						setBuilding(false);
+						ready = true;
+
+						log.info("Search index built. Items: {}", size());
+					}));
+		}).doOnError(e -> setBuilding(false));
+	}
+
+	/**
+	 * Applies the events of a committed write. Writes have to be applied in the
+	 * order they were committed.
+	 */
+	public void apply(List<ItemEvent> events) {
+		if (!properties.isIndexEnabled()) {
+			return;
+		}
+
+		for (ItemEvent event : events) {
+			switch (event.getType()) {
+			case CREATED:
+			case UPDATED:
+				Document document = analyze(event.getItem());
+
+				write(() -> put(document));
+				break;
+			case DELETED:
+				write(() -> remove(event.getId()));
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	/**
+	 * IDs of the {@code count} best matching items from position {@code offset}
+	 * on, best first. Items scoring the same are ordered by ID.
+	 */
+	public List<Long> search(SearchQuery query, long offset, int count) {
+		lock.readLock().lock();
+
+		try {
+			int live = docCount - deletedCount;
+
+			if (live == 0 || offset >= live) {
+				return Collections.emptyList();
+			}
+
+			float averageLength = (float) liveLength / live;
+			List<List<PostingsList>> groups = new ArrayList<>();
+
+			for (String term : query.getTerms()) {
+				List<PostingsList> lists = query.isPrefix(term) ? expand(term) : exact(term);
+
+				if (lists.isEmpty()) {
+					return Collections.emptyList();
+				}
+
+				groups.add(lists);
+			}
+
+			// Rarest terms first, so the intersection shrinks as early as possible.
+			groups.sort(Comparator.comparingLong(SearchIndex::live));
+
+			Matches matches = null;
+
+			for (List<PostingsList> group : groups) {
+				Matches groupMatches = score(group, live, averageLength);
+
+				matches = matches == null ? groupMatches : matches.intersect(groupMatches);
+
+				if (matches.size == 0) {
+					return Collections.emptyList();
+				}
+			}
+
+			return top(matches, (int) offset, count);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Items currently indexed.
+	 */
+	public int size() {
+		lock.readLock().lock();
+
+		try {
+			return docCount - deletedCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void setBuilding(boolean building) {
+		write(() -> {
+			this.building = building;
+			deletedWhileBuilding.clear();
+		});
+	}
+
+	private void addAll(List<Document> documents) {
+		write(() -> documents.stream().filter(document -> !deletedWhileBuilding.contains(document.itemId))
+				.forEach(this::put));
+	}
+
+	/**
+	 * Versions older than the indexed one are ignored, since pages read while
+	 * building can be behind the writes applied in the meantime.
+	 */
+	private void put(Document document) {
+		Integer current = docs.get(document.itemId);
+
+		if (current != null) {
+			if (document.changeSeq < changeSeqs[current]) {
+				return;
+			}
+
+			delete(current);
+		}
+
+		int doc = docCount++;
+
+		if (doc == itemIds.length) {
+			int capacity = doc * 2;
+
+			itemIds = Arrays.copyOf(itemIds, capacity);
+			changeSeqs = Arrays.copyOf(changeSeqs, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+			terms = Arrays.copyOf(terms, capacity);
+		}
+
+		PostingsList[] docTerms = new PostingsList[document.weights.size()];
+		int index = 0;
+
+		for (Map.Entry<String, Integer> weight : document.weights.entrySet()) {
+			PostingsList list = postings.computeIfAbsent(weight.getKey(), term -> new PostingsList());
+
+			list.add(doc, weight.getValue());
+			docTerms[index++] = list;
+		}
+
+		itemIds[doc] = document.itemId;
+		changeSeqs[doc] = document.changeSeq;
+		lengths[doc] = document.length;
+		terms[doc] = docTerms;
+		docs.put(document.itemId, doc);
+		liveLength += document.length;
+		compactIfNeeded();
+	}
+
+	private void remove(Long itemId) {
+		Integer doc = docs.remove(itemId);
+
+		if (building) {
+			deletedWhileBuilding.add(itemId);
+		}
+
+		if (doc != null) {
+			delete(doc);
+			compactIfNeeded();
+		}
+	}
+
+	private void delete(int doc) {
+		for (PostingsList list : terms[doc]) {
+			list.kill();
+		}
+
+		terms[doc] = null;
+		deleted.set(doc);
+		deletedCount++;
+		liveLength -= lengths[doc];
+	}
+
+	private void compactIfNeeded() {
+		if (deletedCount >= COMPACTION_THRESHOLD && deletedCount * 2 >= docCount) {
+			compact();
+		}
+	}
+
+	/**
+	 * Renumbers the live documents from 0 and drops the deleted ones from every
+	 * postings list, along with the terms left without documents.
+	 */
+	private void compact() {
+		int[] renumbered = new int[docCount];
+		int next = 0;
+
+		for (int doc = 0; doc < docCount; doc++) {
+			renumbered[doc] = deleted.get(doc) ? -1 : next++;
+		}
+
+		for (Iterator<PostingsList> lists = postings.values().iterator(); lists.hasNext();) {
+			PostingsList list = lists.next();
+
+			list.renumber(renumbered);
+
+			if (list.getLive() == 0) {
+				lists.remove();
+			}
+		}
+
+		for (int doc = 0; doc < docCount; doc++) {
+			int moved = renumbered[doc];
+
+			if (moved >= 0) {
+				itemIds[moved] = itemIds[doc];
+				changeSeqs[moved] = changeSeqs[doc];
+				lengths[moved] = lengths[doc];
+				terms[moved] = terms[doc];
+				docs.put(itemIds[moved], moved);
+			}
+		}
+
+		Arrays.fill(terms, next, docCount, null);
+		deleted.clear();
+		deletedCount = 0;
+		docCount = next;
+	}
+
+	private List<PostingsList> exact(String term) {
+		PostingsList list = postings.get(term);
+
+		return list == null || list.getLive() == 0 ? Collections.emptyList() : Collections.singletonList(list);
+	}
+
+	private List<PostingsList> expand(String prefix) {
+		return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().stream()
+				.filter(list -> list.getLive() > 0)
+				.limit(properties.getMaxPrefixExpansions())
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Documents holding any of the lists' terms, in document order, scored by the
+	 * sum of their BM25 scores.
+	 */
+	private Matches score(List<PostingsList> lists, int live, float averageLength) {
+		Matches matches = new Matches(live(lists));
+
+		if (lists.size() == 1) {
+			PostingsList list = lists.get(0);
+			float idf = idf(list.getLive(), live);
+
+			list.forEach((doc, weight) -> {
+				if (!deleted.get(doc)) {
+					matches.add(doc, bm25(weight, lengths[doc], averageLength, idf));
+				}
+			});
+
+			return matches;
+		}
+
+		// Document number in the high half, score bits in the low half, so sorting
+		// brings the scores of each document together.
+		long[] scored = new long[(int) live(lists)];
+		int[] count = new int[1];
+
+		for (PostingsList list : lists) {
+			float idf = idf(list.getLive(), live);
+
+			list.forEach((doc, weight) -> {
+				if (!deleted.get(doc)) {
+					float score = bm25(weight, lengths[doc], averageLength, idf);
+
+					scored[count[0]++] = ((long) doc << 32) | (Float.floatToRawIntBits(score) & 0xFFFFFFFFL);
+				}
+			});
+		}
+
+		Arrays.sort(scored, 0, count[0]);
+
+		for (int i = 0; i < count[0]; i++) {
+			int doc = (int) (scored[i] >>> 32);
+			float score = Float.intBitsToFloat((int) scored[i]);
+
+			if (matches.size > 0 && matches.docs[matches.size - 1] == doc) {
+				matches.scores[matches.size - 1] += score;
+			} else {
+				matches.add(doc, score);
+			}
+		}
+
+		return matches;
+	}
+
+	private List<Long> top(Matches matches, int offset, int count) {
+		Comparator<Integer> ranking = Comparator.<Integer>comparingDouble(i -> matches.scores[i]).reversed()
+				.thenComparingLong(i -> itemIds[matches.docs[i]]);
+		long wanted = Math.min((long) offset + count, matches.size);
+		List<Integer> ranked = new ArrayList<>();
+
+		if (wanted == matches.size) {
+			for (int i = 0; i < matches.size; i++) {
+				ranked.add(i);
+			}
+
+			ranked.sort(ranking);
+		} else {
+			// Worst of the best kept on top, to be replaced by anything better.
+			PriorityQueue<Integer> best = new PriorityQueue<>((int) wanted + 1, ranking.reversed());
+
+			for (int i = 0; i < matches.size; i++) {
+				best.add(i);
+
+				if (best.size() > wanted) {
+					best.poll();
+				}
+			}
+
+			ranked.addAll(best);
+			ranked.sort(ranking);
+		}
+
+		return ranked.subList(Math.min(offset, ranked.size()), ranked.size()).stream()
+				.map(i -> itemIds[matches.docs[i]])
+				.collect(Collectors.toList());
+	}
+
+	private void write(Runnable change) {
+		lock.writeLock().lock();
+
+		try {
+			change.run();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private static long live(List<PostingsList> lists) {
+		long size = 0;
+
+		for (PostingsList list : lists) {
+			size += list.getLive();
+		}
+
+		return size;
+	}
+
+	private static float idf(int frequency, int live) {
+		return (float) Math.log(1 + (live - frequency + 0.5) / (frequency + 0.5));
+	}
+
+	private static float bm25(int weight, int length, float averageLength, float idf) {
+		return idf * weight * (K1 + 1) / (weight + K1 * (1 - B + B * length / averageLength));
+	}
+
+	private static List<Document> analyze(List<Item> items) {
+		return items.stream().map(SearchIndex::analyze).collect(Collectors.toList());
+	}
+
+	private static Document analyze(Item item) {
+		Document document = new Document(item.getId(), item.getChangeSeq() == null ? 0L : item.getChangeSeq());
+
+		Tokenizer.tokenize(item.getTitle(), term -> document.add(term, TITLE_WEIGHT));
+		Tokenizer.tokenize(item.getDescription(), term -> document.add(term, 1));
+
+		return document;
+	}
+
+	/**
+	 * Item as the index sees it, tokenized outside of the lock.
+	 */
+	private static final class Document {
+
+		private final long itemId;
+
+		private final long changeSeq;
+
+		private final Map<String, Integer> weights = new HashMap<>();
+
+		private int length;
+
+		private Document(long itemId, long changeSeq) {
+			this.itemId = itemId;
+			this.changeSeq = changeSeq;
+		}
+
+		private void add(String term, int weight) {
+			weights.merge(term, weight, Integer::sum);
+			length += weight;
+		}
+
+	}
+
+	/**
+	 * Scored documents, in document order.
+	 */
+	private static final class Matches {
+
+		private int[] docs;
+
+		private float[] scores;
+
+		private int size;
+
+		private Matches(long capacity) {
+			docs = new int[(int) Math.max(1, capacity)];
+			scores = new float[docs.length];
+		}
+
+		private void add(int doc, float score) {
+			docs[size] = doc;
+			scores[size++] = score;
+		}
+
+		/**
+		 * Documents found in both, with the scores added up.
+		 */
+		private Matches intersect(Matches other) {
+			Matches both = new Matches(Math.min(size, other.size));
+			int i = 0;
+			int j = 0;
+
+			while (i < size && j < other.size) {
+				if (docs[i] < other.docs[j]) {
+					i++;
+				} else if (docs[i] > other.docs[j]) {
+					j++;
+				} else {
+					both.add(docs[i], scores[i++] + other.scores[j++]);
+				}
+			}
+
+			return both;
+		}
+
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.felype.todolist.service.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsed search query. Every term has to match; a word ending with {@code *}
+ * matches any term it is a prefix of.
+ */
+public final class SearchQuery {
+
+	/**
+	 * Further terms are ignored, they would only narrow the results down to
+	 * nothing while making the query more expensive.
+	 */
+	static final int MAX_TERMS = 16;
+
+	private final Map<String, Boolean> terms;
+
+	private SearchQuery(Map<String, Boolean> terms) {
+		this.terms = terms;
+	}
+
+	public static SearchQuery parse(String query) {
+		Map<String, Boolean> terms = new LinkedHashMap<>();
+
+		if (query != null) {
+			for (String word : query.trim().split("\\s+")) {
+				List<String> tokens = new ArrayList<>();
+
+				Tokenizer.tokenize(word, tokens::add);
+
+				for (int i = 0; i < tokens.size() && terms.size() < MAX_TERMS; i++) {
+					boolean prefix = i == tokens.size() - 1 && word.endsWith("*");
+
+					// A term asked for both ways only has to match as a prefix.
+					terms.merge(tokens.get(i), prefix, Boolean::logicalOr);
+				}
+			}
+		}
+
+		return new SearchQuery(terms);
+	}
+
+	public boolean isEmpty() {
+		return terms.isEmpty();
+	}
+
+	/**
+	 * Terms of the query, prefixes included, for matching without the index.
+	 */
+	public List<String> getTerms() {
+		return Collections.unmodifiableList(new ArrayList<>(terms.keySet()));
+	}
+
+	boolean isPrefix(String term) {
+		return terms.get(term);
+	}
+
+}
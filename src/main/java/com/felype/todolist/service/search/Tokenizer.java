@@ -0,0 +1,48 @@
+package com.felype.todolist.service.search;
+
+import java.util.function.Consumer;
+
+/**
+ * Splits text into terms: runs of letters and digits, lowercased. Everything
+ * else separates terms. Terms longer than {@link #MAX_TERM_LENGTH} are dropped,
+ * they are rarely words anyone searches for.
+ */
+final class Tokenizer {
+
+	static final int MAX_TERM_LENGTH = 64;
+
+	private Tokenizer() {
+	}
+
+	static void tokenize(String text, Consumer<String> terms) {
+		if (text == null) {
+			return;
+		}
+
+		StringBuilder term = new StringBuilder();
+		int index = 0;
+
+		while (index < text.length()) {
+			int codePoint = text.codePointAt(index);
+
+			if (Character.isLetterOrDigit(codePoint)) {
+				term.appendCodePoint(Character.toLowerCase(codePoint));
+			} else {
+				emit(term, terms);
+			}
+
+			index += Character.charCount(codePoint);
+		}
+
+		emit(term, terms);
+	}
+
+	private static void emit(StringBuilder term, Consumer<String> terms) {
+		if (term.length() > 0 && term.length() <= MAX_TERM_LENGTH) {
+			terms.accept(term.toString());
+		}
+
+		term.setLength(0);
+	}
+
+}
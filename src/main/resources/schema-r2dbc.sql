@@ -0,0 +1,24 @@
+-- Schema of the r2dbc storage engine, matching the tables the JPA engine has
+-- Hibernate generate.
+CREATE TABLE IF NOT EXISTS item (
+	id BIGINT AUTO_INCREMENT PRIMARY KEY,
+	list_id BIGINT,
+	title VARCHAR(255),
+	description VARCHAR(255),
+	version BIGINT,
+	change_seq BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS item_change_seq_idx ON item (change_seq);
+
+CREATE INDEX IF NOT EXISTS item_title_idx ON item (title);
+
+CREATE INDEX IF NOT EXISTS item_list_idx ON item (list_id, id);
+
+CREATE TABLE IF NOT EXISTS item_tombstone (
+	item_id BIGINT PRIMARY KEY,
+	change_seq BIGINT,
+	deleted_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS item_tombstone_change_seq_idx ON item_tombstone (change_seq);
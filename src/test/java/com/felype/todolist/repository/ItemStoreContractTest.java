@@ -0,0 +1,266 @@
+package com.felype.todolist.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.felype.todolist.mock.MockObjects;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemTombstone;
+
+/**
+ * Behaviour every {@link ItemStore} engine must share, run once per engine by
+ * its subclasses.
+ */
+public abstract class ItemStoreContractTest {
+
+	protected abstract ItemStore itemStore();
+
+	@Test
+	public void testSave() {
+		Item saved = itemStore().save(MockObjects.item(null));
+
+		assertNotNull(saved.getId());
+		assertEquals(saved, itemStore().findById(saved.getId()).get());
+	}
+
+	@Test
+	public void testSaveExistingItem() {
+		Item saved = itemStore().save(MockObjects.item(null));
+
+		itemStore().save(MockObjects.item(saved.getId()).setTitle("updated"));
+
+		assertEquals("updated", itemStore().findById(saved.getId()).get().getTitle());
+		assertEquals(1, itemStore().findAll().size());
+	}
+
+	@Test
+	public void testSaveBumpsVersion() {
+		Item saved = itemStore().save(MockObjects.item(null));
+		Item updated = itemStore().save(MockObjects.item(saved.getId()).setTitle("updated"));
+
+		assertEquals(saved.getVersion() + 1, (long) updated.getVersion());
+		assertEquals(updated.getVersion(), itemStore().findById(saved.getId()).get().getVersion());
+	}
+
+	@Test
+	public void testSaveMatchingVersion() {
+		Item saved = itemStore().save(MockObjects.item(null));
+
+		itemStore().save(MockObjects.item(saved.getId()).setTitle("updated").setVersion(saved.getVersion()));
+
+		assertEquals("updated", itemStore().findById(saved.getId()).get().getTitle());
+	}
+
+	@Test(expected = OptimisticLockingFailureException.class)
+	public void testSaveStaleVersion() {
+		Item saved = itemStore().save(MockObjects.item(null));
+
+		itemStore().save(MockObjects.item(saved.getId()).setTitle("first"));
+		itemStore().save(MockObjects.item(saved.getId()).setTitle("second").setVersion(saved.getVersion()));
+	}
+
+	@Test(expected = OptimisticLockingFailureException.class)
+	public void testSaveVersionOfDeletedItem() {
+		Item saved = itemStore().save(MockObjects.item(null));
+
+		itemStore().deleteById(saved.getId(), 1L);
+		itemStore().save(MockObjects.item(saved.getId()).setVersion(saved.getVersion()));
+	}
+
+	@Test
+	public void testSaveUnknownIdCreatesItem() {
+		Item saved = itemStore().save(MockObjects.item(Long.MAX_VALUE));
+
+		assertTrue(itemStore().findById(saved.getId()).isPresent());
+		assertFalse(itemStore().findById(Long.MAX_VALUE).isPresent());
+	}
+
+	@Test
+	public void testSaveAll() {
+		List<Item> saved = itemStore().saveAll(Arrays.asList(MockObjects.item(null).setTitle("first"),
+				MockObjects.item(null).setTitle("second")));
+
+		assertEquals(Arrays.asList("first", "second"),
+				saved.stream().map(Item::getTitle).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testFindByIdNotFound() {
+		assertFalse(itemStore().findById(Long.MAX_VALUE).isPresent());
+	}
+
+	@Test
+	public void testFindAll() {
+		List<Item> saved = saveItems(3);
+
+		assertEquals(saved, itemStore().findAll());
+	}
+
+	@Test
+	public void testFindAllById() {
+		List<Item> saved = saveItems(3);
+
+		List<Item> found = itemStore().findAllById(Arrays.asList(saved.get(0).getId(), Long.MAX_VALUE));
+
+		assertEquals(Collections.singletonList(saved.get(0)), found);
+	}
+
+	@Test
+	public void testFindPage() {
+		List<Item> saved = saveItems(5);
+
+		itemStore().deleteById(saved.get(2).getId(), 1L);
+
+		assertEquals(Arrays.asList(saved.get(0), saved.get(1)), itemStore().findPage(0L, 2));
+		assertEquals(Arrays.asList(saved.get(3), saved.get(4)), itemStore().findPage(saved.get(1).getId(), 2));
+		assertEquals(Collections.emptyList(), itemStore().findPage(saved.get(4).getId(), 2));
+	}
+
+	@Test
+	public void testSearch() {
+		Item milk = itemStore().save(Item.builder().title("Buy milk").description("Whole, not skimmed").build());
+		Item shake = itemStore().save(Item.builder().title("Milkshake").build());
+
+		itemStore().save(Item.builder().title("Walk the dog").description("Around the block").build());
+
+		assertEquals(Arrays.asList(milk, shake), itemStore().search(Collections.singletonList("milk"), 0L, 10));
+		assertEquals(Collections.singletonList(milk), itemStore().search(Arrays.asList("milk", "whole"), 0L, 10));
+		assertEquals(Collections.singletonList(shake), itemStore().search(Collections.singletonList("milk"), 1L, 10));
+		assertEquals(Collections.emptyList(), itemStore().search(Arrays.asList("milk", "dog"), 0L, 10));
+	}
+
+	@Test
+	public void testFindItems() {
+		Item milk = itemStore().save(Item.builder().title("Buy milk").description("Whole").build());
+		Item bread = itemStore().save(Item.builder().title("Buy bread").build());
+		Item dog = itemStore().save(Item.builder().title("Walk the dog").build());
+		Item sale = itemStore().save(Item.builder().title("50% off").build());
+
+		itemStore().save(Item.builder().title("50 of them").build());
+
+		assertEquals(Arrays.asList(milk, bread), itemStore().findItems(ItemQuery.builder().titlePrefix("Buy")
+				.limit(10).build()));
+		assertEquals(Collections.singletonList(sale), itemStore().findItems(ItemQuery.builder().titlePrefix("50%")
+				.limit(10).build()));
+		assertEquals(Arrays.asList(dog, milk), itemStore().findItems(ItemQuery.builder()
+				.order(ItemQuery.Order.TITLE_DESC).limit(2).build()));
+		assertEquals(Collections.singletonList(bread), itemStore().findItems(ItemQuery.builder().titlePrefix("Buy")
+				.order(ItemQuery.Order.TITLE).offset(0).limit(1).build()));
+		assertEquals(Arrays.asList(bread, milk), itemStore().findItems(ItemQuery.builder()
+				.order(ItemQuery.Order.ID_DESC).after(dog.getId()).limit(2).build()));
+	}
+
+	@Test
+	public void testFindItemsProjected() {
+		Item milk = itemStore().save(Item.builder().title("Buy milk").description("Whole").build());
+
+		assertEquals(Collections.singletonList(Item.builder().id(milk.getId()).title("Buy milk").build()),
+				itemStore().findItems(ItemQuery.builder().fields(EnumSet.of(ItemQuery.Field.TITLE)).limit(10)
+						.build()));
+	}
+
+	@Test
+	public void testFindItemsOfList() {
+		Item first = itemStore().save(Item.builder().listId(1L).title("first").build());
+		itemStore().save(Item.builder().listId(2L).title("other").build());
+		itemStore().save(Item.builder().title("none").build());
+		Item second = itemStore().save(Item.builder().listId(1L).title("second").build());
+
+		assertEquals(Long.valueOf(1L), itemStore().findById(first.getId()).get().getListId());
+		assertEquals(Arrays.asList(first.getId(), second.getId()),
+				ids(itemStore().findItems(ItemQuery.builder().listId(1L).limit(10).build())));
+		assertEquals(Collections.singletonList(second.getId()),
+				ids(itemStore().findItems(ItemQuery.builder().listId(1L).after(first.getId()).limit(10).build())));
+	}
+
+	@Test
+	public void testDeleteById() {
+		Item saved = itemStore().save(MockObjects.item(null));
+
+		itemStore().deleteById(saved.getId(), 1L);
+
+		assertFalse(itemStore().findById(saved.getId()).isPresent());
+	}
+
+	@Test(expected = EmptyResultDataAccessException.class)
+	public void testDeleteByIdNotFound() {
+		itemStore().deleteById(Long.MAX_VALUE, 1L);
+	}
+
+	@Test
+	public void testDeleteAll() {
+		List<Item> saved = saveItems(3);
+
+		itemStore().deleteAll(saved.subList(0, 2));
+
+		assertEquals(Collections.singletonList(saved.get(2)), itemStore().findAll());
+	}
+
+	private List<Item> saveItems(int count) {
+		return itemStore().saveAll(Collections.nCopies(count, MockObjects.item(null)).stream()
+				.map(item -> item.toBuilder().build())
+				.collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testFindChanged() {
+		Item first = itemStore().save(MockObjects.item(null).setChangeSeq(1L));
+		Item second = itemStore().save(MockObjects.item(null).setChangeSeq(2L));
+
+		itemStore().save(MockObjects.item(null));
+		itemStore().save(MockObjects.item(first.getId()).setChangeSeq(3L));
+
+		assertEquals(Arrays.asList(second.getId(), first.getId()), ids(itemStore().findChanged(0L, 3L, 10)));
+		assertEquals(Arrays.asList(first.getId()), ids(itemStore().findChanged(2L, 3L, 10)));
+		assertEquals(Arrays.asList(second.getId()), ids(itemStore().findChanged(0L, 2L, 10)));
+		assertEquals(Arrays.asList(second.getId()), ids(itemStore().findChanged(0L, 3L, 1)));
+	}
+
+	@Test
+	public void testDeleteLeavesTombstone() {
+		List<Item> saved = itemStore().saveAll(Arrays.asList(MockObjects.item(null).setChangeSeq(1L),
+				MockObjects.item(null).setChangeSeq(2L), MockObjects.item(null).setChangeSeq(3L)));
+
+		itemStore().deleteById(saved.get(0).getId(), 4L);
+		itemStore().deleteAll(Arrays.asList(saved.get(1).toBuilder().changeSeq(5L).build()));
+
+		assertEquals(Arrays.asList(saved.get(0).getId(), saved.get(1).getId()),
+				itemStore().findTombstones(3L, 5L, 10).stream().map(ItemTombstone::getItemId)
+						.collect(Collectors.toList()));
+		assertEquals(Arrays.asList(saved.get(2).getId()), ids(itemStore().findChanged(0L, 5L, 10)));
+		assertEquals(5L, itemStore().getHighestChangeSeq());
+	}
+
+	@Test
+	public void testCompactTombstones() {
+		Item saved = itemStore().save(MockObjects.item(null).setChangeSeq(1L));
+
+		itemStore().deleteById(saved.getId(), 2L);
+
+		assertEquals(0L, itemStore().compactTombstones(Instant.now().minusSeconds(60)));
+		assertEquals(1, itemStore().findTombstones(0L, 2L, 10).size());
+
+		assertEquals(2L, itemStore().compactTombstones(Instant.now().plusSeconds(60)));
+		assertEquals(2L, itemStore().getCompactedChangeSeq());
+		assertEquals(2L, itemStore().getHighestChangeSeq());
+		assertTrue(itemStore().findTombstones(0L, 2L, 10).isEmpty());
+	}
+
+	private static List<Long> ids(List<Item> items) {
+		return items.stream().map(Item::getId).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.felype.todolist.repository;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.felype.todolist.mock.MockObjects;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.repository.ids.BlockIdGenerator;
+import com.felype.todolist.repository.ids.ItemIdGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// The store behaves the same with IDs reserved in blocks, and its IDs never
+// clash with those Hibernate assigns from the same sequence.
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@Import({ JpaItemStore.class, JpaItemStoreBlockIdTest.BlockIds.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class JpaItemStoreBlockIdTest extends ItemStoreContractTest {
+
+	@Autowired
+	private JpaItemStore itemStore;
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+	@Autowired
+	private ItemTombstoneRepository tombstoneRepository;
+
+	@After
+	public void cleanup() {
+		itemRepository.deleteAll();
+		tombstoneRepository.deleteAll();
+	}
+
+	@Override
+	protected ItemStore itemStore() {
+		return itemStore;
+	}
+
+	@Test
+	public void testIdsApartFromSequenceIds() {
+		Set<Long> ids = new HashSet<>();
+
+		for (int i = 0; i < Item.ID_BLOCK_SIZE * 3; i++) {
+			ids.add(itemStore.save(MockObjects.item(null)).getId());
+			ids.add(itemRepository.save(MockObjects.item(null)).getId());
+		}
+
+		assertEquals(Item.ID_BLOCK_SIZE * 6, ids.size());
+		assertEquals(Item.ID_BLOCK_SIZE * 6, itemRepository.count());
+	}
+
+	/**
+	 * Imported as a bean rather than declared in a configuration, which the
+	 * application would pick up when run from the test classpath.
+	 */
+	static class BlockIds implements ItemIdGenerator {
+
+		private final ItemIdGenerator generator;
+
+		BlockIds(EntityManager entityManager) {
+			generator = BlockIdGenerator.forSequence(entityManager, "item_seq", Item.ID_BLOCK_SIZE,
+					new SimpleMeterRegistry());
+		}
+
+		@Override
+		public long nextId() {
+			return generator.nextId();
+		}
+
+	}
+
+}
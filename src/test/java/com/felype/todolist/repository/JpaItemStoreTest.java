@@ -0,0 +1,92 @@
+package com.felype.todolist.repository;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.felype.todolist.mock.MockObjects;
+import com.felype.todolist.model.Item;
+
+// Each store call runs in its own transaction, as it does when called by the service.
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@Import(JpaItemStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class JpaItemStoreTest extends ItemStoreContractTest {
+
+	@Autowired
+	private JpaItemStore itemStore;
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+	@Autowired
+	private ItemTombstoneRepository tombstoneRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@After
+	public void cleanup() {
+		itemRepository.deleteAll();
+		tombstoneRepository.deleteAll();
+	}
+
+	@Override
+	protected ItemStore itemStore() {
+		return itemStore;
+	}
+
+	@Test
+	public void testSaveWithoutVersionWhileUpdatedConcurrently() throws Exception {
+		long id = itemStore.save(MockObjects.item(null)).getId();
+		CountDownLatch saved = new CountDownLatch(1);
+		CountDownLatch released = new CountDownLatch(1);
+
+		CompletableFuture<Item> first = CompletableFuture.supplyAsync(() -> new TransactionTemplate(transactionManager)
+				.execute(status -> {
+					Item item = itemStore.save(MockObjects.item(id).setTitle("first"));
+
+					saved.countDown();
+					await(released);
+
+					return item;
+				}));
+
+		await(saved);
+
+		// Reads the version while the first update is still uncommitted.
+		CompletableFuture<Item> second = CompletableFuture
+				.supplyAsync(() -> itemStore.save(MockObjects.item(id).setTitle("second")));
+
+		Thread.sleep(200);
+		released.countDown();
+
+		assertEquals(1L, (long) first.get(10, TimeUnit.SECONDS).getVersion());
+		assertEquals(2L, (long) second.get(10, TimeUnit.SECONDS).getVersion());
+		assertEquals("second", itemRepository.findById(id).get().getTitle());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.felype.todolist.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.felype.todolist.mock.MockObjects;
+import com.felype.todolist.model.Item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+// Batches that fail roll back for real here, unlike on the memory engine, and
+// are then written item by item.
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@Import(JpaItemStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class WriteBehindItemStoreJpaTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@Autowired
+	private JpaItemStore store;
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final CountDownLatch entered = new CountDownLatch(1);
+
+	private final CountDownLatch released = new CountDownLatch(1);
+
+	private WriteBehindItemStore itemStore;
+
+	@Before
+	public void setup() {
+		TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+
+		// The first flush waits to be released, so the writes queued meanwhile
+		// make up the next batch together.
+		TransactionOperations gated = new TransactionOperations() {
+
+			@Override
+			public <T> T execute(TransactionCallback<T> action) {
+				entered.countDown();
+
+				try {
+					released.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				return transactions.execute(action);
+			}
+
+		};
+
+		itemStore = new WriteBehindItemStore(new BlockingItemStoreAdapter(store, Schedulers.immediate(), gated), 10,
+				100, Duration.ofHours(1), new SimpleMeterRegistry());
+	}
+
+	@After
+	public void cleanup() throws InterruptedException {
+		itemStore.close();
+		itemRepository.deleteAll();
+	}
+
+	@Test
+	public void testCreatesOfFailedBatchWrittenAlone() throws InterruptedException {
+		Mono<Item> first = itemStore.save(MockObjects.item(null)).cache();
+
+		first.subscribe();
+		assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+		Mono<Item> valid = itemStore.save(MockObjects.item(null).setTitle("valid")).cache();
+		Mono<Item> tooLong = itemStore.save(MockObjects.item(null).setTitle(String.join("",
+				Collections.nCopies(300, "x")))).cache();
+
+		valid.subscribe();
+		tooLong.subscribe(item -> { }, error -> { });
+		released.countDown();
+
+		StepVerifier.create(first).expectNextCount(1).expectComplete().verify(TIMEOUT);
+		StepVerifier.create(valid)
+				.expectNextMatches(item -> item.getId() != null && item.getVersion() == 0L)
+				.expectComplete()
+				.verify(TIMEOUT);
+		StepVerifier.create(tooLong).expectError().verify(TIMEOUT);
+
+		assertEquals(2, itemRepository.count());
+		assertEquals("valid", itemRepository.findById(valid.block().getId()).get().getTitle());
+	}
+
+}
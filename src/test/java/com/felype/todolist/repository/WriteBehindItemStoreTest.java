@@ -0,0 +1,138 @@
+package com.felype.todolist.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.felype.todolist.mock.MockObjects;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.repository.memory.InMemoryItemStore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+public class WriteBehindItemStoreTest {
+
+	private static final int CAPACITY = 3;
+
+	private final InMemoryItemStore store = new InMemoryItemStore();
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private WriteBehindItemStore itemStore;
+
+	private Item stored;
+
+	@Before
+	public void setup() {
+		// Flushed on demand only, by the reads that wait for it.
+		itemStore = new WriteBehindItemStore(
+				new BlockingItemStoreAdapter(store, Schedulers.immediate(), TransactionOperations.withoutTransaction()),
+				CAPACITY, 100, Duration.ofHours(1), meterRegistry);
+		stored = store.save(MockObjects.item(null).setChangeSeq(1L));
+	}
+
+	@After
+	public void close() throws InterruptedException {
+		itemStore.close();
+	}
+
+	@Test
+	public void testUpdateAcknowledgedBeforeFlush() {
+		Item saved = itemStore.save(update("queued", null, 2L)).block();
+
+		assertEquals(stored.getVersion() + 1, (long) saved.getVersion());
+		assertEquals("title", store.findById(stored.getId()).get().getTitle());
+		assertEquals(1.0, meterRegistry.get("todolist.write_behind.depth").gauge().value(), 0.0);
+
+		StepVerifier.create(itemStore.findById(stored.getId()))
+				.expectNextMatches(item -> "queued".equals(item.getTitle()))
+				.verifyComplete();
+	}
+
+	@Test
+	public void testReadWaitsForFlush() {
+		itemStore.save(update("first", null, 2L)).block();
+		itemStore.save(update("second", null, 3L)).block();
+
+		StepVerifier.create(itemStore.findAll())
+				.expectNextMatches(item -> "second".equals(item.getTitle())
+						&& item.getVersion() == stored.getVersion() + 2)
+				.verifyComplete();
+
+		assertEquals(3L, (long) store.findById(stored.getId()).get().getChangeSeq());
+		assertEquals(0.0, meterRegistry.get("todolist.write_behind.depth").gauge().value(), 0.0);
+		assertEquals(2L, meterRegistry.get("todolist.write_behind.lag").timer().count());
+	}
+
+	@Test
+	public void testDeleteCancelsQueuedUpdates() {
+		itemStore.save(update("first", null, 2L)).block();
+		itemStore.deleteById(stored.getId(), 3L).block();
+
+		StepVerifier.create(itemStore.findById(stored.getId())).verifyComplete();
+		StepVerifier.create(itemStore.findTombstones(0L, 10L, 10))
+				.expectNextMatches(tombstone -> tombstone.getItemId().equals(stored.getId()))
+				.verifyComplete();
+
+		assertEquals(1L, meterRegistry.get("todolist.write_behind.lag").timer().count());
+		assertFalse(store.findById(stored.getId()).isPresent());
+	}
+
+	@Test
+	public void testCreateAcknowledgedOnceCommitted() {
+		Item saved = itemStore.save(MockObjects.item(null)).block();
+
+		assertNotNull(saved.getId());
+		assertTrue(store.findById(saved.getId()).isPresent());
+	}
+
+	@Test
+	public void testStaleVersionRejected() {
+		StepVerifier.create(itemStore.save(update("stale", stored.getVersion() + 1, 2L)))
+				.verifyError(OptimisticLockingFailureException.class);
+
+		assertEquals(0.0, meterRegistry.get("todolist.write_behind.depth").gauge().value(), 0.0);
+	}
+
+	@Test
+	public void testDeleteMissingItem() {
+		itemStore.deleteById(stored.getId(), 2L).block();
+
+		StepVerifier.create(itemStore.deleteById(stored.getId(), 3L))
+				.verifyError(EmptyResultDataAccessException.class);
+	}
+
+	@Test
+	public void testFullQueueRejectsWrites() {
+		for (int i = 0; i < CAPACITY; i++) {
+			itemStore.save(update("queued", null, 2L + i)).block();
+		}
+
+		StepVerifier.create(itemStore.save(update("rejected", null, 10L)))
+				.verifyError(RejectedExecutionException.class);
+
+		assertEquals(1.0, meterRegistry.get("todolist.write_behind.rejected").counter().count(), 0.0);
+		assertEquals(1, itemStore.findAllById(Collections.singletonList(stored.getId())).count().block().intValue());
+		assertEquals(stored.getVersion() + CAPACITY, (long) store.findById(stored.getId()).get().getVersion());
+	}
+
+	private Item update(String title, Long version, long changeSeq) {
+		return stored.toBuilder().title(title).version(version).changeSeq(changeSeq).build();
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.felype.todolist.repository.ids;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BlockIdGeneratorTest {
+
+	private static final int BLOCK_SIZE = 50;
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	/**
+	 * Steps by the block size from 1, as {@code item_seq} does.
+	 */
+	private final AtomicLong sequence = new AtomicLong(1 - BLOCK_SIZE);
+
+	private final BlockIdGenerator generator = new BlockIdGenerator(() -> sequence.addAndGet(BLOCK_SIZE),
+			BLOCK_SIZE, meterRegistry);
+
+	@Test
+	public void testIdsFromSequenceValueUp() {
+		for (long expected = 1; expected <= 120; expected++) {
+			assertEquals(expected, generator.nextId());
+		}
+
+		assertEquals(3.0, reservations(), 0.0);
+	}
+
+	@Test
+	public void testBlocksOfOtherNodesSkipped() {
+		assertEquals(1, generator.nextId());
+
+		// Reserved by another node meanwhile.
+		sequence.addAndGet(BLOCK_SIZE);
+
+		for (int i = 2; i <= BLOCK_SIZE; i++) {
+			generator.nextId();
+		}
+
+		assertEquals(101, generator.nextId());
+	}
+
+	@Test
+	public void testConcurrentIdsUnique() throws Exception {
+		int threads = 8;
+		int perThread = 10000;
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> done = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < threads; i++) {
+				done.add(executor.submit(() -> {
+					for (int j = 0; j < perThread; j++) {
+						ids.add(generator.nextId());
+					}
+				}));
+			}
+
+			for (Future<?> future : done) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(threads * perThread, ids.size());
+		assertEquals(threads * perThread / BLOCK_SIZE, reservations(), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBlockSizeMustBePositive() {
+		new BlockIdGenerator(sequence::get, 0, meterRegistry);
+	}
+
+	private double reservations() {
+		return meterRegistry.get(BlockIdGenerator.METRIC_PREFIX + ".reservations").counter().count();
+	}
+
+}
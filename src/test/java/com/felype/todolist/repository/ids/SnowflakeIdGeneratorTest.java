@@ -0,0 +1,73 @@
+package com.felype.todolist.repository.ids;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class SnowflakeIdGeneratorTest {
+
+	private static final long NOW = SnowflakeIdGenerator.EPOCH.toEpochMilli() + 1000;
+
+	private final AtomicLong clock = new AtomicLong(NOW);
+
+	@Test
+	public void testIdsCarryTimeAndNode() {
+		long id = new SnowflakeIdGenerator(5, clock::get).nextId();
+
+		assertEquals(NOW, SnowflakeIdGenerator.timestamp(id).toEpochMilli());
+		assertEquals(5, id >>> 12 & 1023);
+		assertTrue(id > 0);
+	}
+
+	@Test
+	public void testIdsGrowWithinMillisecond() {
+		SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, clock::get);
+		long first = generator.nextId();
+
+		assertEquals(first + 1, generator.nextId());
+	}
+
+	@Test
+	public void testFullMillisecondBorrowsNext() {
+		SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, clock::get);
+		long last = 0;
+
+		for (int i = 0; i < 4096; i++) {
+			last = generator.nextId();
+		}
+
+		long borrowed = generator.nextId();
+
+		assertEquals(NOW, SnowflakeIdGenerator.timestamp(last).toEpochMilli());
+		assertEquals(NOW + 1, SnowflakeIdGenerator.timestamp(borrowed).toEpochMilli());
+		assertTrue(borrowed > last);
+	}
+
+	@Test
+	public void testIdsGrowWhenClockSetBack() {
+		SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, clock::get);
+		long before = generator.nextId();
+
+		clock.addAndGet(-10000);
+
+		assertTrue(generator.nextId() > before);
+	}
+
+	@Test
+	public void testNodesNeverCollide() {
+		long first = new SnowflakeIdGenerator(1, clock::get).nextId();
+		long second = new SnowflakeIdGenerator(2, clock::get).nextId();
+
+		assertNotEquals(first, second);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNodeIdOutOfRange() {
+		new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1);
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.felype.todolist.repository.memory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.felype.todolist.mock.MockObjects;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.repository.ItemStore;
+import com.felype.todolist.repository.ItemStoreContractTest;
+
+public class InMemoryItemStoreTest extends ItemStoreContractTest {
+
+	private InMemoryItemStore itemStore;
+
+	@Before
+	public void setup() {
+		itemStore = new InMemoryItemStore();
+	}
+
+	@Override
+	protected ItemStore itemStore() {
+		return itemStore;
+	}
+
+	@Test
+	public void testStoredItemIsCopied() {
+		Item item = MockObjects.item(null);
+		Item saved = itemStore.save(item);
+
+		item.setTitle("changed");
+
+		assertEquals("title", itemStore.findById(saved.getId()).get().getTitle());
+	}
+
+	@Test
+	public void testManyItems() {
+		for (int i = 0; i < 10000; i++) {
+			itemStore.save(MockObjects.item(null));
+		}
+
+		for (long id = 1; id <= 10000; id += 2) {
+			itemStore.deleteById(id, 1L);
+		}
+
+		assertEquals(5000, itemStore.findAll().size());
+		assertEquals(10000L, (long) itemStore.findPage(9998L, 10).get(0).getId());
+	}
+
+	@Test
+	public void testPageAfterMassDelete() {
+		for (int i = 0; i < 10000; i++) {
+			itemStore.save(MockObjects.item(null));
+		}
+
+		for (long id = 1; id < 10000; id++) {
+			itemStore.deleteById(id, 1L);
+		}
+
+		itemStore.save(MockObjects.item(null));
+
+		assertEquals(Arrays.asList(10000L, 10001L), ids(itemStore.findPage(0L, 10)));
+		assertEquals(Arrays.asList(10001L), ids(itemStore.findPage(10000L, 10)));
+		assertEquals(Arrays.asList(10000L, 10001L), ids(itemStore.findAll()));
+	}
+
+	@Test
+	public void testConcurrentWrites() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		for (int thread = 0; thread < 8; thread++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 1000; i++) {
+					Item saved = itemStore.save(MockObjects.item(null));
+
+					if (i % 2 == 0) {
+						itemStore.deleteById(saved.getId(), 1L);
+					}
+				}
+			});
+		}
+
+		executor.shutdown();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+
+		assertEquals(4000, itemStore.findAll().size());
+	}
+
+	private static List<Long> ids(List<Item> items) {
+		return items.stream().map(Item::getId).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,204 @@
+package com.felype.todolist.repository.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.felype.todolist.mock.MockObjects;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemTombstone;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ItemJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path directory;
+
+	private ItemJournal journal;
+
+	@Before
+	public void setup() throws IOException {
+		directory = folder.getRoot().toPath();
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		if (journal != null) {
+			journal.close();
+		}
+	}
+
+	@Test
+	public void testRecoverFromLog() throws IOException {
+		InMemoryItemStore store = open();
+		Item first = store.save(MockObjects.item(null).setDescription("description"));
+		Item second = store.save(MockObjects.item(null));
+
+		Item updated = store.save(first.toBuilder().title("updated").build());
+		store.deleteById(second.getId(), 1L);
+
+		InMemoryItemStore recovered = reopen();
+
+		assertEquals(Arrays.asList(updated), recovered.findAll());
+		assertEquals(1L, (long) updated.getVersion());
+		assertEquals(3L, (long) recovered.save(MockObjects.item(null)).getId());
+	}
+
+	@Test
+	public void testRecoverFromSnapshotAndLog() throws IOException {
+		InMemoryItemStore store = open();
+		List<Item> saved = store.saveAll(Arrays.asList(MockObjects.item(null), MockObjects.item(null)));
+
+		store.snapshot();
+		store.deleteById(saved.get(0).getId(), 1L);
+		Item third = store.save(MockObjects.item(null));
+
+		assertEquals(Arrays.asList("items-0000000000000000002.log", "items-0000000000000000002.snapshot"),
+				files());
+
+		InMemoryItemStore recovered = reopen();
+
+		assertEquals(Arrays.asList(saved.get(1), third), recovered.findAll());
+	}
+
+	@Test
+	public void testRecoverChanges() throws IOException {
+		InMemoryItemStore store = open();
+		List<Item> saved = store.saveAll(Arrays.asList(MockObjects.item(null).setChangeSeq(1L),
+				MockObjects.item(null).setChangeSeq(2L), MockObjects.item(null).setChangeSeq(3L)));
+
+		store.deleteById(saved.get(0).getId(), 4L);
+		store.compactTombstones(Instant.now().plusSeconds(60));
+		store.snapshot();
+		store.deleteById(saved.get(1).getId(), 5L);
+
+		InMemoryItemStore recovered = reopen();
+
+		assertEquals(Arrays.asList(saved.get(2)), recovered.findChanged(0L, 5L, 10));
+		assertEquals(Arrays.asList(saved.get(1).getId()), recovered.findTombstones(0L, 5L, 10).stream()
+				.map(ItemTombstone::getItemId).collect(Collectors.toList()));
+		assertEquals(4L, recovered.getCompactedChangeSeq());
+		assertEquals(5L, recovered.getHighestChangeSeq());
+	}
+
+	@Test
+	public void testRecoverTruncatesTornRecord() throws IOException {
+		InMemoryItemStore store = open();
+		Item saved = store.save(MockObjects.item(null));
+
+		journal.close();
+		journal = null;
+
+		Path log = directory.resolve("items-0000000000000000001.log");
+		long intactSize = Files.size(log);
+
+		try (FileChannel channel = FileChannel.open(log, StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 40, 1, 2, 3 }));
+		}
+
+		InMemoryItemStore recovered = open();
+
+		assertEquals(Arrays.asList(saved), recovered.findAll());
+		assertEquals(intactSize, Files.size(log));
+		assertFalse(recovered.findById(2L).isPresent());
+	}
+
+	@Test
+	public void testFailedWritesTakenBack() throws IOException {
+		InMemoryItemStore store = open();
+		Item saved = store.save(MockObjects.item(null).setChangeSeq(1L));
+
+		journal.close();
+
+		assertFails(() -> store.save(saved.toBuilder().title("updated").changeSeq(2L).build()));
+		assertFails(() -> store.save(MockObjects.item(null).setChangeSeq(3L)));
+		assertFails(() -> store.deleteById(saved.getId(), 4L));
+
+		assertEquals(Arrays.asList(saved), store.findAll());
+		assertEquals(Arrays.asList(saved), store.findChanged(0L, 4L, 10));
+		assertTrue(store.findTombstones(0L, 4L, 10).isEmpty());
+	}
+
+	@Test
+	public void testWritesWhileClosingNeverHang() throws Exception {
+		InMemoryItemStore store = open();
+		ExecutorService writers = Executors.newFixedThreadPool(4);
+		List<CompletableFuture<Void>> writes = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < 200; i++) {
+				writes.add(CompletableFuture.runAsync(() -> store.save(MockObjects.item(null)), writers));
+			}
+
+			journal.close();
+
+			for (CompletableFuture<Void> write : writes) {
+				try {
+					write.get(10, TimeUnit.SECONDS);
+				} catch (ExecutionException e) {
+					// Refused once closed, which is fine as long as it is answered.
+				}
+			}
+		} finally {
+			writers.shutdownNow();
+		}
+	}
+
+	private static void assertFails(Runnable write) {
+		try {
+			write.run();
+			fail("Expected the write to fail.");
+		} catch (CompletionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	private InMemoryItemStore open() throws IOException {
+		journal = new ItemJournal(directory, new SimpleMeterRegistry());
+
+		return new InMemoryItemStore(Optional.of(journal));
+	}
+
+	private InMemoryItemStore reopen() throws IOException {
+		journal.close();
+
+		return open();
+	}
+
+	private List<String> files() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+		}
+	}
+
+}
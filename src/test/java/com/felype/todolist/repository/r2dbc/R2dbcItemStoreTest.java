@@ -0,0 +1,179 @@
+package com.felype.todolist.repository.r2dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.connectionfactory.R2dbcTransactionManager;
+import org.springframework.data.r2dbc.connectionfactory.init.ResourceDatabasePopulator;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+
+import com.felype.todolist.mock.MockObjects;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemTombstone;
+import com.felype.todolist.repository.ItemQuery;
+import com.felype.todolist.repository.ItemStore;
+import com.felype.todolist.repository.ItemStoreContractTest;
+import com.felype.todolist.repository.ids.SnowflakeIdGenerator;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+public class R2dbcItemStoreTest extends ItemStoreContractTest {
+
+	private ConnectionFactory connectionFactory;
+
+	private R2dbcItemStore itemStore;
+
+	@Before
+	public void setup() {
+		connectionFactory = ConnectionFactories
+				.get("r2dbc:h2:mem:///" + UUID.randomUUID() + "?options=DB_CLOSE_DELAY=-1");
+
+		new ResourceDatabasePopulator(new ClassPathResource("schema-r2dbc.sql")).execute(connectionFactory).block();
+
+		itemStore = new R2dbcItemStore(DatabaseClient.create(connectionFactory),
+				new R2dbcTransactionManager(connectionFactory));
+	}
+
+	@Test
+	public void testSaveWithGeneratedIds() {
+		R2dbcItemStore generated = new R2dbcItemStore(DatabaseClient.create(connectionFactory),
+				new R2dbcTransactionManager(connectionFactory), Optional.of(new SnowflakeIdGenerator(7)));
+		Item saved = generated.save(MockObjects.item(null)).block();
+
+		assertTrue(saved.getId() > 1L << 53);
+		assertEquals(saved, generated.findById(saved.getId()).block());
+		assertTrue(generated.save(MockObjects.item(null)).block().getId() > saved.getId());
+	}
+
+	@Test
+	public void testSaveWithoutVersionWhileUpdatedConcurrently() throws Exception {
+		long id = itemStore.save(MockObjects.item(null)).block().getId();
+		CountDownLatch saved = new CountDownLatch(1);
+		CountDownLatch released = new CountDownLatch(1);
+
+		CompletableFuture<Item> first = itemStore.inTransaction(store -> store
+				.save(MockObjects.item(id).setTitle("first"))
+				.flatMap(item -> Mono.fromCallable(() -> {
+					saved.countDown();
+					released.await(10, TimeUnit.SECONDS);
+
+					return item;
+				}).subscribeOn(Schedulers.elastic())))
+				.toFuture();
+
+		assertTrue(saved.await(10, TimeUnit.SECONDS));
+
+		// Reads the version while the first update is still uncommitted.
+		CompletableFuture<Item> second = itemStore.save(MockObjects.item(id).setTitle("second"))
+				.subscribeOn(Schedulers.elastic())
+				.toFuture();
+
+		Thread.sleep(200);
+		released.countDown();
+
+		assertEquals(1L, (long) first.get(10, TimeUnit.SECONDS).getVersion());
+		assertEquals(2L, (long) second.get(10, TimeUnit.SECONDS).getVersion());
+		assertEquals("second", itemStore.findById(id).block().getTitle());
+	}
+
+	/**
+	 * The contract is written against the blocking interface, so every call is
+	 * waited for.
+	 */
+	@Override
+	protected ItemStore itemStore() {
+		return new ItemStore() {
+
+			@Override
+			public Item save(Item item) {
+				return itemStore.save(item).block();
+			}
+
+			@Override
+			public List<Item> saveAll(Iterable<Item> items) {
+				return itemStore.saveAll(items).collectList().block();
+			}
+
+			@Override
+			public Optional<Item> findById(long id) {
+				return itemStore.findById(id).blockOptional();
+			}
+
+			@Override
+			public List<Item> findAll() {
+				return itemStore.findAll().collectList().block();
+			}
+
+			@Override
+			public List<Item> findAllById(Iterable<Long> ids) {
+				return itemStore.findAllById(ids).collectList().block();
+			}
+
+			@Override
+			public List<Item> findPage(long after, int limit) {
+				return itemStore.findPage(after, limit).collectList().block();
+			}
+
+			@Override
+			public List<Item> findItems(ItemQuery query) {
+				return itemStore.findItems(query).collectList().block();
+			}
+
+			@Override
+			public List<Item> search(List<String> terms, long offset, int limit) {
+				return itemStore.search(terms, offset, limit).collectList().block();
+			}
+
+			@Override
+			public void deleteById(long id, long changeSeq) {
+				itemStore.deleteById(id, changeSeq).block();
+			}
+
+			@Override
+			public void deleteAll(Iterable<Item> items) {
+				itemStore.deleteAll(items).block();
+			}
+
+			@Override
+			public List<Item> findChanged(long since, long upTo, int limit) {
+				return itemStore.findChanged(since, upTo, limit).collectList().block();
+			}
+
+			@Override
+			public List<ItemTombstone> findTombstones(long since, long upTo, int limit) {
+				return itemStore.findTombstones(since, upTo, limit).collectList().block();
+			}
+
+			@Override
+			public long getHighestChangeSeq() {
+				return itemStore.getHighestChangeSeq().block();
+			}
+
+			@Override
+			public long getCompactedChangeSeq() {
+				return itemStore.getCompactedChangeSeq().block();
+			}
+
+			@Override
+			public long compactTombstones(Instant deletedBefore) {
+				return itemStore.compactTombstones(deletedBefore).block();
+			}
+
+		};
+	}
+
+}
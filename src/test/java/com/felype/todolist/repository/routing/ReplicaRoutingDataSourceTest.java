@@ -0,0 +1,116 @@
+package com.felype.todolist.repository.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.util.context.Context;
+
+public class ReplicaRoutingDataSourceTest {
+
+	private static final Context REPLICA = ReplicaRoute.with(Context.empty(), true);
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private ReplicaRoutingDataSource dataSource;
+
+	@After
+	public void close() throws Exception {
+		dataSource.close();
+	}
+
+	@Test
+	public void testUnmarkedReadsGoToPrimary() throws Exception {
+		dataSource = routing(h2("replica-a"));
+
+		assertEquals("primary", database(Context.empty()));
+		assertEquals("primary", database(ReplicaRoute.with(Context.empty(), false)));
+		assertEquals(2.0, connections("primary"), 0.0);
+	}
+
+	@Test
+	public void testReplicasTakeTurns() throws Exception {
+		dataSource = routing(h2("replica-a"), h2("replica-b"));
+
+		assertEquals("replica-a", database(REPLICA));
+		assertEquals("replica-b", database(REPLICA));
+		assertEquals("replica-a", database(REPLICA));
+		assertEquals(2.0, connections("replica-0"), 0.0);
+		assertEquals(1.0, connections("replica-1"), 0.0);
+	}
+
+	@Test
+	public void testUnavailableReplicaEjected() throws Exception {
+		DataSource failing = mock(DataSource.class);
+		SQLException down = new SQLException("down");
+
+		when(failing.getConnection()).thenReturn(h2("replica-a").getConnection()).thenThrow(down);
+		dataSource = routing(failing);
+
+		assertEquals("primary", database(REPLICA));
+		assertEquals("primary", database(REPLICA));
+		assertEquals(Collections.emptyList(), dataSource.getHealthyReplicas());
+		assertEquals(1.0, meterRegistry.get("todolist.datasource.ejections").tag("datasource", "replica-0")
+				.counter().count(), 0.0);
+		assertEquals(0.0, meterRegistry.get("todolist.datasource.healthy").tag("datasource", "replica-0")
+				.gauge().value(), 0.0);
+	}
+
+	@Test
+	public void testReplicaTakenBackOnceHealthy() throws Exception {
+		DataSource flaky = mock(DataSource.class);
+		JdbcDataSource replica = h2("replica-a");
+
+		when(flaky.getConnection()).thenThrow(new SQLException("down"))
+				.thenAnswer(invocation -> replica.getConnection());
+		dataSource = routing(flaky);
+
+		assertEquals(Collections.emptyList(), dataSource.getHealthyReplicas());
+		assertEquals("primary", database(REPLICA));
+
+		dataSource.checkHealth();
+
+		assertEquals(Collections.singletonList("replica-0"), dataSource.getHealthyReplicas());
+		assertEquals("replica-a", database(REPLICA));
+	}
+
+	private ReplicaRoutingDataSource routing(DataSource... replicas) {
+		return new ReplicaRoutingDataSource(h2("primary"), Arrays.asList(replicas), Duration.ofHours(1),
+				meterRegistry);
+	}
+
+	private String database(Context context) throws Exception {
+		try (Connection connection = ReplicaRoute.call(context, dataSource::getConnection)) {
+			String url = connection.getMetaData().getURL();
+
+			return url.substring(url.lastIndexOf(':') + 1);
+		}
+	}
+
+	private double connections(String name) {
+		return meterRegistry.get("todolist.datasource.connections").tag("datasource", name).counter().count();
+	}
+
+	private static JdbcDataSource h2(String name) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+
+		dataSource.setURL("jdbc:h2:mem:" + name);
+
+		return dataSource;
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.felype.todolist.repository.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TableCopyReplicationTest {
+
+	private final JdbcDataSource primary = h2("copy-primary");
+
+	private final JdbcDataSource replica = h2("copy-replica");
+
+	private TableCopyReplication replication;
+
+	@Before
+	public void setup() throws SQLException {
+		execute(primary, "CREATE TABLE item (id BIGINT PRIMARY KEY, title VARCHAR(255))");
+		execute(primary, "INSERT INTO item VALUES (1, 'first')");
+
+		replication = new TableCopyReplication(primary, Collections.singletonList(replica), Duration.ofHours(1));
+	}
+
+	@After
+	public void close() throws SQLException {
+		replication.close();
+		execute(primary, "DROP ALL OBJECTS");
+		execute(replica, "DROP ALL OBJECTS");
+	}
+
+	@Test
+	public void testSchemaAndRowsCopiedOnStart() throws SQLException {
+		assertEquals("first", title(1L));
+	}
+
+	@Test
+	public void testChangesCopied() throws SQLException {
+		execute(primary, "UPDATE item SET title = 'updated' WHERE id = 1");
+		execute(primary, "INSERT INTO item VALUES (2, 'second')");
+
+		assertEquals("first", title(1L));
+
+		replication.copy();
+
+		assertEquals("updated", title(1L));
+		assertEquals("second", title(2L));
+	}
+
+	@Test
+	public void testDeletesCopied() throws SQLException {
+		execute(primary, "DELETE FROM item");
+		replication.copy();
+
+		assertNull(title(1L));
+	}
+
+	private String title(long id) throws SQLException {
+		try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement();
+				ResultSet rows = statement.executeQuery("SELECT title FROM item WHERE id = " + id)) {
+			return rows.next() ? rows.getString(1) : null;
+		}
+	}
+
+	private static void execute(JdbcDataSource dataSource, String sql) throws SQLException {
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private static JdbcDataSource h2(String name) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+
+		dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+
+		return dataSource;
+	}
+
+}
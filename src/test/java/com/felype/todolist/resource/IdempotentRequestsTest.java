@@ -0,0 +1,119 @@
+package com.felype.todolist.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.exception.InvalidRequestException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+public class IdempotentRequestsTest {
+
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private IdempotentRequests idempotentRequests = new IdempotentRequests(new ToDoListProperties(), meterRegistry);
+
+	private AtomicInteger calls = new AtomicInteger();
+
+	@Test
+	public void testRetryReplaysResponse() {
+		ResponseEntity<String> first = execute("key", "body", Mono.just("created")).block();
+		ResponseEntity<String> retry = execute("key", "body", Mono.just("created again")).block();
+
+		assertEquals(1, calls.get());
+		assertNull(first.getHeaders().getFirst(IdempotentRequests.REPLAYED));
+		assertEquals("created", retry.getBody());
+		assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+		assertEquals("true", retry.getHeaders().getFirst(IdempotentRequests.REPLAYED));
+		assertEquals(1.0, count("replayed"), 0.0);
+	}
+
+	@Test
+	public void testConcurrentRetryWaitsForOriginal() {
+		MonoProcessor<String> original = MonoProcessor.create();
+
+		StepVerifier first = StepVerifier.create(execute("key", "body", original))
+				.expectNextMatches(response -> response.getBody().equals("created"))
+				.expectComplete()
+				.verifyLater();
+		StepVerifier retry = StepVerifier.create(execute("key", "body", Mono.just("created again")))
+				.expectNextMatches(response -> response.getBody().equals("created"))
+				.expectComplete()
+				.verifyLater();
+
+		original.onNext("created");
+
+		first.verify();
+		retry.verify();
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void testFailureNotKept() {
+		StepVerifier.create(execute("key", "body", Mono.error(new IllegalStateException())))
+				.expectError(IllegalStateException.class)
+				.verify();
+
+		assertEquals("created", execute("key", "body", Mono.just("created")).block().getBody());
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void testKeyReusedWithAnotherBody() {
+		execute("key", "body", Mono.just("created")).block();
+
+		StepVerifier.create(execute("key", "another body", Mono.just("created")))
+				.expectError(InvalidRequestException.class)
+				.verify();
+		assertEquals(1.0, count("mismatched"), 0.0);
+	}
+
+	@Test
+	public void testKeysScopedToPath() {
+		execute("key", "body", Mono.just("created")).block();
+		idempotentRequests.execute("key", "POST", "/other", "body", () -> handle(Mono.just("other"))).block();
+
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void testWithoutKey() {
+		execute(null, "body", Mono.just("created")).block();
+		execute(null, "body", Mono.just("created")).block();
+
+		assertEquals(2, calls.get());
+		assertEquals(0.0, count("executed"), 0.0);
+	}
+
+	@Test
+	public void testInvalidKey() {
+		StepVerifier.create(execute("", "body", Mono.just("created")))
+				.expectError(InvalidRequestException.class)
+				.verify();
+	}
+
+	private Mono<ResponseEntity<String>> execute(String key, Object body, Mono<String> result) {
+		return idempotentRequests.execute(key, "POST", "/items", body, () -> handle(result));
+	}
+
+	private Mono<ResponseEntity<String>> handle(Mono<String> result) {
+		calls.incrementAndGet();
+
+		return result.map(value -> ResponseEntity.status(HttpStatus.CREATED).body(value));
+	}
+
+	private double count(String outcome) {
+		return meterRegistry.get(IdempotentRequests.COUNTER_NAME).tag("outcome", outcome).counter().count();
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.felype.todolist.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.repository.routing.ReplicaRoute;
+import com.felype.todolist.service.ReplicaReads;
+
+import reactor.core.publisher.Mono;
+
+public class ReplicaReadsFilterTest {
+
+	private ToDoListProperties properties = new ToDoListProperties();
+
+	private ReplicaReads replicaReads;
+
+	private ReplicaReadsFilter filter;
+
+	@Before
+	public void setup() {
+		properties.getReplicas().setEnabled(true);
+		properties.getReplicas().setReadYourWritesWindow(Duration.ofHours(1));
+		replicaReads = new ReplicaReads(properties);
+		filter = new ReplicaReadsFilter(replicaReads, properties);
+	}
+
+	@Test
+	public void testReadsFromReplica() throws Exception {
+		assertTrue(replicaAllowed(request("GET", "a")));
+	}
+
+	@Test
+	public void testWriterReadsFromPrimary() throws Exception {
+		replicaAllowed(request("PUT", "a"));
+
+		assertFalse(replicaAllowed(request("GET", "a")));
+		assertTrue(replicaAllowed(request("GET", "b")));
+	}
+
+	@Test
+	public void testClientClearedAfterRequest() throws Exception {
+		replicaAllowed(request("GET", "a"));
+
+		assertEquals(Boolean.FALSE, route().block());
+	}
+
+	/**
+	 * Whether the read the service would build while handling the request may go
+	 * to a replica.
+	 */
+	private boolean replicaAllowed(MockHttpServletRequest request) throws Exception {
+		AtomicReference<Mono<Boolean>> read = new AtomicReference<>();
+
+		filter.doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse) -> read.set(route()));
+
+		return read.get().block();
+	}
+
+	private Mono<Boolean> route() {
+		return Mono.subscriberContext().map(ReplicaRoute::isAllowed).transform(replicaReads.forClient());
+	}
+
+	private static MockHttpServletRequest request(String method, String apiKey) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, "/items");
+
+		request.addHeader("X-API-Key", apiKey);
+
+		return request;
+	}
+
+}
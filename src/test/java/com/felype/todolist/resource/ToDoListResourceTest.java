@@ -1,31 +1,97 @@
 package com.felype.todolist.resource;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
 import org.springframework.test.web.reactive.server.WebTestClient;
-
+import org.springframework.util.StreamUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.exception.ChangesExpiredException;
+import com.felype.todolist.exception.InvalidRequestException;
 import com.felype.todolist.exception.ItemNotFoundException;
+import com.felype.todolist.exception.NotFoundException;
+import com.felype.todolist.exception.PreconditionFailedException;
+import com.felype.todolist.exception.ServiceUnavailableException;
 import com.felype.todolist.mock.MockObjects;
+import com.felype.todolist.model.BatchItemResult;
+import com.felype.todolist.model.BatchResult;
+import com.felype.todolist.model.ErrorResponse;
+import com.felype.todolist.model.ImportProgress;
 import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemChanges;
+import com.felype.todolist.model.ItemEvent;
 import com.felype.todolist.model.List;
+import com.felype.todolist.resource.protobuf.ItemProtobuf;
+import com.felype.todolist.resource.protobuf.ItemProtobufDecoder;
+import com.felype.todolist.resource.protobuf.ItemProtobufEncoder;
+import com.felype.todolist.service.EncodedItems;
+import com.felype.todolist.service.ItemFormat;
+import com.felype.todolist.service.ItemTransfer;
+import com.felype.todolist.service.ListService;
 import com.felype.todolist.service.ToDoListService;
 
+import com.google.protobuf.CodedInputStream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ToDoListResourceTest {
 
+	private static final String ITEM_JSON = "{\"id\":1,\"title\":\"title\",\"version\":2}";
+
 	@Mock
 	private ToDoListService toDoListService;
 
+	@Mock
+	private ListService listService;
+
+	@Mock
+	private ItemTransfer itemTransfer;
+
+	@Spy
+	private ToDoListProperties properties = new ToDoListProperties();
+
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Spy
+	private IdempotentRequests idempotentRequests = new IdempotentRequests(properties, meterRegistry);
+
 	@InjectMocks
 	private ToDoListResource resource;
 
@@ -34,7 +100,16 @@ public class ToDoListResourceTest {
 	@Before
 	public void setup() {
 		webTestClient = WebTestClient.bindToController(resource)
-				.controllerAdvice(new ResourceErrorHandler())
+				.controllerAdvice(new ResourceErrorHandler(meterRegistry))
+				.httpMessageCodecs(configurer -> {
+					// As the application registers them, JSON first.
+					configurer.customCodecs().register(new Jackson2JsonEncoder());
+					configurer.customCodecs().register(new Jackson2SmileEncoder());
+					configurer.customCodecs().register(new Jackson2CborValueEncoder(new ObjectMapper(new CBORFactory())));
+					configurer.customCodecs().register(new Jackson2CborDecoder());
+					configurer.customCodecs().register(new ItemProtobufEncoder());
+					configurer.customCodecs().register(new ItemProtobufDecoder());
+				})
 				.configureClient()
 				.build();
 	}
@@ -54,6 +129,136 @@ public class ToDoListResourceTest {
 				.expectBody(Item.class).isEqualTo(addedItem);
 	}
 
+	@Test
+	public void testGetItemsCbor() throws IOException {
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("1"));
+		when(toDoListService.getItems()).thenReturn(Mono.just(List.builder()
+				.items(Collections.singletonList(MockObjects.item(1L).setVersion(2L))).build()));
+
+		byte[] body = webTestClient.get().uri("/items")
+				.accept(MediaType.APPLICATION_CBOR)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_CBOR)
+				.expectBody(byte[].class).returnResult().getResponseBody();
+
+		List list = new ObjectMapper(new CBORFactory()).readValue(body, List.class);
+
+		assertEquals("title", list.getItems().get(0).getTitle());
+	}
+
+	@Test
+	public void testPostItemCbor() throws IOException {
+		when(toDoListService.addItem(any())).thenReturn(Mono.just(MockObjects.item(1L).setVersion(0L)));
+
+		webTestClient.post().uri("/items")
+				.contentType(MediaType.APPLICATION_CBOR)
+				.bodyValue(new ObjectMapper(new CBORFactory()).writeValueAsBytes(MockObjects.item(null)))
+				.exchange()
+				.expectStatus().isCreated()
+				.expectHeader().contentType(MediaType.APPLICATION_JSON)
+				.expectBody().jsonPath("$.id").isEqualTo(1);
+
+		verify(toDoListService).addItem(MockObjects.item(null));
+	}
+
+	@Test
+	public void testGetItemSmile() throws IOException {
+		when(toDoListService.getItem(1L)).thenReturn(Mono.just(MockObjects.item(1L).setVersion(2L)));
+
+		byte[] body = webTestClient.get().uri("/items/{item_id}", 1L)
+				.accept(MediaType.valueOf(ToDoListResource.APPLICATION_SMILE_VALUE))
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"2+smile\"")
+				.expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+				.expectBody(byte[].class).returnResult().getResponseBody();
+
+		assertEquals(1L, (long) new ObjectMapper(new SmileFactory()).readValue(body, Item.class).getId());
+	}
+
+	@Test
+	public void testPostItemProtobuf() throws IOException {
+		when(toDoListService.addItem(any())).thenReturn(Mono.just(MockObjects.item(1L).setVersion(0L)));
+
+		byte[] body = webTestClient.post().uri("/items")
+				.contentType(ItemProtobuf.MEDIA_TYPE)
+				.accept(ItemProtobuf.MEDIA_TYPE)
+				.bodyValue(ItemProtobuf.write(MockObjects.item(null)))
+				.exchange()
+				.expectStatus().isCreated()
+				.expectHeader().contentType(ItemProtobuf.MEDIA_TYPE)
+				.expectBody(byte[].class).returnResult().getResponseBody();
+
+		Item added = (Item) ItemProtobuf.read(Item.class, CodedInputStream.newInstance(body));
+
+		assertEquals(1L, (long) added.getId());
+		assertEquals("title", added.getTitle());
+		verify(toDoListService).addItem(MockObjects.item(null));
+	}
+
+	@Test
+	public void testGetItemsEncodedNotForProtobuf() {
+		properties.getCache().setEncodedResponses(true);
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("1"));
+		when(toDoListService.getItems()).thenReturn(Mono.just(List.builder().build()));
+
+		webTestClient.get().uri("/items")
+				.accept(ItemProtobuf.MEDIA_TYPE)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(ItemProtobuf.MEDIA_TYPE);
+
+		verify(toDoListService, never()).getEncodedItems();
+	}
+
+	@Test
+	public void testGetChangesNotAcceptableAsProtobuf() {
+		webTestClient.get().uri("/items/changes")
+				.accept(ItemProtobuf.MEDIA_TYPE)
+				.exchange()
+				.expectStatus().is4xxClientError();
+
+		verify(toDoListService, never()).getChanges(anyLong(), any());
+	}
+
+	@Test
+	public void testPostItemRetried() {
+		Item addedItem = MockObjects.item(1L).setVersion(0L);
+		when(toDoListService.addItem(any())).thenReturn(Mono.just(addedItem));
+
+		for (int i = 0; i < 2; i++) {
+			webTestClient.post().uri("/items")
+					.contentType(MediaType.APPLICATION_JSON)
+					.accept(MediaType.APPLICATION_JSON)
+					.header(IdempotentRequests.IDEMPOTENCY_KEY, "retried")
+					.bodyValue(MockObjects.item(null))
+					.exchange()
+					.expectStatus().isCreated()
+					.expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+					.expectBody().jsonPath("$.id").isEqualTo(1);
+		}
+
+		verify(toDoListService, times(1)).addItem(any());
+	}
+
+	@Test
+	public void testDeleteItemRetried() {
+		when(toDoListService.deleteItem(eq(1L))).thenReturn(Mono.empty());
+
+		webTestClient.delete().uri("/items/{item_id}", 1L)
+				.header(IdempotentRequests.IDEMPOTENCY_KEY, "retried")
+				.exchange()
+				.expectStatus().isNoContent();
+		webTestClient.delete().uri("/items/{item_id}", 1L)
+				.header(IdempotentRequests.IDEMPOTENCY_KEY, "retried")
+				.exchange()
+				.expectStatus().isNoContent()
+				.expectHeader().valueEquals(IdempotentRequests.REPLAYED, "true");
+
+		verify(toDoListService, times(1)).deleteItem(eq(1L));
+	}
+
 	@Test
 	public void testPostInvalidItem() {
 		webTestClient.post().uri("/items")
@@ -80,6 +285,7 @@ public class ToDoListResourceTest {
 	public void testGetItems() {
 		List itemList = MockObjects.itemList();
 
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("epoch-1"));
 		when(toDoListService.getItems()).thenReturn(Mono.just(itemList));
 
 		webTestClient.get().uri("/items")
@@ -90,8 +296,303 @@ public class ToDoListResourceTest {
 				.expectBody(List.class).isEqualTo(itemList);
 	}
 
+	@Test
+	public void testGetItemsEncoded() throws IOException {
+		StringBuilder json = new StringBuilder("{\"items\":[").append(ITEM_JSON);
+
+		for (int i = 0; i < 100; i++) {
+			json.append(',').append(ITEM_JSON);
+		}
+
+		byte[] encoded = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+		properties.getCache().setEncodedResponses(true);
+
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("epoch-1"));
+		when(toDoListService.getEncodedItems()).thenReturn(Mono.just(new EncodedItems.Body(encoded, null)));
+
+		webTestClient.get().uri("/items")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_JSON)
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"epoch-1\"")
+				.expectBody(byte[].class).isEqualTo(encoded);
+
+		byte[] gzipped = webTestClient.get().uri("/items")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+				.expectHeader().valueEquals(HttpHeaders.VARY, "Accept, Accept-Encoding")
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"epoch-1+gzip\"")
+				.expectBody(byte[].class).returnResult().getResponseBody();
+
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+			assertEquals(new String(encoded, StandardCharsets.UTF_8),
+					new String(StreamUtils.copyToByteArray(in), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void testGetItemsEncodedNotModified() {
+		properties.getCache().setEncodedResponses(true);
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("epoch-1"));
+
+		for (String etag : new String[] { "\"epoch-1\"", "\"epoch-1+gzip\"", "W/\"epoch-1+gzip\"" }) {
+			webTestClient.get().uri("/items")
+					.accept(MediaType.APPLICATION_JSON)
+					.header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+					.header(HttpHeaders.IF_NONE_MATCH, etag)
+					.exchange()
+					.expectStatus().isNotModified()
+					.expectHeader().valueEquals(HttpHeaders.ETAG, etag.replace("W/", ""));
+		}
+
+		verify(toDoListService, never()).getEncodedItems();
+	}
+
+	@Test
+	public void testGetItemsTagged() {
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("epoch-1"));
+		when(toDoListService.getItems()).thenReturn(Mono.just(MockObjects.itemList()));
+
+		webTestClient.get().uri("/items")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"epoch-1\"");
+	}
+
+	@Test
+	public void testGetItemsTaggedPerFormat() {
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("epoch-1"));
+		when(toDoListService.getItems()).thenReturn(Mono.just(MockObjects.itemList()));
+
+		// The JSON tag must not validate a cached CBOR body, nor the other way round.
+		webTestClient.get().uri("/items")
+				.accept(MediaType.APPLICATION_CBOR)
+				.header(HttpHeaders.IF_NONE_MATCH, "\"epoch-1\"")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"epoch-1+cbor\"")
+				.expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+		webTestClient.get().uri("/items")
+				.accept(MediaType.APPLICATION_CBOR)
+				.header(HttpHeaders.IF_NONE_MATCH, "\"epoch-1+cbor\"")
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+	}
+
+	@Test
+	public void testGetItemsNotModified() {
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("epoch-1"));
+
+		webTestClient.get().uri("/items")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_NONE_MATCH, "\"epoch-1\"")
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"epoch-1\"")
+				.expectBody().isEmpty();
+
+		verify(toDoListService, never()).getItems();
+	}
+
+	@Test
+	public void testGetItemsPage() {
+		List page = List.builder().items(Arrays.asList(MockObjects.item(3L), MockObjects.item(4L)))
+				.nextCursor(4L).build();
+
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("epoch-1"));
+		when(toDoListService.getItems(eq(2L), eq(2))).thenReturn(Mono.just(page));
+
+		webTestClient.get().uri("/items?after={after}&limit={limit}", 2L, 2)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.next_cursor").isEqualTo(4)
+				.jsonPath("$.items.length()").isEqualTo(2);
+	}
+
+	@Test
+	public void testGetItemsInvalidLimit() {
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("epoch-1"));
+		when(toDoListService.getItems(any(), any()))
+				.thenReturn(Mono.error(new InvalidRequestException("Limit must be between 1 and 1000.")));
+
+		webTestClient.get().uri("/items?limit={limit}", 0)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("$.status").isEqualTo(400)
+				.jsonPath("$.error").isEqualTo("Bad Request")
+				.jsonPath("$.message").isEqualTo("Limit must be between 1 and 1000.");
+	}
+
+	@Test
+	public void testGetItemsFiltered() {
+		List page = List.builder().items(Collections.singletonList(Item.builder().id(3L).title("Buy milk").build()))
+				.nextCursor(1L).build();
+
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("epoch-1"));
+		when(toDoListService.findItems(eq("Buy"), eq("title"), eq("id,title"), eq(null), eq(1)))
+				.thenReturn(Mono.just(page));
+
+		webTestClient.get().uri("/items?title_prefix={prefix}&sort={sort}&fields={fields}&limit={limit}", "Buy",
+				"title", "id,title", 1)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.next_cursor").isEqualTo(1)
+				.jsonPath("$.items[0].title").isEqualTo("Buy milk")
+				.jsonPath("$.items[0].description").doesNotExist();
+	}
+
+	@Test
+	public void testSearch() {
+		List page = List.builder().items(Arrays.asList(MockObjects.item(3L), MockObjects.item(4L)))
+				.nextCursor(4L).build();
+
+		when(toDoListService.search(eq("buy milk"), eq(2L), eq(2))).thenReturn(Mono.just(page));
+
+		webTestClient.get().uri("/items/search?q={q}&after={after}&limit={limit}", "buy milk", 2L, 2)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.next_cursor").isEqualTo(4)
+				.jsonPath("$.items.length()").isEqualTo(2);
+	}
+
+	@Test
+	public void testSearchEmptyQuery() {
+		when(toDoListService.search(any(), any(), any()))
+				.thenReturn(Mono.error(new InvalidRequestException("Query must contain at least one word.")));
+
+		webTestClient.get().uri("/items/search?q={q}", "")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	@Test
+	public void testStreamItems() {
+		List itemList = MockObjects.itemList();
+
+		when(toDoListService.streamItems()).thenReturn(Flux.fromIterable(itemList.getItems()));
+
+		webTestClient.get().uri("/items")
+				.accept(MediaType.APPLICATION_STREAM_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_STREAM_JSON)
+				.expectBodyList(Item.class).isEqualTo(itemList.getItems());
+	}
+
+	@Test
+	public void testExportItemsAsNdjson() {
+		when(itemTransfer.exportItems(ItemFormat.NDJSON)).thenReturn(Flux.just(ITEM_JSON + "\n"));
+
+		webTestClient.get().uri("/items/export")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(ToDoListResource.APPLICATION_NDJSON_VALUE)
+				.expectBody(String.class).isEqualTo(ITEM_JSON + "\n");
+	}
+
+	@Test
+	public void testExportItemsAsCsv() {
+		String csv = "id,list_id,title,description,version\r\n1,,title,,2\r\n";
+
+		when(itemTransfer.exportItems(ItemFormat.CSV)).thenReturn(Flux.just(csv));
+
+		webTestClient.get().uri("/items/export")
+				.accept(MediaType.valueOf(ToDoListResource.TEXT_CSV_VALUE))
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(ToDoListResource.TEXT_CSV_VALUE)
+				.expectBody(String.class).isEqualTo(csv);
+	}
+
+	@Test
+	public void testImportItems() {
+		ImportProgress progress = ImportProgress.builder().committed(1L).imported(1L).rejected(0L).done(true).build();
+
+		when(itemTransfer.importItems(any(), eq(ItemFormat.CSV), eq(3L))).thenReturn(Flux.just(progress));
+
+		webTestClient.post().uri("/items/import?skip=3")
+				.contentType(MediaType.valueOf(ToDoListResource.TEXT_CSV_VALUE))
+				.bodyValue("title\r\nfirst\r\n")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_STREAM_JSON)
+				.expectBodyList(ImportProgress.class).isEqualTo(Collections.singletonList(progress));
+	}
+
+	@Test
+	public void testImportItemsUnsupportedFormat() {
+		webTestClient.post().uri("/items/import")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(ITEM_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+
+		verify(itemTransfer, never()).importItems(any(), any(), anyLong());
+	}
+
+	@Test
+	public void testStreamEvents() {
+		ItemEvent created = ItemEvent.created(MockObjects.item(1L));
+		created.setEventId(3L);
+
+		when(toDoListService.streamEvents(eq(null)))
+				.thenReturn(Flux.just(created, ItemEvent.deleted(2L)));
+
+		Flux<ServerSentEvent<ItemEvent>> events = webTestClient.get().uri("/items/stream")
+				.accept(MediaType.TEXT_EVENT_STREAM)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+				.returnResult(new ParameterizedTypeReference<ServerSentEvent<ItemEvent>>() {})
+				.getResponseBody();
+
+		StepVerifier.create(events)
+				.assertNext(event -> {
+					assertEquals("3", event.id());
+					assertEquals("created", event.event());
+					assertEquals(MockObjects.item(1L), event.data().getItem());
+				})
+				.assertNext(event -> {
+					assertEquals(null, event.id());
+					assertEquals("deleted", event.event());
+					assertEquals(Long.valueOf(2L), event.data().getId());
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	public void testStreamEventsResume() {
+		when(toDoListService.streamEvents(eq(5L))).thenReturn(Flux.empty());
+
+		webTestClient.get().uri("/items/stream")
+				.accept(MediaType.TEXT_EVENT_STREAM)
+				.header("Last-Event-ID", "5")
+				.exchange()
+				.expectStatus().isOk();
+
+		verify(toDoListService).streamEvents(eq(5L));
+	}
+
 	@Test
 	public void testGetItemsUnexpectedException() {
+		when(toDoListService.getChangeTag()).thenReturn(Mono.just("epoch-1"));
 		when(toDoListService.getItems()).thenThrow(RuntimeException.class);
 
 		webTestClient.get().uri("/items")
@@ -114,6 +615,80 @@ public class ToDoListResourceTest {
 				.expectBody(Item.class).isEqualTo(item);
 	}
 
+	@Test
+	public void testGetItemEncoded() {
+		properties.getCache().setEncodedResponses(true);
+
+		when(toDoListService.getEncodedItem(eq(1L)))
+				.thenReturn(Mono.just(new EncodedItems.Body(ITEM_JSON.getBytes(StandardCharsets.UTF_8), 2L)));
+
+		webTestClient.get().uri("/items/{item_id}", 1L)
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(MediaType.APPLICATION_JSON)
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"")
+				// Too small to be worth compressing.
+				.expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+				.expectBody(String.class).isEqualTo(ITEM_JSON);
+	}
+
+	@Test
+	public void testGetItemNotModified() {
+		when(toDoListService.getItem(eq(1L))).thenReturn(Mono.just(MockObjects.item().setVersion(3L)));
+
+		webTestClient.get().uri("/items/{item_id}", 1L)
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_NONE_MATCH, "\"2\", \"3\"")
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+				.expectBody().isEmpty();
+	}
+
+	@Test
+	public void testGetItemModified() {
+		when(toDoListService.getItem(eq(1L))).thenReturn(Mono.just(MockObjects.item().setVersion(3L)));
+
+		webTestClient.get().uri("/items/{item_id}", 1L)
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+				.expectBody().jsonPath("$.version").isEqualTo(3);
+	}
+
+	@Test
+	public void testGetChanges() {
+		ItemChanges changes = ItemChanges.builder().items(Arrays.asList(MockObjects.item(1L)))
+				.deletedIds(Arrays.asList(2L)).highWaterMark(7L).build();
+
+		when(toDoListService.getChanges(eq(3L), eq(null))).thenReturn(Mono.just(changes));
+
+		webTestClient.get().uri("/items/changes?since={since}", 3L)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.items.length()").isEqualTo(1)
+				.jsonPath("$.deleted_ids[0]").isEqualTo(2)
+				.jsonPath("$.high_water_mark").isEqualTo(7)
+				.jsonPath("$.has_more").isEqualTo(false);
+	}
+
+	@Test
+	public void testGetChangesExpired() {
+		when(toDoListService.getChanges(eq(3L), eq(null)))
+				.thenReturn(Mono.error(new ChangesExpiredException("Changes since 3 were compacted.")));
+
+		webTestClient.get().uri("/items/changes?since={since}", 3L)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.GONE);
+	}
+
 	@Test
 	public void testGetItemUnexpectedException() {
 		when(toDoListService.getItem(any())).thenThrow(RuntimeException.class);
@@ -124,14 +699,65 @@ public class ToDoListResourceTest {
 				.expectStatus().is5xxServerError();
 	}
 
+	@Test
+	public void testGetItemNotFoundAcceptingAnything() {
+		when(toDoListService.getItem(any())).thenReturn(Mono.error(new ItemNotFoundException(1L)));
+
+		webTestClient.get().uri("/items/{item_id}", 1L)
+				.accept(MediaType.ALL)
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectHeader().contentType(MediaType.APPLICATION_JSON);
+	}
+
+	@Test
+	public void testGetItemNotFoundAsProtobuf() throws IOException {
+		when(toDoListService.getItem(any())).thenReturn(Mono.error(new ItemNotFoundException(1L)));
+
+		byte[] body = webTestClient.get().uri("/items/{item_id}", 1L)
+				.accept(ItemProtobuf.MEDIA_TYPE)
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectHeader().contentType(ItemProtobuf.MEDIA_TYPE)
+				.expectBody(byte[].class).returnResult().getResponseBody();
+
+		assertEquals("Item not found. ID: 1",
+				((ErrorResponse) ItemProtobuf.read(ErrorResponse.class, CodedInputStream.newInstance(body))).getMessage());
+	}
+
 	@Test
 	public void testGetItemNotFound() {
-		when(toDoListService.getItem(any())).thenReturn(Mono.error(new ItemNotFoundException("Item not found")));
+		when(toDoListService.getItem(any())).thenReturn(Mono.error(new ItemNotFoundException(1L)));
 
 		webTestClient.get().uri("/items/{item_id}", 1L)
 				.accept(MediaType.APPLICATION_JSON)
 				.exchange()
-				.expectStatus().isNotFound();
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.status").isEqualTo(404)
+				.jsonPath("$.error").isEqualTo("Not Found")
+				.jsonPath("$.message").isEqualTo("Item not found. ID: 1");
+
+		assertEquals(1.0, meterRegistry.get("todolist.errors")
+				.tags("exception", "ItemNotFoundException", "status", "404").counter().count(), 0.0);
+	}
+
+	@Test
+	public void testGetItemNotFoundWithoutStackTrace() {
+		assertEquals(0, new ItemNotFoundException(1L).getStackTrace().length);
+		assertEquals(0, new InvalidRequestException("Limit must be between 1 and 1000.").getStackTrace().length);
+	}
+
+	@Test
+	public void testGetItemServiceUnavailable() {
+		when(toDoListService.getItem(any()))
+				.thenReturn(Mono.error(new ServiceUnavailableException("Too many pending repository calls.", null)));
+
+		webTestClient.get().uri("/items/{item_id}", 1L)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+				.expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
 	}
 
 	@Test
@@ -143,9 +769,99 @@ public class ToDoListResourceTest {
 				.expectStatus().isNoContent();
 	}
 
+	@Test
+	public void testGetListItems() {
+		when(listService.getItems(eq(7L), eq(3L), eq(2)))
+				.thenReturn(Mono.just(List.builder().items(Arrays.asList(MockObjects.item(4L).setListId(7L),
+						MockObjects.item(5L).setListId(7L))).nextCursor(5L).build()));
+
+		webTestClient.get().uri("/lists/{list_id}/items?after=3&limit=2", 7L)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.items[0].id").isEqualTo(4)
+				.jsonPath("$.items[1].list_id").isEqualTo(7)
+				.jsonPath("$.next_cursor").isEqualTo(5);
+	}
+
+	@Test
+	public void testGetListItem() {
+		when(listService.getItem(eq(7L), eq(1L)))
+				.thenReturn(Mono.just(MockObjects.item(1L).setListId(7L).setVersion(2L)));
+
+		webTestClient.get().uri("/lists/{list_id}/items/{item_id}", 7L, 1L)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"")
+				.expectBody()
+				.jsonPath("$.list_id").isEqualTo(7);
+	}
+
+	@Test
+	public void testGetListItemNotFound() {
+		when(listService.getItem(eq(7L), eq(1L))).thenReturn(Mono.error(new ItemNotFoundException(7L, 1L)));
+
+		webTestClient.get().uri("/lists/{list_id}/items/{item_id}", 7L, 1L)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("Item not found. List: 7, ID: 1");
+	}
+
+	@Test
+	public void testListsNotEnabled() {
+		when(listService.getItem(eq(7L), eq(1L))).thenReturn(Mono.error(new NotFoundException("Lists are not enabled.")));
+
+		webTestClient.get().uri("/lists/{list_id}/items/{item_id}", 7L, 1L)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("Lists are not enabled.");
+	}
+
+	@Test
+	public void testPostListItem() {
+		when(listService.addItem(eq(7L), any())).thenReturn(Mono.just(MockObjects.item(1L).setListId(7L)));
+
+		webTestClient.post().uri("/lists/{list_id}/items", 7L)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.bodyValue(MockObjects.item(null))
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody()
+				.jsonPath("$.id").isEqualTo(1)
+				.jsonPath("$.list_id").isEqualTo(7);
+	}
+
+	@Test
+	public void testPutListItemInvalidId() {
+		webTestClient.put().uri("/lists/{list_id}/items/{item_id}", 7L, 2L)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.bodyValue(MockObjects.item(1L))
+				.exchange()
+				.expectStatus().isBadRequest();
+
+		verify(listService, never()).updateItem(anyLong(), any());
+	}
+
+	@Test
+	public void testDeleteListItem() {
+		when(listService.deleteItem(eq(7L), eq(1L))).thenReturn(Mono.empty());
+
+		webTestClient.delete().uri("/lists/{list_id}/items/{item_id}", 7L, 1L)
+				.exchange()
+				.expectStatus().isNoContent();
+	}
+
 	@Test
 	public void testDeleteItemNotFound() {
-		when(toDoListService.deleteItem(any())).thenReturn(Mono.error(new ItemNotFoundException("Item not found")));
+		when(toDoListService.deleteItem(any())).thenReturn(Mono.error(new ItemNotFoundException(1L)));
 
 		webTestClient.delete().uri("/items/{item_id}", 1L)
 				.exchange()
@@ -161,6 +877,39 @@ public class ToDoListResourceTest {
 				.expectStatus().is5xxServerError();
 	}
 
+	@Test
+	public void testPostItems() {
+		BatchResult result = BatchResult.builder().results(Arrays.asList(
+				BatchItemResult.builder().index(0).id(1L).status(201).item(MockObjects.item(1L)).build(),
+				BatchItemResult.builder().index(1).status(400).error("title must not be empty").build())).build();
+
+		when(toDoListService.addItems(any())).thenReturn(Mono.just(result));
+
+		webTestClient.post().uri("/items:batch")
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.bodyValue(Arrays.asList(MockObjects.item(null), MockObjects.invalidItem()))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(BatchResult.class).isEqualTo(result);
+	}
+
+	@Test
+	public void testDeleteItems() {
+		BatchResult result = BatchResult.builder().results(Arrays.asList(
+				BatchItemResult.builder().index(0).id(1L).status(204).build())).build();
+
+		when(toDoListService.deleteItems(eq(Arrays.asList(1L)))).thenReturn(Mono.just(result));
+
+		webTestClient.method(HttpMethod.DELETE).uri("/items:batch")
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.bodyValue(Arrays.asList(1L))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(BatchResult.class).isEqualTo(result);
+	}
+
 	@Test
 	public void testPutItem() {
 		Item item = MockObjects.item();
@@ -177,6 +926,39 @@ public class ToDoListResourceTest {
 				.expectBody(Item.class).isEqualTo(item);
 	}
 
+	@Test
+	public void testPutItemIfMatch() {
+		Item item = MockObjects.item();
+
+		when(toDoListService.updateItem(eq(MockObjects.item().setVersion(3L))))
+				.thenReturn(Mono.just(MockObjects.item().setVersion(4L)));
+
+		webTestClient.put().uri("/items/{item_id}", item.getId())
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, "\"3\"")
+				.bodyValue(item)
+				.exchange()
+				.expectStatus().isAccepted()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"");
+	}
+
+	@Test
+	public void testPutItemPreconditionFailed() {
+		Item item = MockObjects.item();
+
+		when(toDoListService.updateItem(any()))
+				.thenReturn(Mono.error(new PreconditionFailedException("Item was changed since it was read.")));
+
+		webTestClient.put().uri("/items/{item_id}", item.getId())
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, "\"3\"")
+				.bodyValue(item)
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+	}
+
 	@Test
 	public void testPutItemInvalidRequest() {
 		Item item = MockObjects.item();
@@ -0,0 +1,66 @@
+package com.felype.todolist.resource.limit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ConcurrencyLimiterTest {
+
+	private static final long THRESHOLD = 100L;
+
+	private ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 2, 6, THRESHOLD, 0.5);
+
+	@Test
+	public void testRejectsBeyondLimit() {
+		for (int i = 0; i < 4; i++) {
+			assertTrue(limiter.tryAcquire());
+		}
+
+		assertFalse(limiter.tryAcquire());
+		assertEquals(4, limiter.getInFlight());
+	}
+
+	@Test
+	public void testGrowsWhileInUseAndFast() {
+		acquire(3);
+		limiter.release(THRESHOLD, false);
+
+		assertEquals(5, limiter.getLimit());
+
+		// One in flight out of five: not in use enough to grow.
+		limiter.release(THRESHOLD, false);
+		limiter.release(THRESHOLD, false);
+
+		assertEquals(5, limiter.getLimit());
+
+		acquire(5);
+
+		for (int i = 0; i < 5; i++) {
+			limiter.release(1L, false);
+		}
+
+		assertEquals(6, limiter.getLimit());
+	}
+
+	@Test
+	public void testShrinksWhenSlowOrDropped() {
+		acquire(2);
+		limiter.release(THRESHOLD + 1, false);
+
+		assertEquals(2, limiter.getLimit());
+
+		limiter.release(1L, true);
+
+		assertEquals(2, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	private void acquire(int count) {
+		for (int i = 0; i < count; i++) {
+			assertTrue(limiter.tryAcquire());
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.felype.todolist.resource.limit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class RateLimiterTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	// Far from zero and negative, as nanoTime may be.
+	private AtomicLong now = new AtomicLong(Long.MIN_VALUE / 2);
+
+	private RateLimiter rateLimiter = new RateLimiter(10, 5, 100, now::get);
+
+	@Test
+	public void testBurstThenRate() {
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0L, rateLimiter.acquire("client"));
+		}
+
+		assertEquals(SECOND / 10, rateLimiter.acquire("client"));
+
+		now.addAndGet(SECOND / 20);
+		assertEquals(SECOND / 20, rateLimiter.acquire("client"));
+
+		now.addAndGet(SECOND / 20);
+		assertEquals(0L, rateLimiter.acquire("client"));
+		assertEquals(SECOND / 10, rateLimiter.acquire("client"));
+	}
+
+	@Test
+	public void testClientsHaveTheirOwnBuckets() {
+		for (int i = 0; i < 5; i++) {
+			rateLimiter.acquire("first");
+		}
+
+		assertEquals(SECOND / 10, rateLimiter.acquire("first"));
+		assertEquals(0L, rateLimiter.acquire("second"));
+	}
+
+	@Test
+	public void testIdleBucketRefills() {
+		for (int i = 0; i < 5; i++) {
+			rateLimiter.acquire("client");
+		}
+
+		now.addAndGet(10 * SECOND);
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0L, rateLimiter.acquire("client"));
+		}
+
+		assertEquals(SECOND / 10, rateLimiter.acquire("client"));
+	}
+
+}
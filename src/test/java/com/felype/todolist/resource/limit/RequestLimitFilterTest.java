@@ -0,0 +1,100 @@
+package com.felype.todolist.resource.limit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.felype.todolist.config.ToDoListProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RequestLimitFilterTest {
+
+	private ToDoListProperties properties = new ToDoListProperties();
+
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private RequestLimitFilter filter;
+
+	@Before
+	public void setup() {
+		properties.getLimits().getRate().setBurst(1);
+		properties.getLimits().getConcurrency().setInitialLimit(1);
+		properties.getLimits().getConcurrency().setMinLimit(1);
+		filter = new RequestLimitFilter(new RequestLimiter(properties, meterRegistry));
+	}
+
+	@Test
+	public void testRateLimited() throws Exception {
+		MockHttpServletResponse response = filter(request("/items"));
+
+		assertEquals(200, response.getStatus());
+
+		response = filter(request("/items"));
+
+		assertEquals(429, response.getStatus());
+		assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+	}
+
+	@Test
+	public void testActuatorNotLimited() throws Exception {
+		filter(request("/items"));
+
+		assertEquals(200, filter(request("/actuator/health")).getStatus());
+	}
+
+	/**
+	 * The permit of an async request is held until the request completes.
+	 */
+	@Test
+	public void testAsyncRequestReleasedOnCompletion() throws Exception {
+		MockHttpServletRequest request = request("/items");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		request.setAsyncSupported(true);
+		filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+		AsyncContext asyncContext = request.getAsyncContext();
+
+		assertEquals(503, filter(request("/items", "10.0.0.2")).getStatus());
+
+		for (AsyncListener listener : ((MockAsyncContext) asyncContext).getListeners()) {
+			listener.onComplete(new AsyncEvent(asyncContext));
+		}
+
+		assertEquals(200, filter(request("/items", "10.0.0.3")).getStatus());
+		assertNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+	}
+
+	private MockHttpServletResponse filter(MockHttpServletRequest request) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new MockFilterChain());
+
+		return response;
+	}
+
+	private static MockHttpServletRequest request(String uri) {
+		return request(uri, "10.0.0.1");
+	}
+
+	private static MockHttpServletRequest request(String uri, String address) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+
+		request.setRemoteAddr(address);
+
+		return request;
+	}
+
+}
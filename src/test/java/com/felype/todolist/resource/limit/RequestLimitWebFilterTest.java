@@ -0,0 +1,78 @@
+package com.felype.todolist.resource.limit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.InetSocketAddress;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.felype.todolist.config.ToDoListProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+public class RequestLimitWebFilterTest {
+
+	private ToDoListProperties properties = new ToDoListProperties();
+
+	private RequestLimitWebFilter filter;
+
+	@Before
+	public void setup() {
+		properties.getLimits().getRate().setBurst(1);
+		properties.getLimits().getConcurrency().setInitialLimit(1);
+		properties.getLimits().getConcurrency().setMinLimit(1);
+		filter = new RequestLimitWebFilter(new RequestLimiter(properties, new SimpleMeterRegistry()));
+	}
+
+	@Test
+	public void testRateLimitedByApiKey() {
+		assertEquals(HttpStatus.OK, filter(exchange("/items", "key", "10.0.0.1"), Mono.empty()));
+
+		MockServerWebExchange limited = exchange("/items", "key", "10.0.0.2");
+
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, filter(limited, Mono.empty()));
+		assertEquals("1", limited.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+	}
+
+	@Test
+	public void testPermitHeldUntilExchangeEnds() {
+		MonoProcessor<Void> handling = MonoProcessor.create();
+		MockServerWebExchange first = exchange("/items", null, "10.0.0.1");
+
+		filter.filter(first, exchange -> handling).subscribe();
+
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, filter(exchange("/items", null, "10.0.0.2"), Mono.empty()));
+		assertEquals(HttpStatus.OK, filter(exchange("/actuator/health", null, "10.0.0.2"), Mono.empty()));
+
+		handling.onComplete();
+
+		assertEquals(HttpStatus.OK, filter(exchange("/items", null, "10.0.0.3"), Mono.empty()));
+	}
+
+	private HttpStatus filter(MockServerWebExchange exchange, Mono<Void> handling) {
+		filter.filter(exchange, handled -> handling).block();
+
+		HttpStatus status = exchange.getResponse().getStatusCode();
+
+		return status == null ? HttpStatus.OK : status;
+	}
+
+	private static MockServerWebExchange exchange(String path, String apiKey, String address) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path)
+				.remoteAddress(new InetSocketAddress(address, 8080));
+
+		if (apiKey != null) {
+			request.header("X-API-Key", apiKey);
+		}
+
+		return MockServerWebExchange.from(request);
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.felype.todolist.resource.limit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import com.felype.todolist.config.ToDoListProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RequestLimiterTest {
+
+	private ToDoListProperties properties = new ToDoListProperties();
+
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private RequestLimiter requestLimiter;
+
+	@Before
+	public void setup() {
+		properties.getLimits().getRate().setRequestsPerSecond(1);
+		properties.getLimits().getRate().setBurst(2);
+		properties.getLimits().getConcurrency().setInitialLimit(1);
+		properties.getLimits().getConcurrency().setMinLimit(1);
+		requestLimiter = new RequestLimiter(properties, meterRegistry);
+	}
+
+	@Test
+	public void testRateLimitedByApiKeyOrAddress() {
+		requestLimiter.acquire("key", "10.0.0.1", null).release(200);
+		requestLimiter.acquire("key", "10.0.0.2", null).release(200);
+
+		RequestLimiter.Permit limited = requestLimiter.acquire("key", "10.0.0.3", null);
+
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.getRejection());
+		assertEquals(1L, limited.getRetryAfterSeconds());
+		assertTrue(requestLimiter.acquire(null, "10.0.0.1", null).isGranted());
+		assertEquals(1.0, rejected("rate_limited"), 0.0);
+	}
+
+	@Test
+	public void testOverloaded() {
+		RequestLimiter.Permit first = requestLimiter.acquire(null, "10.0.0.1", null);
+		RequestLimiter.Permit second = requestLimiter.acquire(null, "10.0.0.2", null);
+
+		assertTrue(first.isGranted());
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, second.getRejection());
+		assertEquals(1.0, rejected("overloaded"), 0.0);
+		assertEquals(1.0, meterRegistry.get("todolist.requests.concurrency.in_flight").gauge().value(), 0.0);
+
+		first.release(200);
+		first.release(200);
+
+		assertEquals(0.0, meterRegistry.get("todolist.requests.concurrency.in_flight").gauge().value(), 0.0);
+		assertTrue(requestLimiter.acquire(null, "10.0.0.2", null).isGranted());
+	}
+
+	@Test
+	public void testStreamsOnlyRateLimited() {
+		assertTrue(requestLimiter.acquire(null, "10.0.0.1", null).isGranted());
+		assertTrue(requestLimiter.acquire(null, "10.0.0.2", MediaType.TEXT_EVENT_STREAM_VALUE).isGranted());
+	}
+
+	@Test
+	public void testDisabled() {
+		properties.getLimits().getRate().setEnabled(false);
+		properties.getLimits().getConcurrency().setEnabled(false);
+		requestLimiter = new RequestLimiter(properties, new SimpleMeterRegistry());
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(requestLimiter.acquire("key", "10.0.0.1", null).isGranted());
+		}
+
+	}
+
+	private double rejected(String reason) {
+		return meterRegistry.get(RequestLimiter.COUNTER_NAME).tag("reason", reason).counter().count();
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.felype.todolist.resource.protobuf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.felype.todolist.mock.MockObjects;
+import com.felype.todolist.model.ErrorResponse;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.List;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+public class ItemProtobufTest {
+
+	@Test
+	public void testListRoundTrip() throws IOException {
+		List list = List.builder()
+				.items(Arrays.asList(MockObjects.item(1L).setDescription("description"), MockObjects.item(2L)))
+				.nextCursor(2L)
+				.build();
+
+		List read = (List) read(List.class, ItemProtobuf.write(list));
+
+		assertEquals(list, read);
+	}
+
+	@Test
+	public void testVersionAndListIdNotRead() throws IOException {
+		Item item = MockObjects.item(1L).setVersion(3L).setListId(4L);
+
+		Item read = (Item) read(Item.class, ItemProtobuf.write(item));
+
+		assertEquals(1L, (long) read.getId());
+		assertEquals("title", read.getTitle());
+		assertNull(read.getVersion());
+		assertNull(read.getListId());
+	}
+
+	@Test
+	public void testUnknownFieldsSkipped() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+
+		out.writeString(9, "unknown");
+		out.writeString(3, "title");
+		out.writeInt64(10, 5L);
+		out.flush();
+
+		Item read = (Item) read(Item.class, bytes.toByteArray());
+
+		assertEquals(Item.builder().title("title").build(), read);
+	}
+
+	@Test
+	public void testErrorResponseRoundTrip() throws IOException {
+		ErrorResponse error = ErrorResponse.builder().status(404).error("Not Found").message("Item not found. ID: 1")
+				.build();
+
+		assertEquals(error, read(ErrorResponse.class, ItemProtobuf.write(error)));
+	}
+
+	private static Object read(Class<?> type, byte[] bytes) throws IOException {
+		return ItemProtobuf.read(type, CodedInputStream.newInstance(bytes));
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.felype.todolist.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.felype.todolist.repository.ReactiveItemStore;
+
+import reactor.core.publisher.Mono;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChangeSequenceTest {
+
+	@Mock
+	private ReactiveItemStore itemStore;
+
+	private ChangeSequence changeSequence;
+
+	@Before
+	public void setup() {
+		when(itemStore.getHighestChangeSeq()).thenReturn(Mono.just(10L));
+
+		changeSequence = new ChangeSequence(itemStore);
+	}
+
+	@Test
+	public void testResumesAfterHighestStored() {
+		assertEquals(10L, changeSequence.getHighWaterMark());
+		assertEquals(11L, changeSequence.begin(1));
+	}
+
+	@Test
+	public void testReservesRanges() {
+		assertEquals(11L, changeSequence.begin(3));
+		assertEquals(14L, changeSequence.begin(1));
+	}
+
+	@Test
+	public void testHighWaterMarkStopsBeforeWritesInFlight() {
+		long first = changeSequence.begin(1);
+		long second = changeSequence.begin(1);
+
+		changeSequence.end(second);
+
+		assertEquals(10L, changeSequence.getHighWaterMark());
+
+		changeSequence.end(first);
+
+		assertEquals(12L, changeSequence.getHighWaterMark());
+	}
+
+}
@@ -0,0 +1,152 @@
+package com.felype.todolist.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.List;
+import com.felype.todolist.repository.BlockingItemStoreAdapter;
+import com.felype.todolist.repository.memory.InMemoryItemStore;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+public class EncodedItemsTest {
+
+	private ToDoListProperties properties = new ToDoListProperties();
+
+	private InMemoryItemStore itemStore = new InMemoryItemStore();
+
+	private ChangeCounter changeCounter = new ChangeCounter();
+
+	private ObjectMapper objectMapper = new ObjectMapper();
+
+	private EncodedItems encodedItems;
+
+	@Before
+	public void setup() {
+		properties.getCache().setEncodedResponses(true);
+		encodedItems = new EncodedItems(properties,
+				new BlockingItemStoreAdapter(itemStore, Schedulers.immediate(), TransactionOperations.withoutTransaction()),
+				changeCounter, objectMapper);
+	}
+
+	@Test
+	public void testGetItems() throws IOException {
+		Item first = itemStore.save(Item.builder().title("Buy milk").description("Whole").build());
+		Item second = itemStore.save(Item.builder().title("Walk the dog").build());
+
+		assertJson(Arrays.asList(first, second), encodedItems.getItems().block().getJson());
+	}
+
+	@Test
+	public void testGetItemsEmpty() throws IOException {
+		assertJson(new ArrayList<>(), encodedItems.getItems().block().getJson());
+	}
+
+	@Test
+	public void testWritesApplied() throws IOException {
+		Item first = itemStore.save(Item.builder().title("Buy milk").build());
+		Item second = itemStore.save(Item.builder().title("Walk the dog").build());
+
+		encodedItems.getItems().block();
+
+		Item updated = itemStore.save(first.toBuilder().title("Buy bread").build());
+		Item created = itemStore.save(Item.builder().title("Feed the cat").build());
+
+		changeCounter.increment();
+		encodedItems.saved(updated);
+		encodedItems.saved(created);
+		// Applied late, must not replace the update.
+		encodedItems.saved(first);
+		encodedItems.deleted(second.getId());
+
+		assertJson(Arrays.asList(updated, created), encodedItems.getItems().block().getJson());
+		assertArrayEquals(objectMapper.writeValueAsBytes(updated),
+				encodedItems.getItem(updated.getId(), Mono::empty).block().getJson());
+		assertFalse(encodedItems.getItem(second.getId(), Mono::empty).blockOptional().isPresent());
+	}
+
+	@Test
+	public void testLoadDroppedWhenWriteAppliedMeanwhile() throws IOException {
+		Item first = itemStore.save(Item.builder().title("Buy milk").build());
+
+		encodedItems = new EncodedItems(properties, new BlockingItemStoreAdapter(itemStore, Schedulers.immediate(),
+				TransactionOperations.withoutTransaction()) {
+
+			@Override
+			public Flux<Item> findAll() {
+				return super.findAll().doOnComplete(changeCounter::increment);
+			}
+
+		}, changeCounter, objectMapper);
+
+		assertJson(Collections.singletonList(first), encodedItems.getItems().block().getJson());
+
+		Item second = itemStore.save(Item.builder().title("Walk the dog").build());
+
+		// Not kept, so the write it missed shows up on the next load.
+		encodedItems.saved(second);
+
+		assertJson(Arrays.asList(first, second), encodedItems.getItems().block().getJson());
+	}
+
+	@Test
+	public void testGetItemBeforeLoad() throws IOException {
+		Item item = Item.builder().id(1L).title("Buy milk").version(0L).build();
+
+		EncodedItems.Body body = encodedItems.getItem(1L, () -> Mono.just(item)).block();
+
+		assertArrayEquals(objectMapper.writeValueAsBytes(item), body.getJson());
+		assertEquals(Long.valueOf(0L), body.getVersion());
+	}
+
+	@Test
+	public void testGzip() throws IOException {
+		for (int i = 0; i < 100; i++) {
+			itemStore.save(Item.builder().title("Item " + i).build());
+		}
+
+		EncodedItems.Body body = encodedItems.getItems().block();
+
+		assertTrue(body.isCompressible());
+		assertArrayEquals(body.getJson(), gunzip(body.getGzip()));
+	}
+
+	private void assertJson(java.util.List<Item> items, byte[] json) throws IOException {
+		assertArrayEquals(objectMapper.writeValueAsBytes(List.builder().items(items).build()), json);
+	}
+
+	private static byte[] gunzip(byte[] gzip) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+			byte[] buffer = new byte[4096];
+			int read;
+
+			while ((read = in.read(buffer)) > 0) {
+				out.write(buffer, 0, read);
+			}
+		}
+
+		return out.toByteArray();
+	}
+
+}
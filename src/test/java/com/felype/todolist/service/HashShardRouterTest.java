@@ -0,0 +1,41 @@
+package com.felype.todolist.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HashShardRouterTest {
+
+	private HashShardRouter router = new HashShardRouter();
+
+	@Test
+	public void testRoutesWithinShards() {
+		for (long listId = -1000; listId < 1000; listId++) {
+			int shard = router.route(listId, 3);
+
+			assertTrue(shard >= 0 && shard < 3);
+			assertEquals(shard, router.route(listId, 3));
+		}
+
+		assertEquals(0, router.route(Long.MIN_VALUE, 1));
+	}
+
+	/**
+	 * Lists created with a stride that is a multiple of the shard count would all
+	 * land on one shard if the IDs were not mixed.
+	 */
+	@Test
+	public void testSpreadsStridedIds() {
+		int[] lists = new int[4];
+
+		for (long listId = 0; listId < 4000; listId += 4) {
+			lists[router.route(listId, 4)]++;
+		}
+
+		for (int count : lists) {
+			assertTrue("Uneven spread: " + count, count > 200 && count < 300);
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.felype.todolist.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.model.ItemEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.test.StepVerifier;
+
+public class ItemEventsTest {
+
+	private ToDoListProperties properties = new ToDoListProperties();
+
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private ItemEvents itemEvents;
+
+	@Before
+	public void setup() {
+		properties.getEvents().setBufferSize(1);
+
+		itemEvents = new ItemEvents(properties, meterRegistry);
+	}
+
+	@Test
+	public void testSlowSubscriberKeepsLatest() {
+		StepVerifier.create(itemEvents.subscribe(), 0)
+				.then(() -> publish(40))
+				.thenRequest(Long.MAX_VALUE)
+				.expectNextCount(32)
+				.assertNext(event -> assertEquals(Long.valueOf(40L), event.getId()))
+				.thenCancel()
+				.verify();
+
+		assertEquals(7.0, meterRegistry.get("todolist.events.dropped").counter().count(), 0.0);
+	}
+
+	@Test
+	public void testSlowSubscriberDisconnected() {
+		properties.getEvents().setOverflow(ToDoListProperties.Events.Overflow.DISCONNECT);
+
+		StepVerifier.create(itemEvents.subscribe(), 0)
+				.then(() -> publish(40))
+				.thenRequest(Long.MAX_VALUE)
+				.expectNextCount(33)
+				.verifyComplete();
+	}
+
+	private void publish(int count) {
+		for (long id = 1; id <= count; id++) {
+			itemEvents.publish(Collections.singletonList(ItemEvent.deleted(id)), id);
+		}
+	}
+
+}
@@ -0,0 +1,184 @@
+package com.felype.todolist.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.spy;
+
+import java.util.Arrays;
+
+import javax.validation.Validation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.exception.InvalidRequestException;
+import com.felype.todolist.model.ImportProgress;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.repository.BlockingItemStoreAdapter;
+import com.felype.todolist.repository.ReactiveItemStore;
+import com.felype.todolist.repository.memory.InMemoryItemStore;
+import com.felype.todolist.service.search.SearchIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+public class ItemTransferTest {
+
+	private final ToDoListProperties properties = new ToDoListProperties();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	private InMemoryItemStore store;
+
+	private ItemTransfer itemTransfer;
+
+	@Before
+	public void setup() {
+		properties.getTransfer().setImportBatchSize(2);
+		store = spy(new InMemoryItemStore());
+
+		// Batches are written from the parallel scheduler, which must not block.
+		ReactiveItemStore itemStore = new BlockingItemStoreAdapter(store, Schedulers.boundedElastic(),
+				TransactionOperations.withoutTransaction());
+		ChangeCounter changeCounter = new ChangeCounter();
+		ToDoListService toDoListService = new ToDoListService(itemStore, properties,
+				Validation.buildDefaultValidatorFactory().getValidator(),
+				new ItemCache(properties, changeCounter, meterRegistry), new ServiceMetrics(meterRegistry), changeCounter,
+				new ChangeSequence(itemStore), new ItemEvents(properties, meterRegistry),
+				new SearchIndex(properties, itemStore, meterRegistry),
+				new ReadCoalescer(properties, changeCounter, meterRegistry),
+				new EncodedItems(properties, itemStore, changeCounter, objectMapper),
+				new ReplicaReads(properties));
+
+		itemTransfer = new ItemTransfer(toDoListService, properties, new ServiceMetrics(meterRegistry), objectMapper);
+	}
+
+	@Test
+	public void testCsvRoundTrip() {
+		store.saveAll(Arrays.asList(item("plain", null), item("comma, \"quoted\"", "two\nlines")));
+
+		String csv = String.join("", itemTransfer.exportItems(ItemFormat.CSV).collectList().block());
+
+		assertTrue(csv.startsWith(ItemCsv.HEADER));
+
+		store.deleteAll(store.findAll());
+
+		StepVerifier.create(itemTransfer.importItems(lines(csv), ItemFormat.CSV, 0))
+				.expectNextMatches(progress -> progress.getCommitted() == 2 && progress.getImported() == 2)
+				.expectNextMatches(ImportProgress::isDone)
+				.verifyComplete();
+
+		assertEquals(Arrays.asList("plain", "comma, \"quoted\""), titles());
+		assertEquals("two\nlines", store.findAll().get(1).getDescription());
+	}
+
+	@Test
+	public void testNdjsonExport() {
+		store.saveAll(Arrays.asList(item("first", null), item("second", "description")));
+
+		StepVerifier.create(itemTransfer.exportItems(ItemFormat.NDJSON))
+				.expectNext("{\"id\":1,\"title\":\"first\",\"version\":0}\n"
+						+ "{\"id\":2,\"title\":\"second\",\"description\":\"description\",\"version\":0}\n")
+				.verifyComplete();
+	}
+
+	@Test
+	public void testImportRejectsInvalidRecords() {
+		Flux<String> lines = Flux.just("{\"title\":\"first\",\"id\":10}", "", "{\"title\":\"\"}", "not json",
+				"{\"title\":\"second\"}");
+
+		StepVerifier.create(itemTransfer.importItems(lines, ItemFormat.NDJSON, 0))
+				.expectNextMatches(progress -> progress.getImported() == 1
+						&& progress.getErrors().get(0).getIndex() == 1)
+				.expectNextMatches(progress -> progress.getCommitted() == 4 && progress.getRejected() == 2
+						&& progress.getErrors().get(0).getError().startsWith("Record could not be read"))
+				.expectNextMatches(progress -> progress.isDone() && progress.getImported() == 2)
+				.verifyComplete();
+
+		assertEquals(Arrays.asList("first", "second"), titles());
+		assertEquals(1L, (long) store.findAll().get(0).getId());
+	}
+
+	@Test
+	public void testImportResumed() {
+		Flux<String> lines = Flux.just("title,description", "first,", "second,", "third,", "fourth,", "fifth,");
+
+		doCallRealMethod().doThrow(new DataAccessResourceFailureException("Lost the database."))
+				.doCallRealMethod().when(store).saveAll(any());
+
+		StepVerifier.create(itemTransfer.importItems(lines, ItemFormat.CSV, 0))
+				.expectNextMatches(progress -> progress.getCommitted() == 2)
+				.expectNextMatches(progress -> !progress.isDone() && progress.getCommitted() == 2
+						&& "Import failed.".equals(progress.getError()))
+				.verifyComplete();
+
+		StepVerifier.create(itemTransfer.importItems(lines, ItemFormat.CSV, 2))
+				.expectNextMatches(progress -> progress.getCommitted() == 4 && progress.getImported() == 2)
+				.expectNextMatches(progress -> progress.getCommitted() == 5)
+				.expectNextMatches(progress -> progress.isDone() && progress.getImported() == 3)
+				.verifyComplete();
+
+		assertEquals(Arrays.asList("first", "second", "third", "fourth", "fifth"), titles());
+	}
+
+	@Test
+	public void testImportCsvWithoutTitle() {
+		StepVerifier.create(itemTransfer.importItems(Flux.just("name", "first"), ItemFormat.CSV, 0))
+				.expectNextMatches(progress -> !progress.isDone()
+						&& "CSV header must name a title column.".equals(progress.getError()))
+				.verifyComplete();
+
+		assertTrue(store.findAll().isEmpty());
+	}
+
+	@Test
+	public void testImportNegativeSkip() {
+		StepVerifier.create(itemTransfer.importItems(Flux.empty(), ItemFormat.NDJSON, -1))
+				.verifyError(InvalidRequestException.class);
+	}
+
+	@Test
+	public void testImportEmpty() {
+		StepVerifier.create(itemTransfer.importItems(Flux.empty(), ItemFormat.CSV, 0))
+				.expectNextMatches(progress -> progress.isDone() && progress.getCommitted() == 0)
+				.verifyComplete();
+	}
+
+	@Test
+	public void testCsvFieldsReadByHeader() {
+		Item item = ItemCsv.reader("description,\"title\",id").apply("\"x, y\",title,7");
+
+		assertEquals("title", item.getTitle());
+		assertEquals("x, y", item.getDescription());
+		assertNull(item.getId());
+		assertEquals(Arrays.asList("a", "b\"", ""), ItemCsv.split("a,\"b\"\"\","));
+	}
+
+	private static Item item(String title, String description) {
+		return Item.builder().title(title).description(description).changeSeq(1L).build();
+	}
+
+	private java.util.List<String> titles() {
+		return store.findAll().stream().map(Item::getTitle).collect(java.util.stream.Collectors.toList());
+	}
+
+	/**
+	 * The body split into lines as the codecs do.
+	 */
+	private static Flux<String> lines(String body) {
+		return Flux.fromArray(body.split("\r?\n"));
+	}
+
+}
@@ -0,0 +1,198 @@
+package com.felype.todolist.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.connectionfactory.R2dbcTransactionManager;
+import org.springframework.data.r2dbc.connectionfactory.init.ResourceDatabasePopulator;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.exception.InvalidRequestException;
+import com.felype.todolist.exception.ItemNotFoundException;
+import com.felype.todolist.exception.NotFoundException;
+import com.felype.todolist.exception.PreconditionFailedException;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.List;
+import com.felype.todolist.repository.ItemShards;
+import com.felype.todolist.repository.ReactiveItemStore;
+import com.felype.todolist.repository.r2dbc.R2dbcItemStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.test.StepVerifier;
+
+/**
+ * Runs on two H2 databases, with lists routed by parity so every test knows
+ * which shard a list is on: odd lists on the second one, even lists on the
+ * first.
+ */
+public class ListServiceTest {
+
+	private ToDoListProperties properties = new ToDoListProperties();
+
+	private java.util.List<ReactiveItemStore> shards = new ArrayList<>();
+
+	private ItemShards itemShards;
+
+	private ListService listService;
+
+	@Before
+	public void setup() {
+		for (int i = 0; i < 2; i++) {
+			ConnectionFactory connectionFactory = ConnectionFactories
+					.get("r2dbc:h2:mem:///" + UUID.randomUUID() + "?options=DB_CLOSE_DELAY=-1");
+
+			new ResourceDatabasePopulator(new ClassPathResource("schema-r2dbc.sql")).execute(connectionFactory)
+					.block();
+			shards.add(new R2dbcItemStore(DatabaseClient.create(connectionFactory),
+					new R2dbcTransactionManager(connectionFactory)));
+		}
+
+		itemShards = new ItemShards(shards, Collections.emptyList());
+		listService = new ListService(Optional.of(itemShards), (listId, shardCount) -> (int) (listId % shardCount), properties,
+				new ServiceMetrics(new SimpleMeterRegistry()));
+	}
+
+	@After
+	public void tearDown() {
+		itemShards.close();
+	}
+
+	@Test
+	public void testListsAreKeptOnTheirShards() {
+		Item odd = add(1L, "odd");
+		Item even = add(2L, "even");
+
+		assertEquals(Collections.singletonList(even.getId()), ids(shards.get(0).findAll().collectList().block()));
+		assertEquals(Collections.singletonList(odd.getId()), ids(shards.get(1).findAll().collectList().block()));
+		assertEquals(Long.valueOf(1L), odd.getListId());
+	}
+
+	@Test
+	public void testGetItemsOfList() {
+		Item first = add(1L, "first");
+		add(3L, "other list");
+		Item second = add(1L, "second");
+		Item third = add(1L, "third");
+
+		List page = listService.getItems(1L, null, 2).block();
+
+		assertEquals(Arrays.asList(first.getId(), second.getId()), ids(page.getItems()));
+		assertEquals(second.getId(), page.getNextCursor());
+		assertEquals(Long.valueOf(1L), page.getItems().get(0).getListId());
+
+		page = listService.getItems(1L, page.getNextCursor(), 2).block();
+
+		assertEquals(Collections.singletonList(third.getId()), ids(page.getItems()));
+		assertNull(page.getNextCursor());
+	}
+
+	@Test
+	public void testGetItemsInvalidLimit() {
+		StepVerifier.create(listService.getItems(1L, null, 0))
+				.expectError(InvalidRequestException.class)
+				.verify();
+	}
+
+	@Test
+	public void testListsNotEnabled() {
+		ListService withoutShards = new ListService(Optional.empty(), (listId, shardCount) -> 0, properties,
+				new ServiceMetrics(new SimpleMeterRegistry()));
+
+		StepVerifier.create(withoutShards.addItem(1L, Item.builder().title("title").build()))
+				.expectError(NotFoundException.class)
+				.verify();
+	}
+
+	@Test
+	public void testGetItemOfAnotherList() {
+		Item item = add(1L, "title");
+
+		StepVerifier.create(listService.getItem(1L, item.getId()))
+				.expectNextMatches(found -> found.getTitle().equals("title"))
+				.verifyComplete();
+		StepVerifier.create(listService.getItem(3L, item.getId()))
+				.expectError(ItemNotFoundException.class)
+				.verify();
+	}
+
+	@Test
+	public void testAddItemIgnoresSentId() {
+		Item other = add(3L, "other list");
+		Item added = listService.addItem(1L, Item.builder().id(other.getId()).title("title").build()).block();
+
+		assertNotEquals(other.getId(), added.getId());
+		assertEquals("other list", listService.getItem(3L, other.getId()).block().getTitle());
+	}
+
+	@Test
+	public void testUpdateItem() {
+		Item item = add(1L, "title");
+
+		Item updated = listService.updateItem(1L, Item.builder().id(item.getId()).title("updated").build()).block();
+
+		assertEquals(Long.valueOf(1L), updated.getVersion());
+		assertEquals("updated", listService.getItem(1L, item.getId()).block().getTitle());
+	}
+
+	@Test
+	public void testUpdateItemOfAnotherList() {
+		Item item = add(1L, "title");
+
+		StepVerifier.create(listService.updateItem(3L, Item.builder().id(item.getId()).title("moved").build()))
+				.expectError(ItemNotFoundException.class)
+				.verify();
+		assertEquals(Long.valueOf(1L), listService.getItem(1L, item.getId()).block().getListId());
+	}
+
+	@Test
+	public void testUpdateItemStaleVersion() {
+		Item item = add(1L, "title");
+
+		listService.updateItem(1L, Item.builder().id(item.getId()).title("first").build()).block();
+
+		StepVerifier.create(listService.updateItem(1L,
+				Item.builder().id(item.getId()).title("second").version(item.getVersion()).build()))
+				.expectError(PreconditionFailedException.class)
+				.verify();
+	}
+
+	@Test
+	public void testDeleteItem() {
+		Item item = add(1L, "title");
+
+		StepVerifier.create(listService.deleteItem(3L, item.getId()))
+				.expectError(ItemNotFoundException.class)
+				.verify();
+
+		listService.deleteItem(1L, item.getId()).block();
+
+		StepVerifier.create(listService.getItem(1L, item.getId()))
+				.expectError(ItemNotFoundException.class)
+				.verify();
+		assertEquals(Long.valueOf(0L), shards.get(1).findTombstones(0L, Long.MAX_VALUE, 10).count().block());
+	}
+
+	private Item add(long listId, String title) {
+		return listService.addItem(listId, Item.builder().title(title).build()).block();
+	}
+
+	private static java.util.List<Long> ids(java.util.List<Item> items) {
+		return items.stream().map(Item::getId).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.felype.todolist.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.felype.todolist.config.ToDoListProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+public class ReadCoalescerTest {
+
+	private ToDoListProperties properties = new ToDoListProperties();
+
+	private ChangeCounter changeCounter = new ChangeCounter();
+
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private ReadCoalescer readCoalescer;
+
+	private AtomicInteger loads = new AtomicInteger();
+
+	private MonoProcessor<String> result;
+
+	@Before
+	public void setup() {
+		readCoalescer = new ReadCoalescer(properties, changeCounter, meterRegistry);
+		result = MonoProcessor.create();
+	}
+
+	@Test
+	public void testConcurrentReadsShareOneLoad() {
+		StepVerifier first = StepVerifier.create(read(1L)).expectNext("loaded").expectComplete().verifyLater();
+		StepVerifier second = StepVerifier.create(read(1L)).expectNext("loaded").expectComplete().verifyLater();
+
+		result.onNext("loaded");
+
+		first.verify();
+		second.verify();
+		assertEquals(1, loads.get());
+		assertEquals(1.0, count("leader"), 0.0);
+		assertEquals(1.0, count("joined"), 0.0);
+	}
+
+	@Test
+	public void testDifferentKeysLoadSeparately() {
+		read(1L).subscribe();
+		read(2L).subscribe();
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testReadAfterWriteDoesNotJoin() {
+		read(1L).subscribe();
+		changeCounter.increment();
+		read(1L).subscribe();
+		read(1L).subscribe();
+
+		assertEquals(2, loads.get());
+		assertEquals(1.0, count("joined"), 0.0);
+	}
+
+	@Test
+	public void testReadAfterLoadLoadsAgain() {
+		result.onNext("loaded");
+
+		StepVerifier.create(read(1L)).expectNext("loaded").verifyComplete();
+		StepVerifier.create(read(1L)).expectNext("loaded").verifyComplete();
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testErrorSharedAndCleared() {
+		StepVerifier first = StepVerifier.create(read(1L)).expectError(IllegalStateException.class).verifyLater();
+		StepVerifier second = StepVerifier.create(read(1L)).expectError(IllegalStateException.class).verifyLater();
+
+		result.onError(new IllegalStateException());
+
+		first.verify();
+		second.verify();
+
+		result = MonoProcessor.create();
+		result.onNext("loaded");
+
+		StepVerifier.create(read(1L)).expectNext("loaded").verifyComplete();
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testDisabled() {
+		properties.getCoalescing().setEnabled(false);
+		readCoalescer = new ReadCoalescer(properties, changeCounter, meterRegistry);
+
+		read(1L).subscribe();
+		read(1L).subscribe();
+
+		assertEquals(2, loads.get());
+	}
+
+	private Mono<String> read(long key) {
+		return readCoalescer.coalesce("read", key, () -> {
+			loads.incrementAndGet();
+
+			return result;
+		});
+	}
+
+	private double count(String role) {
+		return meterRegistry.get(ReadCoalescer.COUNTER_NAME).tag("role", role).counter().count();
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.felype.todolist.service;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.repository.routing.ReplicaRoute;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class ReplicaReadsTest {
+
+	private static final Mono<Boolean> ROUTE = Mono.subscriberContext().map(ReplicaRoute::isAllowed);
+
+	private final ToDoListProperties properties = new ToDoListProperties();
+
+	@After
+	public void clearClient() {
+		ReplicaReads.setClient(null);
+	}
+
+	@Test
+	public void testDisabled() {
+		ReplicaReads replicaReads = replicaReads(false, Duration.ZERO);
+
+		ReplicaReads.setClient("key:a");
+
+		assertFalse(ROUTE.transform(replicaReads.forClient()).block());
+		assertFalse(ROUTE.transform(replicaReads.shared()).block());
+	}
+
+	@Test
+	public void testClientReadsOwnWritesFromPrimary() {
+		ReplicaReads replicaReads = replicaReads(true, Duration.ofHours(1));
+
+		replicaReads.written("key:a");
+		ReplicaReads.setClient("key:a");
+
+		assertFalse(ROUTE.transform(replicaReads.forClient()).block());
+
+		ReplicaReads.setClient("key:b");
+
+		assertTrue(ROUTE.transform(replicaReads.forClient()).block());
+		assertTrue(Flux.from(ROUTE).transform(replicaReads.streamForClient()).blockFirst());
+	}
+
+	@Test
+	public void testClientFromSubscriberContext() {
+		ReplicaReads replicaReads = replicaReads(true, Duration.ofHours(1));
+
+		replicaReads.written("key:a");
+		ReplicaReads.setClient("key:b");
+
+		Mono<Boolean> route = ROUTE.transform(replicaReads.forClient());
+
+		assertFalse(route.subscriberContext(context -> ReplicaReads.withClient(context, "key:a")).block());
+	}
+
+	@Test
+	public void testReadsWithoutClientFromPrimary() {
+		ReplicaReads replicaReads = replicaReads(true, Duration.ofHours(1));
+
+		assertFalse(ROUTE.transform(replicaReads.forClient()).block());
+	}
+
+	@Test
+	public void testSharedReadsFromPrimaryAfterAnyWrite() {
+		ReplicaReads replicaReads = replicaReads(true, Duration.ofHours(1));
+
+		assertTrue(ROUTE.transform(replicaReads.shared()).block());
+
+		replicaReads.written("key:a");
+
+		assertFalse(ROUTE.transform(replicaReads.shared()).block());
+	}
+
+	@Test
+	public void testReplicaReadsPastWindow() throws InterruptedException {
+		ReplicaReads replicaReads = replicaReads(true, Duration.ofMillis(1));
+
+		replicaReads.written("key:a");
+		ReplicaReads.setClient("key:a");
+		Thread.sleep(10);
+
+		assertTrue(ROUTE.transform(replicaReads.forClient()).block());
+		assertTrue(ROUTE.transform(replicaReads.shared()).block());
+	}
+
+	private ReplicaReads replicaReads(boolean enabled, Duration window) {
+		properties.getReplicas().setEnabled(enabled);
+		properties.getReplicas().setReadYourWritesWindow(window);
+
+		return new ReplicaReads(properties);
+	}
+
+}
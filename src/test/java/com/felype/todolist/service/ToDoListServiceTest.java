@@ -1,53 +1,117 @@
 package com.felype.todolist.service;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+import javax.validation.Validator;
 
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.felype.todolist.config.ToDoListProperties;
 import com.felype.todolist.exception.BackendServiceException;
+import com.felype.todolist.exception.ChangesExpiredException;
+import com.felype.todolist.exception.InvalidRequestException;
 import com.felype.todolist.exception.ItemNotFoundException;
+import com.felype.todolist.exception.PreconditionFailedException;
+import com.felype.todolist.exception.ServiceUnavailableException;
 import com.felype.todolist.mock.MockObjects;
+import com.felype.todolist.model.BatchItemResult;
+import com.felype.todolist.model.BatchResult;
 import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemChanges;
+import com.felype.todolist.model.ItemEvent;
+import com.felype.todolist.model.ItemTombstone;
 import com.felype.todolist.model.List;
-import com.felype.todolist.repository.ItemRepository;
-
+import com.felype.todolist.repository.BlockingItemStoreAdapter;
+import com.felype.todolist.repository.ItemQuery;
+import com.felype.todolist.repository.ItemStore;
+import com.felype.todolist.repository.ReactiveItemStore;
+import com.felype.todolist.service.search.SearchIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ToDoListServiceTest {
 
-	@InjectMocks
 	private ToDoListService toDoListService;
 
 	@Mock
-	private ItemRepository itemRepository;
+	private ItemStore itemStore;
+
+	@Spy
+	private ToDoListProperties properties = new ToDoListProperties();
+
+	private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private ChangeCounter changeCounter = new ChangeCounter();
+
+	private SearchIndex searchIndex;
+
+	@Before
+	public void setup() {
+		searchIndex = new SearchIndex(properties, store(Schedulers.immediate()), meterRegistry);
+		toDoListService = service(Schedulers.immediate());
+	}
+
+	private ToDoListService service(Scheduler scheduler) {
+		return new ToDoListService(store(scheduler), properties, validator,
+				new ItemCache(properties, changeCounter, meterRegistry), new ServiceMetrics(meterRegistry), changeCounter,
+				new ChangeSequence(store(Schedulers.immediate())), new ItemEvents(properties, meterRegistry), searchIndex,
+				new ReadCoalescer(properties, changeCounter, meterRegistry),
+				new EncodedItems(properties, store(Schedulers.immediate()), changeCounter, new ObjectMapper()),
+				new ReplicaReads(properties));
+	}
+
+	private ReactiveItemStore store(Scheduler scheduler) {
+		return new BlockingItemStoreAdapter(itemStore, scheduler, TransactionOperations.withoutTransaction());
+	}
 
 	@Test
 	public void testAddItem() {
 		Item item = MockObjects.item();
 
-		when(itemRepository.save(any())).thenReturn(item);
+		when(itemStore.save(any())).thenReturn(item);
 
 		StepVerifier.create(toDoListService.addItem(item)).expectNext(item).verifyComplete();
 	}
 
 	@Test
 	public void testAddInvalidItemTitleEmpty() {
-		when(itemRepository.save(any())).thenThrow(new ConstraintViolationException(null));
+		when(itemStore.save(any())).thenThrow(new ConstraintViolationException(null));
 
 		StepVerifier.create(toDoListService.addItem(MockObjects.invalidItem()))
 				.expectError(BackendServiceException.class).verify();
@@ -55,7 +119,7 @@ public class ToDoListServiceTest {
 
 	@Test
 	public void testAddItemUnexpectedError() {
-		when(itemRepository.save(any())).thenThrow(RuntimeException.class);
+		when(itemStore.save(any())).thenThrow(RuntimeException.class);
 
 		StepVerifier.create(toDoListService.addItem(MockObjects.item())).expectError(BackendServiceException.class)
 				.verify();
@@ -65,7 +129,7 @@ public class ToDoListServiceTest {
 	public void testGetItems() {
 		List items = MockObjects.itemList();
 
-		when(itemRepository.findAll()).thenReturn(items.getItems());
+		when(itemStore.findAll()).thenReturn(items.getItems());
 
 		StepVerifier.create(toDoListService.getItems()).expectNext(items).verifyComplete();
 	}
@@ -76,46 +140,381 @@ public class ToDoListServiceTest {
 				.verify();
 	}
 
+	@Test
+	public void testGetItemsPage() {
+		when(itemStore.findPage(eq(1L), anyInt()))
+				.thenReturn(Arrays.asList(MockObjects.item(2L), MockObjects.item(3L), MockObjects.item(4L)));
+
+		StepVerifier.create(toDoListService.getItems(1L, 2))
+				.expectNext(List.builder().items(Arrays.asList(MockObjects.item(2L), MockObjects.item(3L)))
+						.nextCursor(3L).build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testGetItemsLastPage() {
+		when(itemStore.findPage(eq(0L), anyInt()))
+				.thenReturn(Arrays.asList(MockObjects.item(1L), MockObjects.item(2L)));
+
+		StepVerifier.create(toDoListService.getItems(null, 2))
+				.expectNext(List.builder().items(Arrays.asList(MockObjects.item(1L), MockObjects.item(2L))).build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testGetItemsInvalidLimit() {
+		StepVerifier.create(toDoListService.getItems(null, 0)).expectError(InvalidRequestException.class).verify();
+	}
+
+	@Test
+	public void testFindItems() {
+		when(itemStore.findItems(ItemQuery.builder().titlePrefix("Buy").order(ItemQuery.Order.ID_DESC)
+				.fields(EnumSet.of(ItemQuery.Field.TITLE)).after(9L).limit(3).build()))
+				.thenReturn(Arrays.asList(MockObjects.item(8L), MockObjects.item(7L), MockObjects.item(6L)));
+
+		StepVerifier.create(toDoListService.findItems("Buy", "-id", "id,title", 9L, 2))
+				.expectNext(List.builder().items(Arrays.asList(MockObjects.item(8L), MockObjects.item(7L)))
+						.nextCursor(7L).build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testFindItemsByTitle() {
+		when(itemStore.findItems(ItemQuery.builder().order(ItemQuery.Order.TITLE).offset(4L).limit(3).build()))
+				.thenReturn(Arrays.asList(MockObjects.item(8L), MockObjects.item(7L), MockObjects.item(6L)));
+
+		StepVerifier.create(toDoListService.findItems(null, "title", null, 4L, 2))
+				.expectNext(List.builder().items(Arrays.asList(MockObjects.item(8L), MockObjects.item(7L)))
+						.nextCursor(6L).build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testFindItemsInvalidSort() {
+		StepVerifier.create(toDoListService.findItems(null, "description", null, null, null))
+				.expectError(InvalidRequestException.class).verify();
+	}
+
+	@Test
+	public void testFindItemsInvalidFields() {
+		StepVerifier.create(toDoListService.findItems(null, null, "title,change_seq", null, null))
+				.expectError(InvalidRequestException.class).verify();
+	}
+
+	@Test
+	public void testSearchBeforeIndexReady() {
+		when(itemStore.search(Collections.singletonList("title"), 1L, 3))
+				.thenReturn(Arrays.asList(MockObjects.item(2L), MockObjects.item(3L), MockObjects.item(4L)));
+
+		StepVerifier.create(toDoListService.search("Title", 1L, 2))
+				.expectNext(List.builder().items(Arrays.asList(MockObjects.item(2L), MockObjects.item(3L)))
+						.nextCursor(3L).build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testSearchIndexed() {
+		when(itemStore.findPage(eq(0L), anyInt()))
+				.thenReturn(Arrays.asList(MockObjects.item(1L), MockObjects.item(2L), MockObjects.item(3L)));
+		when(itemStore.findAllById(Arrays.asList(1L, 2L)))
+				.thenReturn(Collections.singletonList(MockObjects.item(2L)));
+
+		searchIndex.rebuild().block();
+
+		StepVerifier.create(toDoListService.search("tit*", null, 2))
+				.expectNext(List.builder().items(Collections.singletonList(MockObjects.item(2L))).nextCursor(2L).build())
+				.verifyComplete();
+		verify(itemStore, times(0)).search(any(), anyLong(), anyInt());
+	}
+
+	@Test
+	public void testSearchIndexesWrites() {
+		Item item = Item.builder().id(1L).title("Buy milk").changeSeq(1L).build();
+
+		when(itemStore.save(any())).thenReturn(item);
+		when(itemStore.findAllById(Collections.singletonList(1L))).thenReturn(Collections.singletonList(item));
+
+		searchIndex.rebuild().block();
+		toDoListService.addItem(item).block();
+
+		StepVerifier.create(toDoListService.search("milk", null, null))
+				.expectNext(List.builder().items(Collections.singletonList(item)).build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testSearchEmptyQuery() {
+		StepVerifier.create(toDoListService.search(" -- ", null, null)).expectError(InvalidRequestException.class)
+				.verify();
+	}
+
+	@Test
+	public void testStreamItems() {
+		properties.getPagination().setStreamBatchSize(2);
+
+		when(itemStore.findPage(eq(0L), anyInt()))
+				.thenReturn(Arrays.asList(MockObjects.item(1L), MockObjects.item(2L)));
+		when(itemStore.findPage(eq(2L), anyInt()))
+				.thenReturn(Collections.singletonList(MockObjects.item(3L)));
+
+		StepVerifier.create(toDoListService.streamItems())
+				.expectNext(MockObjects.item(1L), MockObjects.item(2L), MockObjects.item(3L))
+				.verifyComplete();
+
+		verify(itemStore, times(2)).findPage(anyLong(), anyInt());
+	}
+
+	@Test
+	public void testStreamItemsUnexpectedError() {
+		when(itemStore.findPage(anyLong(), anyInt())).thenThrow(RuntimeException.class);
+
+		StepVerifier.create(toDoListService.streamItems()).expectError(BackendServiceException.class).verify();
+	}
+
+	@Test
+	public void testGetChanges() {
+		Item first = MockObjects.item(1L).setChangeSeq(3L);
+		Item second = MockObjects.item(2L).setChangeSeq(5L);
+
+		when(itemStore.findChanged(eq(2L), anyLong(), eq(3))).thenReturn(Arrays.asList(first, second));
+		when(itemStore.findTombstones(eq(2L), anyLong(), eq(3)))
+				.thenReturn(Arrays.asList(ItemTombstone.builder().itemId(7L).changeSeq(4L).build()));
+
+		StepVerifier.create(toDoListService.getChanges(2L, 2))
+				.expectNext(ItemChanges.builder().items(Arrays.asList(first)).deletedIds(Arrays.asList(7L))
+						.highWaterMark(4L).hasMore(true).build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testGetChangesUpToHighWaterMark() {
+		when(itemStore.save(any())).thenReturn(MockObjects.item());
+
+		StepVerifier.create(toDoListService.addItem(MockObjects.item(null))).expectNextCount(1).verifyComplete();
+
+		when(itemStore.findChanged(eq(0L), eq(1L), anyInt())).thenReturn(Collections.emptyList());
+
+		StepVerifier.create(toDoListService.getChanges(0L, null))
+				.expectNext(ItemChanges.builder().items(Collections.emptyList()).deletedIds(Collections.emptyList())
+						.highWaterMark(1L).build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testGetChangesCompacted() {
+		when(itemStore.getCompactedChangeSeq()).thenReturn(10L);
+
+		StepVerifier.create(toDoListService.getChanges(5L, null)).expectError(ChangesExpiredException.class).verify();
+	}
+
+	@Test
+	public void testGetChangesInvalidSince() {
+		StepVerifier.create(toDoListService.getChanges(-1L, null)).expectError(InvalidRequestException.class).verify();
+	}
+
+	@Test
+	public void testStreamEvents() {
+		Item item = MockObjects.item();
+
+		when(itemStore.save(any())).thenReturn(item);
+
+		StepVerifier.create(toDoListService.streamEvents(null))
+				.then(() -> toDoListService.addItem(MockObjects.item(null)).block())
+				.expectNext(ItemEvent.builder().type(ItemEvent.Type.CREATED).id(1L).item(item).eventId(1L).build())
+				.thenCancel()
+				.verify();
+	}
+
+	@Test
+	public void testAddItemCancelledWhileWriting() {
+		Item item = MockObjects.item();
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch released = new CountDownLatch(1);
+
+		when(itemStore.save(any())).thenAnswer(invocation -> {
+			writing.countDown();
+			released.await(10, TimeUnit.SECONDS);
+
+			return item;
+		});
+		when(itemStore.findChanged(anyLong(), anyLong(), anyInt())).thenReturn(Collections.emptyList());
+
+		toDoListService = service(Schedulers.elastic());
+		String tag = toDoListService.getChangeTag().block();
+
+		StepVerifier.create(toDoListService.streamEvents(null))
+				.then(() -> {
+					Disposable client = toDoListService.addItem(MockObjects.item(null)).subscribe();
+
+					await(writing);
+					client.dispose();
+
+					// Still in flight, so not yet visible to delta sync.
+					assertEquals(0L, (long) toDoListService.getChanges(0L, null).block().getHighWaterMark());
+
+					released.countDown();
+				})
+				.expectNext(ItemEvent.builder().type(ItemEvent.Type.CREATED).id(1L).item(item).eventId(1L).build())
+				.thenCancel()
+				.verify(Duration.ofSeconds(10));
+
+		assertEquals(1L, (long) toDoListService.getChanges(0L, null).block().getHighWaterMark());
+		assertNotEquals(tag, toDoListService.getChangeTag().block());
+	}
+
+	@Test
+	public void testStreamEventsResume() {
+		when(itemStore.getHighestChangeSeq()).thenReturn(5L);
+		setup();
+
+		Item updated = MockObjects.item().setVersion(2L).setChangeSeq(4L);
+
+		when(itemStore.findChanged(eq(3L), eq(5L), anyInt())).thenReturn(Arrays.asList(updated));
+		when(itemStore.findTombstones(eq(3L), eq(5L), anyInt()))
+				.thenReturn(Arrays.asList(ItemTombstone.builder().itemId(7L).changeSeq(5L).build()));
+
+		StepVerifier.create(toDoListService.streamEvents(3L))
+				.expectNext(ItemEvent.updated(updated))
+				.expectNext(ItemEvent.builder().type(ItemEvent.Type.DELETED).id(7L).eventId(5L).build())
+				.thenCancel()
+				.verify();
+	}
+
+	@Test
+	public void testStreamEventsResumeCompacted() {
+		Item created = MockObjects.item().setVersion(0L).setChangeSeq(12L);
+
+		when(itemStore.getCompactedChangeSeq()).thenReturn(10L);
+		when(itemStore.findChanged(eq(0L), anyLong(), anyInt())).thenReturn(Arrays.asList(created));
+
+		StepVerifier.create(toDoListService.streamEvents(5L))
+				.expectNext(ItemEvent.reset())
+				.assertNext(event -> assertEquals(ItemEvent.Type.CREATED, event.getType()))
+				.thenCancel()
+				.verify();
+	}
+
 	@Test
 	public void testGetItem() {
 		Item item = MockObjects.item();
 
-		when(itemRepository.findById(any())).thenReturn(Optional.of(item));
+		when(itemStore.findById(anyLong())).thenReturn(Optional.of(item));
 
 		StepVerifier.create(toDoListService.getItem(item.getId())).expectNext(item).verifyComplete();
 	}
 
+	@Test
+	public void testGetItemCached() {
+		Item item = MockObjects.item();
+
+		when(itemStore.findById(anyLong())).thenReturn(Optional.of(item));
+
+		StepVerifier.create(toDoListService.getItem(item.getId())).expectNext(item).verifyComplete();
+		StepVerifier.create(toDoListService.getItem(item.getId())).expectNext(item).verifyComplete();
+
+		verify(itemStore, times(1)).findById(eq(item.getId()));
+		assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "items", "result", "hit")
+				.functionCounter().count(), 0.0);
+	}
+
+	@Test
+	public void testGetItemCacheDisabled() {
+		properties.getCache().setEnabled(false);
+		setup();
+
+		Item item = MockObjects.item();
+
+		when(itemStore.findById(anyLong())).thenReturn(Optional.of(item));
+
+		StepVerifier.create(toDoListService.getItem(item.getId())).expectNext(item).verifyComplete();
+		StepVerifier.create(toDoListService.getItem(item.getId())).expectNext(item).verifyComplete();
+
+		verify(itemStore, times(2)).findById(eq(item.getId()));
+	}
+
+	@Test
+	public void testUpdateItemEvictsCache() {
+		Item item = MockObjects.item();
+		Item updatedItem = MockObjects.item().setTitle("updated");
+
+		when(itemStore.findById(anyLong())).thenReturn(Optional.of(item), Optional.of(updatedItem));
+		when(itemStore.save(any())).thenReturn(updatedItem);
+
+		StepVerifier.create(toDoListService.getItem(item.getId())).expectNext(item).verifyComplete();
+		StepVerifier.create(toDoListService.updateItem(updatedItem)).expectNext(updatedItem).verifyComplete();
+		StepVerifier.create(toDoListService.getItem(item.getId())).expectNext(updatedItem).verifyComplete();
+	}
+
+	@Test
+	public void testAddItemInvalidatesCachedItems() {
+		List items = MockObjects.itemList();
+		Item item = MockObjects.item(4L);
+
+		when(itemStore.findAll()).thenReturn(items.getItems());
+		when(itemStore.save(any())).thenReturn(item);
+
+		StepVerifier.create(toDoListService.getItems()).expectNext(items).verifyComplete();
+		StepVerifier.create(toDoListService.getItems()).expectNext(items).verifyComplete();
+		StepVerifier.create(toDoListService.addItem(item)).expectNext(item).verifyComplete();
+		StepVerifier.create(toDoListService.getItems()).expectNext(items).verifyComplete();
+
+		verify(itemStore, times(2)).findAll();
+	}
+
 	@Test
 	public void testGetItemNotFound() {
-		when(itemRepository.findById(any())).thenThrow(ItemNotFoundException.class);
+		when(itemStore.findById(anyLong())).thenThrow(ItemNotFoundException.class);
 
 		StepVerifier.create(toDoListService.getItem(5L)).expectError(ItemNotFoundException.class).verify();
 	}
 
+	@Test
+	public void testGetItemTimedByOutcome() {
+		when(itemStore.findById(1L)).thenReturn(Optional.of(MockObjects.item()));
+		when(itemStore.findById(5L)).thenReturn(Optional.empty());
+
+		StepVerifier.create(toDoListService.getItem(1L)).expectNextCount(1).verifyComplete();
+		StepVerifier.create(toDoListService.getItem(5L)).expectError(ItemNotFoundException.class).verify();
+
+		assertEquals(1L, meterRegistry.get("todolist.service").tags("operation", "getItem", "outcome", "success")
+				.timer().count());
+		assertEquals(1L, meterRegistry.get("todolist.service").tags("operation", "getItem", "outcome", "not_found")
+				.timer().count());
+	}
+
 	@Test
 	public void testGetItemUnexpectedError() {
-		when(itemRepository.findById(any())).thenThrow(RuntimeException.class);
+		when(itemStore.findById(anyLong())).thenThrow(RuntimeException.class);
 
 		StepVerifier.create(toDoListService.getItem(5L)).expectError(BackendServiceException.class).verify();
 	}
 
+	@Test
+	public void testGetItemSchedulerSaturated() {
+		toDoListService = service(Schedulers.fromExecutor(command -> {
+			throw new RejectedExecutionException();
+		}));
+
+		StepVerifier.create(toDoListService.getItem(5L)).expectError(ServiceUnavailableException.class).verify();
+	}
+
 	@Test
 	public void testDeleteItem() {
 		StepVerifier.create(toDoListService.deleteItem(1L)).verifyComplete();
 
-		verify(itemRepository, times(1)).deleteById(eq(1L));
+		verify(itemStore, times(1)).deleteById(eq(1L), anyLong());
 	}
 
 	@Test
 	public void testDeleteItemNotFound() {
-		Mockito.doThrow(EmptyResultDataAccessException.class).when(itemRepository).deleteById(any());
+		Mockito.doThrow(EmptyResultDataAccessException.class).when(itemStore).deleteById(anyLong(), anyLong());
 
 		StepVerifier.create(toDoListService.deleteItem(1L)).expectError(ItemNotFoundException.class).verify();
 	}
 
 	@Test
 	public void testDeleteItemUnexpectedError() {
-		Mockito.doThrow(RuntimeException.class).when(itemRepository).deleteById(any());
+		Mockito.doThrow(RuntimeException.class).when(itemStore).deleteById(anyLong(), anyLong());
 
 		StepVerifier.create(toDoListService.deleteItem(1L)).expectError(BackendServiceException.class).verify();
 	}
@@ -124,14 +523,61 @@ public class ToDoListServiceTest {
 	public void testUpdateItem() {
 		Item item = MockObjects.item();
 
-		when(itemRepository.save(any())).thenReturn(item);
+		when(itemStore.save(any())).thenReturn(item);
+
+		StepVerifier.create(toDoListService.updateItem(item)).expectNext(item).verifyComplete();
+	}
+
+	@Test
+	public void testWriteElsewhereChangesTag() {
+		List items = MockObjects.itemList();
+
+		when(itemStore.findAll()).thenReturn(items.getItems());
+
+		String tag = toDoListService.getChangeTag().block();
+
+		StepVerifier.create(toDoListService.getItems()).expectNext(items).verifyComplete();
+
+		// Another instance writes to the same store.
+		when(itemStore.getHighestChangeSeq()).thenReturn(7L);
+
+		assertNotEquals(tag, toDoListService.getChangeTag().block());
+
+		StepVerifier.create(toDoListService.getItems()).expectNext(items).verifyComplete();
+
+		verify(itemStore, times(2)).findAll();
+
+		// Numbers handed out elsewhere are not handed out again.
+		when(itemStore.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		StepVerifier.create(toDoListService.addItem(MockObjects.item()))
+				.assertNext(saved -> assertEquals(8L, (long) saved.getChangeSeq()))
+				.verifyComplete();
+	}
+
+	@Test
+	public void testUpdateItemStaleVersion() {
+		when(itemStore.save(any())).thenThrow(new OptimisticLockingFailureException("stale"));
+
+		StepVerifier.create(toDoListService.updateItem(MockObjects.item().setVersion(1L)))
+				.expectError(PreconditionFailedException.class).verify();
+	}
+
+	@Test
+	public void testUpdateItemChangesTag() {
+		Item item = MockObjects.item();
+		String tag = toDoListService.getChangeTag().block();
+
+		when(itemStore.save(any())).thenReturn(item);
 
 		StepVerifier.create(toDoListService.updateItem(item)).expectNext(item).verifyComplete();
+
+		assertNotEquals(tag, toDoListService.getChangeTag().block());
 	}
 
 	@Test
 	public void testUpdateInvalidItemTitleEmpty() {
-		when(itemRepository.save(any())).thenThrow(new ConstraintViolationException(null));
+		when(itemStore.save(any())).thenThrow(new ConstraintViolationException(null));
 
 		StepVerifier.create(toDoListService.updateItem(MockObjects.invalidItem()))
 				.expectError(BackendServiceException.class).verify();
@@ -139,10 +585,116 @@ public class ToDoListServiceTest {
 
 	@Test
 	public void testUpdateItemUnexpectedError() {
-		when(itemRepository.save(any())).thenThrow(RuntimeException.class);
+		when(itemStore.save(any())).thenThrow(RuntimeException.class);
 
 		StepVerifier.create(toDoListService.updateItem(MockObjects.item())).expectError(BackendServiceException.class)
 				.verify();
 	}
 
+	@Test
+	public void testAddItems() {
+		when(itemStore.saveAll(any())).thenReturn(Arrays.asList(MockObjects.item(1L), MockObjects.item(2L)));
+
+		StepVerifier.create(toDoListService.addItems(
+				Arrays.asList(MockObjects.item(null), MockObjects.invalidItem(), MockObjects.item(null))))
+				.expectNext(BatchResult.builder().results(Arrays.asList(
+						BatchItemResult.builder().index(0).id(1L).status(201).item(MockObjects.item(1L)).build(),
+						BatchItemResult.builder().index(1).status(400).error("title must not be empty").build(),
+						BatchItemResult.builder().index(2).id(2L).status(201).item(MockObjects.item(2L)).build()))
+						.build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testAddItemsNullElement() {
+		when(itemStore.saveAll(any())).thenReturn(Collections.singletonList(MockObjects.item(1L)));
+
+		StepVerifier.create(toDoListService.addItems(Arrays.asList(null, MockObjects.item(null))))
+				.expectNext(BatchResult.builder().results(Arrays.asList(
+						BatchItemResult.builder().index(0).status(400).error("Item must not be null.").build(),
+						BatchItemResult.builder().index(1).id(1L).status(201).item(MockObjects.item(1L)).build()))
+						.build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testAddItemsTooLarge() {
+		properties.getBatch().setMaxSize(1);
+
+		StepVerifier.create(toDoListService.addItems(Arrays.asList(MockObjects.item(null), MockObjects.item(null))))
+				.expectError(InvalidRequestException.class).verify();
+
+		verify(itemStore, times(0)).saveAll(any());
+	}
+
+	@Test
+	public void testAddItemsUnexpectedError() {
+		when(itemStore.saveAll(any())).thenThrow(RuntimeException.class);
+
+		StepVerifier.create(toDoListService.addItems(Collections.singletonList(MockObjects.item(null))))
+				.expectError(BackendServiceException.class).verify();
+	}
+
+	@Test
+	public void testUpdateItems() {
+		when(itemStore.findAllById(any())).thenReturn(Collections.singletonList(MockObjects.item(1L)));
+		when(itemStore.saveAll(any())).thenReturn(Collections.singletonList(MockObjects.item(1L)));
+
+		StepVerifier.create(toDoListService.updateItems(Arrays.asList(MockObjects.item(1L), MockObjects.item(2L))))
+				.expectNext(BatchResult.builder().results(Arrays.asList(
+						BatchItemResult.builder().index(0).id(1L).status(202).item(MockObjects.item(1L)).build(),
+						BatchItemResult.builder().index(1).id(2L).status(404).error("Item not found.").build()))
+						.build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testUpdateItemsNullElement() {
+		when(itemStore.findAllById(any())).thenReturn(Collections.singletonList(MockObjects.item(1L)));
+		when(itemStore.saveAll(any())).thenReturn(Collections.singletonList(MockObjects.item(1L)));
+
+		StepVerifier.create(toDoListService.updateItems(Arrays.asList(MockObjects.item(1L), null)))
+				.expectNext(BatchResult.builder().results(Arrays.asList(
+						BatchItemResult.builder().index(0).id(1L).status(202).item(MockObjects.item(1L)).build(),
+						BatchItemResult.builder().index(1).status(400).error("Item must not be null.").build()))
+						.build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void testDeleteItems() {
+		when(itemStore.findAllById(any())).thenReturn(Collections.singletonList(MockObjects.item(1L)));
+
+		StepVerifier.create(toDoListService.deleteItems(Arrays.asList(1L, 2L)))
+				.expectNext(BatchResult.builder().results(Arrays.asList(
+						BatchItemResult.builder().index(0).id(1L).status(204).build(),
+						BatchItemResult.builder().index(1).id(2L).status(404).error("Item not found.").build()))
+						.build())
+				.verifyComplete();
+
+		verify(itemStore, times(1)).deleteAll(eq(Collections.singletonList(MockObjects.item(1L).setChangeSeq(1L))));
+	}
+
+	@Test
+	public void testDeleteItemsNullId() {
+		when(itemStore.findAllById(any())).thenReturn(Collections.singletonList(MockObjects.item(1L)));
+
+		StepVerifier.create(toDoListService.deleteItems(Arrays.asList(null, 1L)))
+				.expectNext(BatchResult.builder().results(Arrays.asList(
+						BatchItemResult.builder().index(0).status(400).error("Item ID is invalid.").build(),
+						BatchItemResult.builder().index(1).id(1L).status(204).build()))
+						.build())
+				.verifyComplete();
+
+		verify(itemStore).findAllById(eq(Collections.singletonList(1L)));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 }
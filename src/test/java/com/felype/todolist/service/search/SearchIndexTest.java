@@ -0,0 +1,183 @@
+package com.felype.todolist.service.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.felype.todolist.config.ToDoListProperties;
+import com.felype.todolist.model.Item;
+import com.felype.todolist.model.ItemEvent;
+import com.felype.todolist.repository.BlockingItemStoreAdapter;
+import com.felype.todolist.repository.memory.InMemoryItemStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.scheduler.Schedulers;
+
+public class SearchIndexTest {
+
+	private ToDoListProperties properties = new ToDoListProperties();
+
+	private InMemoryItemStore itemStore = new InMemoryItemStore();
+
+	private SearchIndex searchIndex;
+
+	@Before
+	public void setup() {
+		searchIndex = new SearchIndex(properties,
+				new BlockingItemStoreAdapter(itemStore, Schedulers.immediate(), TransactionOperations.withoutTransaction()),
+				new SimpleMeterRegistry());
+	}
+
+	@Test
+	public void testParseQuery() {
+		SearchQuery query = SearchQuery.parse("  Milk* and BREAD, milk  ");
+
+		assertEquals(Arrays.asList("milk", "and", "bread"), query.getTerms());
+		assertTrue(query.isPrefix("milk"));
+		assertFalse(query.isPrefix("bread"));
+		assertTrue(SearchQuery.parse(" *, ").isEmpty());
+	}
+
+	@Test
+	public void testSearchRanksTitleMatchesFirst() {
+		created(1L, "Groceries", "Milk and bread");
+		created(2L, "Milk", null);
+		created(3L, "Walk the dog", null);
+
+		assertEquals(Arrays.asList(2L, 1L), search("milk"));
+	}
+
+	@Test
+	public void testSearchMatchesEveryTerm() {
+		created(1L, "Buy milk", "Whole milk");
+		created(2L, "Buy bread", null);
+
+		assertEquals(Collections.singletonList(1L), search("buy milk"));
+		assertEquals(Collections.emptyList(), search("milk bread"));
+		assertEquals(Collections.emptyList(), search("cheese"));
+	}
+
+	@Test
+	public void testSearchPrefix() {
+		created(1L, "Milk", null);
+		created(2L, "Milkshake", null);
+		created(3L, "Mild salsa", null);
+
+		assertEquals(Arrays.asList(1L, 2L), search("milk*"));
+		assertEquals(Arrays.asList(1L, 2L, 3L), search("mil*"));
+		assertEquals(Collections.emptyList(), search("milks"));
+	}
+
+	@Test
+	public void testSearchPage() {
+		for (long id = 1; id <= 5; id++) {
+			created(id, "Item " + id, null);
+		}
+
+		assertEquals(Arrays.asList(3L, 4L), searchIndex.search(SearchQuery.parse("item"), 2, 2));
+		assertEquals(Collections.singletonList(5L), searchIndex.search(SearchQuery.parse("item"), 4, 2));
+		assertEquals(Collections.emptyList(), searchIndex.search(SearchQuery.parse("item"), 5, 2));
+	}
+
+	@Test
+	public void testUpdateReplacesTerms() {
+		created(1L, "Buy milk", null);
+		searchIndex.apply(Collections.singletonList(ItemEvent.updated(item(1L, "Buy bread", null, 2L))));
+
+		assertEquals(Collections.emptyList(), search("milk"));
+		assertEquals(Collections.singletonList(1L), search("bread"));
+		assertEquals(1, searchIndex.size());
+	}
+
+	@Test
+	public void testOlderVersionIgnored() {
+		searchIndex.apply(Collections.singletonList(ItemEvent.updated(item(1L, "Buy bread", null, 5L))));
+		searchIndex.apply(Collections.singletonList(ItemEvent.updated(item(1L, "Buy milk", null, 4L))));
+
+		assertEquals(Collections.singletonList(1L), search("bread"));
+		assertEquals(Collections.emptyList(), search("milk"));
+	}
+
+	@Test
+	public void testDelete() {
+		created(1L, "Buy milk", null);
+		created(2L, "Drink milk", null);
+		searchIndex.apply(Collections.singletonList(ItemEvent.deleted(1L)));
+
+		assertEquals(Collections.singletonList(2L), search("milk"));
+		assertEquals(1, searchIndex.size());
+	}
+
+	@Test
+	public void testDeleteCompacts() {
+		List<ItemEvent> events = new ArrayList<>();
+
+		for (long id = 1; id <= 3000; id++) {
+			events.add(ItemEvent.created(item(id, id % 3 == 0 ? "Keep " + id : "Drop " + id, null, id)));
+		}
+
+		searchIndex.apply(events);
+		events.clear();
+
+		for (long id = 1; id <= 3000; id++) {
+			if (id % 3 != 0) {
+				events.add(ItemEvent.deleted(id));
+			}
+		}
+
+		searchIndex.apply(events);
+
+		assertEquals(1000, searchIndex.size());
+		assertEquals(Collections.emptyList(), search("drop"));
+		assertEquals(1000, search("keep").size());
+		assertEquals(Collections.singletonList(2997L), search("keep 2997"));
+	}
+
+	@Test
+	public void testRebuild() {
+		properties.getSearch().setRebuildBatchSize(2);
+
+		for (int i = 0; i < 5; i++) {
+			itemStore.save(Item.builder().title("Item " + i).build());
+		}
+
+		assertFalse(searchIndex.isReady());
+
+		searchIndex.rebuild().block();
+
+		assertTrue(searchIndex.isReady());
+		assertEquals(5, searchIndex.size());
+		assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), searchIndex.search(SearchQuery.parse("item"), 0, 10));
+	}
+
+	@Test
+	public void testIndexDisabled() {
+		properties.getSearch().setIndexEnabled(false);
+
+		created(1L, "Buy milk", null);
+
+		assertEquals(0, searchIndex.size());
+	}
+
+	private void created(long id, String title, String description) {
+		searchIndex.apply(Collections.singletonList(ItemEvent.created(item(id, title, description, id))));
+	}
+
+	private List<Long> search(String query) {
+		return searchIndex.search(SearchQuery.parse(query), 0, 10000);
+	}
+
+	private static Item item(long id, String title, String description, long changeSeq) {
+		return Item.builder().id(id).title(title).description(description).version(0L).changeSeq(changeSeq).build();
+	}
+
+}